@@ -111,6 +111,8 @@ public class AndroidPlatform implements PlatformService {
 
     private InfoService             infoService;
 
+    private ImageEncoder            imageEncoder;
+
     private PositionServiceExtended positionService;
 
     private Vibrator                vibrator;
@@ -166,6 +168,14 @@ public class AndroidPlatform implements PlatformService {
         return infoService;
     }
 
+    @Override
+    public ImageEncoder getImageEncoder() {
+        if (imageEncoder == null) {
+            imageEncoder = new AndroidImageEncoder();
+        }
+        return imageEncoder;
+    }
+
     @Override
     public PositionServiceExtended getPositionService() {
         if (positionService == null) {
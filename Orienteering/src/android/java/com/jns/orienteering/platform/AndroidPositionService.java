@@ -31,6 +31,8 @@ package com.jns.orienteering.platform;
 import java.util.List;
 
 import com.gluonhq.charm.down.plugins.Position;
+import com.jns.orienteering.model.common.Scheduler;
+import com.jns.orienteering.util.GeoMath;
 
 import android.content.Context;
 import android.content.Intent;
@@ -56,6 +58,8 @@ public class AndroidPositionService implements PositionServiceExtended, Location
     private AndroidLooperTask              looperTask;
 
     private final ObjectProperty<Position> positionProperty = new SimpleObjectProperty<>();
+    private float                          accuracy;
+    private long                           time;
 
     public AndroidPositionService() {
         Context activityContext = FXActivity.getInstance();
@@ -103,9 +107,7 @@ public class AndroidPositionService implements PositionServiceExtended, Location
             }
         };
 
-        Thread thread = new Thread(looperTask);
-        thread.setDaemon(true);
-        thread.start();
+        Scheduler.startDedicatedThread("AndroidPositionLooper", looperTask);
     }
 
     @Override
@@ -146,7 +148,12 @@ public class AndroidPositionService implements PositionServiceExtended, Location
     @Override
     public void onLocationChanged(Location location) {
         if (location != null) {
-            Platform.runLater(() -> positionProperty.set(new Position(location.getLatitude(), location.getLongitude())));
+            Platform.runLater(() ->
+            {
+                accuracy = location.hasAccuracy() ? location.getAccuracy() : 0;
+                time = location.getTime();
+                positionProperty.set(new Position(location.getLatitude(), location.getLongitude()));
+            });
         }
     }
 
@@ -161,20 +168,24 @@ public class AndroidPositionService implements PositionServiceExtended, Location
     }
 
     @Override
-    public boolean isInRadius(Position currentPosition, Position targetPosition, double radius) {
-        return getDistance(currentPosition, targetPosition) <= radius;
+    public float getAccuracy() {
+        return accuracy;
     }
 
     @Override
-    public float getDistance(Position start, Position end) {
-        return convertToLocation(start).distanceTo(convertToLocation(end));
+    public long getTime() {
+        return time;
     }
 
-    private Location convertToLocation(Position position) {
-        Location result = new Location(locationProvider);
-        result.setLatitude(position.getLatitude());
-        result.setLongitude(position.getLongitude());
-        return result;
+    @Override
+    public boolean isInRadius(Position currentPosition, Position targetPosition, double radius) {
+        return GeoMath.isInRadius(currentPosition.getLatitude(), currentPosition.getLongitude(), targetPosition.getLatitude(),
+                                  targetPosition.getLongitude(), radius);
+    }
+
+    @Override
+    public float getDistance(Position start, Position end) {
+        return (float) GeoMath.distance(start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude());
     }
 
 }
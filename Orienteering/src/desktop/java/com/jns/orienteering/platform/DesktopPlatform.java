@@ -55,11 +55,20 @@
  */
 package com.jns.orienteering.platform;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jns.orienteering.model.track.Track;
+
+import javafx.application.Platform;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableValue;
@@ -68,11 +77,26 @@ import javafx.scene.Parent;
 import javafx.scene.image.Image;
 import javafx.stage.FileChooser;
 
+/**
+ * The platform of the desktop. Setting the system property {@value #REPLAY_TRACK_PROPERTY} to a track file (see
+ * <code>TrackRecorder</code>) or a GPX file replaces the fake position service with a replay of the track, which runs
+ * {@value #REPLAY_SPEED_PROPERTY} times faster than real time and gets gaussian noise with a standard deviation of
+ * {@value #REPLAY_NOISE_PROPERTY} meters.
+ */
 public class DesktopPlatform implements PlatformService {
 
+    private static final Logger         LOGGER                = LoggerFactory.getLogger(DesktopPlatform.class);
+
+    static final String                 REPLAY_TRACK_PROPERTY = "orienteering.replayTrack";
+    static final String                 REPLAY_SPEED_PROPERTY = "orienteering.replaySpeed";
+    static final String                 REPLAY_NOISE_PROPERTY = "orienteering.replayNoise";
+
+    private static final String         GPX_SUFFIX            = ".gpx";
+
     private Storage                     storage;
     private DesktopInfoService          infoService;
-    private FakeDesktopPositionService  positionService;
+    private DesktopImageEncoder         imageEncoder;
+    private PositionServiceExtended     positionService;
 
     private SimpleObjectProperty<Image> image;
     private String                      imageUrl;
@@ -97,15 +121,47 @@ public class DesktopPlatform implements PlatformService {
         return infoService;
     }
 
+    @Override
+    public ImageEncoder getImageEncoder() {
+        if (imageEncoder == null) {
+            imageEncoder = new DesktopImageEncoder();
+        }
+        return imageEncoder;
+    }
+
     @Override
     public PositionServiceExtended getPositionService() {
         if (positionService == null) {
-            positionService = new FakeDesktopPositionService(PositionHelper.retrieveStartPosition());
+            String trackFile = System.getProperty(REPLAY_TRACK_PROPERTY);
+            if (trackFile != null) {
+                positionService = createReplayPositionService(trackFile);
+            }
+            if (positionService == null) {
+                positionService = new FakeDesktopPositionService(PositionHelper.retrieveStartPosition());
+            }
         }
 
         return positionService;
     }
 
+    private PositionServiceExtended createReplayPositionService(String trackFile) {
+        Track track;
+        try (InputStream input = new BufferedInputStream(new FileInputStream(trackFile))) {
+            track = trackFile.endsWith(GPX_SUFFIX) ? GpxTrackReader.read(input) : Track.read(input);
+
+        } catch (IOException ex) {
+            LOGGER.error("Failed to read replay track: '{}'", trackFile, ex);
+            return null;
+        }
+        double speed = Double.parseDouble(System.getProperty(REPLAY_SPEED_PROPERTY, "1"));
+        double noise = Double.parseDouble(System.getProperty(REPLAY_NOISE_PROPERTY, "0"));
+
+        RunnerSimulation simulation = new RunnerSimulation(System.nanoTime());
+        ReplayPositionService replay = simulation.addRunner(track, noise, 0);
+        simulation.start(speed, Platform::runLater);
+        return replay;
+    }
+
     @Override
     public NodePositionAdjuster getNodePositionAdjuster(Parent parent, ObservableValue<Node> focusOwner) {
         return null;
@@ -29,6 +29,7 @@
 package com.jns.orienteering.platform;
 
 import com.gluonhq.charm.down.plugins.Position;
+import com.jns.orienteering.util.GeoMath;
 
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
@@ -39,6 +40,8 @@ import javafx.util.Duration;
 
 public class FakeDesktopPositionService implements PositionServiceExtended {
 
+    private static final float       ACCURACY = 5;
+
     private ObjectProperty<Position> positionProperty;
     private Timeline                 timeline;
 
@@ -74,14 +77,23 @@ public class FakeDesktopPositionService implements PositionServiceExtended {
 
     @Override
     public float getDistance(Position start, Position end) {
-        return 0;
+        return (float) GeoMath.distance(start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude());
     }
 
     @Override
     public boolean isInRadius(Position currentPosition, Position targetPosition, double radius) {
-        double distanceX = currentPosition.getLatitude() - targetPosition.getLatitude();
-        double distanceY = currentPosition.getLongitude() - targetPosition.getLongitude();
-        return distanceX < 0.0001 && distanceX > 0 && distanceY < 0.002 && distanceY > 0;
+        return GeoMath.isInRadius(currentPosition.getLatitude(), currentPosition.getLongitude(), targetPosition.getLatitude(),
+                                  targetPosition.getLongitude(), radius);
+    }
+
+    @Override
+    public float getAccuracy() {
+        return ACCURACY;
+    }
+
+    @Override
+    public long getTime() {
+        return System.currentTimeMillis();
     }
 
     @Override
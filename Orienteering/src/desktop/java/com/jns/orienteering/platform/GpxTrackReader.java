@@ -0,0 +1,123 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.platform;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.jns.orienteering.model.track.Track;
+
+/**
+ * Reads the track points of a GPX file into a {@link Track}.
+ * <p>
+ * Only <code>lat</code>, <code>lon</code>, <code>time</code> and <code>hdop</code> of the <code>trkpt</code> elements are
+ * used. Points without time follow their predecessor after one second, the accuracy is estimated from the horizontal
+ * dilution of precision.
+ */
+final class GpxTrackReader {
+
+    private static final String TRACK_POINT      = "trkpt";
+    private static final String TIME             = "time";
+    private static final String HDOP             = "hdop";
+
+    private static final long   DEFAULT_INTERVAL = 1000;
+    /** meters of error per unit of hdop */
+    private static final float  HDOP_TO_METERS   = 5;
+    private static final float  DEFAULT_ACCURACY = 5;
+
+    private GpxTrackReader() {
+    }
+
+    static Track read(InputStream input) throws IOException {
+        Track track = new Track();
+        XMLStreamReader reader = null;
+        try {
+            reader = XMLInputFactory.newInstance().createXMLStreamReader(input);
+
+            double latitude = 0;
+            double longitude = 0;
+            long time = -1;
+            float accuracy = DEFAULT_ACCURACY;
+            long lastTime = -DEFAULT_INTERVAL;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if (TRACK_POINT.equals(name)) {
+                        latitude = Double.parseDouble(reader.getAttributeValue(null, "lat"));
+                        longitude = Double.parseDouble(reader.getAttributeValue(null, "lon"));
+                        time = -1;
+                        accuracy = DEFAULT_ACCURACY;
+
+                    } else if (TIME.equals(name)) {
+                        time = parseTime(reader.getElementText());
+
+                    } else if (HDOP.equals(name)) {
+                        accuracy = Float.parseFloat(reader.getElementText().trim()) * HDOP_TO_METERS;
+                    }
+
+                } else if (event == XMLStreamConstants.END_ELEMENT && TRACK_POINT.equals(reader.getLocalName())) {
+                    long pointTime = time >= 0 ? time : lastTime + DEFAULT_INTERVAL;
+                    track.append(pointTime, latitude, longitude, accuracy);
+                    lastTime = pointTime;
+                }
+            }
+            return track;
+
+        } catch (XMLStreamException | NumberFormatException ex) {
+            throw new IOException("Invalid GPX file", ex);
+
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ex) {
+                    // ignore, the input is closed by the caller
+                }
+            }
+        }
+    }
+
+    private static long parseTime(String text) {
+        try {
+            return Instant.parse(text.trim()).toEpochMilli();
+        } catch (DateTimeParseException ex) {
+            return -1;
+        }
+    }
+
+}
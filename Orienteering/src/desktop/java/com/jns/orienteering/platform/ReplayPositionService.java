@@ -0,0 +1,169 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.platform;
+
+import java.util.Random;
+
+import com.gluonhq.charm.down.plugins.Position;
+import com.jns.orienteering.model.track.Track;
+import com.jns.orienteering.util.GeoMath;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+
+/**
+ * Replays a recorded {@link Track} as position service, e.g. to run a mission on the desktop or to load test the active
+ * mission with many simulated runners (see {@link RunnerSimulation}).
+ * <p>
+ * The replay has no clock of its own: {@link #advanceTo(long)} publishes all fixes up to the given time after the start of
+ * the track on the calling thread. Gaussian noise is added to the coordinates with a seeded random, so a replay is
+ * repeatable. While the service is deactivated, the replay goes on without publishing fixes, like a GPS, which is switched
+ * off during a run.
+ */
+public class ReplayPositionService implements PositionServiceExtended {
+
+    private static final double            METERS_PER_DEGREE = Math.toRadians(GeoMath.EARTH_RADIUS);
+
+    private final Track.Reader             reader;
+    private final double                   noise;
+    private final Random                   random;
+    private final long                     baseTime;
+
+    private final ObjectProperty<Position> positionProperty  = new SimpleObjectProperty<>();
+    private long                           trackStart;
+    /** the reader is on a fix, which is not yet due */
+    private boolean                        hasPendingFix;
+    private boolean                        active            = true;
+
+    private float                          accuracy;
+    private long                           time;
+    private int                            publishedFixes;
+
+    /**
+     * @param noise
+     *            the standard deviation of the noise in meters, which is added to both coordinates
+     * @param baseTime
+     *            the time of the first fix in milliseconds since the epoch, the times of the following fixes keep their
+     *            distance to the first one
+     */
+    public ReplayPositionService(Track track, double noise, long seed, long baseTime) {
+        this.noise = noise;
+        this.baseTime = baseTime;
+        random = new Random(seed);
+
+        reader = track.reader();
+        hasPendingFix = reader.next();
+        if (hasPendingFix) {
+            trackStart = reader.getTime();
+        }
+    }
+
+    /**
+     * Publishes all fixes, which were recorded up to <code>elapsedMillis</code> after the first fix
+     *
+     * @return false, if the end of the track is reached
+     */
+    public boolean advanceTo(long elapsedMillis) {
+        while (hasPendingFix) {
+            if (reader.getTime() - trackStart > elapsedMillis) {
+                return true;
+            }
+            if (active) {
+                publish();
+            }
+            hasPendingFix = reader.next();
+        }
+        return false;
+    }
+
+    private void publish() {
+        double latitude = reader.getLatitude();
+        double longitude = reader.getLongitude();
+        if (noise > 0) {
+            latitude += random.nextGaussian() * noise / METERS_PER_DEGREE;
+            longitude += random.nextGaussian() * noise / (METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude)));
+        }
+        accuracy = (float) Math.hypot(reader.getAccuracy(), noise);
+        time = baseTime + reader.getTime() - trackStart;
+        publishedFixes++;
+
+        positionProperty.set(new Position(latitude, longitude));
+    }
+
+    public boolean isFinished() {
+        return !hasPendingFix;
+    }
+
+    public int getPublishedFixes() {
+        return publishedFixes;
+    }
+
+    @Override
+    public ReadOnlyObjectProperty<Position> positionProperty() {
+        return positionProperty;
+    }
+
+    @Override
+    public Position getPosition() {
+        return positionProperty.get();
+    }
+
+    @Override
+    public float getDistance(Position start, Position end) {
+        return (float) GeoMath.distance(start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude());
+    }
+
+    @Override
+    public boolean isInRadius(Position currentPosition, Position targetPosition, double radius) {
+        return GeoMath.isInRadius(currentPosition.getLatitude(), currentPosition.getLongitude(), targetPosition.getLatitude(),
+                                  targetPosition.getLongitude(), radius);
+    }
+
+    @Override
+    public float getAccuracy() {
+        return accuracy;
+    }
+
+    @Override
+    public long getTime() {
+        return time;
+    }
+
+    @Override
+    public void activate() {
+        active = true;
+    }
+
+    @Override
+    public void deactivate() {
+        active = false;
+    }
+
+}
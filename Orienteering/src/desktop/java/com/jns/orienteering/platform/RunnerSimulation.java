@@ -0,0 +1,147 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.platform;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.jns.orienteering.model.common.Lane;
+import com.jns.orienteering.model.common.Scheduler;
+import com.jns.orienteering.model.track.Track;
+
+/**
+ * Replays the tracks of one or many simulated runners with a common clock.
+ * <p>
+ * Headless, e.g. in a load test, the clock is advanced explicitly with {@link #advanceTo(long)} or {@link #runToEnd(long)}
+ * as fast as the listeners of the positions can keep up, and a simulation with the same seed publishes the same fixes.
+ * {@link #start(double, Executor)} advances the clock with the real time multiplied by a speed factor, the fixes are
+ * published on the given executor, e.g. <code>Platform::runLater</code>.
+ */
+public class RunnerSimulation {
+
+    private static final long                 TICK_MILLIS = 100;
+
+    private final long                        seed;
+    private final long                        baseTime;
+    private final List<ReplayPositionService> runners     = new ArrayList<>();
+    private final List<Long>                  startDelays = new ArrayList<>();
+
+    private long                              elapsed;
+    private volatile ScheduledFuture<?>       timer;
+
+    public RunnerSimulation(long seed) {
+        this.seed = seed;
+        baseTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Adds a runner, which starts <code>startDelayMillis</code> after the start of the simulation
+     *
+     * @param noise
+     *            the standard deviation of the noise in meters, which is added to the recorded coordinates
+     * @return the position service of the runner
+     */
+    public ReplayPositionService addRunner(Track track, double noise, long startDelayMillis) {
+        ReplayPositionService runner = new ReplayPositionService(track, noise, seed + runners.size(), baseTime + startDelayMillis);
+        runners.add(runner);
+        startDelays.add(startDelayMillis);
+        return runner;
+    }
+
+    /**
+     * Publishes the fixes of all runners up to <code>elapsedMillis</code> after the start of the simulation
+     *
+     * @return false, if all runners reached the end of their tracks
+     */
+    public boolean advanceTo(long elapsedMillis) {
+        elapsed = elapsedMillis;
+        boolean running = false;
+        for (int idx = 0; idx < runners.size(); idx++) {
+            long runnerElapsed = elapsedMillis - startDelays.get(idx);
+            if (runnerElapsed >= 0) {
+                running |= runners.get(idx).advanceTo(runnerElapsed);
+            } else {
+                running = true;
+            }
+        }
+        return running;
+    }
+
+    /**
+     * Advances the clock in steps of <code>stepMillis</code>, until all runners reached the end of their tracks
+     */
+    public void runToEnd(long stepMillis) {
+        while (advanceTo(elapsed + stepMillis)) {
+            // advanced
+        }
+    }
+
+    /**
+     * Advances the clock in real time multiplied by <code>speed</code>, until all runners reached the end of their tracks or
+     * the simulation is stopped
+     */
+    public void start(double speed, Executor publisher) {
+        if (timer != null) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        long startElapsed = elapsed;
+        timer = Scheduler.scheduleAtFixedRate(Lane.INTERACTIVE, () ->
+        {
+            long elapsedMillis = startElapsed + (long) (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) * speed);
+            publisher.execute(() ->
+            {
+                if (!advanceTo(elapsedMillis)) {
+                    stop();
+                }
+            });
+        }, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        ScheduledFuture<?> currentTimer = timer;
+        if (currentTimer != null) {
+            currentTimer.cancel(false);
+            timer = null;
+        }
+    }
+
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    public List<ReplayPositionService> getRunners() {
+        return Collections.unmodifiableList(runners);
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jns.orienteering.model.common.ListUpdater;
+import com.jns.orienteering.model.persisted.Task;
+import com.jns.orienteering.util.CollectionUtils;
+import com.jns.orienteering.util.MapUtils;
+
+import javafx.collections.FXCollections;
+
+/**
+ * Covers the list helpers, which run on every update of a list view: the lookup of an item by {@link ListUpdater}, the
+ * sort of {@link CollectionUtils} and the creation of lookup maps by {@link MapUtils}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectionsBenchmark {
+
+    @Param({ "100", "2000" })
+    private int               taskCount;
+
+    private List<Task>        tasks;
+    private List<Task>        shuffled;
+    private ListUpdater<Task> listUpdater;
+    private Task              lastTask;
+    private Task              missingTask;
+
+    @Setup
+    public void setUp() {
+        tasks = new Datasets(taskCount / 20, 20, 0).getTasks();
+        lastTask = tasks.get(tasks.size() - 1);
+        missingTask = new Task();
+        missingTask.setTaskName("not contained");
+
+        listUpdater = new ListUpdater<>(Task::compareTo);
+        listUpdater.setItems(FXCollections.observableArrayList(tasks));
+    }
+
+    @Setup(Level.Invocation)
+    public void shuffle() {
+        shuffled = new ArrayList<>(tasks);
+        Collections.shuffle(shuffled, new Random(taskCount));
+    }
+
+    @Benchmark
+    public int indexOfLast() {
+        return listUpdater.indexOf(lastTask);
+    }
+
+    @Benchmark
+    public int indexOfMissing() {
+        return listUpdater.indexOf(missingTask);
+    }
+
+    @Benchmark
+    public List<Task> sort() {
+        CollectionUtils.sort(shuffled);
+        return shuffled;
+    }
+
+    @Benchmark
+    public Map<String, Task> createMap() {
+        return MapUtils.createMap(tasks, Task::getId);
+    }
+
+}
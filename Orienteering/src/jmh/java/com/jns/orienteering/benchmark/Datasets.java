@@ -0,0 +1,216 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.jns.orienteering.model.persisted.AccessType;
+import com.jns.orienteering.model.persisted.City;
+import com.jns.orienteering.model.persisted.Mission;
+import com.jns.orienteering.model.persisted.MissionStat;
+import com.jns.orienteering.model.persisted.Task;
+import com.jns.orienteering.model.persisted.TaskStat;
+import com.jns.orienteering.model.persisted.TrackData;
+
+/**
+ * Generates reproducible data sets, which resemble the lists of a user with some history: cities with a handful of
+ * missions, each mission composed of tasks of its city and run once.
+ */
+public final class Datasets {
+
+    private static final long       SEED        = 4711;
+    private static final String     PUSH_CHARS  = "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+    private static final String[]   WORDS       = { "alte", "Kirche", "Brunnen", "Markt", "Turm", "Park", "Bahnhof", "Museum", "Br\u00FCcke",
+            "Rathaus", "Schloss", "Tor", "Platz", "Garten", "M\u00FChle", "Hafen", "Wiese", "Linde", "Kapelle", "Denkmal" };
+    private static final long       EPOCH_START = 1451606400L;
+
+    private final Random            random      = new Random(SEED);
+
+    private final List<City>        cities;
+    private final List<Task>        tasks;
+    private final List<Mission>     missions;
+    private final List<MissionStat> missionStats;
+
+    /**
+     * @param cityCount
+     *            number of cities
+     * @param tasksPerCity
+     *            number of tasks of each city
+     * @param missionsPerCity
+     *            number of missions of each city, each one references up to 15 tasks of its city and has one stat
+     */
+    public Datasets(int cityCount, int tasksPerCity, int missionsPerCity) {
+        cities = new ArrayList<>(cityCount);
+        tasks = new ArrayList<>(cityCount * tasksPerCity);
+        missions = new ArrayList<>(cityCount * missionsPerCity);
+        missionStats = new ArrayList<>(cityCount * missionsPerCity);
+
+        for (int cityIdx = 0; cityIdx < cityCount; cityIdx++) {
+            City city = createCity(cityIdx);
+            cities.add(city);
+
+            double latitude = 47 + random.nextDouble() * 7;
+            double longitude = 6 + random.nextDouble() * 9;
+            List<Task> cityTasks = new ArrayList<>(tasksPerCity);
+            for (int taskIdx = 0; taskIdx < tasksPerCity; taskIdx++) {
+                cityTasks.add(createTask(city, latitude, longitude));
+            }
+            tasks.addAll(cityTasks);
+
+            for (int missionIdx = 0; missionIdx < missionsPerCity; missionIdx++) {
+                Mission mission = createMission(city, cityTasks);
+                missions.add(mission);
+                missionStats.add(createMissionStat(mission, cityTasks));
+            }
+        }
+    }
+
+    public List<City> getCities() {
+        return cities;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public List<Mission> getMissions() {
+        return missions;
+    }
+
+    public List<MissionStat> getMissionStats() {
+        return missionStats;
+    }
+
+    private City createCity(int idx) {
+        City city = new City(capitalize(word()) + word() + " " + idx, pushId());
+        city.setId(pushId());
+        city.setTimeStamp(timeStamp());
+        return city;
+    }
+
+    private Task createTask(City city, double latitude, double longitude) {
+        Task task = new Task();
+        task.setId(pushId());
+        task.setCityId(city.getId());
+        task.setOwnerId(city.getOwnerId());
+        task.setTaskName(capitalize(word()) + " " + word() + " " + random.nextInt(1000));
+        task.setDescription(sentence(8 + random.nextInt(24)));
+        task.setLatitude(latitude + (random.nextDouble() - 0.5) / 20);
+        task.setLongitude(longitude + (random.nextDouble() - 0.5) / 20);
+        task.setPoints(1 + random.nextInt(50));
+        task.setAccessType(accessType());
+        task.setImageId(task.getId() + "_" + timeStamp() + ".jpg");
+        if (random.nextInt(4) == 0) {
+            task.setScanCode(pushId());
+        }
+        task.setTimeStamp(timeStamp());
+        return task;
+    }
+
+    private Mission createMission(City city, List<Task> cityTasks) {
+        int taskCount = Math.min(cityTasks.size(), 3 + random.nextInt(13));
+        int first = cityTasks.size() == taskCount ? 0 : random.nextInt(cityTasks.size() - taskCount);
+        List<Task> missionTasks = cityTasks.subList(first, first + taskCount);
+
+        Mission mission = new Mission(capitalize(word()) + " " + word() + " Tour", city.getId(), city.getOwnerId(), 0.5 + random.nextDouble() * 15,
+                                      accessType());
+        mission.setId(pushId());
+        mission.updateTasksMap(missionTasks);
+        int maxPoints = 0;
+        for (Task task : missionTasks) {
+            maxPoints += task.getPoints();
+        }
+        mission.setMaxPoints(maxPoints);
+        mission.setTimeStamp(timeStamp());
+        return mission;
+    }
+
+    private MissionStat createMissionStat(Mission mission, List<Task> cityTasks) {
+        int start = 8 * 3600 + random.nextInt(10 * 3600);
+        MissionStat missionStat = new MissionStat(mission, mission.getOwnerId(), start);
+        missionStat.setPostId(pushId());
+        missionStat.setTimeStamp(timeStamp());
+
+        String trackId = pushId();
+        int trackStart = 0;
+        int end = start;
+        for (Task task : cityTasks) {
+            if (!mission.getTasksMap().containsKey(task.getId())) {
+                continue;
+            }
+            int trackLength = 20 + random.nextInt(200);
+            TrackData trackData = new TrackData();
+            trackData.setDistance(100 + random.nextFloat() * 900);
+            trackData.setTrack(trackId, trackStart, trackLength);
+            trackStart += trackLength;
+
+            TaskStat taskStat = new TaskStat(task, trackData);
+            taskStat.setStart(end);
+            end += 60 + random.nextInt(900);
+            taskStat.setEnd(end);
+            missionStat.addTaskStat(taskStat);
+        }
+        return missionStat;
+    }
+
+    private String pushId() {
+        char[] chars = new char[20];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = PUSH_CHARS.charAt(random.nextInt(PUSH_CHARS.length()));
+        }
+        return new String(chars);
+    }
+
+    private String sentence(int wordCount) {
+        StringBuilder sb = new StringBuilder(capitalize(word()));
+        for (int i = 1; i < wordCount; i++) {
+            sb.append(' ').append(word());
+        }
+        return sb.append('.').toString();
+    }
+
+    private String word() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private AccessType accessType() {
+        return random.nextInt(3) == 0 ? AccessType.PRIVATE : AccessType.PUBLIC;
+    }
+
+    private long timeStamp() {
+        return EPOCH_START + random.nextInt(60 * 60 * 24 * 365);
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.jns.orienteering.util.GeoMath;
+
+/**
+ * Compares the distance formulas of {@link GeoMath} on points spread over a city, the time is reported per distance. Run
+ * with <code>-prof gc</code> to check, that nothing is allocated.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoMathBenchmark {
+
+    private static final int    POINT_COUNT      = 1024;
+    private static final double CENTER_LATITUDE  = 48.137;
+    private static final double CENTER_LONGITUDE = 11.575;
+    /** about 10 km */
+    private static final double SPREAD           = 0.1;
+
+    private double[]            latitudes;
+    private double[]            longitudes;
+    private double[]            distances;
+
+    @Setup
+    public void setUp() {
+        latitudes = new double[POINT_COUNT];
+        longitudes = new double[POINT_COUNT];
+        distances = new double[POINT_COUNT];
+
+        Random random = new Random(42);
+        for (int idx = 0; idx < POINT_COUNT; idx++) {
+            latitudes[idx] = CENTER_LATITUDE + (random.nextDouble() - 0.5) * SPREAD;
+            longitudes[idx] = CENTER_LONGITUDE + (random.nextDouble() - 0.5) * SPREAD;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINT_COUNT)
+    public void haversine(Blackhole blackhole) {
+        for (int idx = 0; idx < POINT_COUNT; idx++) {
+            blackhole.consume(GeoMath.distance(CENTER_LATITUDE, CENTER_LONGITUDE, latitudes[idx], longitudes[idx]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINT_COUNT)
+    public void equirectangular(Blackhole blackhole) {
+        for (int idx = 0; idx < POINT_COUNT; idx++) {
+            blackhole.consume(GeoMath.fastDistance(CENTER_LATITUDE, CENTER_LONGITUDE, latitudes[idx], longitudes[idx]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINT_COUNT)
+    public void vincenty(Blackhole blackhole) {
+        for (int idx = 0; idx < POINT_COUNT; idx++) {
+            blackhole.consume(GeoMath.vincentyDistance(CENTER_LATITUDE, CENTER_LONGITUDE, latitudes[idx], longitudes[idx]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINT_COUNT)
+    public double[] batchHaversine() {
+        GeoMath.distances(CENTER_LATITUDE, CENTER_LONGITUDE, latitudes, longitudes, POINT_COUNT, distances);
+        return distances;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINT_COUNT)
+    public double pathLength() {
+        return GeoMath.pathLength(latitudes, longitudes, POINT_COUNT);
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.json.JsonObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.jns.orienteering.model.persisted.City;
+import com.jns.orienteering.model.persisted.Mission;
+import com.jns.orienteering.model.persisted.MissionStat;
+import com.jns.orienteering.model.persisted.Task;
+import com.jns.orienteering.model.repo.readerwriter.JsonConverterExtended;
+
+/**
+ * Converts the generated objects of the model class <code>type</code> (500 tasks, 500 missions, 500 mission stats or 50
+ * cities) from and into json objects, either with the precomputed codec or with the reflective {@link LegacyJsonConverter}
+ * as the baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonConverterBenchmark {
+
+    private static final int ITEM_COUNT = 500;
+
+    @Param({ "task", "mission", "missionStat", "city" })
+    private String           type;
+
+    @Param({ "codec", "legacy" })
+    private String           converter;
+
+    private Fixture<?>       fixture;
+
+    @Setup
+    public void setUp() {
+        // the legacy converter logs every property, which is missing in the json, on level INFO
+        Logger.getLogger(LegacyJsonConverter.class.getName()).setLevel(Level.WARNING);
+
+        Datasets datasets = new Datasets(ITEM_COUNT / 10, 10, 10);
+        boolean legacy = "legacy".equals(converter);
+        switch (type) {
+            case "task":
+                fixture = new Fixture<>(Task.class, datasets.getTasks(), legacy);
+                break;
+            case "mission":
+                fixture = new Fixture<>(Mission.class, datasets.getMissions(), legacy);
+                break;
+            case "missionStat":
+                fixture = new Fixture<>(MissionStat.class, datasets.getMissionStats(), legacy);
+                break;
+            case "city":
+                fixture = new Fixture<>(City.class, datasets.getCities(), legacy);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown type: " + type);
+        }
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) {
+        fixture.read(blackhole);
+    }
+
+    @Benchmark
+    public void write(Blackhole blackhole) {
+        fixture.write(blackhole);
+    }
+
+    private static class Fixture<T> {
+
+        private final JsonConverterExtended<T> converter;
+        private final LegacyJsonConverter<T>   legacyConverter;
+        private final List<T>                  items;
+        private final List<JsonObject>         jsonObjects;
+
+        private Fixture(Class<T> targetClass, List<T> items, boolean legacy) {
+            converter = legacy ? null : new JsonConverterExtended<>(targetClass);
+            legacyConverter = legacy ? new LegacyJsonConverter<>(targetClass) : null;
+            this.items = items;
+
+            jsonObjects = new ArrayList<>(items.size());
+            for (T item : items) {
+                jsonObjects.add(writeToJson(item));
+            }
+        }
+
+        private void read(Blackhole blackhole) {
+            for (JsonObject json : jsonObjects) {
+                blackhole.consume(legacyConverter == null ? converter.readFromJson(json) : legacyConverter.readFromJson(json));
+            }
+        }
+
+        private void write(Blackhole blackhole) {
+            for (T item : items) {
+                blackhole.consume(writeToJson(item));
+            }
+        }
+
+        private JsonObject writeToJson(T item) {
+            return legacyConverter == null ? converter.writeToJson(item) : legacyConverter.writeToJson(item);
+        }
+    }
+
+}
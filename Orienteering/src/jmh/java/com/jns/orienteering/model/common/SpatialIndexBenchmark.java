@@ -0,0 +1,113 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.common;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jns.orienteering.benchmark.Datasets;
+import com.jns.orienteering.model.persisted.Task;
+import com.jns.orienteering.util.GeoMath;
+
+/**
+ * Finds the tasks near a point of a city with the {@link SpatialIndex} and with a scan of all tasks, as the tasks screen
+ * would have to do without the index.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialIndexBenchmark {
+
+    private static final int   NEAREST_COUNT = 20;
+    private static final int   RADIUS        = 300;
+
+    @Param({ "100", "2000" })
+    private int                taskCount;
+
+    private List<Task>         tasks;
+    private SpatialIndex<Task> index;
+    private double             latitude;
+    private double             longitude;
+
+    @Setup
+    public void setUp() {
+        tasks = new Datasets(1, taskCount, 0).getTasks();
+        index = new SpatialIndex<>();
+        index.addAll(tasks);
+
+        latitude = tasks.get(0).getLatitude();
+        longitude = tasks.get(0).getLongitude();
+    }
+
+    @Benchmark
+    public List<Task> nearestWithIndex() {
+        return index.nearest(latitude, longitude, NEAREST_COUNT);
+    }
+
+    @Benchmark
+    public List<Task> nearestWithScan() {
+        List<Task> sorted = new ArrayList<>(tasks);
+        sorted.sort(Comparator.comparingDouble(task -> GeoMath.distance(latitude, longitude, task.getLatitude(), task.getLongitude())));
+        return new ArrayList<>(sorted.subList(0, Math.min(NEAREST_COUNT, sorted.size())));
+    }
+
+    @Benchmark
+    public List<Task> withinRadiusWithIndex() {
+        return index.withinRadius(latitude, longitude, RADIUS);
+    }
+
+    @Benchmark
+    public List<Task> withinRadiusWithScan() {
+        List<Task> result = new ArrayList<>();
+        for (Task task : tasks) {
+            if (GeoMath.isInRadius(latitude, longitude, task.getLatitude(), task.getLongitude(), RADIUS)) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.jns.orienteering.benchmark.Datasets;
+import com.jns.orienteering.model.persisted.City;
+import com.jns.orienteering.model.persisted.Task;
+import com.jns.orienteering.model.repo.readerwriter.JsonCodec;
+
+/**
+ * End to end throughput of the repo requests against the {@link FakeFireBaseServer}: loading the task list of a city,
+ * reading a single task, reading the keys of a list and committing a {@link WriteBatch}.
+ * <p>
+ * Requests, which fail because of the injected failures, are consumed and count as completed operations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class FireBaseRepoBenchmark {
+
+    private static final String TASKS = "tasks";
+
+    @Param({ "0", "20" })
+    private long                latencyMillis;
+
+    @Param({ "0", "0.05" })
+    private double              failureRate;
+
+    private FakeFireBaseServer  server;
+    private FireBaseRepo<Task>  repo;
+    private List<City>          cities;
+    private List<Task>          tasks;
+
+    @Setup
+    public void setUp() throws IOException {
+        Datasets datasets = new Datasets(20, 50, 0);
+        cities = datasets.getCities();
+        tasks = datasets.getTasks();
+
+        server = new FakeFireBaseServer();
+        JsonCodec<Task> codec = JsonCodec.forClass(Task.class);
+        for (Task task : tasks) {
+            server.put(UrlBuilder.buildPath(TASKS, task.getCityId(), task.getId()), codec.write(task));
+        }
+        server.setLatency(latencyMillis, latencyMillis);
+        server.setFailureRate(failureRate);
+        server.start();
+
+        repo = new FireBaseRepo<>(Task.class, TASKS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public void loadList(Blackhole blackhole) {
+        String cityId = cities.get(ThreadLocalRandom.current().nextInt(cities.size())).getId();
+        try {
+            Iterator<Task> it = repo.listReader(RestRequest.get(repo.buildUrlFromRelativePath(cityId))).iterator();
+            while (it.hasNext()) {
+                blackhole.consume(it.next());
+            }
+        } catch (IOException ex) {
+            blackhole.consume(ex);
+        }
+    }
+
+    @Benchmark
+    public void retrieveObject(Blackhole blackhole) {
+        Task task = randomTask();
+        try {
+            blackhole.consume(repo.retrieveObject(task.getCityId(), task.getId()));
+        } catch (IOException ex) {
+            blackhole.consume(ex);
+        }
+    }
+
+    @Benchmark
+    public void retrieveKeys(Blackhole blackhole) {
+        String cityId = cities.get(ThreadLocalRandom.current().nextInt(cities.size())).getId();
+        try {
+            blackhole.consume(repo.retrieveKeys(cityId));
+        } catch (IOException ex) {
+            blackhole.consume(ex);
+        }
+    }
+
+    @Benchmark
+    public void commitBatch(Blackhole blackhole) {
+        Task task = randomTask();
+        WriteBatch batch = new WriteBatch();
+        repo.createOrUpdate(batch, task, task.getCityId(), task.getId());
+        batch.update(true, "benchmark", "tasksByCity", task.getCityId(), task.getId());
+        try {
+            repo.commit(batch);
+        } catch (IOException ex) {
+            blackhole.consume(ex);
+        }
+    }
+
+    private Task randomTask() {
+        return tasks.get(ThreadLocalRandom.current().nextInt(tasks.size()));
+    }
+
+}
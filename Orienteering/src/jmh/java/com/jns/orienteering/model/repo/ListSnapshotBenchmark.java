@@ -0,0 +1,143 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.jns.orienteering.benchmark.Datasets;
+import com.jns.orienteering.model.dynamic.CityCache;
+import com.jns.orienteering.model.persisted.City;
+import com.jns.orienteering.model.repo.readerwriter.JsonCodec;
+
+/**
+ * Cold start of the local city list with 10k cities: reading the list from a binary {@link ListSnapshot} compared with
+ * reading it from the json file, which was used before the snapshot existed.
+ * <p>
+ * <code>startUp</code> runs the start-up path of the app: the list is read like {@link LocalRepo#retrieveList()}, mapped
+ * by the {@link CityCache} and the name of the active city is looked up. <code>openAndDecodeAll</code> additionally
+ * decodes every city, as for a list view, which shows all of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 20)
+@Fork(3)
+public class ListSnapshotBenchmark {
+
+    private static final String LIST_IDENTIFIER = "cities";
+    private static final int    CITY_COUNT      = 10000;
+    private static final String USER_ID         = "benchmark";
+
+    @Param({ "binary", "json" })
+    private String              format;
+
+    private File                dir;
+    private File                listFile;
+    private String              activeCityId;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<City> cities = new Datasets(CITY_COUNT, 0, 0).getCities();
+        activeCityId = cities.get(cities.size() / 2).getId();
+
+        dir = File.createTempFile("snapshot_benchmark", "");
+        if (!dir.delete() || !dir.mkdir()) {
+            throw new IOException("Failed to create: " + dir);
+        }
+        listFile = new File(dir, "cities.json");
+
+        if ("binary".equals(format)) {
+            try (OutputStream out = new FileOutputStream(new File(dir, listFile.getName() + ".bin"))) {
+                ListSnapshot.write(out, City.class, cities, 1);
+            }
+        } else {
+            writeJson(cities);
+        }
+    }
+
+    private void writeJson(List<City> cities) throws IOException {
+        JsonCodec<City> codec = JsonCodec.forClass(City.class);
+        try (OutputStream out = new FileOutputStream(listFile);
+                JsonGenerator generator = Json.createGenerator(out)) {
+            generator.writeStartObject().writeStartArray(LIST_IDENTIFIER);
+            for (City city : cities) {
+                generator.write(codec.write(city));
+            }
+            generator.writeEnd().writeEnd();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Benchmark
+    public String startUp() throws IOException {
+        CityCache.INSTANCE.createMapping(new LocalListJournal<>(listFile, City.class, LIST_IDENTIFIER).read(), USER_ID);
+        return CityCache.INSTANCE.getName(activeCityId).orElse(null);
+    }
+
+    @Benchmark
+    public void openAndDecodeAll(Blackhole blackhole) throws IOException {
+        for (City city : new LocalListJournal<>(listFile, City.class, LIST_IDENTIFIER).read()) {
+            blackhole.consume(city.getCityName());
+        }
+    }
+
+}
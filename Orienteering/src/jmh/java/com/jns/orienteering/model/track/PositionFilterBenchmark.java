@@ -0,0 +1,106 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.track;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Filters and decodes the fixes of the synthetic run of {@link PositionReplay}, the time is reported per fix. Run with
+ * <code>-prof gc</code> to check, that the filters don't allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PositionFilterBenchmark {
+
+    private static final int    FIX_COUNT = 2 * PositionReplay.STANDING_SECONDS + PositionReplay.WALKING_SECONDS;
+
+    private Track               track;
+    private long[]              times;
+    private double[]            latitudes;
+    private double[]            longitudes;
+    private float[]             accuracies;
+
+    private final Fix           fix       = new Fix();
+    private PositionFilterChain filter;
+
+    @Setup
+    public void setUp() {
+        times = new long[FIX_COUNT];
+        latitudes = new double[FIX_COUNT];
+        longitudes = new double[FIX_COUNT];
+        accuracies = new float[FIX_COUNT];
+
+        track = PositionReplay.syntheticRun(42);
+        Track.Reader reader = track.reader();
+        for (int idx = 0; reader.next(); idx++) {
+            times[idx] = reader.getTime();
+            latitudes[idx] = reader.getLatitude();
+            longitudes[idx] = reader.getLongitude();
+            accuracies[idx] = reader.getAccuracy();
+        }
+        filter = PositionFilterChain.createDefault();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FIX_COUNT)
+    public void filterFixes(Blackhole blackhole) {
+        filter.reset();
+        for (int idx = 0; idx < FIX_COUNT; idx++) {
+            fix.set(times[idx], latitudes[idx], longitudes[idx], accuracies[idx]);
+            blackhole.consume(filter.filter(fix));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FIX_COUNT)
+    public void readTrack(Blackhole blackhole) {
+        Track.Reader reader = track.reader();
+        while (reader.next()) {
+            blackhole.consume(reader.getLatitude());
+        }
+    }
+
+}
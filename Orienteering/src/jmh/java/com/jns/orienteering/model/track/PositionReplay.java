@@ -0,0 +1,200 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.track;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import com.jns.orienteering.util.GeoMath;
+
+/**
+ * Replays a track through a {@link PositionFilter} on the desktop and compares the distance of the raw and the filtered
+ * positions, as it's accumulated by the active mission.
+ * <p>
+ * Without arguments a synthetic run is replayed: standing still, walking a known distance and standing still again, with
+ * gaussian GPS noise and occasional jumps of a few hundred meters. With the path of a track file (see {@link TrackRecorder})
+ * as argument, the recorded run is replayed.
+ */
+public final class PositionReplay {
+
+    /** seconds standing still at the start and at the end of the synthetic run */
+    static final int            STANDING_SECONDS = 300;
+    /** seconds walking in the synthetic run */
+    static final int            WALKING_SECONDS  = 900;
+    static final double         WALKING_SPEED    = 1.4;
+    static final double         TRUE_DISTANCE    = WALKING_SECONDS * WALKING_SPEED;
+
+    private static final double START_LATITUDE   = 50.107180;
+    private static final double START_LONGITUDE  = 8.663756;
+    private static final float  ACCURACY         = 8;
+    private static final double NOISE_SIGMA      = 4;
+    private static final double JUMP_PROBABILITY = 0.01;
+    private static final double JUMP_DISTANCE    = 300;
+
+    private PositionReplay() {
+    }
+
+    /**
+     * Creates a run at 1 Hz, which heads north east with {@link #WALKING_SPEED} after {@link #STANDING_SECONDS}
+     */
+    public static Track syntheticRun(long seed) {
+        Random random = new Random(seed);
+        LocalProjection projection = new LocalProjection();
+        projection.setOrigin(START_LATITUDE, START_LONGITUDE);
+
+        Track track = new Track();
+        double step = WALKING_SPEED / Math.sqrt(2);
+        double x = 0;
+        double y = 0;
+        int seconds = 2 * STANDING_SECONDS + WALKING_SECONDS;
+        for (int second = 0; second < seconds; second++) {
+            if (second >= STANDING_SECONDS && second < STANDING_SECONDS + WALKING_SECONDS) {
+                x += step;
+                y += step;
+            }
+            double noiseX = random.nextGaussian() * NOISE_SIGMA;
+            double noiseY = random.nextGaussian() * NOISE_SIGMA;
+            if (random.nextDouble() < JUMP_PROBABILITY) {
+                noiseX += JUMP_DISTANCE;
+            }
+            track.append(second * 1000L, projection.toLatitude(y + noiseY), projection.toLongitude(x + noiseX), ACCURACY);
+        }
+        return track;
+    }
+
+    /**
+     * @return latitude and longitude of the synthetic run without noise <code>second</code>s after its start
+     */
+    public static double[] pathPosition(int second) {
+        LocalProjection projection = new LocalProjection();
+        projection.setOrigin(START_LATITUDE, START_LONGITUDE);
+
+        int walkingSeconds = Math.max(0, Math.min(second - STANDING_SECONDS, WALKING_SECONDS));
+        double step = WALKING_SPEED / Math.sqrt(2) * walkingSeconds;
+        return new double[] { projection.toLatitude(step), projection.toLongitude(step) };
+    }
+
+    /**
+     * Replays <code>track</code> through <code>filter</code>. Like {@link com.jns.orienteering.platform.FilteredPositionService}
+     * the distance is only accumulated, when the filtered coordinates changed.
+     */
+    public static Result replay(Track track, PositionFilter filter) {
+        filter.reset();
+        Fix fix = new Fix();
+        Result result = new Result();
+
+        boolean hasLast = false;
+        double lastRawLatitude = 0;
+        double lastRawLongitude = 0;
+        double lastLatitude = 0;
+        double lastLongitude = 0;
+
+        Track.Reader reader = track.reader();
+        while (reader.next()) {
+            result.fixes++;
+            fix.set(reader.getTime(), reader.getLatitude(), reader.getLongitude(), reader.getAccuracy());
+
+            if (result.fixes > 1) {
+                result.rawDistance += GeoMath.fastDistance(lastRawLatitude, lastRawLongitude, fix.getLatitude(), fix.getLongitude());
+            }
+            lastRawLatitude = fix.getLatitude();
+            lastRawLongitude = fix.getLongitude();
+
+            if (!filter.filter(fix)) {
+                result.rejected++;
+                continue;
+            }
+            if (hasLast && (fix.getLatitude() != lastLatitude || fix.getLongitude() != lastLongitude)) {
+                result.filteredDistance += GeoMath.fastDistance(lastLatitude, lastLongitude, fix.getLatitude(), fix.getLongitude());
+                result.published++;
+            }
+            hasLast = true;
+            lastLatitude = fix.getLatitude();
+            lastLongitude = fix.getLongitude();
+        }
+        return result;
+    }
+
+    public static final class Result {
+
+        private int    fixes;
+        private int    rejected;
+        private int    published;
+        private double rawDistance;
+        private double filteredDistance;
+
+        public int getFixes() {
+            return fixes;
+        }
+
+        public int getRejected() {
+            return rejected;
+        }
+
+        public double getRawDistance() {
+            return rawDistance;
+        }
+
+        public double getFilteredDistance() {
+            return filteredDistance;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("fixes: %d, rejected: %d, published: %d, raw distance: %.0f m, filtered distance: %.0f m", fixes,
+                                 rejected, published, rawDistance, filteredDistance);
+        }
+    }
+
+    /**
+     * @param args
+     *            [trackFile]
+     */
+    public static void main(String[] args) throws IOException {
+        Track track;
+        if (args.length > 0) {
+            try (BufferedInputStream input = new BufferedInputStream(new FileInputStream(args[0]))) {
+                track = Track.read(input);
+            }
+            System.out.println("track: " + args[0]);
+        } else {
+            track = syntheticRun(42);
+            System.out.println(String.format("synthetic run, true distance: %.0f m", TRUE_DISTANCE));
+        }
+        System.out.println(String.format("samples: %d, %d bytes", track.getSampleCount(), track.getSizeInBytes()));
+
+        System.out.println("outliers:   " + replay(track, new SpeedOutlierFilter()));
+        System.out.println("kalman:     " + replay(track, new PositionFilterChain(new SpeedOutlierFilter(), new KalmanPositionFilter())));
+        System.out.println("stationary: " + replay(track, new StationaryFilter()));
+        System.out.println("default:    " + replay(track, PositionFilterChain.createDefault()));
+    }
+
+}
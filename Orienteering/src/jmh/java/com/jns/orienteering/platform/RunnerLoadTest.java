@@ -0,0 +1,145 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.platform;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.gluonhq.charm.down.plugins.Position;
+import com.jns.orienteering.model.common.Lane;
+import com.jns.orienteering.model.common.Scheduler;
+import com.jns.orienteering.model.persisted.TrackData;
+import com.jns.orienteering.model.track.PositionFilterChain;
+import com.jns.orienteering.model.track.PositionReplay;
+import com.jns.orienteering.model.track.Track;
+import com.jns.orienteering.model.track.TrackRecorder;
+import com.jns.orienteering.util.GeoMath;
+
+/**
+ * Load test of the position handling of the active mission: many simulated runners replay the synthetic run of
+ * {@link PositionReplay} through the default position filters at once, while the distance is added up, the fixes are
+ * recorded to track files and the targets are checked like in <code>ActiveMissionPresenter</code>. Runs headless and as
+ * fast as possible.
+ * <p>
+ * Arguments: number of runners (default 200), noise in meters, which is added to the synthetic noise (default 2). The
+ * recorded tracks are left in a temporary directory, so they can be replayed with {@link PositionReplay}.
+ */
+public final class RunnerLoadTest {
+
+    private static final double TARGET_RADIUS  = 7;
+    private static final int[]  TARGET_SECONDS = { 600, 900, 1200 };
+    private static final long   STEP_MILLIS    = 1000;
+    private static final long   START_INTERVAL = 2000;
+
+    private RunnerLoadTest() {
+    }
+
+    private static class Runner {
+
+        private final ReplayPositionService   replay;
+        private final FilteredPositionService positionService;
+        private final TrackRecorder           trackRecorder;
+        private final TrackData               trackData = new TrackData();
+        private final List<double[]>          targets;
+        private int                           targetIdx;
+
+        private Runner(ReplayPositionService replay, TrackRecorder trackRecorder, List<double[]> targets) {
+            this.replay = replay;
+            this.trackRecorder = trackRecorder;
+            this.targets = targets;
+            positionService = new FilteredPositionService(replay, PositionFilterChain.createDefault());
+            positionService.positionProperty().addListener((ov, p, p1) ->
+            {
+                if (p != null && p1 != null && targetIdx < targets.size()) {
+                    onPosition(p, p1);
+                }
+            });
+            positionService.activate();
+        }
+
+        private void onPosition(Position p, Position p1) {
+            trackData.addDistance((float) GeoMath.distance(p.getLatitude(), p.getLongitude(), p1.getLatitude(), p1.getLongitude()));
+            trackRecorder.record(positionService.getTime(), p1.getLatitude(), p1.getLongitude(), positionService.getAccuracy());
+
+            double[] target = targets.get(targetIdx);
+            if (GeoMath.isInRadius(p1.getLatitude(), p1.getLongitude(), target[0], target[1], TARGET_RADIUS)) {
+                targetIdx++;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int runnerCount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        double noise = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+
+        List<double[]> targets = new ArrayList<>();
+        for (int second : TARGET_SECONDS) {
+            targets.add(PositionReplay.pathPosition(second));
+        }
+        File trackDir = Files.createTempDirectory("runner-load-test").toFile();
+
+        RunnerSimulation simulation = new RunnerSimulation(42);
+        List<Runner> runners = new ArrayList<>();
+        for (int idx = 0; idx < runnerCount; idx++) {
+            Track track = PositionReplay.syntheticRun(idx);
+            ReplayPositionService replay = simulation.addRunner(track, noise, idx * START_INTERVAL);
+            TrackRecorder trackRecorder = new TrackRecorder("runner" + idx, new File(trackDir, "runner" + idx + ".trk"));
+            runners.add(new Runner(replay, trackRecorder, targets));
+        }
+
+        long start = System.nanoTime();
+        simulation.runToEnd(STEP_MILLIS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        int fixes = 0;
+        int reachedTargets = 0;
+        int finishedRunners = 0;
+        double distance = 0;
+        for (Runner runner : runners) {
+            runner.trackRecorder.close();
+            fixes += runner.replay.getPublishedFixes();
+            reachedTargets += runner.targetIdx;
+            finishedRunners += runner.targetIdx == targets.size() ? 1 : 0;
+            distance += runner.trackData.getDistance();
+        }
+
+        System.out.println(String.format("runners: %d, fixes: %d, simulated: %d s, wall: %d ms, %.0f fixes/s", runnerCount, fixes,
+                                         TimeUnit.MILLISECONDS.toSeconds(simulation.getElapsed()), elapsedMillis,
+                                         fixes * 1000.0 / Math.max(1, elapsedMillis)));
+        System.out.println(String.format("targets reached: %d of %d, finished runners: %d, average distance: %.0f m", reachedTargets,
+                                         runnerCount * targets.size(), finishedRunners, distance / runnerCount));
+        System.out.println(Scheduler.getStats(Lane.WRITE));
+        System.out.println("track files: " + trackDir);
+    }
+
+}
@@ -30,7 +30,6 @@ package com.jns.orienteering.common;
 
 import static com.jns.orienteering.control.Dialogs.showInfo;
 import static com.jns.orienteering.locale.Localization.localize;
-import static com.jns.orienteering.model.repo.BaseUrls.CITIES;
 import static com.jns.orienteering.model.repo.BaseUrls.TASKS;
 
 import java.net.HttpURLConnection;
@@ -53,6 +52,7 @@ import com.jns.orienteering.model.persisted.MissionStat;
 import com.jns.orienteering.model.persisted.Task;
 import com.jns.orienteering.model.persisted.User;
 import com.jns.orienteering.model.repo.AsyncResultReceiver;
+import com.jns.orienteering.model.repo.LazyList;
 import com.jns.orienteering.model.repo.LocalRepo;
 import com.jns.orienteering.model.repo.RepoService;
 import com.jns.orienteering.model.repo.UserFBRepo;
@@ -63,6 +63,7 @@ import com.jns.orienteering.model.repo.synchronizer.CitySynchronizer;
 import com.jns.orienteering.model.repo.synchronizer.ImageSynchronizer;
 import com.jns.orienteering.model.repo.synchronizer.RepoSynchronizer;
 import com.jns.orienteering.model.repo.synchronizer.SyncMetaData;
+import com.jns.orienteering.model.track.TrackRecorder;
 import com.jns.orienteering.platform.PlatformProvider;
 import com.jns.orienteering.view.Navigation;
 import com.jns.orienteering.view.ViewRegistry;
@@ -123,6 +124,7 @@ public class BaseService {
         initNavigation();
         initListeners();
         initUser();
+        TrackRecorder.recoverUnsavedTracksAsync();
     }
 
     private void initRepos() {
@@ -325,10 +327,10 @@ public class BaseService {
 
     private void ensureCachesInitialized() {
         if (!cityCache.isInitialized()) {
-            GluonObservableList<City> obsLocalCities = cityLocalRepo.retrieveListAsync(CITIES);
+            GluonObservableObject<LazyList<City>> obsLocalCities = cityLocalRepo.retrieveListLazyAsync();
             AsyncResultReceiver.create(obsLocalCities)
                                .defaultProgressLayer()
-                               .onSuccess(result -> cityCache.createMapping(result, getUserId()))
+                               .onSuccess(result -> cityCache.createMapping(result.get(), getUserId()))
                                .start();
         }
 
@@ -257,6 +257,12 @@ public enum Icon {
             return new StateButton<>(search, clear);
         }
 
+        public static StateButton<Void> nearMe() {
+            Node nearMe = GPS_LOCATION.icon(DEFAULT_FONT_SIZE);
+            Node all = MAP_MARKER_CIRCLE.icon(DEFAULT_FONT_SIZE);
+            return new StateButton<>(nearMe, all);
+        }
+
         public static StateButton<AccessType> accessType() {
             Node locked = LOCK.icon(DEFAULT_FONT_SIZE);
             Node unlocked = UNLOCK.icon(DEFAULT_FONT_SIZE);
@@ -33,29 +33,47 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 
 import com.jns.orienteering.model.common.ListUpdater;
+import com.jns.orienteering.model.repo.PagedObservableList;
 
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.SortedList;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ScrollBar;
 
 public class ListViewExtended<T> extends ListView<T> implements ActivatableDeactivatable {
 
-    private ScrollListener            scrollListener;
-    private boolean                   listenersEnabled;
+    /** position of the vertical scroll bar, from which on the next page of a paged list is loaded */
+    private static final double        LOAD_NEXT_PAGE_POSITION = 0.8;
 
-    private Comparator<T>             comparator;
-    private ObservableList<T>         backing;
-    private SelectedObjectProperty<T> selectedItem;
+    private ScrollListener             scrollListener;
+    private boolean                    listenersEnabled;
 
-    private Label                     lblPlaceHolder;
+    private Comparator<T>              comparator;
+    private ObservableList<T>          backing;
+    private SelectedObjectProperty<T>  selectedItem;
 
-    private ListUpdater<T>            listUpdater;
+    private Label                      lblPlaceHolder;
+
+    private ListUpdater<T>             listUpdater;
+
+    private PagedObservableList<?>     pagedItems;
+    private ScrollBar                  verticalScrollBar;
+    private ChangeListener<Number>     scrollPositionListener  = (obsValue, pos, pos1) -> loadNextPageIfNearEnd();
+    private ListChangeListener<Object> pageListener            = change -> Platform.runLater(this::loadNextPageIfNearEnd);
+    /** a page without new items doesn't change the list, but the next page may still be needed to fill the list view */
+    private ChangeListener<Number>     pageLoadedListener      = (obsValue, n, n1) -> Platform.runLater(this::loadNextPageIfNearEnd);
 
     public ListViewExtended() {
         selectedItem = new SelectedObjectProperty<>();
         scrollListener = new ScrollListener(this);
+        skinProperty().addListener((obsValue, skin, skin1) -> Platform.runLater(this::loadNextPageIfNearEnd));
     }
 
     public void setSelectableCellFactory(Function<SelectedObjectProperty<T>, ListCell<T>> cellSupplier) {
@@ -74,6 +92,10 @@ public class ListViewExtended<T> extends ListView<T> implements ActivatableDeact
         this.comparator = comparator;
     }
 
+    /**
+     * Shows <code>items</code> sorted by the comparator. If <code>items</code> is a {@link PagedObservableList}, its next
+     * page is loaded, as soon as the list is scrolled near its end or doesn't fill the list view.
+     */
     public void setSortableItems(ObservableList<T> items) {
         backing = items;
 
@@ -83,6 +105,48 @@ public class ListViewExtended<T> extends ListView<T> implements ActivatableDeact
         if (listUpdater != null) {
             listUpdater.setItems(backing);
         }
+        setPagedItems(items instanceof PagedObservableList ? (PagedObservableList<?>) items : null);
+    }
+
+    private void setPagedItems(PagedObservableList<?> items) {
+        if (pagedItems != null) {
+            pagedItems.removeListener(pageListener);
+            pagedItems.loadedPagesProperty().removeListener(pageLoadedListener);
+        }
+        pagedItems = items;
+        if (pagedItems != null) {
+            pagedItems.addListener(pageListener);
+            pagedItems.loadedPagesProperty().addListener(pageLoadedListener);
+            loadNextPageIfNearEnd();
+        }
+    }
+
+    private void loadNextPageIfNearEnd() {
+        if (pagedItems == null || !pagedItems.hasMorePages() || pagedItems.isLoadingPage()) {
+            return;
+        }
+        ScrollBar scrollBar = getVerticalScrollBar();
+        if (scrollBar == null) {
+            // not laid out yet, checked again as soon as the skin is created
+            return;
+        }
+        if (!scrollBar.isVisible() || scrollBar.getValue() >= scrollBar.getMin() + (scrollBar.getMax() - scrollBar.getMin()) *
+                LOAD_NEXT_PAGE_POSITION) {
+            pagedItems.loadNextPage();
+        }
+    }
+
+    private ScrollBar getVerticalScrollBar() {
+        if (verticalScrollBar == null) {
+            for (Node node : lookupAll(".scroll-bar")) {
+                if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                    verticalScrollBar = (ScrollBar) node;
+                    verticalScrollBar.valueProperty().addListener(scrollPositionListener);
+                    break;
+                }
+            }
+        }
+        return verticalScrollBar;
     }
 
     public ListUpdater<T> getListUpdater() {
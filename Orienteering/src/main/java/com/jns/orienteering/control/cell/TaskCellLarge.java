@@ -58,12 +58,13 @@ public class TaskCellLarge extends ListCell<Task> {
         super.updateItem(task, empty);
 
         if (task == null || empty) {
+            ImageHandler.cancelLoad(content.imgView);
             setGraphic(null);
         } else {
             if (getGraphic() == null) {
                 setGraphic(content);
             }
-            ImageHandler.loadInto(content.imgView, task.getImageUrl(), NO_PLACE_HOLDER);
+            ImageHandler.loadInto(content.imgView, task.getImageUrl(), NO_PLACE_HOLDER, getWidth(), 0);
             content.lblName.setText(task.getTaskName());
             content.lblPoints.setText(task.getPointsString());
             content.lblDescription.setText(task.getDescription());
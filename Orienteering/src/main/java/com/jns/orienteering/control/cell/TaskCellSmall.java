@@ -112,6 +112,7 @@ public class TaskCellSmall extends SelectableListCell<Task> {
         this.task = task;
 
         if (task == null || empty) {
+            ImageHandler.cancelLoad(content.imgView);
             setGraphic(null);
         } else {
             if (getGraphic() == null) {
@@ -121,7 +122,7 @@ public class TaskCellSmall extends SelectableListCell<Task> {
             content.lblDescription.setText(task.getDescription());
             content.lblPoints.setText(task.getPointsString());
 
-            ImageHandler.loadInto(content.imgView, task.getImageUrl(), SHOW_PLACE_HOLDER);
+            ImageHandler.loadInto(content.imgView, task.getImageUrl(), SHOW_PLACE_HOLDER, Content.IMAGE_WIDTH, Content.IMAGE_HEIGHT);
 
             if (partOfMissionCheck != null) {
                 content.lblCheck.setVisible(partOfMissionCheck.test(task));
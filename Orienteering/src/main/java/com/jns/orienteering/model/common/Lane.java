@@ -0,0 +1,104 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.common;
+
+/**
+ * The lanes of the {@link Scheduler}. Every lane has its own threads and bounded queue, so work of one lane can't delay
+ * the work of another one.
+ */
+public enum Lane {
+
+    /** reads, which the current screen waits for; the oldest read is the most likely to belong to a screen, which was left */
+    INTERACTIVE(4, 256, Overflow.DISCARD_OLDEST, Thread.NORM_PRIORITY),
+
+    /**
+     * fetches of the items of a list, which the current screen waits for; they have their own lane, so a burst of reads on
+     * the interactive lane, e.g. image loads, can't discard them and silently drop items from the list
+     */
+    LIST(4, 256, Overflow.REJECT, Thread.NORM_PRIORITY),
+
+    /** synchronization of the local data with the cloud */
+    SYNC(2, 256, Overflow.REJECT, Thread.NORM_PRIORITY - 1),
+
+    /** downloads, which are only cached for later use */
+    PREFETCH(2, 64, Overflow.DISCARD_OLDEST, Thread.MIN_PRIORITY),
+
+    /** creates, updates and deletes */
+    WRITE(2, 256, Overflow.REJECT, Thread.NORM_PRIORITY);
+
+    /**
+     * What happens to a task, which is submitted to a lane with a full queue
+     */
+    public enum Overflow {
+        /**
+         * the task runs on the submitting thread, which slows down the producer. Only for lanes, which are never fed from
+         * the FX application thread, as it would block the UI.
+         */
+        CALLER_RUNS,
+        /** the oldest queued task is cancelled and removed from the queue */
+        DISCARD_OLDEST,
+        /**
+         * the task is rejected and logged; {@link Scheduler#submit(Lane, Runnable)} throws a
+         * <code>RejectedExecutionException</code>, so the caller can report the failure
+         */
+        REJECT
+    }
+
+    private final int      threads;
+    private final int      capacity;
+    private final Overflow overflow;
+    private final int      priority;
+
+    private Lane(int threads, int capacity, Overflow overflow, int priority) {
+        this.threads = threads;
+        this.capacity = capacity;
+        this.overflow = overflow;
+        this.priority = priority;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return the max number of queued tasks
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+}
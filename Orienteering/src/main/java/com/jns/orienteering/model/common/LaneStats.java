@@ -0,0 +1,151 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.common;
+
+/**
+ * Snapshot of the counters of a {@link Lane}
+ */
+public final class LaneStats {
+
+    private final Lane lane;
+    private final int  activeCount;
+    private final int  queueDepth;
+    private final int  maxQueueDepth;
+    private final long submitted;
+    private final long completed;
+    private final long cancelled;
+    private final long discarded;
+    private final long callerRuns;
+    private final long rejected;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+    private final long totalRunNanos;
+
+    LaneStats(Lane lane, int activeCount, int queueDepth, int maxQueueDepth, long submitted, long completed, long cancelled,
+              long discarded, long callerRuns, long rejected, long totalWaitNanos, long maxWaitNanos, long totalRunNanos) {
+        this.lane = lane;
+        this.activeCount = activeCount;
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+        this.submitted = submitted;
+        this.completed = completed;
+        this.cancelled = cancelled;
+        this.discarded = discarded;
+        this.callerRuns = callerRuns;
+        this.rejected = rejected;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.totalRunNanos = totalRunNanos;
+    }
+
+    public Lane getLane() {
+        return lane;
+    }
+
+    /**
+     * @return the number of tasks, which are running
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * @return the number of tasks, which are waiting in the queue
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return the number of tasks, which were cancelled before they started
+     */
+    public long getCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return the number of tasks, which were dropped, because the queue was full
+     */
+    public long getDiscarded() {
+        return discarded;
+    }
+
+    /**
+     * @return the number of tasks, which ran on the submitting thread, because the queue was full
+     */
+    public long getCallerRuns() {
+        return callerRuns;
+    }
+
+    /**
+     * @return the number of tasks, which were rejected, because the queue was full
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * @return the average time, a completed task waited in the queue
+     */
+    public double getAverageWaitMillis() {
+        return completed == 0 ? 0 : totalWaitNanos / 1e6 / completed;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos / 1e6;
+    }
+
+    /**
+     * @return the average time, a completed task ran
+     */
+    public double getAverageRunMillis() {
+        return completed == 0 ? 0 : totalRunNanos / 1e6 / completed;
+    }
+
+    @Override
+    public String toString() {
+        return "LaneStats [lane=" + lane + ", activeCount=" + activeCount + ", queueDepth=" + queueDepth + ", maxQueueDepth=" + maxQueueDepth
+                + ", submitted=" + submitted + ", completed=" + completed + ", cancelled=" + cancelled + ", discarded=" + discarded
+                + ", callerRuns=" + callerRuns + ", rejected=" + rejected + ", averageWaitMillis=" + getAverageWaitMillis() + ", maxWaitMillis=" + getMaxWaitMillis()
+                + ", averageRunMillis=" + getAverageRunMillis() + "]";
+    }
+
+}
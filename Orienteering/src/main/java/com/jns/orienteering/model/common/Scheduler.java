@@ -0,0 +1,324 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.common;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the background work of the app on the threads of its {@link Lane}.
+ * <p>
+ * Every lane has a fixed number of threads and a bounded queue. If the queue is full, the {@link Lane.Overflow} of the lane
+ * runs the task on the submitting thread, discards the oldest queued task or rejects the task. A task, which is cancelled before it
+ * started, is removed from the queue immediately. Queue depth, wait and run times are counted per lane (see
+ * {@link #getStats(Lane)}).
+ */
+public final class Scheduler {
+
+    private static final Logger                   LOGGER          = LoggerFactory.getLogger(Scheduler.class);
+
+    private static final long                     KEEP_ALIVE_SECS = 30;
+
+    private static final Map<Lane, LaneExecutor>  EXECUTORS       = new EnumMap<>(Lane.class);
+
+    /** only hands due tasks over to their lane */
+    private static final ScheduledExecutorService TIMER           = Executors.newSingleThreadScheduledExecutor(runnable ->
+                                                                  {
+                                                                      Thread thread = new Thread(runnable, "Scheduler-timer");
+                                                                      thread.setDaemon(true);
+                                                                      return thread;
+                                                                  });
+
+    static {
+        for (Lane lane : Lane.values()) {
+            EXECUTORS.put(lane, new LaneExecutor(lane));
+        }
+    }
+
+    private Scheduler() {
+    }
+
+    /**
+     * Runs <code>task</code> on <code>lane</code>. Exceptions of the task and its rejection are logged.
+     */
+    public static void execute(Lane lane, Runnable task) {
+        try {
+            EXECUTORS.get(lane).submit(task, null, true);
+
+        } catch (RejectedExecutionException ex) {
+            // logged by the lane
+        }
+    }
+
+    /**
+     * @return the future of <code>task</code>, which removes the task from the queue, if it's cancelled before it started
+     * @throws RejectedExecutionException
+     *             if the queue of a lane with {@link Lane.Overflow#REJECT} is full
+     */
+    public static Future<?> submit(Lane lane, Runnable task) {
+        return EXECUTORS.get(lane).submit(task, null, false);
+    }
+
+    /**
+     * Like {@link #submit(Lane, Runnable)}, but runs <code>onCancel</code> on the cancelling thread, if the task is cancelled
+     * or discarded by the overflow of the lane before it started, e.g. to fail an observable, which waits for the task
+     */
+    public static Future<?> submit(Lane lane, Runnable task, Runnable onCancel) {
+        return EXECUTORS.get(lane).submit(task, null, false, onCancel);
+    }
+
+    public static <V> Future<V> submit(Lane lane, Callable<V> task) {
+        return EXECUTORS.get(lane).submit(task);
+    }
+
+    /**
+     * Runs <code>task</code> on <code>lane</code> after <code>delay</code>, unless the returned future is cancelled before
+     */
+    public static ScheduledFuture<?> schedule(Lane lane, Runnable task, long delay, TimeUnit unit) {
+        return TIMER.schedule(() -> execute(lane, task), delay, unit);
+    }
+
+    /**
+     * Runs <code>task</code> on <code>lane</code> every <code>period</code>, until the returned future is cancelled
+     */
+    public static ScheduledFuture<?> scheduleAtFixedRate(Lane lane, Runnable task, long period, TimeUnit unit) {
+        return TIMER.scheduleAtFixedRate(() -> execute(lane, task), period, period, unit);
+    }
+
+    public static LaneStats getStats(Lane lane) {
+        return EXECUTORS.get(lane).getStats();
+    }
+
+    /**
+     * Starts a daemon thread for work, which occupies its thread for its whole lifetime (e.g. an event loop) and therefore
+     * can't run on a lane
+     */
+    public static Thread startDedicatedThread(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.setUncaughtExceptionHandler((t, ex) -> LOGGER.error("Uncaught exception on: {}", t.getName(), ex));
+        thread.start();
+        return thread;
+    }
+
+    private static class LaneExecutor extends ThreadPoolExecutor implements RejectedExecutionHandler {
+
+        private final Lane          lane;
+
+        private final AtomicInteger maxQueueDepth  = new AtomicInteger();
+        private final AtomicLong    submitted      = new AtomicLong();
+        private final AtomicLong    completed      = new AtomicLong();
+        private final AtomicLong    cancelled      = new AtomicLong();
+        private final AtomicLong    discarded      = new AtomicLong();
+        private final AtomicLong    callerRuns     = new AtomicLong();
+        private final AtomicLong    rejected       = new AtomicLong();
+        private final AtomicLong    totalWaitNanos = new AtomicLong();
+        private final AtomicLong    maxWaitNanos   = new AtomicLong();
+        private final AtomicLong    totalRunNanos  = new AtomicLong();
+
+        private LaneExecutor(Lane lane) {
+            super(lane.getThreads(), lane.getThreads(), KEEP_ALIVE_SECS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(lane.getCapacity()),
+                  new LaneThreadFactory(lane));
+            this.lane = lane;
+            allowCoreThreadTimeOut(true);
+            setRejectedExecutionHandler(this);
+        }
+
+        private <V> LaneTask<V> submit(Runnable runnable, V result, boolean logFailure) {
+            return submit(runnable, result, logFailure, null);
+        }
+
+        private <V> LaneTask<V> submit(Runnable runnable, V result, boolean logFailure, Runnable onCancel) {
+            return enqueue(new LaneTask<>(runnable, result, logFailure, onCancel));
+        }
+
+        @Override
+        public <V> LaneTask<V> submit(Callable<V> callable) {
+            return enqueue(new LaneTask<>(callable));
+        }
+
+        private <V> LaneTask<V> enqueue(LaneTask<V> task) {
+            submitted.incrementAndGet();
+            execute(task);
+
+            int depth = getQueue().size();
+            int max;
+            while (depth > (max = maxQueueDepth.get()) && !maxQueueDepth.compareAndSet(max, depth)) {
+                // retry
+            }
+            return task;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            if (isShutdown()) {
+                ((Future<?>) runnable).cancel(false);
+                return;
+            }
+
+            switch (lane.getOverflow()) {
+                case CALLER_RUNS:
+                    callerRuns.incrementAndGet();
+                    runnable.run();
+                    break;
+
+                case DISCARD_OLDEST:
+                    Runnable oldest = getQueue().poll();
+                    if (oldest != null) {
+                        discarded.incrementAndGet();
+                        ((Future<?>) oldest).cancel(false);
+                        LOGGER.debug("{} queue full, discarded oldest task", lane);
+                    }
+                    execute(runnable);
+                    break;
+
+                case REJECT:
+                    rejected.incrementAndGet();
+                    LOGGER.warn("{} queue full, rejected task", lane);
+                    throw new RejectedExecutionException(lane + " queue full");
+
+                default:
+                    throw new IllegalStateException("Unknown overflow: " + lane.getOverflow());
+            }
+        }
+
+        private LaneStats getStats() {
+            return new LaneStats(lane, getActiveCount(), getQueue().size(), maxQueueDepth.get(), submitted.get(), completed.get(),
+                                 cancelled.get(), discarded.get(), callerRuns.get(), rejected.get(), totalWaitNanos.get(),
+                                 maxWaitNanos.get(), totalRunNanos.get());
+        }
+
+        private class LaneTask<V> extends FutureTask<V> {
+
+            private final long       enqueued = System.nanoTime();
+            private final boolean    logFailure;
+            private final Runnable   onCancel;
+            private volatile boolean started;
+
+            private LaneTask(Runnable runnable, V result, boolean logFailure, Runnable onCancel) {
+                super(runnable, result);
+                this.logFailure = logFailure;
+                this.onCancel = onCancel;
+            }
+
+            private LaneTask(Callable<V> callable) {
+                super(callable);
+                logFailure = false;
+                onCancel = null;
+            }
+
+            @Override
+            public void run() {
+                if (isDone()) {
+                    return;
+                }
+                started = true;
+                long start = System.nanoTime();
+                long wait = start - enqueued;
+                totalWaitNanos.addAndGet(wait);
+                long max;
+                while (wait > (max = maxWaitNanos.get()) && !maxWaitNanos.compareAndSet(max, wait)) {
+                    // retry
+                }
+
+                super.run();
+
+                totalRunNanos.addAndGet(System.nanoTime() - start);
+                completed.incrementAndGet();
+            }
+
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean cancel = super.cancel(mayInterruptIfRunning);
+                if (cancel && remove(this)) {
+                    cancelled.incrementAndGet();
+                }
+                return cancel;
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    if (onCancel != null && !started) {
+                        onCancel.run();
+                    }
+                    return;
+                }
+                if (!logFailure) {
+                    return;
+                }
+                try {
+                    get();
+                } catch (ExecutionException ex) {
+                    LOGGER.error("Uncaught exception on lane: {}", lane, ex.getCause());
+                } catch (InterruptedException | CancellationException ex) {
+                    // not possible for a completed task
+                }
+            }
+        }
+    }
+
+    private static class LaneThreadFactory implements ThreadFactory {
+
+        private final Lane          lane;
+        private final AtomicInteger count = new AtomicInteger();
+
+        private LaneThreadFactory(Lane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "Scheduler-" + lane.name().toLowerCase() + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(lane.getPriority());
+            return thread;
+        }
+    }
+
+}
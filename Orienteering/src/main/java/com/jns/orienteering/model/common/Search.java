@@ -28,6 +28,7 @@
  */
 package com.jns.orienteering.model.common;
 
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -50,6 +51,7 @@ public class Search<S, C> {
     private BiFilter<C, C>                    refineSearchPredicate;
 
     private Task<Void>                        searchTask;
+    private Future<?>                         searchFuture;
 
     private C                                 previousCriterion;
     private ObservableList<S>                 previousResult;
@@ -75,16 +77,21 @@ public class Search<S, C> {
     }
 
     public void find(C criterion, ObservableList<S> suggestions) {
-        if (isRunning()) {
-            searchTask.cancel();
-            LOGGER.debug("search cancelled");
-        }
+        cancel();
 
         searchTask = newSearchTask(() -> doFind(criterion, checkToUsePreviousResult(criterion, suggestions)));
+        searchFuture = Scheduler.submit(Lane.INTERACTIVE, searchTask);
+    }
 
-        Thread thread = new Thread(searchTask);
-        thread.setDaemon(true);
-        thread.start();
+    /**
+     * Cancels the running search or removes the pending search from the queue
+     */
+    private void cancel() {
+        if (searchFuture != null && !searchFuture.isDone()) {
+            searchTask.cancel();
+            searchFuture.cancel(false);
+            LOGGER.debug("search cancelled");
+        }
     }
 
     private ObservableList<S> checkToUsePreviousResult(C criterion, ObservableList<S> suggestions) {
@@ -95,7 +102,7 @@ public class Search<S, C> {
                 : previousResult;
     }
 
-    private ObservableList<S> doFind(C criterion, ObservableList<S> suggestions) {
+    ObservableList<S> doFind(C criterion, ObservableList<S> suggestions) {
         ObservableList<S> result = FXCollections.observableArrayList();
 
         for (S candidate : suggestions) {
@@ -109,10 +116,9 @@ public class Search<S, C> {
     }
 
     public void reset() {
-        if (isRunning()) {
-            searchTask.cancel();
-        }
+        cancel();
         searchTask = null;
+        searchFuture = null;
         previousCriterion = null;
         previousResult = null;
     }
@@ -0,0 +1,330 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.jns.orienteering.model.persisted.Locatable;
+import com.jns.orienteering.util.GeoMath;
+
+/**
+ * Finds items by their location. The items are kept in the cells of a grid over latitude and longitude, so a query only looks
+ * at the cells around the queried point instead of at all items.
+ * <p>
+ * The index is not thread safe. It's meant to be used on the FX application thread like the lists of the caches, which
+ * feed it. Queries across the antimeridian only find the items on the side of the queried point.
+ */
+public class SpatialIndex<E extends Locatable> {
+
+    /** the default edge of a cell in meters */
+    public static final double                DEFAULT_CELL_SIZE   = 500;
+
+    private static final Comparator<Entry<?>> DISTANCE_COMPARATOR = (e, e1) -> Double.compare(e.distance, e1.distance);
+
+    private final double                      cellDegrees;
+    private final Map<Long, List<Entry<E>>>   cells               = new HashMap<>();
+    private int                               size;
+
+    private final double[]                    boundingBox         = new double[GeoMath.BOUNDING_BOX_SIZE];
+
+    public SpatialIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * @param cellSize
+     *            the edge of a cell in meters, the distance of the queries should be about the same
+     */
+    public SpatialIndex(double cellSize) {
+        cellDegrees = Math.toDegrees(cellSize / GeoMath.EARTH_RADIUS);
+    }
+
+    public void add(E item) {
+        int row = toCell(item.getLatitude());
+        int col = toCell(item.getLongitude());
+        List<Entry<E>> cell = cells.get(key(row, col));
+        if (cell == null) {
+            cell = new ArrayList<>();
+            cells.put(key(row, col), cell);
+        }
+        cell.add(new Entry<>(item));
+        size++;
+    }
+
+    public void addAll(Collection<? extends E> items) {
+        for (E item : items) {
+            add(item);
+        }
+    }
+
+    /**
+     * Removes the first item, which equals <code>item</code>. The item is looked up at its current location first, so
+     * it's found fastest, if its coordinates didn't change since it was added.
+     *
+     * @return true, if an item was removed
+     */
+    public boolean remove(E item) {
+        long key = key(toCell(item.getLatitude()), toCell(item.getLongitude()));
+        List<Entry<E>> cell = cells.get(key);
+        if (cell != null && removeFromCell(cell, item)) {
+            if (cell.isEmpty()) {
+                cells.remove(key);
+            }
+            return true;
+        }
+
+        for (Iterator<List<Entry<E>>> it = cells.values().iterator(); it.hasNext();) {
+            List<Entry<E>> otherCell = it.next();
+            if (removeFromCell(otherCell, item)) {
+                if (otherCell.isEmpty()) {
+                    it.remove();
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean removeFromCell(List<Entry<E>> cell, E item) {
+        for (int idx = 0; idx < cell.size(); idx++) {
+            if (cell.get(idx).item.equals(item)) {
+                cell.remove(idx);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void removeAll(Collection<? extends E> items) {
+        for (E item : items) {
+            remove(item);
+        }
+    }
+
+    public void clear() {
+        cells.clear();
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the items within <code>radius</code> meters around the point, the nearest first
+     */
+    public List<E> withinRadius(double latitude, double longitude, double radius) {
+        GeoMath.boundingBox(latitude, longitude, radius, boundingBox);
+        List<Entry<E>> candidates = new ArrayList<>();
+        collectCells(toCell(boundingBox[GeoMath.MIN_LATITUDE]), toCell(boundingBox[GeoMath.MAX_LATITUDE]),
+                     toCell(boundingBox[GeoMath.MIN_LONGITUDE]), toCell(boundingBox[GeoMath.MAX_LONGITUDE]), null, candidates);
+
+        List<Entry<E>> matches = new ArrayList<>();
+        for (Entry<E> entry : candidates) {
+            entry.distance = GeoMath.distance(latitude, longitude, entry.latitude, entry.longitude);
+            if (entry.distance <= radius) {
+                matches.add(entry);
+            }
+        }
+        matches.sort(DISTANCE_COMPARATOR);
+        return toItems(matches, matches.size());
+    }
+
+    /**
+     * @return the items with the coordinates within the bounds, in no particular order
+     */
+    public List<E> inBoundingBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        List<Entry<E>> candidates = new ArrayList<>();
+        collectCells(toCell(minLatitude), toCell(maxLatitude), toCell(minLongitude), toCell(maxLongitude), null, candidates);
+
+        List<E> result = new ArrayList<>();
+        for (Entry<E> entry : candidates) {
+            if (entry.latitude >= minLatitude && entry.latitude <= maxLatitude && entry.longitude >= minLongitude
+                    && entry.longitude <= maxLongitude) {
+                result.add(entry.item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return up to <code>count</code> items nearest to the point, the nearest first
+     */
+    public List<E> nearest(double latitude, double longitude, int count) {
+        return nearest(latitude, longitude, count, null);
+    }
+
+    /**
+     * @param filter
+     *            only items, which match the filter, are returned, or null
+     * @return up to <code>count</code> items nearest to the point, the nearest first
+     */
+    public List<E> nearest(double latitude, double longitude, int count, Predicate<? super E> filter) {
+        if (count <= 0 || size == 0) {
+            return new ArrayList<>();
+        }
+        List<Entry<E>> candidates = new ArrayList<>();
+
+        int row = toCell(latitude);
+        int col = toCell(longitude);
+        for (int ring = 0;; ring++) {
+            long ringWidth = 2L * ring + 1;
+            if (ringWidth * ringWidth > cells.size()) {
+                // the square of the rings covers more cells than are occupied
+                candidates.clear();
+                collectAll(filter, candidates);
+                setDistances(latitude, longitude, candidates);
+                break;
+            }
+            int start = candidates.size();
+            collectRing(row, col, ring, filter, candidates);
+            setDistances(latitude, longitude, candidates.subList(start, candidates.size()));
+
+            if (candidates.size() >= count) {
+                candidates.sort(DISTANCE_COMPARATOR);
+                if (candidates.get(count - 1).distance <= distanceBeyondRing(latitude, ring)) {
+                    break;
+                }
+            }
+        }
+        candidates.sort(DISTANCE_COMPARATOR);
+        return toItems(candidates, Math.min(count, candidates.size()));
+    }
+
+    /**
+     * @return the minimal distance from a point in the center cell to a point outside of the square of cells up to
+     *         <code>ring</code>
+     */
+    private double distanceBeyondRing(double latitude, int ring) {
+        double maxLatitude = Math.min(90, Math.abs(latitude) + (ring + 1) * cellDegrees);
+        return Math.toRadians(ring * cellDegrees) * GeoMath.EARTH_RADIUS * Math.cos(Math.toRadians(maxLatitude));
+    }
+
+    private void collectRing(int row, int col, int ring, Predicate<? super E> filter, List<Entry<E>> result) {
+        if (ring == 0) {
+            collectCell(key(row, col), filter, result);
+            return;
+        }
+        for (int idx = -ring; idx <= ring; idx++) {
+            collectCell(key(row - ring, col + idx), filter, result);
+            collectCell(key(row + ring, col + idx), filter, result);
+        }
+        for (int idx = -ring + 1; idx < ring; idx++) {
+            collectCell(key(row + idx, col - ring), filter, result);
+            collectCell(key(row + idx, col + ring), filter, result);
+        }
+    }
+
+    private void collectCells(int minRow, int maxRow, int minCol, int maxCol, Predicate<? super E> filter, List<Entry<E>> result) {
+        long cellCount = (long) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (cellCount > cells.size()) {
+            for (Map.Entry<Long, List<Entry<E>>> cell : cells.entrySet()) {
+                long key = cell.getKey();
+                int row = (int) (key >> 32);
+                int col = (int) key;
+                if (row >= minRow && row <= maxRow && col >= minCol && col <= maxCol) {
+                    addEntries(cell.getValue(), filter, result);
+                }
+            }
+            return;
+        }
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                collectCell(key(row, col), filter, result);
+            }
+        }
+    }
+
+    private void collectAll(Predicate<? super E> filter, List<Entry<E>> result) {
+        for (List<Entry<E>> cell : cells.values()) {
+            addEntries(cell, filter, result);
+        }
+    }
+
+    private void collectCell(long key, Predicate<? super E> filter, List<Entry<E>> result) {
+        List<Entry<E>> cell = cells.get(key);
+        if (cell != null) {
+            addEntries(cell, filter, result);
+        }
+    }
+
+    private void addEntries(List<Entry<E>> cell, Predicate<? super E> filter, List<Entry<E>> result) {
+        for (Entry<E> entry : cell) {
+            if (filter == null || filter.test(entry.item)) {
+                result.add(entry);
+            }
+        }
+    }
+
+    private static <E extends Locatable> void setDistances(double latitude, double longitude, List<Entry<E>> entries) {
+        for (Entry<E> entry : entries) {
+            entry.distance = GeoMath.distance(latitude, longitude, entry.latitude, entry.longitude);
+        }
+    }
+
+    private static <E extends Locatable> List<E> toItems(List<Entry<E>> entries, int count) {
+        List<E> items = new ArrayList<>(count);
+        for (int idx = 0; idx < count; idx++) {
+            items.add(entries.get(idx).item);
+        }
+        return items;
+    }
+
+    private int toCell(double degrees) {
+        return (int) Math.floor(degrees / cellDegrees);
+    }
+
+    private static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    private static final class Entry<E extends Locatable> {
+
+        private final E      item;
+        private final double latitude;
+        private final double longitude;
+        /** the distance to the point of the current query */
+        private double       distance;
+
+        private Entry(E item) {
+            this.item = item;
+            latitude = item.getLatitude();
+            longitude = item.getLongitude();
+        }
+    }
+
+}
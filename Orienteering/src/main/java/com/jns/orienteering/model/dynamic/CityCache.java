@@ -41,6 +41,7 @@ import com.jns.orienteering.model.common.GluonObservables;
 import com.jns.orienteering.model.persisted.City;
 import com.jns.orienteering.model.repo.AsyncResultReceiver;
 import com.jns.orienteering.model.repo.CityFBRepo;
+import com.jns.orienteering.model.repo.LazyList;
 import com.jns.orienteering.model.repo.RepoService;
 
 import javafx.collections.ObservableList;
@@ -50,6 +51,9 @@ import javafx.collections.transformation.SortedList;
  * Caches public and private cities during start-up. When there is no internet connection,
  * when the app is started, the lists will be empty and each subsequent request for a city list
  * will retry to access the cloud data.
+ * <p>
+ * The local list is mapped lazily: looking up a city by id only decodes this city, all cities are decoded as soon as
+ * the city lists are requested or the cache is changed.
  */
 public class CityCache {
 
@@ -64,6 +68,10 @@ public class CityCache {
     private Map<String, City>         cityIds       = new HashMap<>();                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                   // publicIds?
     private Map<String, City>         userCityIds   = new HashMap<>();                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                   // privateIds?
 
+    /** the local cities, until they are mapped */
+    private LazyList<City>            localCities;
+    private Map<String, Integer>      localCityIdx;
+
     private GluonObservableList<City> publicCities  = new GluonObservableList<>();
     private GluonObservableList<City> privateCities = new GluonObservableList<>();
 
@@ -78,6 +86,26 @@ public class CityCache {
         this.userId = userId;
         LOGGER.debug("initializing cityMapper with userId: {}", userId);
 
+        if (cities instanceof LazyList && cityIds.isEmpty()) {
+            localCities = (LazyList<City>) cities;
+            localCityIdx = null;
+            initialized = true;
+            return;
+        }
+        ensureMapped();
+        mapCities(cities);
+    }
+
+    private void ensureMapped() {
+        if (localCities != null) {
+            List<City> cities = localCities;
+            localCities = null;
+            localCityIdx = null;
+            mapCities(cities);
+        }
+    }
+
+    private void mapCities(List<City> cities) {
         for (City city : cities) {
             cityIds.put(city.getId(), city);
 
@@ -97,6 +125,7 @@ public class CityCache {
     }
 
     public GluonObservableList<City> getPrivateCities() {
+        ensureMapped();
         if (privateCities.isEmpty() && userId != null) {
             GluonObservables.setInitialized(privateCities, false);
 
@@ -117,6 +146,7 @@ public class CityCache {
     }
 
     public GluonObservableList<City> getPublicCities() {
+        ensureMapped();
         if (publicCities.isEmpty()) {
             publicCities = cloudRepo.getPublicListAsync();
         }
@@ -131,18 +161,39 @@ public class CityCache {
     }
 
     public boolean contains(String cityId) {
+        if (localCities != null) {
+            return getLocalCityIdx().containsKey(cityId);
+        }
         return cityIds.containsKey(cityId);
     }
 
     public City get(String cityId) {
+        if (localCities != null) {
+            Integer idx = getLocalCityIdx().get(cityId);
+            return idx == null ? null : localCities.get(idx);
+        }
         return cityIds.get(cityId);
     }
 
+    /**
+     * @return the index of the local cities by id, which is read without decoding the cities
+     */
+    private Map<String, Integer> getLocalCityIdx() {
+        if (localCityIdx == null) {
+            localCityIdx = new HashMap<>();
+            for (int idx = 0; idx < localCities.size(); idx++) {
+                localCityIdx.put(localCities.getId(idx), idx);
+            }
+        }
+        return localCityIdx;
+    }
+
     public Optional<String> getName(String cityId) {
         return !contains(cityId) ? Optional.empty() : Optional.of(get(cityId).getCityName());
     }
 
     public void put(City city) {
+        ensureMapped();
         cityIds.put(city.getId(), city);
         publicCities.add(city);
 
@@ -159,6 +210,7 @@ public class CityCache {
     }
 
     public City remove(String cityId) {
+        ensureMapped();
         City removed = cityIds.remove(cityId);
         userCityIds.remove(cityId);
 
@@ -172,6 +224,9 @@ public class CityCache {
     }
 
     public boolean isEmpty() {
+        if (localCities != null) {
+            return localCities.isEmpty();
+        }
         return cityIds.isEmpty();
     }
 
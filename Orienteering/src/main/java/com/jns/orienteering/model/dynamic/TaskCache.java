@@ -28,16 +28,27 @@
  */
 package com.jns.orienteering.model.dynamic;
 
+import java.util.Objects;
+
 import com.gluonhq.connect.GluonObservableList;
+import com.gluonhq.connect.GluonObservableObject;
+import com.jns.orienteering.model.common.GluonObservables;
+import com.jns.orienteering.model.common.SpatialIndex;
 import com.jns.orienteering.model.persisted.Task;
+import com.jns.orienteering.model.repo.AsyncResultReceiver;
 import com.jns.orienteering.model.repo.RepoService;
 import com.jns.orienteering.model.repo.TaskFBRepo;
 
 public class TaskCache extends ModelCache<Task> {
 
-    public static final TaskCache INSTANCE = new TaskCache();
+    public static final TaskCache    INSTANCE  = new TaskCache();
+
+    private TaskFBRepo               cloudRepo;
 
-    private TaskFBRepo            cloudRepo;
+    /** all tasks of <code>indexCityId</code>, which the user can see, by their position */
+    private SpatialIndex<Task>       taskIndex;
+    private String                   indexCityId;
+    private String                   indexUserId;
 
     private TaskCache() {
         cloudRepo = RepoService.INSTANCE.getCloudRepo(Task.class);
@@ -53,4 +64,57 @@ public class TaskCache extends ModelCache<Task> {
         return cloudRepo.getPublicTasksAsync(cityId);
     }
 
+    @Override
+    public void addItem(Task item) {
+        super.addItem(item);
+        invalidateTaskIndex(item);
+    }
+
+    @Override
+    public void updateItem(Task newItem, Task previousItem) {
+        super.updateItem(newItem, previousItem);
+        invalidateTaskIndex(newItem);
+        invalidateTaskIndex(previousItem);
+    }
+
+    @Override
+    public void removeItem(Task item) {
+        super.removeItem(item);
+        invalidateTaskIndex(item);
+    }
+
+    /**
+     * Retrieves all public tasks of the city and the private tasks of the user and indexes them by their position. The
+     * public items of the cache can't be indexed, because they are loaded page by page. The index is kept, until the city
+     * or the user changes or a task of the city is changed.
+     */
+    public GluonObservableObject<SpatialIndex<Task>> getTaskIndexAsync(String cityId, String userId) {
+        GluonObservableObject<SpatialIndex<Task>> obsTaskIndex = new GluonObservableObject<>();
+
+        if (taskIndex != null && cityId.equals(indexCityId) && Objects.equals(userId, indexUserId)) {
+            GluonObservables.setInitialized(obsTaskIndex, taskIndex, true);
+            return obsTaskIndex;
+        }
+
+        AsyncResultReceiver.create(cloudRepo.getAllTasksAsync(cityId, userId))
+                           .onSuccess(result ->
+                           {
+                               SpatialIndex<Task> index = new SpatialIndex<>();
+                               index.addAll(result);
+                               taskIndex = index;
+                               indexCityId = cityId;
+                               indexUserId = userId;
+                               GluonObservables.setInitialized(obsTaskIndex, index, true);
+                           })
+                           .propagateException(obsTaskIndex)
+                           .start();
+        return obsTaskIndex;
+    }
+
+    private void invalidateTaskIndex(Task task) {
+        if (task != null && task.getCityId().equals(indexCityId)) {
+            taskIndex = null;
+        }
+    }
+
 }
@@ -38,7 +38,7 @@ import java.util.Set;
 
 import javax.xml.bind.annotation.XmlTransient;
 
-public class Mission extends BasePostableSynchronizable implements CityAssignable, LookupSupplier, Comparable<Mission> {
+public class Mission extends BasePostableSynchronizable implements CityAssignable, LookupSupplier, Summarizable, Comparable<Mission> {
 
     private String               missionName;
     private String               cityId;
@@ -50,6 +50,7 @@ public class Mission extends BasePostableSynchronizable implements CityAssignabl
 
     private double               distance;
     private int                  maxPoints;
+    private boolean              summary;
 
     private Mission              previousMission;
 
@@ -179,6 +180,18 @@ public class Mission extends BasePostableSynchronizable implements CityAssignabl
         maxPoints = points;
     }
 
+    @Override
+    @XmlTransient
+    public boolean isSummary() {
+        return summary;
+    }
+
+    @Override
+    @XmlTransient
+    public void setSummary(boolean summary) {
+        this.summary = summary;
+    }
+
     @Override
     public MissionNameLookup createNameLookup() {
         return new MissionNameLookup(missionName, id);
@@ -30,10 +30,14 @@ package com.jns.orienteering.model.persisted;
 
 public abstract class Stat extends BaseModel implements Comparable<Stat> {
 
-    private int   start;
-    private int   end;
-    private float distance;
-    private int   points;
+    private int    start;
+    private int    end;
+    private float  distance;
+    private int    points;
+
+    private String trackId;
+    private int    trackStart;
+    private int    trackLength;
 
     @JsonDefaultConstructor
     public Stat() {
@@ -63,11 +67,42 @@ public abstract class Stat extends BaseModel implements Comparable<Stat> {
     public TrackData getTrackData() {
         TrackData trackData = new TrackData();
         trackData.setDistance(distance);
+        trackData.setTrack(trackId, trackStart, trackLength);
         return trackData;
     }
 
     public void setTrackData(TrackData trackData) {
         distance = trackData.getDistance();
+        trackId = trackData.getTrackId();
+        trackStart = trackData.getTrackStart();
+        trackLength = trackData.getTrackLength();
+    }
+
+    /**
+     * @return the id of the recorded track, which is read with <code>TrackRecorder.readTrack(String)</code>, or null
+     */
+    public String getTrackId() {
+        return trackId;
+    }
+
+    public void setTrackId(String trackId) {
+        this.trackId = trackId;
+    }
+
+    public int getTrackStart() {
+        return trackStart;
+    }
+
+    public void setTrackStart(int trackStart) {
+        this.trackStart = trackStart;
+    }
+
+    public int getTrackLength() {
+        return trackLength;
+    }
+
+    public void setTrackLength(int trackLength) {
+        this.trackLength = trackLength;
     }
 
     public int getDuration() {
@@ -40,7 +40,7 @@ import com.gluonhq.charm.down.plugins.Position;
 import com.gluonhq.maps.MapPoint;
 import com.jns.orienteering.locale.Localization;
 
-public class Task extends BasePostableSynchronizable implements CityAssignable, LookupSupplier, Comparable<Task> {
+public class Task extends BasePostableSynchronizable implements CityAssignable, LookupSupplier, Summarizable, Locatable, Comparable<Task> {
 
     private static final Comparator<Task> ORDER_NUMBER_COMPARATOR = (t, t1) -> Integer.compare(t.getOrderNumber(), t1.getOrderNumber());
 
@@ -60,6 +60,7 @@ public class Task extends BasePostableSynchronizable implements CityAssignable,
     private int                           orderNumber;
 
     private boolean                       completed;
+    private boolean                       summary;
 
     private Task                          previousTask;
 
@@ -134,6 +135,7 @@ public class Task extends BasePostableSynchronizable implements CityAssignable,
         this.ownerId = ownerId;
     }
 
+    @Override
     public double getLongitude() {
         return longitude;
     }
@@ -142,6 +144,7 @@ public class Task extends BasePostableSynchronizable implements CityAssignable,
         this.longitude = longitude;
     }
 
+    @Override
     public double getLatitude() {
         return latitude;
     }
@@ -225,6 +228,18 @@ public class Task extends BasePostableSynchronizable implements CityAssignable,
         return completed;
     }
 
+    @Override
+    @XmlTransient
+    public boolean isSummary() {
+        return summary;
+    }
+
+    @Override
+    @XmlTransient
+    public void setSummary(boolean summary) {
+        this.summary = summary;
+    }
+
     @XmlTransient
     public int getOrderNumber() {
         return orderNumber;
@@ -30,8 +30,12 @@ package com.jns.orienteering.model.persisted;
 
 public class TrackData {
 
-    private float distance;
-    private float speed;
+    private float  distance;
+    private float  speed;
+
+    private String trackId;
+    private int    trackStart;
+    private int    trackLength;
 
     public TrackData() {
     }
@@ -56,16 +60,72 @@ public class TrackData {
         return speed;
     }
 
+    /**
+     * @return the id of the recorded track (see <code>TrackRecorder</code>) or null, if no track was
+     *         recorded
+     */
+    public String getTrackId() {
+        return trackId;
+    }
+
+    public void setTrackId(String trackId) {
+        this.trackId = trackId;
+    }
+
+    /**
+     * @return the index of the first sample of this part of the track
+     */
+    public int getTrackStart() {
+        return trackStart;
+    }
+
+    public void setTrackStart(int trackStart) {
+        this.trackStart = trackStart;
+    }
+
+    /**
+     * @return the number of samples of this part of the track
+     */
+    public int getTrackLength() {
+        return trackLength;
+    }
+
+    public void setTrackLength(int trackLength) {
+        this.trackLength = trackLength;
+    }
+
+    public void setTrack(String trackId, int trackStart, int trackLength) {
+        this.trackId = trackId;
+        this.trackStart = trackStart;
+        this.trackLength = trackLength;
+    }
+
     public float calculateAverageSpeed(long duration) {
         return distance / duration * 60;
     }
 
+    /**
+     * Adds the distance of <code>trackData</code> and extends the track range by its samples, which are expected to follow
+     * the samples of this track data
+     */
     public void add(TrackData trackData) {
         distance += trackData.getDistance();
+
+        if (trackData.trackId == null) {
+            return;
+        }
+        if (trackId == null) {
+            trackId = trackData.trackId;
+            trackStart = trackData.trackStart;
+        }
+        trackLength += trackData.trackLength;
     }
 
     public void reset() {
         distance = 0;
+        trackId = null;
+        trackStart = 0;
+        trackLength = 0;
     }
 
 }
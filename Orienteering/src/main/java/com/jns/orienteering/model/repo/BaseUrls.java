@@ -33,27 +33,29 @@ public class BaseUrls {
     private BaseUrls() {
     }
 
-    public static final String USERS            = "users";
-    public static final String CITIES           = "cities";
-    public static final String CITY_NAMES       = "city_names";
-    public static final String CITIES_BY_USER   = "cities_by_user";
-
-    public static final String TASKS            = "tasks";
-    public static final String TASK_NAMES       = "task_names";
-    public static final String TASKS_BY_CITY    = "tasks_by_city";
-    public static final String TASKS_BY_MISSION = "tasks_by_mission";
-
-    public static final String MISSIONS         = "missions";
-    public static final String MISSION_NAMES    = "mission_names";
-    public static final String MISSIONS_BY_CITY = "missions_by_city";
-    public static final String MISSIONS_BY_TASK = "missions_by_task";
-
-    public static final String MISSION_STATS    = "mission_stats";
-    public static final String STATS_BY_MISSION = "stats_by_mission";
-    public static final String STATS_BY_USER    = "stats_by_user";
-
-    public static final String IMAGES           = "images";
-
-    public static final String CHANGE_LOG       = "change_log";
+    public static final String USERS             = "users";
+    public static final String CITIES            = "cities";
+    public static final String CITY_NAMES        = "city_names";
+    public static final String CITIES_BY_USER    = "cities_by_user";
+
+    public static final String TASKS             = "tasks";
+    public static final String TASK_NAMES        = "task_names";
+    public static final String TASKS_BY_CITY     = "tasks_by_city";
+    public static final String TASKS_BY_MISSION  = "tasks_by_mission";
+    public static final String TASK_SUMMARIES    = "task_summaries";
+
+    public static final String MISSIONS          = "missions";
+    public static final String MISSION_NAMES     = "mission_names";
+    public static final String MISSIONS_BY_CITY  = "missions_by_city";
+    public static final String MISSIONS_BY_TASK  = "missions_by_task";
+    public static final String MISSION_SUMMARIES = "mission_summaries";
+
+    public static final String MISSION_STATS     = "mission_stats";
+    public static final String STATS_BY_MISSION  = "stats_by_mission";
+    public static final String STATS_BY_USER     = "stats_by_user";
+
+    public static final String IMAGES            = "images";
+
+    public static final String CHANGE_LOG        = "change_log";
 
 }
@@ -65,21 +65,21 @@ public class ChangeLogRepo extends FireBaseRepo<ChangeLogEntry> {
         super(ChangeLogEntry.class, BaseUrls.CHANGE_LOG);
     }
 
-    public static ChangeLogRepo getInstance() {
+    public static synchronized ChangeLogRepo getInstance() {
         if (instance == null) {
             instance = new ChangeLogRepo();
         }
         return instance;
     }
 
-    public void writeImageLogAsync(ChangeLogEntry entry) {
-        createOrUpdateAsync(entry, BaseUrls.IMAGES, entry.getId());
+    public void writeImageLog(WriteBatch batch, ChangeLogEntry entry) {
+        createOrUpdate(batch, entry, BaseUrls.IMAGES, entry.getId());
     }
 
-    public void writeLogAsync(Synchronizable synchronizable, RepoAction action, String baseUrl) {
+    public void writeLog(WriteBatch batch, Synchronizable synchronizable, RepoAction action, String baseUrl) {
         synchronizable.setRepoAction(action);
         ChangeLogEntry changeLogEntry = new ChangeLogEntry(synchronizable);
-        createOrUpdateAsync(changeLogEntry, baseUrl, changeLogEntry.getId());
+        createOrUpdate(batch, changeLogEntry, baseUrl, changeLogEntry.getId());
     }
 
     public GluonObservableList<ChangeLogEntry> readListAsync(long lastSynced, String... urlParts) {
@@ -58,7 +58,7 @@ public class CityFBRepo extends FireBaseRepo<City> {
         }
 
         String idsUrl = UrlBuilder.buildUrl(CITIES_BY_USER, userId);
-        return DataProvider.retrieveList(new RestMapReader<>(createRestClient(), CitiesByUser.class, idsUrl, City.class, CITIES));
+        return DataProvider.retrieveList(new RestMapReader<>(this::createRestClient, CitiesByUser.class, idsUrl, City.class, CITIES));
     }
 
     public GluonObservableList<City> getPublicListAsync() {
@@ -72,23 +72,16 @@ public class CityFBRepo extends FireBaseRepo<City> {
     public GluonObservableObject<City> createAsync(City city) {
         return executeAsync(city, () ->
         {
+            city.setId(createPushId());
             city.setTimeStamp(createTimeStamp());
-            City result = addToList(city);
 
-            if (result != null) {
-                writeLogEntry(result, RepoAction.ADD);
+            WriteBatch batch = new WriteBatch();
+            createOrUpdate(batch, city, city.getId());
+            writeLogEntry(batch, city, RepoAction.ADD);
 
-                nameLookupRepo.createOrUpdate(new CityNameLookup(city));
-
-                CitiesByUser existingLookup = citiesByUserLookup.retrieveObject(city.getOwnerId());
-                if (existingLookup != null) {
-                    existingLookup.addValue(city.getId());
-                    citiesByUserLookup.createOrUpdate(existingLookup, city.getOwnerId());
-                } else {
-                    CitiesByUser newLookup = new CitiesByUser(city.getOwnerId(), city.getId());
-                    citiesByUserLookup.createOrUpdate(newLookup, city.getOwnerId());
-                }
-            }
+            nameLookupRepo.createOrUpdate(batch, new CityNameLookup(city));
+            batch.update(true, citiesByUserLookup.absolutePath(city.getOwnerId(), CITIES, city.getId()));
+            commit(batch);
         });
     }
 
@@ -96,12 +89,15 @@ public class CityFBRepo extends FireBaseRepo<City> {
         return executeAsync(city, () ->
         {
             city.setTimeStamp(createTimeStamp());
-            createOrUpdate(city, city.getId());
-            writeLogEntry(city, RepoAction.UPDATE);
+
+            WriteBatch batch = new WriteBatch();
+            createOrUpdate(batch, city, city.getId());
+            writeLogEntry(batch, city, RepoAction.UPDATE);
 
             if (!city.getCityName().equals(previousName)) {
-                nameLookupRepo.recreateLookup(new CityNameLookup(city), previousName);
+                nameLookupRepo.recreateLookup(batch, new CityNameLookup(city), previousName);
             }
+            commit(batch);
         });
     }
 
@@ -109,14 +105,14 @@ public class CityFBRepo extends FireBaseRepo<City> {
         return executeAsync(city, () ->
         {
             city.setTimeStamp(createTimeStamp());
-            delete(city.getId());
-            writeLogEntry(city, RepoAction.DELETE);
 
-            nameLookupRepo.deleteLookup(new CityNameLookup(city));
+            WriteBatch batch = new WriteBatch();
+            delete(batch, city.getId());
+            writeLogEntry(batch, city, RepoAction.DELETE);
 
-            CitiesByUser existingLookup = citiesByUserLookup.retrieveObject(city.getOwnerId());
-            existingLookup.removeValue(city.getId());
-            citiesByUserLookup.createOrUpdate(existingLookup, city.getOwnerId());
+            nameLookupRepo.deleteLookup(batch, new CityNameLookup(city));
+            citiesByUserLookup.delete(batch, city.getOwnerId(), CITIES, city.getId());
+            commit(batch);
         });
     }
 
@@ -125,8 +121,8 @@ public class CityFBRepo extends FireBaseRepo<City> {
                 !checkIfUrlExists(MISSIONS_BY_CITY, PRIVATE, cityId) && !checkIfUrlExists(MISSIONS_BY_CITY, PUBLIC, cityId);
     }
 
-    private void writeLogEntry(City city, RepoAction action) {
-        getChangeLogRepo().writeLogAsync(city, action, CITIES);
+    private void writeLogEntry(WriteBatch batch, City city, RepoAction action) {
+        getChangeLogRepo().writeLog(batch, city, action, CITIES);
     }
 
 }
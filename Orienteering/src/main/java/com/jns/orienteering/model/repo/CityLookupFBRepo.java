@@ -28,27 +28,56 @@
  */
 package com.jns.orienteering.model.repo;
 
+import static com.jns.orienteering.control.Dialogs.showInfo;
+import static com.jns.orienteering.locale.Localization.localize;
+
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.gluonhq.connect.GluonObservableList;
 import com.gluonhq.connect.provider.DataProvider;
+import com.gluonhq.connect.provider.ListDataReader;
 import com.jns.orienteering.model.common.GluonObservables;
 import com.jns.orienteering.model.persisted.AccessType;
 import com.jns.orienteering.model.persisted.BaseModel;
 import com.jns.orienteering.model.persisted.CityLookup;
+import com.jns.orienteering.model.persisted.Summarizable;
+import com.jns.orienteering.model.repo.readerwriter.AbstractRestObjectsReader;
 import com.jns.orienteering.model.repo.readerwriter.RestMapReader;
+import com.jns.orienteering.model.repo.readerwriter.RestPageReader;
+
+import javafx.application.Platform;
 
-public class CityLookupFBRepo<T extends CityLookup, LT extends BaseModel> extends FireBaseRepo<T> {
+/**
+ * Lookup of the ids of the targets by city and access type.
+ * <p>
+ * The lists read the summaries of the targets from <code>summaryUrl</code> and mark them with
+ * {@link Summarizable#setSummary(boolean)}. Targets without a summary, e.g. written before summaries existed, are read in
+ * full from <code>lookupTargetUrl</code>. Targets, which can't be read at all, are missing in the lists; the user is told that
+ * the list is incomplete.
+ */
+public class CityLookupFBRepo<T extends CityLookup, LT extends BaseModel & Summarizable> extends FireBaseRepo<T> {
+
+    private static final Logger LOGGER  = LoggerFactory.getLogger(CityLookupFBRepo.class);
 
     private static final String PUBLIC  = "public";
     private static final String PRIVATE = "private";
 
     private String              lookupTargetUrl;
+    private String              summaryUrl;
     private Class<LT>           lookupTargetClass;
 
-    public CityLookupFBRepo(Class<T> lookupClass, Class<LT> lookupTargetClass, String lookupBaseUrl, String lookupTargetUrl) {
+    public CityLookupFBRepo(Class<T> lookupClass, Class<LT> lookupTargetClass, String lookupBaseUrl, String lookupTargetUrl,
+                            String summaryUrl) {
         super(lookupClass, lookupBaseUrl);
         this.lookupTargetUrl = lookupTargetUrl;
+        this.summaryUrl = summaryUrl;
         this.lookupTargetClass = lookupTargetClass;
     }
 
@@ -60,32 +89,83 @@ public class CityLookupFBRepo<T extends CityLookup, LT extends BaseModel> extend
         return retrieveList(url);
     }
 
+    /**
+     * Retrieves the public list page by page, ordered by id. The list is initialized with the first page, further pages
+     * are loaded with {@link PagedObservableList#loadNextPage()}.
+     */
     public GluonObservableList<LT> getPublicListAsync(String cityId) {
-        String idsUrl = buildUrlFromRelativePath(PUBLIC, cityId);
-        return retrieveList(idsUrl);
+        String idsUrl = buildUrlFromRelativePath(PUBLIC, cityId, lookupTargetUrl);
+
+        PagedObservableList<LT> list = new PagedObservableList<>(cursor ->
+        {
+            RestPageReader<LT> reader = new RestPageReader<>(this::createRestClient, idsUrl, lookupTargetClass, summaryUrl, cursor,
+                                                             PagedObservableList.DEFAULT_PAGE_SIZE);
+            return readSummaries(reader);
+        });
+        list.loadNextPage();
+        return list;
+    }
+
+    /**
+     * Retrieves the complete public list and the private list of the user at once, for a search over all targets of the city
+     */
+    public GluonObservableList<LT> getCompleteListAsync(String cityId, String userId) {
+        List<ListDataReader<LT>> readers = new ArrayList<>();
+        readers.add(mapReader(buildUrlFromRelativePath(PUBLIC, cityId)));
+        if (userId != null) {
+            readers.add(mapReader(buildUrlFromRelativePath(PRIVATE, cityId, userId)));
+        }
+
+        return DataProvider.retrieveList(new ListDataReader<LT>() {
+
+            @Override
+            public GluonObservableList<LT> newGluonObservableList() {
+                return new GluonObservableList<>();
+            }
+
+            @Override
+            public Iterator<LT> iterator() throws IOException {
+                List<LT> items = new ArrayList<>();
+                for (ListDataReader<LT> reader : readers) {
+                    for (Iterator<LT> it = reader.iterator(); it.hasNext();) {
+                        items.add(it.next());
+                    }
+                }
+                return items.iterator();
+            }
+        });
     }
 
     private GluonObservableList<LT> retrieveList(String sourceUrl) {
-        return DataProvider.retrieveList(new RestMapReader<>(createRestClient(), targetClass, sourceUrl, lookupTargetClass, lookupTargetUrl));
+        return DataProvider.retrieveList(mapReader(sourceUrl));
     }
 
-    public void createOrUpdate(T lookup) throws IOException {
-        String lookupPath = buildPath(lookup);
-        updateRestClientFromRelativePath(GET, lookupPath);
+    private RestMapReader<T, LT> mapReader(String sourceUrl) {
+        RestMapReader<T, LT> reader = new RestMapReader<>(this::createRestClient, targetClass, sourceUrl, lookupTargetClass, summaryUrl);
+        return readSummaries(reader);
+    }
 
-        T existingLookup = retrieveObject(lookupPath);
-        if (existingLookup != null) {
-            if (!existingLookup.containsValue(lookup.getTargetId())) {
-                existingLookup.addValue(lookup.getTargetId());
-                createOrUpdate(existingLookup, lookupPath);
-            }
-        } else {
-            createOrUpdate(lookup, lookupPath);
-        }
+    private <R extends AbstractRestObjectsReader<?, LT>> R readSummaries(R reader) {
+        reader.setFallbackUrl(lookupTargetUrl);
+        reader.setTargetReadHandler(target -> target.setSummary(true));
+        reader.setFailureHandler(this::onUnresolvedTargets);
+        return reader;
+    }
+
+    private void onUnresolvedTargets(Map<String, IOException> failures) {
+        LOGGER.warn("{} targets of the list could not be read: {}", failures.size(), failures.keySet());
+        Platform.runLater(() -> showInfo(localize("dialog.info.listIncomplete")));
     }
 
-    public void recreateCityLookup(T lookup) throws IOException {
-        createOrUpdate(lookup);
+    /**
+     * Adds the target id to the lookup, without reading the existing lookup
+     */
+    public void createOrUpdate(WriteBatch batch, T lookup) {
+        batch.update(true, absolutePath(buildTargetPath(lookup)));
+    }
+
+    public void recreateCityLookup(WriteBatch batch, T lookup) {
+        String targetPath = buildTargetPath(lookup);
 
         if (lookup.accessTypeChanged()) {
             AccessType newAccessType = lookup.getAccessType();
@@ -95,17 +175,20 @@ public class CityLookupFBRepo<T extends CityLookup, LT extends BaseModel> extend
         if (lookup.cityChanged()) {
             lookup.setId(lookup.getPreviousId());
         }
-        deleteLookup(lookup);
+        String previousTargetPath = buildTargetPath(lookup);
+
+        if (!previousTargetPath.equals(targetPath)) {
+            batch.delete(absolutePath(previousTargetPath));
+        }
+        batch.update(true, absolutePath(targetPath));
     }
 
-    public void deleteLookup(T lookup) throws IOException {
-        String path = UrlBuilder.buildPath(buildPath(lookup), lookupTargetUrl, lookup.getTargetId());
-        updateRestClientFromRelativePath(GET, path);
+    public void deleteLookup(WriteBatch batch, T lookup) {
+        batch.delete(absolutePath(buildTargetPath(lookup)));
+    }
 
-        boolean urlExists = checkIfUrlExists(baseUrl, path);
-        if (urlExists) {
-            delete(path);
-        }
+    private String buildTargetPath(T lookup) {
+        return UrlBuilder.buildPath(buildPath(lookup), lookupTargetUrl, lookup.getTargetId());
     }
 
     private String buildPath(T lookup) {
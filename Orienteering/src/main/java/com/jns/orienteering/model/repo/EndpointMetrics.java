@@ -0,0 +1,128 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+/**
+ * Snapshot of the request counters of an endpoint (see {@link RequestMetrics})
+ */
+public final class EndpointMetrics {
+
+    private final String endpoint;
+    private final long   requests;
+    private final long   errors;
+    private final long   inFlight;
+    private final long   bytesIn;
+    private final long   bytesOut;
+    private final long   totalNanos;
+    private final long   maxNanos;
+    private final long[] histogram;
+
+    EndpointMetrics(String endpoint, long requests, long errors, long inFlight, long bytesIn, long bytesOut, long totalNanos, long maxNanos,
+                    long[] histogram) {
+        this.endpoint = endpoint;
+        this.requests = requests;
+        this.errors = errors;
+        this.inFlight = inFlight;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.histogram = histogram;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return the number of completed requests, including the failed ones
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    public double getTotalMillis() {
+        return totalNanos / 1e6;
+    }
+
+    public double getMeanMillis() {
+        return requests == 0 ? 0 : totalNanos / 1e6 / requests;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos / 1e6;
+    }
+
+    /**
+     * @return the upper bound of the histogram bucket, which contains the <code>percentile</code> (0 - 100) of the latencies
+     */
+    public double getPercentileMillis(double percentile) {
+        long rank = (long) Math.ceil(requests * percentile / 100);
+        long count = 0;
+        for (int bucket = 0; bucket < histogram.length; bucket++) {
+            count += histogram[bucket];
+            if (count >= rank && count > 0) {
+                return Math.min(RequestMetrics.bucketUpperBoundMillis(bucket), getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * @return the number of requests per latency bucket, the upper bound of bucket <code>i</code> is <code>2^i</code> ms, the
+     *         last bucket is unbounded
+     */
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointMetrics [endpoint=" + endpoint + ", requests=" + requests + ", errors=" + errors + ", inFlight=" + inFlight
+                + ", bytesIn=" + bytesIn + ", bytesOut=" + bytesOut + ", totalMillis=" + getTotalMillis() + ", meanMillis=" + getMeanMillis()
+                + ", p50Millis=" + getPercentileMillis(50) + ", p90Millis=" + getPercentileMillis(90) + ", maxMillis=" + getMaxMillis() + "]";
+    }
+
+}
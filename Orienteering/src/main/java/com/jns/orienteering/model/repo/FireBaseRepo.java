@@ -28,17 +28,22 @@
  */
 package com.jns.orienteering.model.repo;
 
-import static com.jns.orienteering.util.Validations.isNullOrEmpty;
-
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,69 +59,44 @@ import com.gluonhq.connect.provider.ObjectDataWriter;
 import com.gluonhq.connect.provider.RestClient;
 import com.gluonhq.connect.source.RestDataSource;
 import com.jns.orienteering.model.common.GluonObservables;
+import com.jns.orienteering.model.common.Lane;
+import com.jns.orienteering.model.common.Scheduler;
 import com.jns.orienteering.model.persisted.Model;
 import com.jns.orienteering.model.persisted.Postable;
+import com.jns.orienteering.model.persisted.Summarizable;
+import com.jns.orienteering.model.repo.RequestMetrics.Trace;
 import com.jns.orienteering.model.repo.readerwriter.JsonInputConverterExtended;
 import com.jns.orienteering.model.repo.readerwriter.JsonOutputConverterExtended;
 import com.jns.orienteering.model.repo.readerwriter.JsonTreeConverter;
+import com.jns.orienteering.model.repo.readerwriter.RestKeysReader;
 import com.jns.orienteering.util.ExceptionalTrigger;
 
 public class FireBaseRepo<T extends Model> {
 
-    private static final Logger              LOGGER          = LoggerFactory.getLogger(FireBaseRepo.class);
+    private static final Logger            LOGGER          = LoggerFactory.getLogger(FireBaseRepo.class);
 
-    protected static final String            GET             = "GET";
-    protected static final String            PUT             = "PUT";
-    protected static final String            POST            = "POST";
+    protected static final String          GET             = "GET";
+    protected static final String          PUT             = "PUT";
+    protected static final String          POST            = "POST";
 
-    private static final ExecutorService     executor        = Executors.newFixedThreadPool(4, runnable ->
-                                                             {
-                                                                 Thread thread = Executors.defaultThreadFactory().newThread(runnable);
-                                                                 thread.setName("FireBaseRepoThread");
-                                                                 thread.setDaemon(true);
-                                                                 return thread;
-                                                             });
+    private static final ChangeLogRepo     CHANGE_LOG_REPO = ChangeLogRepo.getInstance();
+    private static final OfflineWriteQueue WRITE_QUEUE     = OfflineWriteQueue.getInstance();
 
-    private static final ChangeLogRepo       CHANGE_LOG_REPO = ChangeLogRepo.getInstance();
+    protected String                       baseUrl;
+    private UrlBuilder                     urlBuilder;
 
-    private RestClient                       restClient;
-    protected String                         baseUrl;
-    private UrlBuilder                       urlBuilder;
-
-    protected final Class<T>                 targetClass;
-    protected JsonOutputConverterExtended<T> outputConverter;
-    protected JsonInputConverterExtended<T>  inputConverter;
-    protected JsonTreeConverter<T>           listInputConverter;
+    protected final Class<T>               targetClass;
 
     public FireBaseRepo(Class<T> targetClass, String baseUrl) {
         this.targetClass = targetClass;
         this.baseUrl = baseUrl;
         urlBuilder = new UrlBuilder(baseUrl);
-        restClient = createRestClient();
-        outputConverter = new JsonOutputConverterExtended<>(targetClass);
-        inputConverter = new JsonInputConverterExtended<>(targetClass);
     }
 
     protected RestClient createRestClient() {
         return RestClientFactory.baseClient();
     }
 
-    protected void updateRestClientUrl(String method, String... urlParts) {
-        updateRestClient(method, UrlBuilder.buildUrl(urlParts));
-    }
-
-    protected void updateRestClientFromRelativePath(String method, String... urlParts) {
-        updateRestClient(method, buildUrlFromRelativePath(urlParts));
-    }
-
-    protected void updateRestClient(String method, String path) {
-        if (isNullOrEmpty(path)) {
-            throw new IllegalArgumentException("restclient path must not be null or empty");
-        }
-        restClient.method(method);
-        restClient.path(path);
-    }
-
     protected String buildUrlFromRelativePath(String... urlParts) {
         return urlBuilder.buildUrlFromRelativePath(urlParts);
     }
@@ -125,14 +105,29 @@ public class FireBaseRepo<T extends Model> {
         return UrlBuilder.buildPath(urlParts);
     }
 
+    /**
+     * @return the path of <code>urlParts</code> relative to the database root, to be used in a {@link WriteBatch}
+     */
+    protected String[] absolutePath(String... urlParts) {
+        String[] path = new String[urlParts.length + 1];
+        path[0] = baseUrl;
+        System.arraycopy(urlParts, 0, path, 1, urlParts.length);
+        return path;
+    }
+
+    protected String createPushId() {
+        return PushIdCreator.pushId();
+    }
+
     public boolean checkIfUrlExists(String... urlParts) {
         String url = UrlBuilder.buildUrl(urlParts);
         String string = null;
 
+        Trace trace = RequestMetrics.begin(RequestMetrics.endpointOf(url));
         try {
-            RestClient client = RestClientFactory.queryClient(url);
+            RestClient client = RestRequest.get(url, QueryParameter.shallow()).createClient();
             RestDataSource createRestDataSource = client.createRestDataSource();
-            InputStream input = createRestDataSource.getInputStream();
+            InputStream input = RequestMetrics.countIn(createRestDataSource.getInputStream());
 
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, "UTF-8"))) {
                 StringBuilder stringBuilder = new StringBuilder();
@@ -144,15 +139,17 @@ public class FireBaseRepo<T extends Model> {
                 LOGGER.debug("payload: {}", string);
             }
         } catch (IOException ex) {
+            trace.fail();
             LOGGER.error("Failed to checkIfExists: '{}'", url, ex);
+        } finally {
+            trace.end();
         }
         return string != null && !"null".equals(string);
     }
 
     public void createOrUpdate(T obj, String... urlParts) throws IOException {
         try {
-            updateRestClientFromRelativePath(PUT, urlParts);
-            writer().writeObject(obj);
+            writer(RestRequest.put(buildUrlFromRelativePath(urlParts))).writeObject(obj);
 
         } catch (IOException ex) {
             LOGGER.error("Failed to write obj: {}", urlParts, ex);
@@ -161,16 +158,14 @@ public class FireBaseRepo<T extends Model> {
     }
 
     public GluonObservableObject<T> createOrUpdateAsync(T obj, String... urlParts) {
-        updateRestClientFromRelativePath(PUT, urlParts);
-        return DataProvider.storeObject(obj, writer());
+        return DataProvider.storeObject(obj, writer(RestRequest.put(buildUrlFromRelativePath(urlParts))));
     }
 
     public T addToList(T obj) throws IOException {
         Objects.requireNonNull(obj, "POST object must not be null");
 
         try {
-            updateRestClientUrl(POST, baseUrl);
-            Optional<T> result = writer().writeObject(obj);
+            Optional<T> result = writer(RestRequest.post(UrlBuilder.buildUrl(baseUrl))).writeObject(obj);
             if (result.isPresent()) {
                 updateId(obj, result.get());
             }
@@ -187,8 +182,7 @@ public class FireBaseRepo<T extends Model> {
                 Postable p = (Postable) result;
                 obj.setId(p.getPostId());
             }
-            updateRestClientFromRelativePath(PUT, obj.getId());
-            writer().writeObject(obj);
+            writer(RestRequest.put(buildUrlFromRelativePath(obj.getId()))).writeObject(obj);
 
         } catch (IOException ex) {
             LOGGER.error("Failed to write: '{}'", obj, ex);
@@ -196,12 +190,61 @@ public class FireBaseRepo<T extends Model> {
         }
     }
 
+    public void createOrUpdate(WriteBatch batch, T obj, String... urlParts) {
+        batch.update(obj, absolutePath(urlParts));
+    }
+
+    public void delete(WriteBatch batch, String... urlParts) {
+        batch.delete(absolutePath(urlParts));
+    }
+
+    /**
+     * Writes all updates of the <code>batch</code> with a single multi-location update. Either all locations are written or none.
+     * <p>
+     * If the device is offline, or earlier batches are still waiting to be sent, the batch is added to the
+     * {@link OfflineWriteQueue} and sent, as soon as the connection is back.
+     */
+    public void commit(WriteBatch batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (WRITE_QUEUE.isPending()) {
+            WRITE_QUEUE.enqueue(batch);
+            return;
+        }
+
+        try {
+            patchRoot(batch.toJson());
+
+        } catch (IOException ex) {
+            if (OfflineWriteQueue.isConnectionFailure(ex)) {
+                LOGGER.info("Offline, queued batch: {}", batch);
+                WRITE_QUEUE.enqueue(batch);
+                return;
+            }
+            LOGGER.error("Failed to commit batch: {}", batch, ex);
+            throw ex;
+        }
+    }
+
+    static void patchRoot(JsonObject updates) throws IOException {
+        RestRequest request = RestRequest.patch(UrlBuilder.buildRootUrl());
+        ObjectDataWriter<JsonObject> writer = request.createClient()
+                                                     .createObjectDataWriter(new JsonOutputConverterExtended<>(JsonObject.class),
+                                                                             new JsonInputConverterExtended<>(JsonObject.class));
+        RequestMetrics.traced(request, writer).writeObject(updates);
+    }
+
+    protected OfflineWriteQueue getWriteQueue() {
+        return WRITE_QUEUE;
+    }
+
     public GluonObservableObject<RemoveObject> delete(String... urlParts) throws IOException {
         String url = buildUrlFromRelativePath(urlParts);
 
         GluonObservableObject<RemoveObject> obs = RemoveObject.observableInstance(url);
         try {
-            remover(RestClientFactory.deleteClient(url)).removeObject(obs);
+            remover(RestRequest.delete(url)).removeObject(obs);
 
         } catch (IOException ex) {
             LOGGER.error("Failed to delete: '{}'", url, ex);
@@ -214,14 +257,13 @@ public class FireBaseRepo<T extends Model> {
         String url = buildUrlFromRelativePath(urlParts);
 
         GluonObservableObject<RemoveObject> obs = RemoveObject.observableInstance(url);
-        DataProvider.removeObject(obs, remover(RestClientFactory.deleteClient(url)));
+        DataProvider.removeObject(obs, remover(RestRequest.delete(url)));
         return obs;
     }
 
     public T retrieveObject(String... urlParts) throws IOException {
         try {
-            updateRestClientFromRelativePath(GET, urlParts);
-            return reader(restClient).readObject();
+            return reader(RestRequest.get(buildUrlFromRelativePath(urlParts))).readObject();
 
         } catch (IOException ex) {
             LOGGER.error("Failed to read: {}", urlParts, ex);
@@ -229,48 +271,128 @@ public class FireBaseRepo<T extends Model> {
         }
     }
 
+    /**
+     * Reads the keys of the children of <code>urlParts</code> with a shallow query, without loading the children
+     */
+    public Set<String> retrieveKeys(String... urlParts) throws IOException {
+        String url = buildUrlFromRelativePath(urlParts);
+        RestClient client = RestRequest.get(url, QueryParameter.shallow()).createClient();
+
+        Trace trace = RequestMetrics.begin(RequestMetrics.endpointOf(url));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(RequestMetrics.countIn(client.createRestDataSource().getInputStream()),
+                                                                              "UTF-8"))) {
+            StringBuilder stringBuilder = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                stringBuilder.append(line);
+            }
+            String payload = stringBuilder.toString().trim();
+            if (!payload.startsWith("{")) {
+                return Collections.emptySet();
+            }
+            try (JsonReader jsonReader = Json.createReader(new StringReader(payload))) {
+                return jsonReader.readObject().keySet();
+            }
+
+        } catch (IOException ex) {
+            trace.fail();
+            LOGGER.error("Failed to read keys: '{}'", url, ex);
+            throw ex;
+        } finally {
+            trace.end();
+        }
+    }
+
     public GluonObservableObject<T> retrieveObjectAsync(String... urlParts) {
-        updateRestClientFromRelativePath(GET, urlParts);
-        return DataProvider.retrieveObject(reader(restClient));
+        return DataProvider.retrieveObject(reader(RestRequest.get(buildUrlFromRelativePath(urlParts))));
+    }
+
+    /**
+     * Retrieves the full object, if <code>obj</code> is a summary (see {@link Summarizable}), otherwise returns an initialized
+     * observable of <code>obj</code>
+     */
+    public GluonObservableObject<T> resolveAsync(T obj) {
+        if (isSummary(obj)) {
+            return retrieveObjectAsync(obj.getId());
+        }
+        GluonObservableObject<T> obsObject = new GluonObservableObject<>();
+        GluonObservables.setInitialized(obsObject, obj, true);
+        return obsObject;
+    }
+
+    /**
+     * Reads the full object, if <code>obj</code> is a summary (see {@link Summarizable}), otherwise returns <code>obj</code>
+     */
+    public T resolve(T obj) throws IOException {
+        if (!isSummary(obj)) {
+            return obj;
+        }
+        T resolved = retrieveObject(obj.getId());
+        if (resolved == null) {
+            throw new IOException("No object found for summary: '" + obj.getId() + "'");
+        }
+        return resolved;
+    }
+
+    private static boolean isSummary(Model obj) {
+        return obj instanceof Summarizable && ((Summarizable) obj).isSummary();
     }
 
     public GluonObservableList<T> retrieveListAsync(String... urlParts) {
-        updateRestClientFromRelativePath(GET, urlParts);
-        return DataProvider.retrieveList(listReader(restClient));
+        return DataProvider.retrieveList(listReader(RestRequest.get(buildUrlFromRelativePath(urlParts))));
+    }
+
+    /**
+     * Retrieves the objects with the given <code>ids</code> in parallel and returns them in the order of <code>ids</code>.
+     * Objects, which could not be retrieved, are missing in the result.
+     */
+    public GluonObservableList<T> retrieveObjectsAsync(Collection<String> ids) {
+        return retrieveObjectsAsync(ids, Lane.LIST);
+    }
+
+    /**
+     * @param lane
+     *            the lane of the {@link Scheduler}, which fetches the objects
+     */
+    public GluonObservableList<T> retrieveObjectsAsync(Collection<String> ids, Lane lane) {
+        RestKeysReader<T> reader = new RestKeysReader<>(this::createRestClient, ids, targetClass, baseUrl);
+        reader.setLane(lane);
+        return DataProvider.retrieveList(reader);
     }
 
     public GluonObservableList<T> retrieveListFilteredAsync(List<QueryParameter> queryParams, String... urlParts) {
-        RestClient client = RestClientFactory.queryClient(queryParams, buildUrlFromRelativePath(urlParts));
-        return DataProvider.retrieveList(listReader(client));
+        return DataProvider.retrieveList(listReader(RestRequest.get(buildUrlFromRelativePath(urlParts), queryParams)));
     }
 
     public GluonObservableObject<T> retrieveObjectFilteredAsync(List<QueryParameter> queryParams, String... urlParts) {
-        RestClient client = RestClientFactory.queryClient(queryParams, buildUrlFromRelativePath(urlParts));
-        return DataProvider.retrieveObject(reader(client));
+        return DataProvider.retrieveObject(reader(RestRequest.get(buildUrlFromRelativePath(urlParts), queryParams)));
     }
 
-    protected ObjectDataWriter<T> writer() {
-        return restClient.createObjectDataWriter(outputConverter, inputConverter);
+    /**
+     * Gluon sets the stream of the current request on the converters, so every request gets its own converters. They are
+     * cheap to create, because the codecs of the classes are cached by <code>JsonCodec</code>.
+     */
+    protected ObjectDataWriter<T> writer(RestRequest request) {
+        return RequestMetrics.traced(request, request.createClient().createObjectDataWriter(new JsonOutputConverterExtended<>(targetClass),
+                                                                                            new JsonInputConverterExtended<>(targetClass)));
     }
 
-    protected ObjectDataReader<T> reader(RestClient client) {
-        return client.createObjectDataReader(inputConverter);
+    protected ObjectDataReader<T> reader(RestRequest request) {
+        return RequestMetrics.traced(request, request.createClient().createObjectDataReader(new JsonInputConverterExtended<>(targetClass)));
     }
 
-    protected ListDataReader<T> listReader(RestClient client) {
-        return client.createListDataReader(listInputConverter());
+    protected ListDataReader<T> listReader(RestRequest request) {
+        return RequestMetrics.traced(request, request.createClient().createListDataReader(listInputConverter()));
     }
 
     protected InputStreamIterableInputConverter<T> listInputConverter() {
-        if (listInputConverter == null) {
-            listInputConverter = new JsonTreeConverter<>(targetClass);
-        }
-        return listInputConverter;
+        return new JsonTreeConverter<>(targetClass);
     }
 
-    protected ObjectDataRemover<RemoveObject> remover(RestClient client) {
-        return client.createObjectDataRemover(new JsonOutputConverterExtended<>(RemoveObject.class), new JsonInputConverterExtended<>(
-                                                                                                                                      RemoveObject.class));
+    protected ObjectDataRemover<RemoveObject> remover(RestRequest request) {
+        return RequestMetrics.traced(request, request.createClient()
+                                                     .createObjectDataRemover(new JsonOutputConverterExtended<>(RemoveObject.class),
+                                                                              new JsonInputConverterExtended<>(RemoveObject.class)));
     }
 
     public long createTimeStamp() {
@@ -292,18 +414,23 @@ public class FireBaseRepo<T extends Model> {
     }
 
     protected void executeAsync(Optional<T> sourceObject, GluonObservableObject<T> result, ExceptionalTrigger action) {
-        executor.execute(() ->
-        {
-            try {
-                action.start();
-                sourceObject.ifPresent(result::set);
-                GluonObservables.setInitialized(result);
-
-            } catch (Exception ex) {
-                LOGGER.error("Error on executeAsync", ex);
-                result.setException(ex);
-            }
-        });
+        try {
+            Scheduler.submit(Lane.WRITE, () ->
+            {
+                try {
+                    action.start();
+                    sourceObject.ifPresent(result::set);
+                    GluonObservables.setInitialized(result);
+
+                } catch (Exception ex) {
+                    LOGGER.error("Error on executeAsync", ex);
+                    result.setException(ex);
+                }
+            });
+
+        } catch (RejectedExecutionException ex) {
+            result.setException(ex);
+        }
     }
 
     private static class RemoveObject {
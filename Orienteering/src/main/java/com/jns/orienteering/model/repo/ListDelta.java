@@ -0,0 +1,86 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.jns.orienteering.model.persisted.Model;
+
+/**
+ * Collects the changed items of a local list, which are appended to the journal of the list (see
+ * {@link LocalRepo#updateListAsync(ListDelta)}) instead of rewriting the whole list.
+ * <p>
+ * A later change of the same id replaces the earlier one.
+ */
+public class ListDelta<T extends Model> {
+
+    private final Map<String, T> upserts    = new LinkedHashMap<>();
+    private final Set<String>    deletedIds = new LinkedHashSet<>();
+
+    public ListDelta<T> upsert(T item) {
+        deletedIds.remove(item.getId());
+        upserts.put(item.getId(), item);
+        return this;
+    }
+
+    public ListDelta<T> upsertAll(Collection<? extends T> items) {
+        for (T item : items) {
+            upsert(item);
+        }
+        return this;
+    }
+
+    public ListDelta<T> delete(String id) {
+        upserts.remove(id);
+        deletedIds.add(id);
+        return this;
+    }
+
+    public Collection<T> getUpserts() {
+        return Collections.unmodifiableCollection(upserts.values());
+    }
+
+    public Set<String> getDeletedIds() {
+        return Collections.unmodifiableSet(deletedIds);
+    }
+
+    public boolean isEmpty() {
+        return upserts.isEmpty() && deletedIds.isEmpty();
+    }
+
+    public int size() {
+        return upserts.size() + deletedIds.size();
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.json.Json;
+import javax.json.JsonReader;
+import javax.json.JsonWriter;
+
+import com.jns.orienteering.model.persisted.Model;
+import com.jns.orienteering.model.repo.readerwriter.JsonCodec;
+
+/**
+ * Binary snapshot of a local list, which is memory mapped and decodes its items lazily.
+ * <p>
+ * Layout (big endian):
+ *
+ * <pre>
+ * header        magic (int), version (int), count (int), data offset (int), generation (long)
+ * index         count x [id offset (int), id length (int), item offset (int), item length (int)]
+ * string table  the utf-8 encoded ids
+ * data          the utf-8 encoded json objects of the items
+ * </pre>
+ *
+ * Offsets of the index are relative to the start of the string table and the data section. The ids can be read without
+ * decoding any item, an item is only decoded by {@link #get(int)}.
+ */
+final class ListSnapshot<T extends Model> {
+
+    private static final int    MAGIC       = 0x4F4C5331;
+    private static final int    VERSION     = 2;
+    private static final int    HEADER_SIZE = 24;
+    private static final int    INDEX_SIZE  = 16;
+    private static final String ENCODING    = "UTF-8";
+
+    private final ByteBuffer    buffer;
+    private final JsonCodec<T>  codec;
+    private final int           count;
+    private final long          generation;
+    private final int           indexOffset;
+    private final int           stringTableOffset;
+    private final int           dataOffset;
+
+    private final Object[]      decoded;
+
+    private ListSnapshot(ByteBuffer buffer, Class<T> targetClass) throws IOException {
+        this.buffer = buffer;
+        codec = JsonCodec.forClass(targetClass);
+
+        if (buffer.limit() < HEADER_SIZE) {
+            throw new IOException("Corrupt list snapshot");
+        }
+        checkHeader(buffer.getInt(0), buffer.getInt(4));
+        count = buffer.getInt(8);
+        dataOffset = buffer.getInt(12);
+        generation = buffer.getLong(16);
+        indexOffset = HEADER_SIZE;
+        stringTableOffset = HEADER_SIZE + count * INDEX_SIZE;
+
+        if (count < 0 || stringTableOffset > dataOffset || dataOffset > buffer.limit()) {
+            throw new IOException("Corrupt list snapshot");
+        }
+        decoded = new Object[count];
+    }
+
+    /**
+     * Maps <code>file</code> into memory. The mapping stays valid after the file has been deleted, where the platform allows
+     * to delete a mapped file.
+     */
+    static <T extends Model> ListSnapshot<T> map(File file, Class<T> targetClass) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                FileChannel channel = randomAccessFile.getChannel()) {
+            MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            return new ListSnapshot<>(buffer, targetClass);
+        }
+    }
+
+    private static void checkHeader(int magic, int version) throws IOException {
+        if (magic != MAGIC) {
+            throw new IOException("No list snapshot");
+        }
+        if (version != VERSION) {
+            throw new IOException("Unsupported list snapshot version: " + version);
+        }
+    }
+
+    static <T extends Model> void write(OutputStream out, Class<T> targetClass, List<T> items, long generation) throws IOException {
+        JsonCodec<T> codec = JsonCodec.forClass(targetClass);
+
+        List<byte[]> ids = new ArrayList<>(items.size());
+        List<byte[]> data = new ArrayList<>(items.size());
+        int idsLength = 0;
+        for (T item : items) {
+            byte[] id = item.getId().getBytes(ENCODING);
+            byte[] json = toJson(codec, item).getBytes(ENCODING);
+            ids.add(id);
+            data.add(json);
+            idsLength += id.length;
+        }
+
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(out));
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(items.size());
+        output.writeInt(HEADER_SIZE + items.size() * INDEX_SIZE + idsLength);
+        output.writeLong(generation);
+
+        int idOffset = 0;
+        int itemOffset = 0;
+        for (int i = 0; i < items.size(); i++) {
+            output.writeInt(idOffset);
+            output.writeInt(ids.get(i).length);
+            output.writeInt(itemOffset);
+            output.writeInt(data.get(i).length);
+            idOffset += ids.get(i).length;
+            itemOffset += data.get(i).length;
+        }
+        for (byte[] id : ids) {
+            output.write(id);
+        }
+        for (byte[] json : data) {
+            output.write(json);
+        }
+        output.flush();
+    }
+
+    int size() {
+        return count;
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    String getId(int index) throws IOException {
+        int entry = indexEntry(index);
+        return string(stringTableOffset + buffer.getInt(entry), buffer.getInt(entry + 4));
+    }
+
+    /**
+     * Decodes the item at <code>index</code> on first access
+     */
+    @SuppressWarnings("unchecked")
+    T get(int index) throws IOException {
+        synchronized (decoded) {
+            Object item = decoded[index];
+            if (item == null) {
+                int entry = indexEntry(index);
+                String json = string(dataOffset + buffer.getInt(entry + 8), buffer.getInt(entry + 12));
+                try (JsonReader reader = Json.createReader(new StringReader(json))) {
+                    item = codec.read(reader.readObject());
+                }
+                decoded[index] = item;
+            }
+            return (T) item;
+        }
+    }
+
+    private int indexEntry(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + count);
+        }
+        return indexOffset + index * INDEX_SIZE;
+    }
+
+    private String string(int offset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > buffer.limit()) {
+            throw new IOException("Corrupt list snapshot");
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(offset);
+        source.get(bytes);
+        return new String(bytes, ENCODING);
+    }
+
+    private static <T> String toJson(JsonCodec<T> codec, T item) {
+        StringWriter stringWriter = new StringWriter();
+        try (JsonWriter writer = Json.createWriter(stringWriter)) {
+            writer.writeObject(codec.write(item));
+        }
+        return stringWriter.toString();
+    }
+
+}
@@ -0,0 +1,467 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+import javax.json.JsonWriter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gluonhq.connect.GluonObservableList;
+import com.gluonhq.connect.provider.FileClient;
+import com.gluonhq.connect.provider.ListDataReader;
+import com.jns.orienteering.model.persisted.Model;
+import com.jns.orienteering.model.repo.readerwriter.FileIterableInputConverter;
+import com.jns.orienteering.model.repo.readerwriter.JsonCodec;
+
+/**
+ * Stores a local list as a snapshot and an append-only journal of the changes since the snapshot.
+ * <p>
+ * The snapshot is a memory mapped {@link ListSnapshot} (<code>fileName.generation.bin</code>). A json file of the local list, e.g.
+ * <code>{"cities":[...]}</code>, which was written before the binary snapshot existed, is still read and replaced with the
+ * next snapshot. The journal
+ * (<code>fileName.log</code>) holds one json object per line, either <code>{"upsert":{...}}</code> or
+ * <code>{"delete":"id"}</code>. Reads replay the journal on top of the snapshot and return a list, which decodes
+ * the items of the snapshot on first access. As soon as the journal is larger than
+ * the snapshot, both are compacted into a new snapshot.
+ * <p>
+ * Every snapshot gets the next generation and is written to a temp file, which is then renamed to the file of its
+ * generation. The snapshot of the highest generation is the current one, so a crash leaves either the old or the new
+ * snapshot, and an incomplete last line of the journal is ignored. The files of older generations are deleted after the
+ * rename; a file, which is still mapped, can't be deleted on every platform (e.g. Windows), so its deletion is retried by
+ * the next read and snapshot, until it's no longer mapped. The journal starts with the generation of the snapshot it belongs to,
+ * <code>{"generation":n}</code>. A journal of another generation, which is left by a crash between writing a snapshot
+ * and deleting the journal, is ignored and replaced by the next append.
+ */
+final class LocalListJournal<T extends Model> {
+
+    private static final Logger              LOGGER              = LoggerFactory.getLogger(LocalListJournal.class);
+
+    private static final String              SNAPSHOT_SUFFIX     = ".bin";
+    private static final String              JOURNAL_SUFFIX      = ".log";
+    private static final String              TEMP_SUFFIX         = ".tmp";
+    private static final String              UPSERT              = "upsert";
+    private static final String              DELETE              = "delete";
+    private static final String              GENERATION          = "generation";
+    private static final String              ENCODING            = "UTF-8";
+
+    private static final long                MIN_COMPACTION_SIZE = 16 * 1024;
+
+    private static final Map<String, Object> LOCKS               = new ConcurrentHashMap<>();
+
+    private final File                       legacyFile;
+    private final File                       directory;
+    private final String                     snapshotPrefix;
+    private final File                       journalFile;
+    private final File                       tempFile;
+    private final Class<T>                   targetClass;
+    private final String                     listIdentifier;
+    private final JsonCodec<T>               codec;
+
+    /** shared by all journals of the same file */
+    private final Object                     lock;
+
+    /**
+     * @param file
+     *            the json file of the local list, the snapshot and the journal are stored beside it
+     */
+    LocalListJournal(File file, Class<T> targetClass, String listIdentifier) {
+        this.legacyFile = file;
+        this.targetClass = targetClass;
+        this.listIdentifier = listIdentifier;
+
+        directory = file.getParentFile();
+        snapshotPrefix = file.getName() + ".";
+        journalFile = new File(file.getParentFile(), file.getName() + JOURNAL_SUFFIX);
+        tempFile = new File(file.getParentFile(), file.getName() + TEMP_SUFFIX);
+        codec = JsonCodec.forClass(targetClass);
+        lock = LOCKS.computeIfAbsent(file.getAbsolutePath(), path -> new Object());
+    }
+
+    boolean exists() {
+        return currentGeneration() > 0 || legacyFile.exists() || journalFile.exists();
+    }
+
+    /**
+     * @return the items of snapshot and journal; items of the snapshot are decoded on first access
+     */
+    LazyList<T> read() throws IOException {
+        synchronized (lock) {
+            long generation = currentGeneration();
+            // the older snapshots, which were still mapped by the previous reads, may be unmapped by now
+            deleteOlderSnapshots(generation);
+            ListSnapshot<T> snapshot = generation > 0 ? ListSnapshot.map(snapshotFile(generation), targetClass) : null;
+
+            Map<String, Object> items = new LinkedHashMap<>();
+            if (snapshot != null) {
+                for (int i = 0; i < snapshot.size(); i++) {
+                    items.put(snapshot.getId(i), i);
+                }
+            } else {
+                readLegacyFile(items);
+            }
+            replayJournal(items, generation);
+
+            return new SnapshotList(snapshot, new ArrayList<>(items.values()));
+        }
+    }
+
+    ListDataReader<T> listReader() {
+        return new ListDataReader<T>() {
+
+            @Override
+            public GluonObservableList<T> newGluonObservableList() {
+                return new GluonObservableList<>();
+            }
+
+            @Override
+            public Iterator<T> iterator() throws IOException {
+                return read().iterator();
+            }
+        };
+    }
+
+    /**
+     * Appends the changes of <code>delta</code> to the journal and compacts the journal if it has grown larger than the
+     * snapshot
+     */
+    void append(ListDelta<T> delta) throws IOException {
+        if (delta.isEmpty()) {
+            return;
+        }
+
+        StringBuilder lines = new StringBuilder();
+        for (T item : delta.getUpserts()) {
+            appendLine(lines, Json.createObjectBuilder().add(UPSERT, codec.write(item)).build());
+        }
+        for (String id : delta.getDeletedIds()) {
+            appendLine(lines, Json.createObjectBuilder().add(DELETE, id).build());
+        }
+
+        synchronized (lock) {
+            long generation = currentGeneration();
+            if (journalFile.exists() && readJournalGeneration() != generation) {
+                LOGGER.info("Deleting journal of another snapshot generation: {}", journalFile);
+                deleteJournal();
+            }
+            if (!journalFile.exists()) {
+                StringBuilder header = new StringBuilder();
+                appendLine(header, Json.createObjectBuilder().add(GENERATION, generation).build());
+                lines.insert(0, header);
+            }
+
+            try (FileOutputStream out = new FileOutputStream(journalFile, true)) {
+                out.write(lines.toString().getBytes(ENCODING));
+                out.getFD().sync();
+            }
+
+            if (journalFile.length() > Math.max(MIN_COMPACTION_SIZE, snapshotFile(generation).length() + legacyFile.length())) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Replaces snapshot and journal with <code>items</code>. The journal is of the previous generation as soon as the new
+     * snapshot is in place, so it doesn't matter whether its deletion completes.
+     */
+    void replace(List<T> items) throws IOException {
+        synchronized (lock) {
+            writeSnapshot(items);
+            deleteJournal();
+        }
+    }
+
+    /**
+     * Deletes snapshot and journal
+     */
+    void delete() throws IOException {
+        synchronized (lock) {
+            deleteJournal();
+            for (long generation : snapshotGenerations()) {
+                deleteFile(snapshotFile(generation));
+            }
+            deleteFile(legacyFile);
+        }
+    }
+
+    private void compact() throws IOException {
+        List<T> items = read();
+
+        writeSnapshot(items);
+        deleteJournal();
+
+        LOGGER.debug("compacted {}: {} items", snapshotFile, items.size());
+    }
+
+    private void deleteJournal() throws IOException {
+        deleteFile(journalFile);
+    }
+
+    private void readLegacyFile(Map<String, Object> items) throws IOException {
+        if (!legacyFile.exists()) {
+            return;
+        }
+
+        FileIterableInputConverter<T> reader = new FileIterableInputConverter<>(FileClient.create(legacyFile).createFileDataSource(),
+                                                                                targetClass, listIdentifier);
+        for (Iterator<T> it = reader.iterator(); it.hasNext();) {
+            T item = it.next();
+            items.put(item.getId(), item);
+        }
+    }
+
+    /**
+     * Replays the journal, if it belongs to the snapshot of <code>generation</code>. Entries, which can't be decoded, are
+     * skipped.
+     */
+    private void replayJournal(Map<String, Object> items, long generation) throws IOException {
+        if (!journalFile.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(journalFile), ENCODING))) {
+            boolean firstLine = true;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+
+                JsonObject entry = parseEntry(line);
+                if (entry == null) {
+                    break;
+                }
+
+                if (firstLine) {
+                    firstLine = false;
+                    long journalGeneration = readGeneration(entry);
+                    if (journalGeneration != generation) {
+                        LOGGER.info("Ignoring journal of generation {}, snapshot is of generation {}: {}", journalGeneration, generation,
+                                    journalFile);
+                        return;
+                    }
+                }
+
+                if (entry.containsKey(UPSERT)) {
+                    T item = codec.read(entry.getJsonObject(UPSERT));
+                    if (item == null || item.getId() == null) {
+                        LOGGER.warn("Skipping journal entry, which can't be decoded: {} of: {}", line, journalFile);
+                        continue;
+                    }
+                    items.put(item.getId(), item);
+
+                } else if (entry.containsKey(DELETE)) {
+                    items.remove(entry.getString(DELETE));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the generation of the journal, <code>-1</code> if its first line is incomplete or no generation
+     */
+    private long readJournalGeneration() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(journalFile), ENCODING))) {
+            String line = reader.readLine();
+            if (line == null) {
+                return -1;
+            }
+            JsonObject entry = parseEntry(line);
+            if (entry == null) {
+                return -1;
+            }
+            return readGeneration(entry);
+        }
+    }
+
+    private static long readGeneration(JsonObject entry) {
+        return entry.containsKey(GENERATION) ? entry.getJsonNumber(GENERATION).longValue() : -1;
+    }
+
+    private JsonObject parseEntry(String line) {
+        try (JsonReader jsonReader = Json.createReader(new StringReader(line))) {
+            return jsonReader.readObject();
+
+        } catch (JsonException ex) {
+            LOGGER.warn("Ignoring incomplete journal entry of: {}", journalFile, ex);
+            return null;
+        }
+    }
+
+    /**
+     * Writes <code>items</code> as snapshot of the next generation and deletes the snapshots of the older generations, which
+     * aren't mapped anymore
+     */
+    private void writeSnapshot(List<T> items) throws IOException {
+        long generation = currentGeneration() + 1;
+        File snapshotFile = snapshotFile(generation);
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            ListSnapshot.write(out, targetClass, items, generation);
+            out.getFD().sync();
+        }
+
+        if (!tempFile.renameTo(snapshotFile)) {
+            throw new IOException("Failed to rename: " + tempFile + " to: " + snapshotFile);
+        }
+        deleteFile(legacyFile);
+        deleteOlderSnapshots(generation);
+    }
+
+    private void deleteOlderSnapshots(long generation) {
+        for (long olderGeneration : snapshotGenerations()) {
+            File olderFile = snapshotFile(olderGeneration);
+            if (olderGeneration < generation && !olderFile.delete()) {
+                LOGGER.debug("Snapshot is still mapped, deleting it later: {}", olderFile);
+            }
+        }
+    }
+
+    private File snapshotFile(long generation) {
+        return new File(directory, snapshotPrefix + generation + SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * @return the generation of the current snapshot, <code>0</code> if there is no snapshot
+     */
+    private long currentGeneration() {
+        long current = 0;
+        for (long generation : snapshotGenerations()) {
+            current = Math.max(current, generation);
+        }
+        return current;
+    }
+
+    /**
+     * @return the generations of all snapshot files, including older ones, which couldn't be deleted yet
+     */
+    private List<Long> snapshotGenerations() {
+        List<Long> generations = new ArrayList<>();
+        String[] names = directory.list();
+        if (names == null) {
+            return generations;
+        }
+        for (String name : names) {
+            if (name.startsWith(snapshotPrefix) && name.endsWith(SNAPSHOT_SUFFIX)) {
+                String generation = name.substring(snapshotPrefix.length(), name.length() - SNAPSHOT_SUFFIX.length());
+                try {
+                    generations.add(Long.parseLong(generation));
+
+                } catch (NumberFormatException ex) {
+                    // not a snapshot of this list
+                }
+            }
+        }
+        return generations;
+    }
+
+    private static void deleteFile(File file) throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Failed to delete: " + file);
+        }
+    }
+
+    private static void appendLine(StringBuilder lines, JsonObject entry) {
+        StringWriter stringWriter = new StringWriter();
+        try (JsonWriter writer = Json.createWriter(stringWriter)) {
+            writer.writeObject(entry);
+        }
+        lines.append(stringWriter.toString()).append('\n');
+    }
+
+    /**
+     * Items of the journal and the legacy file are held as objects, items of the snapshot as their index in the snapshot
+     */
+    private class SnapshotList extends AbstractList<T> implements LazyList<T> {
+
+        private final ListSnapshot<T> snapshot;
+        private final List<Object>    items;
+
+        private SnapshotList(ListSnapshot<T> snapshot, List<Object> items) {
+            this.snapshot = snapshot;
+            this.items = items;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            Object item = items.get(index);
+            if (!(item instanceof Integer)) {
+                return (T) item;
+            }
+            try {
+                return snapshot.get((Integer) item);
+
+            } catch (IOException ex) {
+                throw new IllegalStateException("Failed to decode item " + item + " of snapshot: " + snapshot.getGeneration(), ex);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public String getId(int index) {
+            Object item = items.get(index);
+            if (!(item instanceof Integer)) {
+                return ((T) item).getId();
+            }
+            try {
+                return snapshot.getId((Integer) item);
+
+            } catch (IOException ex) {
+                throw new IllegalStateException("Failed to read id " + item + " of snapshot: " + snapshot.getGeneration(), ex);
+            }
+        }
+
+        @Override
+        public int size() {
+            return items.size();
+        }
+    }
+
+}
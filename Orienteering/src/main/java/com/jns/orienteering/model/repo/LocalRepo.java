@@ -31,6 +31,7 @@ package com.jns.orienteering.model.repo;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,25 +44,34 @@ import com.gluonhq.connect.provider.ObjectDataReader;
 import com.gluonhq.connect.provider.ObjectDataRemover;
 import com.gluonhq.connect.provider.ObjectDataWriter;
 import com.jns.orienteering.model.persisted.BaseModel;
+import com.jns.orienteering.model.persisted.LocalList;
+import com.jns.orienteering.model.persisted.Model;
 import com.jns.orienteering.model.repo.readerwriter.FileIterableInputConverter;
 import com.jns.orienteering.model.repo.readerwriter.FileTreeIterableOutputConverter;
 import com.jns.orienteering.model.repo.readerwriter.JsonInputConverterExtended;
 import com.jns.orienteering.model.repo.readerwriter.JsonOutputConverterExtended;
 import com.jns.orienteering.platform.PlatformProvider;
 
-public class LocalRepo<T, L> {
+/**
+ * Stores objects or lists in the private storage.
+ * <p>
+ * Lists of repos created with a <code>listIdentifier</code> are kept as snapshot and journal (see {@link LocalListJournal}):
+ * {@link #updateListAsync(ListDelta)} appends only the changed items, {@link #createOrUpdateListAsync(Object)} replaces the
+ * whole list.
+ */
+public class LocalRepo<T extends Model, L> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalRepo.class);
 
-    private static final Logger            LOGGER = LoggerFactory.getLogger(LocalRepo.class);
+    private static final File   BASE_DIR;
 
-    private static final File              BASE_DIR;
+    private final Class<T>      targetClass;
+    private final Class<L>      localClass;
+    private final String        fileName;
 
-    private final Class<T>                 targetClass;
-    private final Class<L>                 localClass;
-    private final String                   fileName;
+    private FileClient          fileClient;
 
-    private FileClient                     fileClient;
-    private JsonInputConverterExtended<T>  inputConverter;
-    private JsonOutputConverterExtended<T> outputConverter;
+    private LocalListJournal<T> journal;
 
     static {
         BASE_DIR = PlatformProvider.getPlatformService().getStorage().getPrivate();
@@ -72,13 +82,27 @@ public class LocalRepo<T, L> {
         this.localClass = localClass;
         this.fileName = fileName;
 
-        inputConverter = new JsonInputConverterExtended<>(targetClass);
-        outputConverter = new JsonOutputConverterExtended<>(targetClass);
-
         fileClient = FileClient.create(new File(BASE_DIR, fileName));
     }
 
+    /**
+     * Creates a repo for a list, whose items are stored in the json array <code>listIdentifier</code> of the json file
+     *
+     * @param localClass
+     *            a {@link LocalList} of <code>targetClass</code>
+     */
+    public LocalRepo(Class<T> targetClass, Class<L> localClass, String fileName, String listIdentifier) {
+        this(targetClass, localClass, fileName);
+        if (!LocalList.class.isAssignableFrom(localClass)) {
+            throw new IllegalArgumentException("No LocalList: " + localClass);
+        }
+        journal = new LocalListJournal<>(new File(BASE_DIR, fileName), targetClass, listIdentifier);
+    }
+
     public boolean fileExists() {
+        if (journal != null) {
+            return journal.exists();
+        }
         return new File(BASE_DIR, fileName).exists();
     }
 
@@ -100,10 +124,23 @@ public class LocalRepo<T, L> {
     }
 
     public GluonObservableObject<L> createOrUpdateListAsync(L items) {
+        if (journal != null) {
+            return DataProvider.storeObject(items, new ListSnapshotWriter());
+        }
         ObjectDataWriter<L> writer = fileClient.createObjectDataWriter(new JsonOutputConverterExtended<>(localClass));
         return DataProvider.storeObject(items, writer);
     }
 
+    /**
+     * Appends the changed items of <code>delta</code> to the journal of the list, without rewriting the list
+     */
+    public GluonObservableObject<ListDelta<T>> updateListAsync(ListDelta<T> delta) {
+        if (journal == null) {
+            throw new IllegalStateException("No list repo: " + fileName);
+        }
+        return DataProvider.storeObject(delta, new ListDeltaWriter());
+    }
+
     public T retrieveObject() throws IOException {
         try {
             return reader().readObject();
@@ -118,7 +155,37 @@ public class LocalRepo<T, L> {
         return DataProvider.retrieveObject(reader());
     }
 
+    /**
+     * Reads the list without decoding its items: an item of the snapshot is decoded, when it's accessed first
+     */
+    public LazyList<T> retrieveList() throws IOException {
+        if (journal == null) {
+            throw new IllegalStateException("No list repo: " + fileName);
+        }
+        try {
+            return journal.read();
+
+        } catch (IOException e) {
+            LOGGER.error("failed to read list: {}/{}", BASE_DIR, fileName, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the list like {@link #retrieveList()} in the background, e.g. for a cache, which only needs some of the items
+     * during start-up
+     */
+    public GluonObservableObject<LazyList<T>> retrieveListLazyAsync() {
+        if (journal == null) {
+            throw new IllegalStateException("No list repo: " + fileName);
+        }
+        return DataProvider.retrieveObject(new LazyListReader());
+    }
+
     public GluonObservableList<T> retrieveListAsync(String listIdentifier) {
+        if (journal != null) {
+            return DataProvider.retrieveList(journal.listReader());
+        }
         return DataProvider.retrieveList(new FileIterableInputConverter<>(fileClient.createFileDataSource(), targetClass,
                                                                           listIdentifier));
     }
@@ -139,15 +206,82 @@ public class LocalRepo<T, L> {
     }
 
     private ObjectDataWriter<T> writer() {
-        return fileClient.createObjectDataWriter(outputConverter);
+        // the converters hold the stream of the current call, so they aren't shared between calls
+        return fileClient.createObjectDataWriter(new JsonOutputConverterExtended<>(targetClass));
     }
 
     private ObjectDataReader<T> reader() {
-        return fileClient.createObjectDataReader(inputConverter);
+        return fileClient.createObjectDataReader(new JsonInputConverterExtended<>(targetClass));
     }
 
     private ObjectDataRemover<T> remover() {
+        if (journal != null) {
+            return new ListRemover();
+        }
         return fileClient.createObjectDataRemover();
     }
 
+    private class LazyListReader implements ObjectDataReader<LazyList<T>> {
+
+        @Override
+        public GluonObservableObject<LazyList<T>> newGluonObservableObject() {
+            return new GluonObservableObject<>();
+        }
+
+        @Override
+        public LazyList<T> readObject() throws IOException {
+            return retrieveList();
+        }
+    }
+
+    private class ListSnapshotWriter implements ObjectDataWriter<L> {
+
+        @Override
+        public GluonObservableObject<L> newGluonObservableObject() {
+            return new GluonObservableObject<>();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Optional<L> writeObject(L items) throws IOException {
+            try {
+                journal.replace((List<T>) ((LocalList<?>) items).getItems());
+                return Optional.of(items);
+
+            } catch (IOException e) {
+                LOGGER.error("failed to write list: {}/{}", BASE_DIR, fileName, e);
+                throw e;
+            }
+        }
+    }
+
+    private class ListDeltaWriter implements ObjectDataWriter<ListDelta<T>> {
+
+        @Override
+        public GluonObservableObject<ListDelta<T>> newGluonObservableObject() {
+            return new GluonObservableObject<>();
+        }
+
+        @Override
+        public Optional<ListDelta<T>> writeObject(ListDelta<T> delta) throws IOException {
+            try {
+                journal.append(delta);
+                return Optional.of(delta);
+
+            } catch (IOException e) {
+                LOGGER.error("failed to append to journal: {}/{}", BASE_DIR, fileName, e);
+                throw e;
+            }
+        }
+    }
+
+    private class ListRemover implements ObjectDataRemover<T> {
+
+        @Override
+        public boolean removeObject(GluonObservableObject<T> observable) throws IOException {
+            journal.delete();
+            return true;
+        }
+    }
+
 }
\ No newline at end of file
@@ -37,9 +37,11 @@ import java.util.Map;
 import com.gluonhq.connect.GluonObservableList;
 import com.gluonhq.connect.GluonObservableObject;
 import com.gluonhq.connect.provider.DataProvider;
+import com.jns.orienteering.model.common.GluonObservables;
 import com.jns.orienteering.model.persisted.Mission;
 import com.jns.orienteering.model.persisted.MissionNameLookup;
 import com.jns.orienteering.model.persisted.MissionStat;
+import com.jns.orienteering.model.persisted.MissionSummary;
 import com.jns.orienteering.model.persisted.MissionsByCityLookup;
 import com.jns.orienteering.model.persisted.MissionsByTaskLookup;
 import com.jns.orienteering.model.persisted.RepoAction;
@@ -54,7 +56,7 @@ public class MissionFBRepo extends FireBaseRepo<Mission> {
     private NameLookupFBRepo<MissionNameLookup>             nameLookupRepo       = new NameLookupFBRepo<>(MissionNameLookup.class, MISSION_NAMES);
 
     private CityLookupFBRepo<MissionsByCityLookup, Mission> cityLookupRepo       =
-            new CityLookupFBRepo<>(MissionsByCityLookup.class, Mission.class, MISSIONS_BY_CITY, MISSIONS);
+            new CityLookupFBRepo<>(MissionsByCityLookup.class, Mission.class, MISSIONS_BY_CITY, MISSIONS, MISSION_SUMMARIES);
 
     private MultiValueLookupRepo<TasksByMissionLookup>      tasksByMissionRepo   =
             new MultiValueLookupRepo<>(TasksByMissionLookup.class, TASKS_BY_MISSION);
@@ -82,6 +84,10 @@ public class MissionFBRepo extends FireBaseRepo<Mission> {
         return tasksByMissionRepo.checkIfUrlExists(TASKS_BY_MISSION, missionId);
     }
 
+    /**
+     * Retrieves the tasks of the mission ordered by their order number. If a task can't be read, the list fails instead of
+     * returning an incomplete mission.
+     */
     public GluonObservableList<Task> retrieveTasksOrderedAsync(String missionId) {
         GluonObservableList<Task> obsTasks = new GluonObservableList<>();
         RestMapReader<TasksByMissionLookup, Task> mapReader = mapReader(missionId);
@@ -90,6 +96,11 @@ public class MissionFBRepo extends FireBaseRepo<Mission> {
         AsyncResultReceiver.create(obsLookup)
                            .onSuccess(result ->
                            {
+                               Map<String, IOException> failures = mapReader.getFailures();
+                               if (!failures.isEmpty()) {
+                                   GluonObservables.setException(obsTasks, new IOException("Failed to read tasks: " + failures.keySet()));
+                                   return;
+                               }
                                if (result != null) {
                                    try {
                                        @SuppressWarnings("unchecked")
@@ -105,10 +116,12 @@ public class MissionFBRepo extends FireBaseRepo<Mission> {
                                    } catch (IOException ex) {
                                        ex.printStackTrace();
                                        obsTasks.setException(ex);
+                                       return;
                                    }
                                }
+                               GluonObservables.setInitialized(obsTasks);
                            })
-                           .setInitializedOnSuccess(obsTasks)
+                           .propagateException(obsTasks)
                            .start();
 
         return obsTasks;
@@ -120,38 +133,43 @@ public class MissionFBRepo extends FireBaseRepo<Mission> {
 
     private RestMapReader<TasksByMissionLookup, Task> mapReader(String missionId) {
         String sourceUrl = buildPath(TASKS_BY_MISSION, missionId);
-        return new RestMapReader<>(createRestClient(), TasksByMissionLookup.class, sourceUrl, Task.class, TASKS);
+        return new RestMapReader<>(this::createRestClient, TasksByMissionLookup.class, sourceUrl, Task.class, TASKS);
     }
 
     public GluonObservableObject<Mission> createMission(Mission mission) {
         return executeAsync(mission, () ->
         {
+            mission.setId(createPushId());
             mission.setTimeStamp(createTimeStamp());
-            Mission result = addToList(mission);
-            if (result != null) {
-                nameLookupRepo.createOrUpdate(mission.createNameLookup());
-                cityLookupRepo.createOrUpdate(mission.createCityLookup());
-                tasksByMissionRepo.createOrUpdateLookup(mission.createTasksLookup());
-                missionsByTaskRepo.createOrUpdateLookup(mission);
-            }
+
+            WriteBatch batch = new WriteBatch();
+            createOrUpdate(batch, mission, mission.getId());
+            updateSummary(batch, mission);
+            nameLookupRepo.createOrUpdate(batch, mission.createNameLookup());
+            cityLookupRepo.createOrUpdate(batch, mission.createCityLookup());
+            tasksByMissionRepo.createOrUpdateLookup(batch, mission.createTasksLookup());
+            missionsByTaskRepo.createOrUpdateLookup(batch, mission);
+            commit(batch);
         });
     }
 
     public GluonObservableObject<Mission> updateMission(Mission mission, Mission previousMission, List<Task> tasks, List<Task> tasksBuffer) {
         return executeAsync(mission, () ->
         {
+            WriteBatch batch = new WriteBatch();
             boolean missionChanged = !mission.equals(previousMission);
 
             if (missionChanged) {
                 mission.setTimeStamp(createTimeStamp());
-                createOrUpdate(mission, mission.getId());
-                writeLogEntry(mission, RepoAction.UPDATE);
+                createOrUpdate(batch, mission, mission.getId());
+                updateSummary(batch, mission);
+                writeLogEntry(batch, mission, RepoAction.UPDATE);
 
                 if (mission.nameChanged()) {
-                    nameLookupRepo.recreateLookup(mission.createNameLookup(), previousMission.getMissionName());
+                    nameLookupRepo.recreateLookup(batch, mission.createNameLookup(), previousMission.getMissionName());
                 }
                 if (mission.cityChanged() || mission.accessTypeChanged()) {
-                    cityLookupRepo.recreateCityLookup(mission.createCityLookup());
+                    cityLookupRepo.recreateCityLookup(batch, mission.createCityLookup());
                 }
             }
 
@@ -170,30 +188,44 @@ public class MissionFBRepo extends FireBaseRepo<Mission> {
             if (tasksChanged) {
                 TasksByMissionLookup previousTasksByMission = tasksByMissionRepo.retrieveObject(mission.getId());
 
-                tasksByMissionRepo.createOrUpdateLookup(mission.createTasksLookup());
-                missionsByTaskRepo.updateLookup(previousTasksByMission, mission);
-                missionStatRepo.deleteAsync(mission.getId());
+                tasksByMissionRepo.createOrUpdateLookup(batch, mission.createTasksLookup());
+                missionsByTaskRepo.updateLookup(batch, previousTasksByMission, mission);
+                missionStatRepo.deleteStats(batch, mission.getId());
             }
+            commit(batch);
         });
     }
 
+    /**
+     * Deletes the mission with all lookups. If <code>mission</code> is a summary, the full mission is read first, as the lookups
+     * of its tasks are deleted, too.
+     */
     public GluonObservableObject<Mission> deleteMissionAsync(Mission mission) {
         return executeAsync(mission, () ->
         {
-            mission.setTimeStamp(createTimeStamp());
-            delete(mission.getId());
-            writeLogEntry(mission, RepoAction.DELETE);
-
-            nameLookupRepo.deleteLookup(mission.createNameLookup());
-            cityLookupRepo.deleteLookup(mission.createCityLookup());
-            tasksByMissionRepo.deleteLookup(mission.createTasksLookup());
-            missionsByTaskRepo.deleteLookup(mission);
-            missionStatRepo.deleteAsync(mission.getId());
+            Mission fullMission = resolve(mission);
+            fullMission.setTimeStamp(createTimeStamp());
+
+            WriteBatch batch = new WriteBatch();
+            delete(batch, fullMission.getId());
+            batch.delete(MISSION_SUMMARIES, fullMission.getId());
+            writeLogEntry(batch, fullMission, RepoAction.DELETE);
+
+            nameLookupRepo.deleteLookup(batch, fullMission.createNameLookup());
+            cityLookupRepo.deleteLookup(batch, fullMission.createCityLookup());
+            tasksByMissionRepo.deleteLookup(batch, fullMission.createTasksLookup());
+            missionsByTaskRepo.deleteLookup(batch, fullMission);
+            missionStatRepo.deleteStats(batch, fullMission.getId());
+            commit(batch);
         });
     }
 
-    private void writeLogEntry(Mission mission, RepoAction action) {
-        getChangeLogRepo().writeLogAsync(mission, action, MISSIONS);
+    private void updateSummary(WriteBatch batch, Mission mission) {
+        batch.update(new MissionSummary(mission), MISSION_SUMMARIES, mission.getId());
+    }
+
+    private void writeLogEntry(WriteBatch batch, Mission mission, RepoAction action) {
+        getChangeLogRepo().writeLog(batch, mission, action, MISSIONS);
     }
 
 }
@@ -65,49 +65,100 @@ import static com.jns.orienteering.model.repo.QueryParameter.orderBy;
 
 import java.io.IOException;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import javax.json.Json;
 
 import com.gluonhq.connect.GluonObservableList;
+import com.gluonhq.connect.GluonObservableObject;
 import com.gluonhq.connect.provider.DataProvider;
 import com.gluonhq.connect.provider.RestClient;
 import com.jns.orienteering.model.common.GluonObservables;
+import com.jns.orienteering.model.common.Lane;
 import com.jns.orienteering.model.persisted.MissionStat;
 import com.jns.orienteering.model.persisted.StatByMission;
 import com.jns.orienteering.model.persisted.StatByUser;
+import com.jns.orienteering.model.repo.readerwriter.JsonCodec;
 import com.jns.orienteering.model.repo.readerwriter.RestObjectsReader;
+import com.jns.orienteering.model.track.TrackRecorder;
+
+import javafx.application.Platform;
 
 public class MissionStatFBRepo extends FireBaseRepo<MissionStat> {
 
-    private static final Logger         LOGGER            = LoggerFactory.getLogger(MissionStatFBRepo.class);
+    /** kind of the queued operations, which save a mission stat */
+    private static final String          SAVE_STAT         = "saveMissionStat";
+    /** kind of the queued operations, which upload the track of a mission stat */
+    private static final String          UPLOAD_TRACK      = "uploadTrack";
+    private static final String          TRACK_ID          = "trackId";
+
+    private final JsonCodec<MissionStat> codec             = JsonCodec.forClass(MissionStat.class);
 
-    private FireBaseRepo<StatByMission> statByMissionRepo = new FireBaseRepo<>(StatByMission.class, STATS_BY_MISSION);
-    private FireBaseRepo<StatByUser>    statByUserRepo    = new FireBaseRepo<>(StatByUser.class, STATS_BY_USER);
+    private FireBaseRepo<StatByMission>  statByMissionRepo = new FireBaseRepo<>(StatByMission.class, STATS_BY_MISSION);
+    private FireBaseRepo<StatByUser>     statByUserRepo    = new FireBaseRepo<>(StatByUser.class, STATS_BY_USER);
 
     public MissionStatFBRepo() {
         super(MissionStat.class, MISSION_STATS);
+        getWriteQueue().registerHandler(UPLOAD_TRACK, payload -> TrackRecorder.upload(payload.getString(TRACK_ID)));
+        getWriteQueue().registerHandler(SAVE_STAT, payload -> save(codec.read(payload)));
     }
 
-    public void createOrUpdate(MissionStat missionStat) {
-        try {
-            String userId = missionStat.getUserId();
-            String missionId = missionStat.getMission().getId();
-            StatByUser existingStatByUser = statByUserRepo.retrieveObject(userId, missionStat.getMissionId());
-
-            addToList(missionStat);
-
-            statByUserRepo.createOrUpdate(new StatByUser(missionStat), userId, missionId);
-            statByMissionRepo.createOrUpdate(new StatByMission(missionStat), missionId, missionStat.getId());
+    /**
+     * Uploads the recorded track, saves the stat and replaces the previous stat of the user for the mission on the
+     * {@link Lane#WRITE} lane, as the upload of a long track takes a while. If the device is offline, both are queued and
+     * sent, as soon as the connection is back. The track is queued first, so the stat is never shared before the track it
+     * references.
+     *
+     * @return the observable stat, which is initialized, when the stat is saved or queued
+     */
+    public GluonObservableObject<MissionStat> createOrUpdateAsync(MissionStat missionStat) {
+        if (missionStat.getId() == null) {
+            missionStat.setId(createPushId());
+        }
+        return executeAsync(missionStat, () -> saveOrEnqueue(missionStat));
+    }
 
-            if (existingStatByUser != null) {
-                statByMissionRepo.delete(missionId, existingStatByUser.getLookupId());
-                delete(existingStatByUser.getLookupId());
+    private void saveOrEnqueue(MissionStat missionStat) throws IOException {
+        if (!getWriteQueue().isPending()) {
+            try {
+                if (missionStat.getTrackId() != null) {
+                    TrackRecorder.upload(missionStat.getTrackId());
+                }
+                save(missionStat);
+                return;
+
+            } catch (IOException ex) {
+                if (!OfflineWriteQueue.isConnectionFailure(ex)) {
+                    throw ex;
+                }
             }
+        }
+        if (missionStat.getTrackId() != null) {
+            getWriteQueue().enqueue(UPLOAD_TRACK, missionStat.getTrackId(), Json.createObjectBuilder()
+                                                                                .add(TRACK_ID, missionStat.getTrackId())
+                                                                                .build());
+        }
+        getWriteQueue().enqueue(SAVE_STAT, buildPath(missionStat.getUserId(), missionStat.getMissionId()), codec.write(missionStat));
+        Platform.runLater(() -> showInfo(localize("view.activeMission.info.statQueued")));
+    }
 
-        } catch (IOException ex) {
-            LOGGER.error("Failed to save mission stat", ex);
-            showInfo(localize("view.activeMission.error.saveStat"));
+    /**
+     * The stat, its lookups and the deletion of the previous stat are written with a single update, so a replay of the
+     * save doesn't leave partial writes
+     */
+    private void save(MissionStat missionStat) throws IOException {
+        String userId = missionStat.getUserId();
+        String missionId = missionStat.getMissionId();
+        StatByUser existingStatByUser = statByUserRepo.retrieveObject(userId, missionId);
+
+        WriteBatch batch = new WriteBatch();
+        createOrUpdate(batch, missionStat, missionStat.getId());
+        statByUserRepo.createOrUpdate(batch, new StatByUser(missionStat), userId, missionId);
+        statByMissionRepo.createOrUpdate(batch, new StatByMission(missionStat), missionId, missionStat.getId());
+
+        if (existingStatByUser != null && !missionStat.getId().equals(existingStatByUser.getLookupId())) {
+            statByMissionRepo.delete(batch, missionId, existingStatByUser.getLookupId());
+            delete(batch, existingStatByUser.getLookupId());
         }
+        patchRoot(batch.toJson());
     }
 
     public GluonObservableList<StatByUser> getStatsByUserAsync(String userId) {
@@ -122,30 +173,18 @@ public class MissionStatFBRepo extends FireBaseRepo<MissionStat> {
         String url = UrlBuilder.buildUrl(STATS_BY_MISSION, missionId);
         RestClient client = RestClientFactory.create(GET, url, orderBy("duration"), limitToFirst("5"));
 
-        return DataProvider.retrieveList(new RestObjectsReader<>(client, RestClientFactory.baseClient(), StatByMission.class,
+        return DataProvider.retrieveList(new RestObjectsReader<>(client, RestClientFactory::baseClient, StatByMission.class,
                                                                  url, MissionStat.class, MISSION_STATS));
     }
 
-    public void deleteAsync(String missionId) {
-        if (!checkIfUrlExists(missionId)) {
-            return;
+    /**
+     * Adds the deletion of all stats of the mission to <code>batch</code>
+     */
+    public void deleteStats(WriteBatch batch, String missionId) throws IOException {
+        for (String statId : statByMissionRepo.retrieveKeys(missionId)) {
+            delete(batch, statId);
         }
-
-        String url = UrlBuilder.buildUrl(STATS_BY_MISSION, missionId);
-        GluonObservableList<MissionStat> obsMissionStats = DataProvider.retrieveList(new RestObjectsReader<>(RestClientFactory.baseClient(),
-                                                                                                             StatByMission.class,
-                                                                                                             url,
-                                                                                                             MissionStat.class,
-                                                                                                             MISSION_STATS));
-        AsyncResultReceiver.create(obsMissionStats)
-                           .onSuccess(result ->
-                           {
-                               for (MissionStat missionStat : result) {
-                                   super.deleteAsync(missionStat.getId());
-                               }
-                               statByMissionRepo.deleteAsync(missionId);
-                           })
-                           .start();
+        statByMissionRepo.delete(batch, missionId);
     }
 
     public void deleteStatByUserAsync(String userId, String statId) {
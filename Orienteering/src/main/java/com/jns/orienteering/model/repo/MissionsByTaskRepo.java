@@ -30,7 +30,7 @@ package com.jns.orienteering.model.repo;
 
 import static com.jns.orienteering.model.repo.BaseUrls.*;
 
-import java.io.IOException;
+import java.util.HashSet;
 import java.util.Set;
 
 import com.jns.orienteering.model.persisted.Mission;
@@ -43,54 +43,36 @@ public class MissionsByTaskRepo extends FireBaseRepo<MissionsByTaskLookup> {
         super(MissionsByTaskLookup.class, MISSIONS_BY_TASK);
     }
 
-    public void createOrUpdateLookup(Mission mission) throws IOException {
+    public void createOrUpdateLookup(WriteBatch batch, Mission mission) {
         String missionId = mission.getId();
-        Set<String> taskIds = mission.getTaskIds();
-
-        for (String taskId : taskIds) {
-            MissionsByTaskLookup existingLookup = retrieveObject(taskId);
-
-            if (existingLookup != null) {
-                existingLookup.addValue(missionId);
-                createOrUpdate(existingLookup, taskId);
-
-            } else {
-                MissionsByTaskLookup newLookup = new MissionsByTaskLookup();
-                newLookup.addValue(missionId);
-                createOrUpdate(newLookup, taskId);
-            }
+        for (String taskId : mission.getTaskIds()) {
+            batch.update(true, absolutePath(taskId, MISSIONS, missionId));
         }
     }
 
-    public void updateLookup(TasksByMissionLookup previousTasksLookup, Mission mission) throws IOException {
-        removeDeletedTasks(previousTasksLookup, mission);
-        createOrUpdateLookup(mission);
+    public void updateLookup(WriteBatch batch, TasksByMissionLookup previousTasksLookup, Mission mission) {
+        removeDeletedTasks(batch, previousTasksLookup, mission);
+        createOrUpdateLookup(batch, mission);
     }
 
-    public void removeDeletedTasks(TasksByMissionLookup previousTasksLookup, Mission mission) throws IOException {
+    public void removeDeletedTasks(WriteBatch batch, TasksByMissionLookup previousTasksLookup, Mission mission) {
         if (previousTasksLookup == null) {
             return;
         }
 
         String missionId = mission.getId();
-        Set<String> taskIds = mission.getTaskIds();
-        Set<String> previousTaskIds = previousTasksLookup.getValues().keySet();
-        previousTaskIds.removeAll(taskIds);
+        Set<String> previousTaskIds = new HashSet<>(previousTasksLookup.getValues().keySet());
+        previousTaskIds.removeAll(mission.getTaskIds());
 
-        if (!previousTaskIds.isEmpty()) {
-            for (String taskIdToDelete : previousTaskIds) {
-                MissionsByTaskLookup existingLookup = retrieveObject(taskIdToDelete);
-                existingLookup.removeValue(missionId);
-                createOrUpdate(existingLookup, taskIdToDelete);
-            }
+        for (String taskIdToDelete : previousTaskIds) {
+            delete(batch, taskIdToDelete, MISSIONS, missionId);
         }
     }
 
-    public void deleteLookup(Mission mission) throws IOException {
+    public void deleteLookup(WriteBatch batch, Mission mission) {
         String missionId = mission.getId();
         for (String taskId : mission.getTaskIds()) {
-            delete(taskId, MISSIONS, missionId);
+            delete(batch, taskId, MISSIONS, missionId);
         }
-
     }
 }
@@ -28,8 +28,6 @@
  */
 package com.jns.orienteering.model.repo;
 
-import java.io.IOException;
-
 import com.jns.orienteering.model.persisted.MultiValueLookup;
 
 public class MultiValueLookupRepo<T extends MultiValueLookup<?>> extends FireBaseRepo<T> {
@@ -38,12 +36,12 @@ public class MultiValueLookupRepo<T extends MultiValueLookup<?>> extends FireBas
         super(targetClass, baseUrl);
     }
 
-    public void createOrUpdateLookup(T lookup) throws IOException {
-            createOrUpdate(lookup, lookup.getId());
+    public void createOrUpdateLookup(WriteBatch batch, T lookup) {
+        createOrUpdate(batch, lookup, lookup.getId());
     }
 
-    public void deleteLookup(T lookup) throws IOException {
-        delete(lookup.getId());
+    public void deleteLookup(WriteBatch batch, T lookup) {
+        delete(batch, lookup.getId());
     }
 
 }
@@ -30,8 +30,6 @@ package com.jns.orienteering.model.repo;
 
 import static com.jns.orienteering.util.SpecialCharReplacer.replaceSpecialChars;
 
-import java.io.IOException;
-
 import com.jns.orienteering.model.persisted.Lookup;
 
 public class NameLookupFBRepo<T extends Lookup> extends FireBaseRepo<T> {
@@ -46,24 +44,24 @@ public class NameLookupFBRepo<T extends Lookup> extends FireBaseRepo<T> {
         return checkIfUrlExists(baseUrl, indexLetter, nameNormalized);
     }
 
-    public void recreateLookup(T lookup, String previousName) throws IOException {
+    public void recreateLookup(WriteBatch batch, T lookup, String previousName) {
         String previousNameNormalized = replaceSpecialChars(previousName);
         String indexLetter = getIndexLetter(previousNameNormalized);
 
-        createOrUpdate(lookup);
-        delete(indexLetter, previousNameNormalized);
+        delete(batch, indexLetter, previousNameNormalized);
+        createOrUpdate(batch, lookup);
     }
 
-    public void createOrUpdate(T lookup) throws IOException {
+    public void createOrUpdate(WriteBatch batch, T lookup) {
         String lookupName = lookup.getLookupName();
         String indexLetter = getIndexLetter(lookupName);
-        createOrUpdate(lookup, indexLetter, lookupName);
+        createOrUpdate(batch, lookup, indexLetter, lookupName);
     }
 
-    public void deleteLookup(T lookup) throws IOException {
+    public void deleteLookup(WriteBatch batch, T lookup) {
         String lookupName = lookup.getLookupName();
         String indexLetter = getIndexLetter(lookupName);
-        delete(indexLetter, lookupName);
+        delete(batch, indexLetter, lookupName);
     }
 
     public String getIndexLetter(String name) {
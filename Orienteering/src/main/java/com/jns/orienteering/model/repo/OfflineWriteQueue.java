@@ -0,0 +1,451 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonValue;
+import javax.json.JsonWriter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jns.orienteering.model.common.Lane;
+import com.jns.orienteering.model.common.Scheduler;
+import com.jns.orienteering.platform.PlatformProvider;
+
+/**
+ * Durable queue of writes, which couldn't be sent, because the device is offline.
+ * <p>
+ * Writes are either a {@link WriteBatch} or an operation of a kind, which is replayed by a {@link ReplayHandler}
+ * registered for the kind. The queue is stored in the private storage dir (one json object per line) and replayed in
+ * order on the {@link Lane#WRITE} lane: the first write blocks all later ones. A write, which fails because of the
+ * connection, is retried with an exponential backoff. A write, which is rejected {@value #MAX_ATTEMPTS} times, is dropped.
+ * <p>
+ * Queued writes are collapsed: a batch removes the locations, which it overwrites, from the batches queued before it,
+ * and an operation replaces a queued operation of the same kind and key at its position in the queue.
+ */
+public final class OfflineWriteQueue {
+
+    private static final Logger               LOGGER             = LoggerFactory.getLogger(OfflineWriteQueue.class);
+
+    /** kind of the writes, which are sent as multi-location update */
+    static final String                       BATCH              = "batch";
+
+    private static final String               FILE_NAME          = "write_queue.json";
+    private static final String               TEMP_SUFFIX        = ".tmp";
+    private static final String               ENCODING           = "UTF-8";
+    private static final String               SEQUENCE           = "seq";
+    private static final String               KIND               = "kind";
+    private static final String               KEY                = "key";
+    private static final String               PAYLOAD            = "payload";
+    private static final String               ATTEMPTS           = "attempts";
+    private static final String               TIME_STAMP         = "timeStamp";
+
+    private static final int                  MAX_ATTEMPTS       = 5;
+    private static final long                 MIN_BACKOFF_MILLIS = 2000;
+    private static final long                 MAX_BACKOFF_MILLIS = 5 * 60 * 1000;
+
+    private static OfflineWriteQueue          instance;
+
+    private final File                        file;
+    private final File                        tempFile;
+    private final List<Entry>                 entries            = new ArrayList<>();
+    private final Map<String, ReplayHandler>  handlers           = new HashMap<>();
+
+    private long                              nextSequence;
+    private long                              backoffMillis      = MIN_BACKOFF_MILLIS;
+    private Entry                             inFlight;
+    private ScheduledFuture<?>                scheduledReplay;
+    /** the lane has more than one thread, only one of them replays at a time */
+    private boolean                           replaying;
+
+    /**
+     * Replays a queued operation. Throws an IOException, if the operation failed and should be retried.
+     */
+    @FunctionalInterface
+    public interface ReplayHandler {
+        void replay(JsonObject payload) throws IOException;
+    }
+
+    private OfflineWriteQueue(File file) {
+        this.file = file;
+        tempFile = new File(file.getParentFile(), file.getName() + TEMP_SUFFIX);
+        load();
+    }
+
+    public static synchronized OfflineWriteQueue getInstance() {
+        if (instance == null) {
+            instance = new OfflineWriteQueue(PlatformProvider.getPlatformService().getStorage().getPrivateFile(FILE_NAME));
+        }
+        return instance;
+    }
+
+    /**
+     * @return true, if the exception was caused by a missing or broken connection, in contrast to a rejected request
+     */
+    public static boolean isConnectionFailure(IOException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UnknownHostException || cause instanceof ConnectException || cause instanceof NoRouteToHostException ||
+                    cause instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Registers the handler, which replays the operations of <code>kind</code>. Queued operations of a kind without
+     * handler stay in the queue, until the handler is registered.
+     */
+    public void registerHandler(String kind, ReplayHandler handler) {
+        synchronized (this) {
+            handlers.put(kind, handler);
+        }
+        replayNow();
+    }
+
+    /**
+     * @return true, if writes are waiting to be sent. New writes have to be queued as well, to keep the order.
+     */
+    public synchronized boolean isPending() {
+        return !entries.isEmpty();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    void enqueue(WriteBatch batch) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        JsonObject updates = batch.toJson();
+
+        synchronized (this) {
+            for (Iterator<Entry> it = entries.iterator(); it.hasNext();) {
+                Entry entry = it.next();
+                if (entry != inFlight && BATCH.equals(entry.kind)) {
+                    entry.payload = withoutOverwritten(entry.payload, updates);
+                    if (entry.payload.isEmpty()) {
+                        it.remove();
+                    }
+                }
+            }
+            add(BATCH, null, updates);
+        }
+        replayNow();
+    }
+
+    /**
+     * Queues an operation of <code>kind</code>. A queued operation of the same kind and <code>key</code> is replaced at its
+     * position, so it isn't moved past the writes, which were queued after it.
+     */
+    public void enqueue(String kind, String key, JsonObject payload) throws IOException {
+        synchronized (this) {
+            Entry queued = null;
+            for (Entry entry : entries) {
+                if (entry != inFlight && entry.kind.equals(kind) && key != null && key.equals(entry.key)) {
+                    queued = entry;
+                    break;
+                }
+            }
+            if (queued == null) {
+                add(kind, key, payload);
+            } else {
+                queued.payload = payload;
+                queued.attempts = 0;
+                store();
+                LOGGER.debug("replaced queued {} write: {}", kind, queued.sequence);
+            }
+        }
+        replayNow();
+    }
+
+    /**
+     * Starts a replay of the queue immediately, e.g. when the connection is expected to be back
+     */
+    public synchronized void replayNow() {
+        backoffMillis = MIN_BACKOFF_MILLIS;
+        schedule(0);
+    }
+
+    private void add(String kind, String key, JsonObject payload) throws IOException {
+        entries.add(new Entry(nextSequence++, kind, key, payload, 0));
+        store();
+        LOGGER.debug("queued {} write, pending writes: {}", kind, entries.size());
+    }
+
+    private void schedule(long delayMillis) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (scheduledReplay != null && !scheduledReplay.isDone()) {
+            if (scheduledReplay.getDelay(TimeUnit.MILLISECONDS) <= delayMillis) {
+                return;
+            }
+            scheduledReplay.cancel(false);
+        }
+        scheduledReplay = Scheduler.schedule(Lane.WRITE, this::replay, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void replay() {
+        synchronized (this) {
+            if (replaying) {
+                // the running replay continues with the entries, which were queued in the meantime
+                return;
+            }
+            replaying = true;
+        }
+
+        while (true) {
+            Entry entry;
+            ReplayHandler handler;
+            synchronized (this) {
+                if (entries.isEmpty()) {
+                    scheduledReplay = null;
+                    replaying = false;
+                    return;
+                }
+                entry = entries.get(0);
+                handler = handlers.get(entry.kind);
+                if (handler == null && !BATCH.equals(entry.kind)) {
+                    LOGGER.debug("no handler for: {}, retry later", entry.kind);
+                    scheduleRetry();
+                    replaying = false;
+                    return;
+                }
+                inFlight = entry;
+            }
+
+            boolean retry = false;
+            try {
+                if (handler == null) {
+                    FireBaseRepo.patchRoot(refreshTimeStamps(entry.payload));
+                } else {
+                    handler.replay(entry.payload);
+                }
+                LOGGER.debug("replayed {} write: {}", entry.kind, entry.sequence);
+
+            } catch (IOException ex) {
+                if (isConnectionFailure(ex)) {
+                    LOGGER.debug("Still offline, retry replay later", ex);
+                    retry = true;
+                } else if (++entry.attempts < MAX_ATTEMPTS) {
+                    LOGGER.warn("Failed to replay {} write: {}, attempt: {}", entry.kind, entry.sequence, entry.attempts, ex);
+                    retry = true;
+                } else {
+                    LOGGER.error("Dropping {} write: {} after {} attempts", entry.kind, entry.sequence, entry.attempts, ex);
+                }
+            } catch (RuntimeException ex) {
+                LOGGER.error("Dropping {} write: {}", entry.kind, entry.sequence, ex);
+            }
+
+            synchronized (this) {
+                inFlight = null;
+                if (!retry) {
+                    entries.remove(entry);
+                    backoffMillis = MIN_BACKOFF_MILLIS;
+                }
+                try {
+                    store();
+                } catch (IOException ex) {
+                    LOGGER.error("Failed to store write queue: {}", file, ex);
+                }
+                if (retry) {
+                    scheduleRetry();
+                    replaying = false;
+                    return;
+                }
+            }
+        }
+    }
+
+    private void scheduleRetry() {
+        long delay = backoffMillis;
+        backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+        scheduledReplay = Scheduler.schedule(Lane.WRITE, this::replay, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the updates of <code>queued</code> without the locations, which are overwritten by <code>updates</code>
+     */
+    private static JsonObject withoutOverwritten(JsonObject queued, JsonObject updates) {
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        for (Map.Entry<String, JsonValue> update : queued.entrySet()) {
+            if (!isOverwritten(update.getKey(), updates)) {
+                builder.add(update.getKey(), update.getValue());
+            }
+        }
+        return builder.build();
+    }
+
+    private static boolean isOverwritten(String path, JsonObject updates) {
+        for (String updatedPath : updates.keySet()) {
+            if (path.equals(updatedPath) || path.startsWith(updatedPath + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Change log entries are read by their timeStamp, starting at the last sync of a device. Queued entries are stamped with
+     * the time of the replay, otherwise devices, which have synced in the meantime, would miss them.
+     */
+    private static JsonObject refreshTimeStamps(JsonObject updates) {
+        long now = TimeStampCreator.timeStamp();
+
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        for (Map.Entry<String, JsonValue> update : updates.entrySet()) {
+            JsonValue value = update.getValue();
+
+            if (update.getKey().startsWith(BaseUrls.CHANGE_LOG + "/") && value instanceof JsonObject &&
+                    ((JsonObject) value).get(TIME_STAMP) instanceof JsonNumber) {
+                JsonObjectBuilder entryBuilder = Json.createObjectBuilder();
+                for (Map.Entry<String, JsonValue> field : ((JsonObject) value).entrySet()) {
+                    entryBuilder.add(field.getKey(), field.getValue());
+                }
+                value = entryBuilder.add(TIME_STAMP, now).build();
+            }
+            builder.add(update.getKey(), value);
+        }
+        return builder.build();
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try (JsonReader jsonReader = Json.createReader(new StringReader(line))) {
+                    JsonObject json = jsonReader.readObject();
+                    Entry entry = new Entry(json.getJsonNumber(SEQUENCE).longValue(), json.getString(KIND), json.getString(KEY, null),
+                                            json.getJsonObject(PAYLOAD), json.getInt(ATTEMPTS, 0));
+                    entries.add(entry);
+                    nextSequence = Math.max(nextSequence, entry.sequence + 1);
+
+                } catch (JsonException | ClassCastException | NullPointerException ex) {
+                    LOGGER.warn("Ignoring invalid entry of: {}", file, ex);
+                }
+            }
+        } catch (IOException ex) {
+            LOGGER.error("Failed to read write queue: {}", file, ex);
+        }
+
+        LOGGER.debug("pending writes: {}", entries.size());
+        schedule(0);
+    }
+
+    private void store() throws IOException {
+        if (entries.isEmpty()) {
+            if (file.exists() && !file.delete()) {
+                throw new IOException("Failed to delete: " + file);
+            }
+            return;
+        }
+
+        StringBuilder lines = new StringBuilder();
+        for (Entry entry : entries) {
+            JsonObjectBuilder builder = Json.createObjectBuilder()
+                                            .add(SEQUENCE, entry.sequence)
+                                            .add(KIND, entry.kind)
+                                            .add(PAYLOAD, entry.payload)
+                                            .add(ATTEMPTS, entry.attempts);
+            if (entry.key != null) {
+                builder.add(KEY, entry.key);
+            }
+
+            StringWriter stringWriter = new StringWriter();
+            try (JsonWriter writer = Json.createWriter(stringWriter)) {
+                writer.writeObject(builder.build());
+            }
+            lines.append(stringWriter.toString()).append('\n');
+        }
+
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            out.write(lines.toString().getBytes(ENCODING));
+            out.getFD().sync();
+        }
+        if (!tempFile.renameTo(file)) {
+            // renameTo doesn't replace an existing file on every platform
+            if (!file.delete() || !tempFile.renameTo(file)) {
+                throw new IOException("Failed to rename: " + tempFile + " to: " + file);
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private final long   sequence;
+        private final String kind;
+        private final String key;
+        private JsonObject   payload;
+        private int          attempts;
+
+        private Entry(long sequence, String kind, String key, JsonObject payload, int attempts) {
+            this.sequence = sequence;
+            this.kind = kind;
+            this.key = key;
+            this.payload = payload;
+            this.attempts = attempts;
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gluonhq.connect.ConnectState;
+import com.gluonhq.connect.GluonObservableList;
+import com.gluonhq.connect.provider.DataProvider;
+import com.jns.orienteering.model.common.GluonObservables;
+import com.jns.orienteering.model.persisted.Model;
+import com.jns.orienteering.model.repo.readerwriter.RestPageReader;
+
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+
+/**
+ * List, which is filled page by page with a {@link RestPageReader}.
+ * <p>
+ * The list is initialized, as soon as the first page has been loaded. Further pages are loaded by
+ * {@link #loadNextPage()}, e.g. when the list view is scrolled near its end. Items, which have been added to the list
+ * before their page was loaded, are not added again.
+ * <p>
+ * All methods have to be called on the FX application thread.
+ */
+public class PagedObservableList<E extends Model> extends GluonObservableList<E> {
+
+    private static final Logger                       LOGGER            = LoggerFactory.getLogger(PagedObservableList.class);
+
+    public static final int                           DEFAULT_PAGE_SIZE = 25;
+
+    private final Function<String, RestPageReader<E>> pageReaderFactory;
+    private final ReadOnlyIntegerWrapper              loadedPages       = new ReadOnlyIntegerWrapper();
+
+    private String                                    cursor;
+    private boolean                                   lastPageLoaded;
+    private GluonObservableList<E>                    loadingPage;
+
+    /**
+     * @param pageReaderFactory
+     *            creates the reader of the page after the cursor, which is null for the first page
+     */
+    PagedObservableList(Function<String, RestPageReader<E>> pageReaderFactory) {
+        this.pageReaderFactory = pageReaderFactory;
+    }
+
+    public boolean hasMorePages() {
+        return !lastPageLoaded;
+    }
+
+    public boolean isLoadingPage() {
+        return loadingPage != null;
+    }
+
+    /**
+     * Counts the loaded pages. It's incremented after the items of a page have been added, also if the page had no new items
+     * and the list therefore didn't change.
+     */
+    public ReadOnlyIntegerProperty loadedPagesProperty() {
+        return loadedPages.getReadOnlyProperty();
+    }
+
+    /**
+     * Loads the next page, if there is one and no page is loading
+     */
+    public void loadNextPage() {
+        if (lastPageLoaded || loadingPage != null) {
+            return;
+        }
+
+        RestPageReader<E> reader = pageReaderFactory.apply(cursor);
+        GluonObservableList<E> page = DataProvider.retrieveList(reader);
+        loadingPage = page;
+
+        page.stateProperty().addListener((obsValue, st, st1) ->
+        {
+            if (st1 == ConnectState.SUCCEEDED) {
+                onPageLoaded(page, reader);
+
+            } else if (st1 == ConnectState.FAILED) {
+                onPageFailed(page.getException());
+            }
+        });
+    }
+
+    private void onPageLoaded(GluonObservableList<E> page, RestPageReader<E> reader) {
+        loadingPage = null;
+        cursor = reader.getLastKey();
+        lastPageLoaded = reader.isLastPage();
+
+        Set<String> ids = new HashSet<>();
+        for (E item : this) {
+            ids.add(item.getId());
+        }
+        for (E item : page) {
+            if (ids.add(item.getId())) {
+                add(item);
+            }
+        }
+        LOGGER.debug("loaded page of {} items, lastPage: {}", page.size(), lastPageLoaded);
+
+        if (!isInitialized()) {
+            GluonObservables.setInitialized(this);
+        }
+        loadedPages.set(loadedPages.get() + 1);
+    }
+
+    private void onPageFailed(Throwable ex) {
+        loadingPage = null;
+
+        if (!isInitialized()) {
+            GluonObservables.setException(this, ex);
+        } else {
+            // the cursor is kept, so the page is requested again with the next call to loadNextPage
+            LOGGER.error("Failed to load page after: '{}'", cursor, ex);
+        }
+    }
+
+}
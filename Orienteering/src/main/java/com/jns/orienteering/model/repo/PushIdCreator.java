@@ -0,0 +1,85 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+import java.security.SecureRandom;
+import java.util.Random;
+
+/**
+ * Creates chronologically ordered, unique keys in the format of the keys, that firebase assigns on POST requests.
+ * <p>
+ * Creating the key on the client allows an object and all of its lookups to be written with a single {@link WriteBatch}.
+ */
+class PushIdCreator {
+
+    private static final String PUSH_CHARS    = "-0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+
+    private static final Random RANDOM        = new SecureRandom();
+
+    private static long         lastTimeStamp;
+    private static final int[]  lastRandChars = new int[12];
+
+    private PushIdCreator() {
+    }
+
+    static synchronized String pushId() {
+        long now = System.currentTimeMillis();
+        boolean duplicateTime = now == lastTimeStamp;
+        lastTimeStamp = now;
+
+        char[] timeStampChars = new char[8];
+        for (int idx = 7; idx >= 0; idx--) {
+            timeStampChars[idx] = PUSH_CHARS.charAt((int) (now % 64));
+            now = now / 64;
+        }
+
+        StringBuilder id = new StringBuilder(20).append(timeStampChars);
+
+        if (!duplicateTime) {
+            for (int idx = 0; idx < 12; idx++) {
+                lastRandChars[idx] = RANDOM.nextInt(64);
+            }
+        } else {
+            // same millisecond: increment the random part by one, to keep the keys ordered
+            int idx = 11;
+            while (idx >= 0 && lastRandChars[idx] == 63) {
+                lastRandChars[idx] = 0;
+                idx--;
+            }
+            if (idx >= 0) {
+                lastRandChars[idx]++;
+            }
+        }
+        for (int idx = 0; idx < 12; idx++) {
+            id.append(PUSH_CHARS.charAt(lastRandChars[idx]));
+        }
+        return id.toString();
+    }
+
+}
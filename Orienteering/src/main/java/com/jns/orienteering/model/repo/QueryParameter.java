@@ -35,6 +35,7 @@ class QueryParameter extends Pair<String, String> {
 
     private static final QueryParameter SHALLOW             = new QueryParameter("shallow", "true");
     private static final QueryParameter DELETE_OVERRIDE     = new QueryParameter("x-http-method-override", "Delete");
+    private static final QueryParameter PATCH_OVERRIDE      = new QueryParameter("x-http-method-override", "PATCH");
     private static final QueryParameter ORDER_BY_TIME_STAMP = orderBy("timeStamp");
 
     QueryParameter(String key, String value) {
@@ -49,6 +50,10 @@ class QueryParameter extends Pair<String, String> {
         return DELETE_OVERRIDE;
     }
 
+    static QueryParameter patchOverride() {
+        return PATCH_OVERRIDE;
+    }
+
     static QueryParameter orderByTimeStamp() {
         return ORDER_BY_TIME_STAMP;
     }
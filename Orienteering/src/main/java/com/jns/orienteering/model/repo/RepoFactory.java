@@ -61,8 +61,8 @@ class RepoFactory {
         cloudRepoSuppliers.put(MissionsByTaskLookup.class, MissionsByTaskRepo::new);
 
         localRepoSuppliers.put(User.class, () -> new LocalRepo<>(User.class, User.class, "user.json"));
-        localRepoSuppliers.put(City.class, () -> new LocalRepo<>(City.class, LocalCityList.class, "cities.json"));
-        localRepoSuppliers.put(Task.class, () -> new LocalRepo<>(Task.class, ActiveTaskList.class, "activeTasks.json"));
+        localRepoSuppliers.put(City.class, () -> new LocalRepo<>(City.class, LocalCityList.class, "cities.json", BaseUrls.CITIES));
+        localRepoSuppliers.put(Task.class, () -> new LocalRepo<>(Task.class, ActiveTaskList.class, "activeTasks.json", BaseUrls.TASKS));
     }
 
     @SuppressWarnings("unchecked")
@@ -48,7 +48,7 @@ public enum RepoService {
         localRepoCache = new HashMap<>();
     }
 
-    public <T extends Model, R extends FireBaseRepo<T>> R getCloudRepo(Class<T> modelClass) {
+    public synchronized <T extends Model, R extends FireBaseRepo<T>> R getCloudRepo(Class<T> modelClass) {
         @SuppressWarnings("unchecked")
         R cloudRepo = (R) cloudRepoCache.get(modelClass);
 
@@ -59,7 +59,7 @@ public enum RepoService {
         return cloudRepo;
     }
 
-    public <T extends Model, R extends LocalRepo<?, ?>> R getLocalRepo(Class<T> modelClass) {
+    public synchronized <T extends Model, R extends LocalRepo<?, ?>> R getLocalRepo(Class<T> modelClass) {
         @SuppressWarnings("unchecked")
         R localRepo = (R) localRepoCache.get(modelClass);
 
@@ -0,0 +1,472 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.json.Json;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonWriter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gluonhq.connect.GluonObservableList;
+import com.gluonhq.connect.GluonObservableObject;
+import com.gluonhq.connect.provider.ListDataReader;
+import com.gluonhq.connect.provider.ObjectDataReader;
+import com.gluonhq.connect.provider.ObjectDataRemover;
+import com.gluonhq.connect.provider.ObjectDataWriter;
+import com.jns.orienteering.model.common.Lane;
+import com.jns.orienteering.model.common.Scheduler;
+import com.jns.orienteering.platform.PlatformProvider;
+
+/**
+ * Counts the requests of the repo layer per endpoint: a latency histogram, errors, requests in flight and the bytes sent and
+ * received.
+ * <p>
+ * The endpoint of a database request is the base url of its path (see {@link BaseUrls}), change log requests are counted per
+ * logged base url, e.g. <code>change_log/tasks</code>. A request is measured with a {@link Trace}, which is the current
+ * trace of its thread until it ends: streams, which are wrapped by {@link #countIn(InputStream)} and
+ * {@link #countOut(OutputStream)} on that thread, count their bytes for the trace. The latency of a read is measured until
+ * the response is available, a streamed response may be parsed afterwards.
+ * <p>
+ * If the system property {@value #EXPORT_PROPERTY} is set to a number of seconds, a snapshot of all endpoints is logged and
+ * appended as json line to a file in the private storage dir in that interval.
+ */
+public final class RequestMetrics {
+
+    private static final Logger                 LOGGER          = LoggerFactory.getLogger(RequestMetrics.class);
+
+    /** endpoint of multi-location updates */
+    public static final String                  ROOT            = "(root)";
+    /** endpoint of the image storage */
+    public static final String                  STORAGE         = "(storage)";
+
+    public static final String                  EXPORT_PROPERTY = "orienteering.requestMetrics.exportSecs";
+
+    private static final String                 EXPORT_FILE     = "request_metrics.log";
+    private static final long                   MAX_EXPORT_SIZE = 1024 * 1024;
+    private static final int                    BUCKETS         = 17;
+
+    private static final Map<String, Recorder>  RECORDERS       = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Trace>     CURRENT         = new ThreadLocal<>();
+
+    private static ScheduledFuture<?>           export;
+
+    static {
+        long exportSecs = Long.getLong(EXPORT_PROPERTY, 0);
+        if (exportSecs > 0) {
+            startExport(PlatformProvider.getPlatformService().getStorage().getPrivateFile(EXPORT_FILE), exportSecs, TimeUnit.SECONDS);
+        }
+    }
+
+    private RequestMetrics() {
+    }
+
+    /**
+     * Starts a request of <code>endpoint</code> on the calling thread. The trace has to be ended on the same thread.
+     */
+    public static Trace begin(String endpoint) {
+        return new Trace(recorder(endpoint));
+    }
+
+    /**
+     * @return the endpoint of the database <code>path</code>, e.g. <code>tasks</code> for <code>/tasks/id.json</code>
+     */
+    public static String endpointOf(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        int end = endOfSegment(path, start);
+        if (end == start) {
+            return ROOT;
+        }
+
+        String endpoint = path.substring(start, end);
+        if (BaseUrls.CHANGE_LOG.equals(endpoint) && end < path.length() && path.charAt(end) == '/') {
+            int logEnd = endOfSegment(path, end + 1);
+            if (logEnd > end + 1) {
+                return path.substring(start, logEnd);
+            }
+        }
+        return endpoint;
+    }
+
+    private static int endOfSegment(String path, int start) {
+        int end = start;
+        while (end < path.length() && path.charAt(end) != '/' && path.charAt(end) != '.' && path.charAt(end) != '?') {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * @return <code>input</code>, which counts the bytes read for the current trace of the calling thread
+     */
+    public static InputStream countIn(InputStream input) {
+        Trace trace = CURRENT.get();
+        if (trace == null || input == null) {
+            return input;
+        }
+        return new FilterInputStream(input) {
+
+            @Override
+            public int read() throws IOException {
+                int value = super.read();
+                if (value >= 0) {
+                    trace.addBytesIn(1);
+                }
+                return value;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int count = super.read(buffer, offset, length);
+                if (count > 0) {
+                    trace.addBytesIn(count);
+                }
+                return count;
+            }
+        };
+    }
+
+    /**
+     * @return <code>output</code>, which counts the bytes written for the current trace of the calling thread
+     */
+    public static OutputStream countOut(OutputStream output) {
+        Trace trace = CURRENT.get();
+        if (trace == null || output == null) {
+            return output;
+        }
+        return new FilterOutputStream(output) {
+
+            @Override
+            public void write(int value) throws IOException {
+                out.write(value);
+                trace.addBytesOut(1);
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                out.write(buffer, offset, length);
+                trace.addBytesOut(length);
+            }
+        };
+    }
+
+    /**
+     * @return the metrics of all endpoints, ordered by their total latency, highest first
+     */
+    public static List<EndpointMetrics> snapshot() {
+        List<EndpointMetrics> result = new ArrayList<>();
+        for (Recorder recorder : RECORDERS.values()) {
+            result.add(recorder.snapshot());
+        }
+        Collections.sort(result, Comparator.comparingDouble(EndpointMetrics::getTotalMillis).reversed());
+        return result;
+    }
+
+    public static void reset() {
+        RECORDERS.clear();
+    }
+
+    /**
+     * Logs a snapshot and appends it to <code>file</code> every <code>period</code>. A previous export is stopped.
+     */
+    public static synchronized void startExport(File file, long period, TimeUnit unit) {
+        stopExport();
+        export = Scheduler.scheduleAtFixedRate(Lane.SYNC, () -> export(file), period, unit);
+    }
+
+    public static synchronized void stopExport() {
+        if (export != null) {
+            export.cancel(false);
+            export = null;
+        }
+    }
+
+    /**
+     * Logs a snapshot and appends it as json line to <code>file</code>. A file, which has grown larger than 1MB, is replaced.
+     */
+    public static void export(File file) {
+        List<EndpointMetrics> snapshot = snapshot();
+        if (snapshot.isEmpty()) {
+            return;
+        }
+
+        JsonObjectBuilder endpoints = Json.createObjectBuilder();
+        for (EndpointMetrics metrics : snapshot) {
+            LOGGER.info("{}", metrics);
+            endpoints.add(metrics.getEndpoint(), Json.createObjectBuilder()
+                                                     .add("requests", metrics.getRequests())
+                                                     .add("errors", metrics.getErrors())
+                                                     .add("inFlight", metrics.getInFlight())
+                                                     .add("bytesIn", metrics.getBytesIn())
+                                                     .add("bytesOut", metrics.getBytesOut())
+                                                     .add("totalMillis", metrics.getTotalMillis())
+                                                     .add("meanMillis", metrics.getMeanMillis())
+                                                     .add("p50Millis", metrics.getPercentileMillis(50))
+                                                     .add("p90Millis", metrics.getPercentileMillis(90))
+                                                     .add("p99Millis", metrics.getPercentileMillis(99))
+                                                     .add("maxMillis", metrics.getMaxMillis()));
+        }
+
+        StringWriter line = new StringWriter();
+        try (JsonWriter writer = Json.createWriter(line)) {
+            writer.writeObject(Json.createObjectBuilder()
+                                   .add("timeStamp", TimeStampCreator.timeStamp())
+                                   .add("endpoints", endpoints)
+                                   .build());
+        }
+        line.append('\n');
+
+        try (FileOutputStream out = new FileOutputStream(file, file.length() < MAX_EXPORT_SIZE)) {
+            out.write(line.toString().getBytes("UTF-8"));
+
+        } catch (IOException ex) {
+            LOGGER.error("Failed to export request metrics: {}", file, ex);
+        }
+    }
+
+    static <T> ObjectDataReader<T> traced(RestRequest request, ObjectDataReader<T> reader) {
+        String endpoint = endpointOf(request.getPath());
+        return new ObjectDataReader<T>() {
+
+            @Override
+            public GluonObservableObject<T> newGluonObservableObject() {
+                return reader.newGluonObservableObject();
+            }
+
+            @Override
+            public T readObject() throws IOException {
+                Trace trace = begin(endpoint);
+                try {
+                    return reader.readObject();
+
+                } catch (IOException | RuntimeException ex) {
+                    trace.fail();
+                    throw ex;
+                } finally {
+                    trace.end();
+                }
+            }
+        };
+    }
+
+    static <T> ListDataReader<T> traced(RestRequest request, ListDataReader<T> reader) {
+        String endpoint = endpointOf(request.getPath());
+        return new ListDataReader<T>() {
+
+            @Override
+            public GluonObservableList<T> newGluonObservableList() {
+                return reader.newGluonObservableList();
+            }
+
+            @Override
+            public Iterator<T> iterator() throws IOException {
+                Trace trace = begin(endpoint);
+                try {
+                    return reader.iterator();
+
+                } catch (IOException | RuntimeException ex) {
+                    trace.fail();
+                    throw ex;
+                } finally {
+                    trace.end();
+                }
+            }
+        };
+    }
+
+    static <T> ObjectDataWriter<T> traced(RestRequest request, ObjectDataWriter<T> writer) {
+        String endpoint = endpointOf(request.getPath());
+        return new ObjectDataWriter<T>() {
+
+            @Override
+            public GluonObservableObject<T> newGluonObservableObject() {
+                return writer.newGluonObservableObject();
+            }
+
+            @Override
+            public Optional<T> writeObject(T obj) throws IOException {
+                Trace trace = begin(endpoint);
+                try {
+                    return writer.writeObject(obj);
+
+                } catch (IOException | RuntimeException ex) {
+                    trace.fail();
+                    throw ex;
+                } finally {
+                    trace.end();
+                }
+            }
+        };
+    }
+
+    static <T> ObjectDataRemover<T> traced(RestRequest request, ObjectDataRemover<T> remover) {
+        String endpoint = endpointOf(request.getPath());
+        return observable ->
+        {
+            Trace trace = begin(endpoint);
+            try {
+                return remover.removeObject(observable);
+
+            } catch (IOException | RuntimeException ex) {
+                trace.fail();
+                throw ex;
+            } finally {
+                trace.end();
+            }
+        };
+    }
+
+    static double bucketUpperBoundMillis(int bucket) {
+        return bucket < BUCKETS - 1 ? 1L << bucket : Double.POSITIVE_INFINITY;
+    }
+
+    private static Recorder recorder(String endpoint) {
+        return RECORDERS.computeIfAbsent(endpoint, Recorder::new);
+    }
+
+    /**
+     * A single request, which is counted, when it's ended
+     */
+    public static final class Trace {
+
+        private final Recorder recorder;
+        private final Trace    previous;
+        private final long     start;
+        private boolean        failed;
+        private boolean        ended;
+
+        private Trace(Recorder recorder) {
+            this.recorder = recorder;
+            previous = CURRENT.get();
+            CURRENT.set(this);
+            recorder.inFlight.incrementAndGet();
+            start = System.nanoTime();
+        }
+
+        public void addBytesIn(long count) {
+            recorder.bytesIn.addAndGet(count);
+        }
+
+        public void addBytesOut(long count) {
+            recorder.bytesOut.addAndGet(count);
+        }
+
+        /**
+         * Marks the request as failed, it's counted as error, when it's ended
+         */
+        public void fail() {
+            failed = true;
+        }
+
+        public void end() {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            if (CURRENT.get() == this) {
+                CURRENT.set(previous);
+            }
+            recorder.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    private static class Recorder {
+
+        private final String          endpoint;
+        private final AtomicLong      requests   = new AtomicLong();
+        private final AtomicLong      errors     = new AtomicLong();
+        private final AtomicLong      inFlight   = new AtomicLong();
+        private final AtomicLong      bytesIn    = new AtomicLong();
+        private final AtomicLong      bytesOut   = new AtomicLong();
+        private final AtomicLong      totalNanos = new AtomicLong();
+        private final AtomicLong      maxNanos   = new AtomicLong();
+        private final AtomicLongArray histogram  = new AtomicLongArray(BUCKETS);
+
+        private Recorder(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private void record(long nanos, boolean failed) {
+            inFlight.decrementAndGet();
+            requests.incrementAndGet();
+            if (failed) {
+                errors.incrementAndGet();
+            }
+            totalNanos.addAndGet(nanos);
+            long max;
+            while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+                // retry
+            }
+            histogram.incrementAndGet(bucket(nanos));
+        }
+
+        /**
+         * @return the index of the smallest bucket, whose upper bound of <code>2^index</code> ms isn't below <code>nanos</code>
+         */
+        private static int bucket(long nanos) {
+            long millis = (nanos + 999_999) / 1_000_000;
+            if (millis <= 1) {
+                return 0;
+            }
+            return Math.min(64 - Long.numberOfLeadingZeros(millis - 1), BUCKETS - 1);
+        }
+
+        private EndpointMetrics snapshot() {
+            long[] counts = new long[BUCKETS];
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                counts[bucket] = histogram.get(bucket);
+            }
+            return new EndpointMetrics(endpoint, requests.get(), errors.get(), inFlight.get(), bytesIn.get(), bytesOut.get(), totalNanos.get(),
+                                       maxNanos.get(), counts);
+        }
+    }
+
+}
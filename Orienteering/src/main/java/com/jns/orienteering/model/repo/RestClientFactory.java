@@ -33,37 +33,62 @@ import java.util.List;
 
 import com.gluonhq.connect.provider.RestClient;
 
+/**
+ * Creates the rest clients for the firebase database.
+ * <p>
+ * The host and the credentials default to the firebase app and can be replaced with the system properties
+ * {@value #HOST_PROPERTY} and {@value #AUTH_PROPERTY}, e.g. to run against a local stand-in server. Setting the
+ * credentials to an empty string omits the auth parameter.
+ */
 class RestClientFactory {
 
-    private static final String   APP_ID          = "your firebase app id";
-    private static final String   AUTH_PARAM_NAME = "auth";
-    private static final String   CREDENTIALS     = "firebase app credentials";
+    static final String            HOST_PROPERTY   = "orienteering.firebaseHost";
+    static final String            AUTH_PROPERTY   = "orienteering.firebaseAuth";
+
+    private static final String    APP_ID          = "your firebase app id";
+    private static final String    AUTH_PARAM_NAME = "auth";
+    private static final String    CREDENTIALS     = "firebase app credentials";
     // add the service_secret.json file from firebase to /main/resources 
 
-    protected static final String GET             = "GET";
-    protected static final String PUT             = "PUT";
-    protected static final String POST            = "POST";
+    protected static final String  GET             = "GET";
+    protected static final String  PUT             = "PUT";
+    protected static final String  POST            = "POST";
+
+    private static volatile String host            = System.getProperty(HOST_PROPERTY, APP_ID);
+    private static volatile String credentials     = System.getProperty(AUTH_PROPERTY, CREDENTIALS);
 
     private RestClientFactory() {
     }
 
-    static RestClient baseClient() {
-        RestClient client = RestClient.create().host(APP_ID);
-        client.queryParam(AUTH_PARAM_NAME, CREDENTIALS);
-        // client.queryParam("print", "pretty");
-        return client;
+    /**
+     * Directs all clients, which are created afterwards, to <code>host</code>
+     *
+     * @param host
+     *            scheme, host and port, e.g. <code>http://localhost:8089</code>
+     * @param credentials
+     *            the value of the auth parameter or null to omit it
+     */
+    static void setHost(String host, String credentials) {
+        RestClientFactory.host = host;
+        RestClientFactory.credentials = credentials;
     }
 
-    static RestClient queryClient(String url) {
-        return create(GET, url, QueryParameter.shallow());
+    static String getHost() {
+        return host;
     }
 
-    static RestClient queryClient(List<QueryParameter> queryParams, String url) {
-        return create(GET, url, queryParams);
+    static String getCredentials() {
+        return credentials;
     }
 
-    static RestClient deleteClient(String url) {
-        return create(POST, url, QueryParameter.deleteOverride(), QueryParameter.shallow());
+    static RestClient baseClient() {
+        RestClient client = RestClient.create().host(host);
+        String auth = credentials;
+        if (auth != null && !auth.isEmpty()) {
+            client.queryParam(AUTH_PARAM_NAME, auth);
+        }
+        // client.queryParam("print", "pretty");
+        return client;
     }
 
     static RestClient create(String method, String url, QueryParameter... queryParameters) {
@@ -0,0 +1,108 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+import static com.jns.orienteering.util.Validations.isNullOrEmpty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.gluonhq.connect.provider.RestClient;
+
+/**
+ * Immutable description of a single rest call (method, path and query parameters).
+ * <p>
+ * A new {@link RestClient} is created for every call to {@link #createClient()}, so requests of the same repo never share
+ * mutable client state and can be executed concurrently.
+ */
+final class RestRequest {
+
+    private final String               method;
+    private final String               path;
+    private final List<QueryParameter> queryParameters;
+
+    private RestRequest(String method, String path, List<QueryParameter> queryParameters) {
+        if (isNullOrEmpty(path)) {
+            throw new IllegalArgumentException("restclient path must not be null or empty");
+        }
+        this.method = method;
+        this.path = path;
+        this.queryParameters = Collections.unmodifiableList(new ArrayList<>(queryParameters));
+    }
+
+    static RestRequest get(String path, QueryParameter... queryParameters) {
+        return new RestRequest(RestClientFactory.GET, path, Arrays.asList(queryParameters));
+    }
+
+    static RestRequest get(String path, List<QueryParameter> queryParameters) {
+        return new RestRequest(RestClientFactory.GET, path, queryParameters);
+    }
+
+    static RestRequest put(String path) {
+        return new RestRequest(RestClientFactory.PUT, path, Collections.emptyList());
+    }
+
+    static RestRequest post(String path) {
+        return new RestRequest(RestClientFactory.POST, path, Collections.emptyList());
+    }
+
+    static RestRequest delete(String path) {
+        return new RestRequest(RestClientFactory.POST, path, Arrays.asList(QueryParameter.deleteOverride(), QueryParameter.shallow()));
+    }
+
+    /**
+     * multi-location update, the PATCH method is not supported by HttpURLConnection
+     */
+    static RestRequest patch(String path) {
+        return new RestRequest(RestClientFactory.POST, path, Arrays.asList(QueryParameter.patchOverride()));
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    String getPath() {
+        return path;
+    }
+
+    List<QueryParameter> getQueryParameters() {
+        return queryParameters;
+    }
+
+    RestClient createClient() {
+        return RestClientFactory.create(method, path, queryParameters);
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + path + (queryParameters.isEmpty() ? "" : " " + queryParameters);
+    }
+}
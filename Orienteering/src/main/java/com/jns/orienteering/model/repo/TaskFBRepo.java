@@ -42,6 +42,7 @@ import com.jns.orienteering.model.persisted.MissionsByTaskLookup;
 import com.jns.orienteering.model.persisted.RepoAction;
 import com.jns.orienteering.model.persisted.Task;
 import com.jns.orienteering.model.persisted.TaskNameLookup;
+import com.jns.orienteering.model.persisted.TaskSummary;
 import com.jns.orienteering.model.persisted.TasksByMissionLookup;
 import com.jns.orienteering.model.repo.readerwriter.RestMapReader;
 
@@ -50,7 +51,7 @@ public class TaskFBRepo extends FireBaseRepo<Task> {
     private NameLookupFBRepo<TaskNameLookup>           namelookupRepo     = new NameLookupFBRepo<>(TaskNameLookup.class, TASK_NAMES);
 
     private CityLookupFBRepo<CityTaskLookup, Task>     cityLookupRepo     =
-            new CityLookupFBRepo<>(CityTaskLookup.class, Task.class, TASKS_BY_CITY, TASKS);
+            new CityLookupFBRepo<>(CityTaskLookup.class, Task.class, TASKS_BY_CITY, TASKS, TASK_SUMMARIES);
 
     private MultiValueLookupRepo<TasksByMissionLookup> tasksLookupRepo    =
             new MultiValueLookupRepo<>(TasksByMissionLookup.class, TASKS_BY_MISSION);
@@ -70,9 +71,17 @@ public class TaskFBRepo extends FireBaseRepo<Task> {
         return cityLookupRepo.getPublicListAsync(cityId);
     }
 
+    /**
+     * Retrieves all public tasks of the city and the private tasks of the user at once, unlike
+     * {@link #getPublicTasksAsync(String)}, which loads them page by page
+     */
+    public GluonObservableList<Task> getAllTasksAsync(String cityId, String userId) {
+        return cityLookupRepo.getCompleteListAsync(cityId, userId);
+    }
+
     public GluonObservableList<Task> retrieveTasksAsync(String missionId) {
         String sourceUrl = buildPath(TASKS_BY_MISSION, missionId);
-        return DataProvider.retrieveList(new RestMapReader<>(createRestClient(), TasksByMissionLookup.class, sourceUrl, Task.class, TASKS));
+        return DataProvider.retrieveList(new RestMapReader<>(this::createRestClient, TasksByMissionLookup.class, sourceUrl, Task.class, TASKS));
     }
 
     public boolean checkIfTaskNameExists(String name) {
@@ -82,15 +91,17 @@ public class TaskFBRepo extends FireBaseRepo<Task> {
     public GluonObservableObject<Task> createTaskAsync(Task task) {
         return executeAsync(task, () ->
         {
+            task.setId(createPushId());
             task.setTimeStamp(createTimeStamp());
-            Task result = addToList(task);
 
-            if (result != null) {
-                writeLogEntry(result, RepoAction.ADD);
+            WriteBatch batch = new WriteBatch();
+            createOrUpdate(batch, task, task.getId());
+            updateSummary(batch, task);
+            writeLogEntry(batch, task, RepoAction.ADD);
 
-                namelookupRepo.createOrUpdate(result.createNameLookup());
-                cityLookupRepo.createOrUpdate(result.createCityLookup());
-            }
+            namelookupRepo.createOrUpdate(batch, task.createNameLookup());
+            cityLookupRepo.createOrUpdate(batch, task.createCityLookup());
+            commit(batch);
         });
     }
 
@@ -98,14 +109,17 @@ public class TaskFBRepo extends FireBaseRepo<Task> {
         return executeAsync(task, () ->
         {
             task.setTimeStamp(createTimeStamp());
-            createOrUpdate(task, task.getId());
-            writeLogEntry(task, RepoAction.UPDATE);
+
+            WriteBatch batch = new WriteBatch();
+            createOrUpdate(batch, task, task.getId());
+            updateSummary(batch, task);
+            writeLogEntry(batch, task, RepoAction.UPDATE);
 
             if (task.nameChanged()) {
-                namelookupRepo.recreateLookup(task.createNameLookup(), task.getPreviousTask().getTaskName());
+                namelookupRepo.recreateLookup(batch, task.createNameLookup(), task.getPreviousTask().getTaskName());
             }
             if (task.cityChanged() || task.accessTypeChanged()) {
-                cityLookupRepo.recreateCityLookup(new CityTaskLookup(task));
+                cityLookupRepo.recreateCityLookup(batch, new CityTaskLookup(task));
             }
             // todo: update mission, when task changed
 
@@ -121,8 +135,9 @@ public class TaskFBRepo extends FireBaseRepo<Task> {
             // }
 
             if (previousImageId != null) {
-                getChangeLogRepo().writeImageLogAsync(new ImageLogEntry(previousImageId, task.getTimeStamp()));
+                getChangeLogRepo().writeImageLog(batch, new ImageLogEntry(previousImageId, task.getTimeStamp()));
             }
+            commit(batch);
         });
     }
 
@@ -130,11 +145,14 @@ public class TaskFBRepo extends FireBaseRepo<Task> {
         return executeAsync(task, () ->
         {
             task.setTimeStamp(createTimeStamp());
-            delete(task.getId());
-            writeLogEntry(task, RepoAction.DELETE);
 
-            namelookupRepo.deleteLookup(task.createNameLookup());
-            cityLookupRepo.deleteLookup(task.createCityLookup());
+            WriteBatch batch = new WriteBatch();
+            delete(batch, task.getId());
+            batch.delete(TASK_SUMMARIES, task.getId());
+            writeLogEntry(batch, task, RepoAction.DELETE);
+
+            namelookupRepo.deleteLookup(batch, task.createNameLookup());
+            cityLookupRepo.deleteLookup(batch, task.createCityLookup());
 
             MissionsByTaskLookup missionsLookup = missionsByTaskRepo.retrieveObject(task.getId());
             if (missionsLookup != null) {
@@ -142,26 +160,25 @@ public class TaskFBRepo extends FireBaseRepo<Task> {
                 while (missionIds.hasNext()) {
                     String missionId = missionIds.next();
 
-                    TasksByMissionLookup tasksLookup = tasksLookupRepo.retrieveObject(missionId);
-                    if (tasksLookup != null) {
-                        tasksLookup.setId(missionId);
-                        tasksLookup.removeValue(task.getId());
-                        tasksLookupRepo.createOrUpdateLookup(tasksLookup);
-                    }
-
-                    missionStatRepo.deleteAsync(missionId);
+                    tasksLookupRepo.delete(batch, missionId, TASKS, task.getId());
+                    missionStatRepo.deleteStats(batch, missionId);
                 }
-                missionsByTaskRepo.delete(task.getId());
+                missionsByTaskRepo.delete(batch, task.getId());
             }
 
             if (task.getImageId() != null) {
-                getChangeLogRepo().writeImageLogAsync(new ImageLogEntry(task));
+                getChangeLogRepo().writeImageLog(batch, new ImageLogEntry(task));
             }
+            commit(batch);
         });
     }
 
-    private void writeLogEntry(Task task, RepoAction action) {
-        getChangeLogRepo().writeLogAsync(task, action, TASKS);
+    private void updateSummary(WriteBatch batch, Task task) {
+        batch.update(new TaskSummary(task), TASK_SUMMARIES, task.getId());
+    }
+
+    private void writeLogEntry(WriteBatch batch, Task task, RepoAction action) {
+        getChangeLogRepo().writeLog(batch, task, action, TASKS);
     }
 
 }
@@ -33,6 +33,7 @@ import static com.jns.orienteering.util.Validations.isNullOrEmpty;
 public class UrlBuilder {
 
     private static final String JSON_SUFFIX = ".json";
+    private static final String ROOT_URL    = "/" + JSON_SUFFIX;
 
     private final String        baseUrl;
 
@@ -54,6 +55,10 @@ public class UrlBuilder {
         return baseUrl + JSON_SUFFIX;
     }
 
+    public static String buildRootUrl() {
+        return ROOT_URL;
+    }
+
     public static String buildUrl(String... urlParts) {
         return buildPath(urlParts) + JSON_SUFFIX;
     }
@@ -0,0 +1,113 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonValue;
+
+import com.jns.orienteering.model.repo.readerwriter.JsonCodec;
+
+/**
+ * Collects writes and deletes for several locations of the database, which are sent as a single multi-location update
+ * (see {@link FireBaseRepo#commit(WriteBatch)}).
+ * <p>
+ * The update is applied atomically by firebase: either all locations are written or none. Paths are absolute (relative to
+ * the database root). A later write to the same path replaces the earlier one; a write to an ancestor replaces all
+ * writes to its descendants.
+ */
+public class WriteBatch {
+
+    private final Map<String, JsonValue> updates = new LinkedHashMap<>();
+
+    public <T> WriteBatch update(T obj, String... pathParts) {
+        if (obj == null) {
+            return delete(pathParts);
+        }
+        put(UrlBuilder.buildPath(pathParts), codec(obj).write(obj));
+        return this;
+    }
+
+    public WriteBatch update(boolean value, String... pathParts) {
+        put(UrlBuilder.buildPath(pathParts), value ? JsonValue.TRUE : JsonValue.FALSE);
+        return this;
+    }
+
+    public WriteBatch delete(String... pathParts) {
+        put(UrlBuilder.buildPath(pathParts), JsonValue.NULL);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return updates.isEmpty();
+    }
+
+    public int size() {
+        return updates.size();
+    }
+
+    JsonObject toJson() {
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        for (Map.Entry<String, JsonValue> entry : updates.entrySet()) {
+            builder.add(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    private void put(String path, JsonValue value) {
+        String key = path.substring(1);
+
+        Iterator<String> keys = updates.keySet().iterator();
+        while (keys.hasNext()) {
+            String existingKey = keys.next();
+            if (existingKey.equals(key) || existingKey.startsWith(key + "/")) {
+                keys.remove();
+
+            } else if (key.startsWith(existingKey + "/")) {
+                throw new IllegalArgumentException("path '" + key + "' is a child of '" + existingKey + "', which is already part of the batch");
+            }
+        }
+        updates.put(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> JsonCodec<T> codec(T obj) {
+        return JsonCodec.forClass((Class<T>) obj.getClass());
+    }
+
+    @Override
+    public String toString() {
+        return updates.keySet().toString();
+    }
+}
@@ -28,25 +28,40 @@
  */
 package com.jns.orienteering.model.repo.image;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.cloud.AuthCredentials;
+import com.google.cloud.ReadChannel;
+import com.google.cloud.RestorableState;
+import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.BlobInfo;
 import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
 import com.google.cloud.storage.StorageOptions;
+import com.jns.orienteering.model.repo.RequestMetrics;
+import com.jns.orienteering.model.repo.RequestMetrics.Trace;
 
-public class FireBaseStorage {
+public class FireBaseStorage implements ImageStorage {
 
     private static final Logger         LOGGER                   = LoggerFactory.getLogger(FireBaseStorage.class);
 
     private static final String         SERVICE_CREDENTIALS_FILE = "/service_secret.json";
     private static final String         PROJECT_ID               = "orienteering-2dd97";
     private static final String         BUCKET                   = "orienteering-2dd97.appspot.com";
+    private static final String         BINARY_CONTENT_TYPE      = "application/octet-stream";
+
+    /** upload chunks must be a multiple of 256 KiB */
+    private static final int            CHUNK_SIZE               = LocalImageStorage.CHUNK_SIZE;
+    private static final int            MAX_ATTEMPTS             = 3;
 
     private Storage                     storage;
 
@@ -68,29 +83,203 @@ public class FireBaseStorage {
         }
     }
 
+    @Override
     public void create(byte[] content, String url) {
-        storage.create(blobInfo(url, ImageType.fromUrl(url)), content);
+        Trace trace = RequestMetrics.begin(RequestMetrics.STORAGE);
+        try {
+            storage.create(blobInfo(url), content);
+            trace.addBytesOut(content.length);
+
+        } catch (RuntimeException e) {
+            trace.fail();
+            throw e;
+        } finally {
+            trace.end();
+        }
     }
 
+    @Override
     public boolean delete(String url) {
-        return storage.delete(blobId(url));
+        Trace trace = RequestMetrics.begin(RequestMetrics.STORAGE);
+        try {
+            return storage.delete(blobId(url));
+
+        } catch (RuntimeException e) {
+            trace.fail();
+            throw e;
+        } finally {
+            trace.end();
+        }
     }
 
+    @Override
     public byte[] retrieve(String url) {
+        Trace trace = RequestMetrics.begin(RequestMetrics.STORAGE);
+        try {
+            Blob blob = storage.get(blobId(url));
+            if (blob != null) {
+                byte[] content = blob.content();
+                trace.addBytesIn(content.length);
+                return content;
+            }
+            return new byte[0];
+
+        } catch (RuntimeException e) {
+            trace.fail();
+            throw e;
+        } finally {
+            trace.end();
+        }
+    }
+
+    /**
+     * Uploads <code>source</code> with a resumable upload session. The state of the session is captured after every chunk; if
+     * a chunk fails, the session is restored and the upload continues after the last captured chunk.
+     */
+    @Override
+    public void upload(File source, String url) throws IOException {
+        Trace trace = RequestMetrics.begin(RequestMetrics.STORAGE);
+        WriteChannel writer = null;
+        try (FileChannel input = new FileInputStream(source).getChannel()) {
+            long size = input.size();
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+
+            writer = storage.writer(blobInfo(url));
+            writer.setChunkSize(CHUNK_SIZE);
+            RestorableState<WriteChannel> state = writer.capture();
+            long statePosition = 0;
+            long position = 0;
+            int failures = 0;
+
+            while (true) {
+                try {
+                    if (position < size) {
+                        buffer.clear();
+                        input.read(buffer, position);
+                        buffer.flip();
+                        while (buffer.hasRemaining()) {
+                            int written = writer.write(buffer);
+                            position += written;
+                            trace.addBytesOut(written);
+                        }
+                        state = writer.capture();
+                        statePosition = position;
+
+                    } else {
+                        writer.close();
+                        return;
+                    }
+
+                } catch (IOException | StorageException e) {
+                    if (++failures >= MAX_ATTEMPTS) {
+                        LOGGER.error("Failed to upload image: {}", url, e);
+                        trace.fail();
+                        throw new IOException("Failed to upload image: " + url, e);
+                    }
+                    LOGGER.warn("Resuming upload of: {} at: {}", url, statePosition, e);
+                    writer = state.restore();
+                    position = statePosition;
+                }
+            }
+        } finally {
+            if (writer != null && writer.isOpen()) {
+                abort(writer, url);
+            }
+            trace.end();
+        }
+    }
+
+    /**
+     * Closes the channel of a failed upload. Closing finishes the upload session with the chunks written so far, so the
+     * incomplete blob is deleted again. A changed image is stored with a new image id, so no other image is affected.
+     */
+    private void abort(WriteChannel writer, String url) {
+        try {
+            writer.close();
+            storage.delete(blobId(url));
+
+        } catch (IOException | StorageException e) {
+            LOGGER.warn("Failed to abort upload of: {}", url, e);
+        }
+    }
+
+    /**
+     * Downloads the image with range reads, starting at the end of an incomplete part of an earlier or failed read of the
+     * same generation of the blob
+     */
+    @Override
+    public boolean download(String url, File target) throws IOException {
+        Trace trace = RequestMetrics.begin(RequestMetrics.STORAGE);
+        try {
+            return download(url, target, trace);
+
+        } catch (IOException | RuntimeException e) {
+            trace.fail();
+            throw e;
+        } finally {
+            trace.end();
+        }
+    }
+
+    private boolean download(String url, File target, Trace trace) throws IOException {
         Blob blob = storage.get(blobId(url));
-        if (blob != null) {
-            return blob.content();
+        if (blob == null) {
+            return false;
+        }
+        long size = blob.size();
+        Long generation = blob.generation();
+        // the reads are pinned to the generation of the part, a replaced blob fails them instead of mixing the content
+        BlobId sourceId = BlobId.of(BUCKET, url, generation);
+
+        target.getParentFile().mkdirs();
+        PartFile partFile = new PartFile(target);
+
+        try (FileChannel output = partFile.open(String.valueOf(generation), size)) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            int failures = 0;
+
+            while (output.size() < size) {
+                try (ReadChannel reader = storage.reader(sourceId)) {
+                    reader.setChunkSize(CHUNK_SIZE);
+                    reader.seek(output.size());
+
+                    buffer.clear();
+                    while (reader.read(buffer) >= 0) {
+                        buffer.flip();
+                        trace.addBytesIn(buffer.remaining());
+                        while (buffer.hasRemaining()) {
+                            output.write(buffer);
+                        }
+                        buffer.clear();
+                    }
+                    if (output.size() < size) {
+                        throw new IOException("Incomplete read: " + output.size() + " of: " + size);
+                    }
+
+                } catch (IOException | StorageException e) {
+                    if (++failures >= MAX_ATTEMPTS) {
+                        LOGGER.error("Failed to download image: {}", url, e);
+                        throw new IOException("Failed to download image: " + url, e);
+                    }
+                    LOGGER.warn("Resuming download of: {} at: {}", url, output.size(), e);
+                }
+            }
+            output.force(true);
         }
-        return new byte[0];
+        partFile.complete();
+        return true;
     }
 
     private BlobId blobId(String url) {
         return BlobId.of(BUCKET, url);
     }
 
-    private BlobInfo blobInfo(String url, ImageType type) {
+    /**
+     * Images are stored with their image type, other files, e.g. the recorded tracks, as binary content
+     */
+    private BlobInfo blobInfo(String url) {
         return BlobInfo.builder(BUCKET, url)
-                       .contentType(type.get())
+                       .contentType(ImageType.isImage(url) ? ImageType.fromUrl(url).get() : BINARY_CONTENT_TYPE)
                        .build();
 
     }
@@ -0,0 +1,588 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo.image;
+
+import static com.jns.orienteering.util.Validations.isNullOrEmpty;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javafx.scene.image.Image;
+
+/**
+ * Two tier cache of images:
+ * <ul>
+ * <li>memory: decoded images, one variant per requested size, bounded by their decoded pixel bytes</li>
+ * <li>disk: the encoded images and the parts of incomplete downloads, bounded by the total file size</li>
+ * </ul>
+ * Both tiers evict the least recently used images. The parts of aborted downloads are deleted, if they aren't resumed within
+ * {@link #MAX_PART_AGE}. The disk tier keeps its entries in an index file, so the image directory is only scanned once, when
+ * the index doesn't exist yet. Changes are appended to the index, which is rewritten only when most of its lines are
+ * outdated.
+ */
+class ImageCache {
+
+    private static final Logger                LOGGER                   = LoggerFactory.getLogger(ImageCache.class);
+
+    static final long                          DEFAULT_MAX_MEMORY_BYTES = 32L * 1024 * 1024;
+    static final long                          DEFAULT_MAX_DISK_BYTES   = 64L * 1024 * 1024;
+    /** the part of a download, which isn't resumed within this time, is deleted */
+    static final long                          MAX_PART_AGE             = TimeUnit.DAYS.toMillis(1);
+    /** the index is rewritten, when it has more than this number of lines and twice as many lines as entries */
+    static final int                           MIN_COMPACT_LINES        = 256;
+
+    private static final String                INDEX_FILE               = ".index";
+    private static final String                REMOVED                  = "- ";
+    private static final String                PART                     = "p ";
+    private static final String                PART_REMOVED             = "-p ";
+    private static final char                  VARIANT_SEPARATOR        = '#';
+    private static final String                TEMP_SUFFIX              = ".tmp";
+    private static final String                ENCODING                 = "UTF-8";
+    private static final int                   BYTES_PER_PIXEL          = 4;
+
+    private final File                         imageStore;
+    private final File                         indexFile;
+    private final long                         maxMemoryBytes;
+    private final long                         maxDiskBytes;
+
+    /** access ordered: the eldest entry is the least recently used */
+    private final LinkedHashMap<String, Image> memoryEntries            = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Long>  diskEntries              = new LinkedHashMap<>(16, 0.75f, true);
+    /** the parts of incomplete downloads by the url of their image, the eldest first */
+    private final LinkedHashMap<String, Long>  partEntries              = new LinkedHashMap<>();
+    /** the urls of the running downloads, whose parts mustn't be evicted */
+    private final Set<String>                  downloads                = new HashSet<>();
+    private long                               memoryBytes;
+    private long                               diskBytes;
+    private long                               partBytes;
+    private int                                indexLines;
+
+    private long                               memoryHits;
+    private long                               diskHits;
+    private long                               misses;
+    private long                               memoryEvictions;
+    private long                               diskEvictions;
+
+    ImageCache(File imageStore) {
+        this(imageStore, DEFAULT_MAX_MEMORY_BYTES, DEFAULT_MAX_DISK_BYTES);
+    }
+
+    ImageCache(File imageStore, long maxMemoryBytes, long maxDiskBytes) {
+        this.imageStore = imageStore;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.maxDiskBytes = maxDiskBytes;
+        indexFile = new File(imageStore, INDEX_FILE);
+
+        loadIndex();
+        LOGGER.debug("imageStore: {}, {} images, {} bytes, {} parts", imageStore, diskEntries.size(), diskBytes, partEntries.size());
+    }
+
+    /**
+     * Adds the image to disk and, if it's already decoded, to memory
+     */
+    synchronized boolean add(StorableImage storableImage) {
+        String targetUrl = storableImage.getTargetUrl();
+
+        if (isNullOrEmpty(targetUrl)) {
+            return false;
+        }
+        if (storableImage.isDecoded()) {
+            putMemory(targetUrl, storableImage.get());
+        }
+
+        byte[] content = storableImage.getContent();
+        if (content == null || content.length == 0 || diskEntries.containsKey(targetUrl)) {
+            return true;
+        }
+
+        File target = new File(imageStore, targetUrl);
+        target.getParentFile().mkdirs();
+
+        try (FileOutputStream outputStream = new FileOutputStream(target)) {
+            outputStream.write(content);
+
+        } catch (IOException e) {
+            LOGGER.error("failed to cache image: {}", targetUrl, e);
+            return false;
+        }
+        putDisk(targetUrl, content.length);
+        evictDisk();
+
+        LOGGER.debug("image cached: {}", targetUrl);
+        return true;
+    }
+
+    /**
+     * Returns the variant of the image, which fits into <code>width</code> x <code>height</code>. A variant, which isn't in
+     * memory, is decoded from disk on the calling thread.
+     *
+     * @param width
+     *            the requested width, or 0 for the original size
+     * @param height
+     *            the requested height, or 0 for the original size
+     */
+    Image getImage(String url, double width, double height) {
+        if (isNullOrEmpty(url)) {
+            return null;
+        }
+
+        String key = variantKey(url, width, height);
+        synchronized (this) {
+            Image cachedImage = memoryEntries.get(key);
+            if (cachedImage != null) {
+                memoryHits++;
+                return cachedImage;
+            }
+            if (diskEntries.get(url) == null) {
+                misses++;
+                LOGGER.debug("image not found in cache: {}", url);
+                return null;
+            }
+        }
+
+        File file = new File(imageStore, url);
+        Image storedImage = file.exists() ? new Image(file.toURI().toString(), width, height, true, true) : null;
+
+        synchronized (this) {
+            if (storedImage == null || storedImage.isError()) {
+                removeDisk(url);
+                misses++;
+                return null;
+            }
+            putMemory(key, storedImage);
+            diskHits++;
+        }
+        LOGGER.debug("image found on disk, and cached: {}", key);
+        return storedImage;
+    }
+
+    /**
+     * Adds a decoded variant of the image to memory
+     */
+    synchronized void putImage(String url, double width, double height, Image image) {
+        putMemory(variantKey(url, width, height), image);
+    }
+
+    /**
+     * @return the file of the image, if it's cached on disk, otherwise null
+     */
+    synchronized File getCachedFile(String url) {
+        if (diskEntries.get(url) == null) {
+            return null;
+        }
+        File file = new File(imageStore, url);
+        return file.exists() ? file : null;
+    }
+
+    /**
+     * Registers the download of the image, whose part is kept in the index until the download ends with
+     * {@link #addFile(String)} or {@link #abortDownload(String)}. The part of a download, which never ends, e.g. because the
+     * app was killed, is deleted after {@link #MAX_PART_AGE}.
+     *
+     * @return the file, which the image of <code>url</code> is downloaded to
+     */
+    synchronized File beginDownload(String url) {
+        File target = new File(imageStore, url);
+        downloads.add(url);
+        putPart(url, new PartFile(target).getFile().length());
+        return target;
+    }
+
+    /**
+     * Adds the file of the image, which has been downloaded to {@link #beginDownload(String)}, to the disk tier
+     */
+    synchronized boolean addFile(String url) {
+        downloads.remove(url);
+        removePart(url);
+
+        File file = new File(imageStore, url);
+        if (!file.isFile()) {
+            return false;
+        }
+        putDisk(url, file.length());
+        evictDisk();
+        return diskEntries.containsKey(url);
+    }
+
+    /**
+     * Ends the failed download of the image. Its part is kept, counted with its current size, for the next download of the
+     * image to resume it.
+     */
+    synchronized void abortDownload(String url) {
+        if (!downloads.remove(url)) {
+            return;
+        }
+        File part = new PartFile(new File(imageStore, url)).getFile();
+        if (part.isFile()) {
+            putPart(url, part.length());
+            evictDisk();
+        } else {
+            removePart(url);
+        }
+    }
+
+    synchronized void remove(String url) {
+        if (isNullOrEmpty(url)) {
+            return;
+        }
+        removeMemory(url);
+
+        String variantPrefix = url + VARIANT_SEPARATOR;
+        for (Iterator<Entry<String, Image>> it = memoryEntries.entrySet().iterator(); it.hasNext();) {
+            Entry<String, Image> entry = it.next();
+            if (entry.getKey().startsWith(variantPrefix)) {
+                memoryBytes -= decodedSize(entry.getValue());
+                it.remove();
+            }
+        }
+
+        if (diskEntries.containsKey(url)) {
+            removeDisk(url);
+            LOGGER.debug("image removed from disk and cache: {}", url);
+        }
+    }
+
+    synchronized ImageCacheStats getStats() {
+        return new ImageCacheStats(memoryHits, diskHits, misses, memoryEvictions, diskEvictions, memoryEntries.size(), memoryBytes,
+                                   diskEntries.size(), diskBytes + partBytes);
+    }
+
+    private void putMemory(String url, Image image) {
+        removeMemory(url);
+
+        long size = decodedSize(image);
+        if (size > maxMemoryBytes) {
+            return;
+        }
+        memoryEntries.put(url, image);
+        memoryBytes += size;
+
+        Iterator<Entry<String, Image>> it = memoryEntries.entrySet().iterator();
+        while (memoryBytes > maxMemoryBytes && it.hasNext()) {
+            Entry<String, Image> eldest = it.next();
+            memoryBytes -= decodedSize(eldest.getValue());
+            it.remove();
+            memoryEvictions++;
+        }
+    }
+
+    private void removeMemory(String url) {
+        Image image = memoryEntries.remove(url);
+        if (image != null) {
+            memoryBytes -= decodedSize(image);
+        }
+    }
+
+    private void putDisk(String url, long size) {
+        Long previousSize = diskEntries.put(url, size);
+        if (previousSize != null) {
+            diskBytes -= previousSize;
+        }
+        diskBytes += size;
+        appendIndex(size + " " + url);
+    }
+
+    private void putPart(String url, long size) {
+        Long previousSize = partEntries.put(url, size);
+        if (previousSize != null) {
+            partBytes -= previousSize;
+        }
+        partBytes += size;
+        appendIndex(PART + size + " " + url);
+    }
+
+    /**
+     * Removes the part of a download from the index, e.g. after it has been renamed to the image
+     */
+    private void removePart(String url) {
+        Long size = partEntries.remove(url);
+        if (size != null) {
+            partBytes -= size;
+            appendIndex(PART_REMOVED + url);
+        }
+    }
+
+    /**
+     * Evicts the least recently used images. The parts of aborted downloads are kept for resuming, unless they exceed the
+     * limit on their own.
+     */
+    private void evictDisk() {
+        Iterator<Entry<String, Long>> it = diskEntries.entrySet().iterator();
+        while (diskBytes + partBytes > maxDiskBytes && it.hasNext()) {
+            Entry<String, Long> eldest = it.next();
+            deleteFile(eldest.getKey());
+            diskBytes -= eldest.getValue();
+            it.remove();
+            appendIndex(REMOVED + eldest.getKey());
+            diskEvictions++;
+
+            LOGGER.debug("image evicted from disk: {}", eldest.getKey());
+        }
+
+        Iterator<Entry<String, Long>> parts = partEntries.entrySet().iterator();
+        while (diskBytes + partBytes > maxDiskBytes && parts.hasNext()) {
+            Entry<String, Long> eldest = parts.next();
+            if (downloads.contains(eldest.getKey())) {
+                continue;
+            }
+            new PartFile(new File(imageStore, eldest.getKey())).delete();
+            partBytes -= eldest.getValue();
+            parts.remove();
+            appendIndex(PART_REMOVED + eldest.getKey());
+
+            LOGGER.debug("part evicted from disk: {}", eldest.getKey());
+        }
+    }
+
+    private void removeDisk(String url) {
+        Long size = diskEntries.remove(url);
+        if (size != null) {
+            diskBytes -= size;
+            appendIndex(REMOVED + url);
+        }
+        deleteFile(url);
+    }
+
+    private void deleteFile(String url) {
+        File file = new File(imageStore, url);
+        if (file.isFile() && !file.delete()) {
+            LOGGER.debug("failed to delete file: {}", url);
+        }
+    }
+
+    /**
+     * @return the key of the variant of the image, which is decoded to fit into <code>width</code> x <code>height</code>
+     */
+    static String variantKey(String url, double width, double height) {
+        if (width <= 0 && height <= 0) {
+            return url;
+        }
+        return url + VARIANT_SEPARATOR + (int) Math.ceil(width) + "x" + (int) Math.ceil(height);
+    }
+
+    private static long decodedSize(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * BYTES_PER_PIXEL;
+    }
+
+    /**
+     * Replays the index, one change per line, the least recently used image first:
+     * <ul>
+     * <li><code>size url</code>: the image was added or used</li>
+     * <li><code>- url</code>: the image was removed</li>
+     * <li><code>p size url</code>: the part of a download was added</li>
+     * <li><code>-p url</code>: the part was completed or removed</li>
+     * </ul>
+     */
+    private void loadIndex() {
+        if (!indexFile.exists()) {
+            scanImageStore();
+            evictDisk();
+            writeIndex();
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), ENCODING))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                readIndexLine(line);
+                indexLines++;
+            }
+
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.error("failed to read image index, rebuilding it: {}", indexFile, e);
+            diskEntries.clear();
+            partEntries.clear();
+            diskBytes = 0;
+            partBytes = 0;
+            scanImageStore();
+            writeIndex();
+            return;
+        }
+
+        if (!partEntries.isEmpty()) {
+            expireParts();
+            writeIndex();
+        }
+    }
+
+    private void readIndexLine(String line) {
+        if (line.startsWith(PART_REMOVED)) {
+            Long size = partEntries.remove(line.substring(PART_REMOVED.length()));
+            if (size != null) {
+                partBytes -= size;
+            }
+            return;
+        }
+        if (line.startsWith(REMOVED)) {
+            Long size = diskEntries.remove(line.substring(REMOVED.length()));
+            if (size != null) {
+                diskBytes -= size;
+            }
+            return;
+        }
+
+        boolean part = line.startsWith(PART);
+        String entry = part ? line.substring(PART.length()) : line;
+        int separator = entry.indexOf(' ');
+        if (separator < 1) {
+            // e.g. the last line, which was cut off by a crash
+            return;
+        }
+        long size = Long.parseLong(entry.substring(0, separator));
+        String url = entry.substring(separator + 1);
+
+        if (part) {
+            Long previousSize = partEntries.put(url, size);
+            partBytes += size - (previousSize == null ? 0 : previousSize);
+        } else {
+            Long previousSize = diskEntries.put(url, size);
+            diskBytes += size - (previousSize == null ? 0 : previousSize);
+        }
+    }
+
+    /**
+     * Updates the sizes of the parts, which the last run of the app left, and deletes the parts, which haven't been resumed
+     * for {@link #MAX_PART_AGE}
+     */
+    private void expireParts() {
+        long now = System.currentTimeMillis();
+        partBytes = 0;
+
+        for (Iterator<Entry<String, Long>> it = partEntries.entrySet().iterator(); it.hasNext();) {
+            Entry<String, Long> entry = it.next();
+            PartFile partFile = new PartFile(new File(imageStore, entry.getKey()));
+            File file = partFile.getFile();
+
+            if (!file.isFile() || now - file.lastModified() > MAX_PART_AGE) {
+                partFile.delete();
+                it.remove();
+                LOGGER.debug("part expired: {}", entry.getKey());
+            } else {
+                entry.setValue(file.length());
+                partBytes += file.length();
+            }
+        }
+    }
+
+    private void scanImageStore() {
+        Deque<File> dirs = new ArrayDeque<>();
+        dirs.add(imageStore);
+
+        String rootPath = imageStore.getAbsolutePath() + File.separator;
+        while (!dirs.isEmpty()) {
+            File[] files = dirs.poll().listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                String name = file.getName();
+                if (file.isDirectory()) {
+                    dirs.add(file);
+
+                } else if (!file.equals(indexFile) && !name.endsWith(TEMP_SUFFIX) && !name.endsWith(PartFile.VERSION_SUFFIX)) {
+                    String url = file.getAbsolutePath().substring(rootPath.length()).replace(File.separatorChar, '/');
+                    if (name.endsWith(PartFile.PART_SUFFIX)) {
+                        partEntries.put(url.substring(0, url.length() - PartFile.PART_SUFFIX.length()), file.length());
+                        partBytes += file.length();
+                    } else {
+                        diskEntries.put(url, file.length());
+                        diskBytes += file.length();
+                    }
+                }
+            }
+        }
+        LOGGER.debug("scanned imageStore: {} images, {} parts", diskEntries.size(), partEntries.size());
+    }
+
+    /**
+     * Appends a change to the index. If most lines of the index are outdated, the index is rewritten instead.
+     */
+    private void appendIndex(String line) {
+        if (indexLines >= MIN_COMPACT_LINES && indexLines >= 2 * (diskEntries.size() + partEntries.size())) {
+            writeIndex();
+            return;
+        }
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(indexFile, true), ENCODING)) {
+            writer.write(line + "\n");
+            indexLines++;
+
+        } catch (IOException e) {
+            LOGGER.error("failed to append to image index: {}", indexFile, e);
+            writeIndex();
+        }
+    }
+
+    /**
+     * Writes the index to a temp file, which then replaces the index
+     */
+    private void writeIndex() {
+        imageStore.mkdirs();
+        File tempFile = new File(imageStore, INDEX_FILE + TEMP_SUFFIX);
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tempFile), ENCODING))) {
+            for (Map.Entry<String, Long> entry : partEntries.entrySet()) {
+                writer.write(PART + entry.getValue() + " " + entry.getKey() + "\n");
+            }
+            for (Map.Entry<String, Long> entry : diskEntries.entrySet()) {
+                writer.write(entry.getValue() + " " + entry.getKey() + "\n");
+            }
+
+        } catch (IOException e) {
+            LOGGER.error("failed to write image index: {}", indexFile, e);
+            return;
+        }
+
+        if (!tempFile.renameTo(indexFile) && !(indexFile.delete() && tempFile.renameTo(indexFile))) {
+            LOGGER.error("failed to replace image index: {}", indexFile);
+            return;
+        }
+        indexLines = partEntries.size() + diskEntries.size();
+    }
+
+}
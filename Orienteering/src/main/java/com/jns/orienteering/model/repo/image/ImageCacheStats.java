@@ -0,0 +1,108 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo.image;
+
+/**
+ * Snapshot of the counters of the image cache
+ */
+public final class ImageCacheStats {
+
+    private final long memoryHits;
+    private final long diskHits;
+    private final long misses;
+    private final long memoryEvictions;
+    private final long diskEvictions;
+    private final int  memoryCount;
+    private final long memoryBytes;
+    private final int  diskCount;
+    private final long diskBytes;
+
+    ImageCacheStats(long memoryHits, long diskHits, long misses, long memoryEvictions, long diskEvictions, int memoryCount,
+                    long memoryBytes, int diskCount, long diskBytes) {
+        this.memoryHits = memoryHits;
+        this.diskHits = diskHits;
+        this.misses = misses;
+        this.memoryEvictions = memoryEvictions;
+        this.diskEvictions = diskEvictions;
+        this.memoryCount = memoryCount;
+        this.memoryBytes = memoryBytes;
+        this.diskCount = diskCount;
+        this.diskBytes = diskBytes;
+    }
+
+    public long getMemoryHits() {
+        return memoryHits;
+    }
+
+    public long getDiskHits() {
+        return diskHits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getMemoryEvictions() {
+        return memoryEvictions;
+    }
+
+    public long getDiskEvictions() {
+        return diskEvictions;
+    }
+
+    public int getMemoryCount() {
+        return memoryCount;
+    }
+
+    /**
+     * @return the decoded size of the images in memory
+     */
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public int getDiskCount() {
+        return diskCount;
+    }
+
+    /**
+     * @return the size of the images and of the parts of incomplete downloads on disk
+     */
+    public long getDiskBytes() {
+        return diskBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ImageCacheStats [memoryHits=" + memoryHits + ", diskHits=" + diskHits + ", misses=" + misses + ", memoryEvictions="
+                + memoryEvictions + ", diskEvictions=" + diskEvictions + ", memoryCount=" + memoryCount + ", memoryBytes=" + memoryBytes
+                + ", diskCount=" + diskCount + ", diskBytes=" + diskBytes + "]";
+    }
+
+}
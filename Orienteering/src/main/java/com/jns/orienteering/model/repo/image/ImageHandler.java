@@ -55,27 +55,33 @@
  */
 package com.jns.orienteering.model.repo.image;
 
+import static com.jns.orienteering.model.common.GluonObservables.setException;
 import static com.jns.orienteering.model.common.GluonObservables.setInitialized;
 import static com.jns.orienteering.util.Validations.isNullOrEmpty;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.gluonhq.charm.down.Services;
-import com.gluonhq.charm.down.plugins.Cache;
-import com.gluonhq.charm.down.plugins.CacheService;
 import com.gluonhq.connect.GluonObservableObject;
-import com.google.cloud.storage.StorageException;
+import com.jns.orienteering.model.common.Lane;
+import com.jns.orienteering.model.common.Scheduler;
 import com.jns.orienteering.model.persisted.ChangeLogEntry;
 import com.jns.orienteering.platform.PlatformProvider;
 
+import javafx.application.Platform;
 import javafx.collections.ObservableList;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -111,16 +117,19 @@ public class ImageHandler {
     public static final Image            AVATAR_PLACE_HOLDER = new Image("/images/WikiFont_uniE600_-_userAvatar_-_blue.svg.png");
     public static final Image            IMAGE_PLACE_HOLDER  = new Image("/images/army_texture2.jpg");
 
-    private static final FireBaseStorage STORAGE             = FireBaseStorage.INSTANCE;
-    private static final ImageCache      IMAGE_CACHE         = new ImageCache();
+    /** system property, which replaces the cloud storage with a {@link LocalImageStorage} */
+    public static final String           LOCAL_STORAGE       = "orienteering.localImageStorage";
 
-    private static final ExecutorService EXECUTOR            = Executors.newFixedThreadPool(4, runnable ->
-                                                             {
-                                                                 Thread thread = Executors.defaultThreadFactory().newThread(runnable);
-                                                                 thread.setName("ImageHandlerThread");
-                                                                 thread.setDaemon(true);
-                                                                 return thread;
-                                                             });
+    private static final String          IMAGES_DIR          = "images";
+    private static final String          LOCAL_STORAGE_DIR   = "image_storage";
+    private static final ImageStorage    STORAGE             = createStorage();
+    private static final ImageCache      IMAGE_CACHE         = new ImageCache(PlatformProvider.getPlatformService().getStorage().getPrivateFile(IMAGES_DIR));
+
+    private static final String                                           LOAD_REQUEST_KEY    = "imageHandler.loadRequest";
+    private static final ConcurrentMap<String, FutureTask<StorableImage>> IN_FLIGHT_DOWNLOADS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, FutureTask<Image>>         IN_FLIGHT_DECODES   = new ConcurrentHashMap<>();
+    private static final Set<String>                                      MISSING_THUMBNAILS  = ConcurrentHashMap.newKeySet();
+    private static final ImageUploadPipeline                              UPLOAD_PIPELINE     = new ImageUploadPipeline();
 
     private ImageHandler() {
     }
@@ -129,17 +138,43 @@ public class ImageHandler {
         return executeAsync(storableImage, ImageHandler::storeImage);
     }
 
+    /**
+     * Uploads the image, compressed by the {@link ImageUploadPipeline}, and its thumbnail. If the image can't be compressed,
+     * the original is uploaded without thumbnail.
+     */
     public static boolean storeImage(StorableImage storableImage) {
-        IMAGE_CACHE.add(storableImage);
-
         String targetUrl = storableImage.getTargetUrl();
+        String thumbnailUrl = ImageUploadPipeline.thumbnailUrl(targetUrl);
+
+        byte[] content = storableImage.getContent();
+        byte[] thumbnail = null;
         try {
-            STORAGE.create(storableImage.getContent(), targetUrl);
+            content = UPLOAD_PIPELINE.compress(content);
+            thumbnail = UPLOAD_PIPELINE.createThumbnail(content);
+
+        } catch (IOException e) {
+            LOGGER.error("Failed to compress image, uploading the original: {}", targetUrl, e);
+        }
 
-        } catch (StorageException e) {
+        IMAGE_CACHE.add(new StorableImage(content, targetUrl));
+        try {
+            File cachedFile = IMAGE_CACHE.getCachedFile(targetUrl);
+            if (cachedFile != null) {
+                STORAGE.upload(cachedFile, targetUrl);
+            } else {
+                STORAGE.create(content, targetUrl);
+            }
+
+            if (thumbnail != null) {
+                STORAGE.create(thumbnail, thumbnailUrl);
+                IMAGE_CACHE.add(new StorableImage(thumbnail, thumbnailUrl));
+            }
+
+        } catch (IOException | RuntimeException e) {
             LOGGER.error("Failed to upload image: {}", targetUrl, e);
             IMAGE_CACHE.remove(targetUrl);
-            throw e;
+            IMAGE_CACHE.remove(thumbnailUrl);
+            throw e instanceof RuntimeException ? (RuntimeException) e : new IllegalStateException("Failed to upload image: " + targetUrl, e);
         }
         return true;
     }
@@ -163,19 +198,15 @@ public class ImageHandler {
             return obsImage;
         }
 
-        EXECUTOR.execute(() ->
+        // the interactive lane discards the oldest task, if it's full; the observable fails then, so its receiver doesn't wait forever
+        Scheduler.submit(Lane.INTERACTIVE, () ->
         {
-            Image localImage = IMAGE_CACHE.getImage(url);
-            if (localImage != null) {
-                setInitialized(obsImage, localImage, true);
-
-            } else {
-                StorableImage cloudImage = retrieveImageFromCloud(url);
-                setInitialized(obsImage, cloudImage.get(), true);
-
-                IMAGE_CACHE.add(cloudImage);
+            try {
+                setInitialized(obsImage, loadImage(url, 0, 0), true);
+            } catch (RuntimeException ex) {
+                setException(obsImage, ex);
             }
-        });
+        }, () -> setException(obsImage, new CancellationException("Discarded loading image: " + url)));
         return obsImage;
     }
 
@@ -184,13 +215,7 @@ public class ImageHandler {
             return new StorableImage(placeHolder);
         }
 
-        Image localImage = IMAGE_CACHE.getImage(url);
-        if (localImage != null) {
-            return new StorableImage(localImage, url);
-        }
-        StorableImage storableImage = retrieveImageFromCloud(url);
-        EXECUTOR.execute(() -> IMAGE_CACHE.add(storableImage));
-        return storableImage;
+        return new StorableImage(loadImage(url, 0, 0), url);
     }
 
     public static StorableImage retrieveImageFromCloud(String url) {
@@ -210,8 +235,13 @@ public class ImageHandler {
     }
 
     public static void deleteImage(String url) {
+        String thumbnailUrl = ImageUploadPipeline.thumbnailUrl(url);
         IMAGE_CACHE.remove(url);
+        IMAGE_CACHE.remove(thumbnailUrl);
 
+        if (!STORAGE.delete(thumbnailUrl)) {
+            LOGGER.debug("no thumbnail deleted: {}", thumbnailUrl);
+        }
         boolean deleted = STORAGE.delete(url);
         if (deleted) {
             LOGGER.debug("image deleted: {}", url);
@@ -221,23 +251,22 @@ public class ImageHandler {
     }
 
     public static void cacheImageAsync(String targetUrl) {
-        EXECUTOR.execute(() ->
-        {
-            Image localImage = IMAGE_CACHE.getImage(targetUrl);
-            if (localImage == null) {
-                IMAGE_CACHE.add(retrieveImageFromCloud(targetUrl));
-            }
-        });
+        if (isNullOrEmpty(targetUrl)) {
+            return;
+        }
+        Scheduler.execute(Lane.PREFETCH, () -> downloadImage(targetUrl));
     }
 
     public static void removeFromCacheAsync(ObservableList<ChangeLogEntry> changeLog) {
         if (isNullOrEmpty(changeLog)) {
             return;
         }
-        EXECUTOR.execute(() ->
+        Scheduler.execute(Lane.SYNC, () ->
         {
             for (ChangeLogEntry logEntry : changeLog) {
-                IMAGE_CACHE.remove("tasks/" + logEntry.getTargetId() + ".jpg");
+                String url = "tasks/" + logEntry.getTargetId() + ".jpg";
+                IMAGE_CACHE.remove(url);
+                IMAGE_CACHE.remove(ImageUploadPipeline.thumbnailUrl(url));
             }
         });
     }
@@ -246,142 +275,223 @@ public class ImageHandler {
         loadInto(imageView, url, showDefaultPlaceHolder ? IMAGE_PLACE_HOLDER : null);
     }
 
+    public static void loadInto(ImageView imageView, String url, boolean showDefaultPlaceHolder, double width, double height) {
+        loadInto(imageView, url, showDefaultPlaceHolder ? IMAGE_PLACE_HOLDER : null, width, height);
+    }
+
+    /**
+     * Loads the image asynchronously into <code>imageView</code>. A load, which is still pending for <code>imageView</code>
+     * (e.g. of a recycled cell), is cancelled: if it hasn't started yet, it's removed from the queue, otherwise its result
+     * isn't set.
+     * <p>
+     * Must be called on the JavaFX application thread.
+     */
     public static void loadInto(ImageView imageView, String url, Image placeHolder) {
+        loadInto(imageView, url, placeHolder, 0, 0);
+    }
+
+    /**
+     * Loads the image asynchronously into <code>imageView</code>, decoded to fit into <code>width</code> x
+     * <code>height</code>. The decoded size is cached per url and size.
+     *
+     * @param width
+     *            the requested width, or 0 for the original size
+     * @param height
+     *            the requested height, or 0 for the original size
+     */
+    public static void loadInto(ImageView imageView, String url, Image placeHolder, double width, double height) {
+        cancelLoad(imageView);
+
         if (isNullOrEmpty(url)) {
             imageView.setImage(placeHolder);
             return;
         }
 
-        EXECUTOR.execute(() ->
-        {
-            Image localImage = IMAGE_CACHE.getImage(url);
-            if (localImage != null) {
-                imageView.setImage(localImage);
+        LoadRequest request = new LoadRequest();
+        imageView.getProperties().put(LOAD_REQUEST_KEY, request);
 
-            } else {
-                StorableImage cloudImage = retrieveImageFromCloud(url);
-                imageView.setImage(cloudImage.get());
-                IMAGE_CACHE.add(cloudImage);
-            }
+        request.future = Scheduler.submit(Lane.INTERACTIVE, () ->
+        {
+            Image image = loadImage(url, width, height);
+            Platform.runLater(() ->
+            {
+                if (imageView.getProperties().get(LOAD_REQUEST_KEY) == request) {
+                    imageView.getProperties().remove(LOAD_REQUEST_KEY);
+                    imageView.setImage(image);
+                }
+            });
+            return null;
         });
     }
 
-    // todo: cleanUp images which have not been used for a while
-
-    private static GluonObservableObject<Image> executeAsync(StorableImage image, Consumer<StorableImage> action) {
-        GluonObservableObject<Image> obsImage = new GluonObservableObject<>();
+    /**
+     * Cancels the pending load of <code>imageView</code>
+     */
+    public static void cancelLoad(ImageView imageView) {
+        LoadRequest request = (LoadRequest) imageView.getProperties().remove(LOAD_REQUEST_KEY);
+        if (request != null) {
+            request.future.cancel(false);
+        }
+    }
 
-        EXECUTOR.execute(() ->
-        {
-            try {
-                action.accept(image);
-                setInitialized(obsImage, image.get(), true);
-            } catch (StorageException ex) {
-                obsImage.setException(ex);
+    /**
+     * Returns the image, decoded to fit into <code>width</code> x <code>height</code>, from the cache or downloads and decodes
+     * it on the calling thread. Small sizes are loaded from the thumbnail of the image.
+     */
+    private static Image loadImage(String url, double width, double height) {
+        if (isThumbnailSize(width, height) && !MISSING_THUMBNAILS.contains(url)) {
+            Image thumbnail = loadVariant(ImageUploadPipeline.thumbnailUrl(url), width, height);
+            if (thumbnail != null) {
+                return thumbnail;
             }
-        });
-        return obsImage;
+            // images, which were uploaded before thumbnails existed
+            MISSING_THUMBNAILS.add(url);
+        }
+        return loadVariant(url, width, height);
     }
 
-    // public static void shutdownExecutor() {
-    // if (executor != null) {
-    // executor.shutdown();
-    // LOGGER.debug("shutting down executor");
-    // }
-    // }
+    private static boolean isThumbnailSize(double width, double height) {
+        return (width > 0 || height > 0) && Math.max(width, height) <= UPLOAD_PIPELINE.getThumbnailDimension();
+    }
 
-    private static class ImageCache {
+    /**
+     * Returns the image, decoded to fit into <code>width</code> x <code>height</code>, from the cache or downloads and decodes
+     * it. Concurrent calls for the same url and size share one decoded image.
+     */
+    private static Image loadVariant(String url, double width, double height) {
+        Image cachedImage = IMAGE_CACHE.getImage(url, width, height);
+        if (cachedImage != null) {
+            return cachedImage;
+        }
+        return runShared(IN_FLIGHT_DECODES, ImageCache.variantKey(url, width, height), () -> decodeVariant(url, width, height), null);
+    }
 
-        private static final String  IMAGES_DIR = "images";
-        private final File           imageStore;
+    private static Image decodeVariant(String url, double width, double height) {
+        // the variant may have been cached by a decode, which completed after the cache lookup of the caller
+        Image cachedImage = IMAGE_CACHE.getImage(url, width, height);
+        if (cachedImage != null) {
+            return cachedImage;
+        }
 
-        private Cache<String, Image> cache;
+        Image image = downloadImage(url).decode(width, height);
+        if (image != null) {
+            IMAGE_CACHE.putImage(url, width, height, image);
+        }
+        return image;
+    }
 
-        private ImageCache() {
-            imageStore = PlatformProvider.getPlatformService().getStorage().getPrivateFile(IMAGES_DIR);
-            cache = Services.get(CacheService.class).orElseThrow(() -> new IllegalStateException("Failed to get CacheService")).getCache(
-                                                                                                                                         "image_cache");
+    /**
+     * Returns the encoded image from the disk cache or downloads it. Concurrent calls for the same url share one download.
+     */
+    private static StorableImage downloadImage(String url) {
+        return runShared(IN_FLIGHT_DOWNLOADS, url, () -> retrieveAndCacheImage(url), StorableImage.emptyInstance());
+    }
 
-            LOGGER.debug("imageStore: {}", imageStore);
+    /**
+     * Runs <code>task</code> on the calling thread, unless a task of the same <code>key</code> is already running; then
+     * its result is awaited and shared.
+     *
+     * @return the result of the task, or <code>interruptedResult</code>, if the calling thread was interrupted while waiting
+     */
+    private static <V> V runShared(ConcurrentMap<String, FutureTask<V>> inFlightTasks, String key, Callable<V> task, V interruptedResult) {
+        FutureTask<V> newTask = new FutureTask<>(task);
+        FutureTask<V> inFlight = inFlightTasks.putIfAbsent(key, newTask);
+        if (inFlight == null) {
+            inFlight = newTask;
+            try {
+                newTask.run();
+            } finally {
+                inFlightTasks.remove(key, newTask);
+            }
         }
 
-        public boolean add(StorableImage storableImage) {
-            String targetUrl = storableImage.getTargetUrl();
+        try {
+            return inFlight.get();
 
-            if (storableImage.get() == null || isNullOrEmpty(targetUrl)) {
-                return false;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
             }
+            throw new IllegalStateException(ex.getCause());
 
-            File target = new File(imageStore, targetUrl);
-            if (target.exists()) {
-                LOGGER.debug("image already exists: {}", target);
-                return true;
-            }
-            target.getParentFile().mkdirs();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return interruptedResult;
+        }
+    }
 
-            try {
-                storeImageLocal(storableImage, target);
-                cache.put(targetUrl, storableImage.get());
+    /**
+     * Streams the image from the storage directly into the file of the disk cache
+     */
+    private static StorableImage retrieveAndCacheImage(String url) {
+        File cachedFile = IMAGE_CACHE.getCachedFile(url);
+        if (cachedFile != null) {
+            return new StorableImage(cachedFile, url);
+        }
 
-                LOGGER.debug("image cached: {}", targetUrl);
-            } catch (IOException e) {
-                LOGGER.error("failed to cache image: {}", targetUrl, e);
-                return false;
+        File target = IMAGE_CACHE.beginDownload(url);
+        boolean downloaded = false;
+        try {
+            downloaded = STORAGE.download(url, target);
+
+        } catch (IOException e) {
+            LOGGER.error("Failed to download image: {}", url, e);
+        } finally {
+            if (!downloaded) {
+                IMAGE_CACHE.abortDownload(url);
             }
-            return true;
         }
+        return downloaded && IMAGE_CACHE.addFile(url) ? new StorableImage(target, url) : StorableImage.emptyInstance();
+    }
 
-        public Image getImage(String url) {
-            if (isNullOrEmpty(url)) {
-                return null;
-            }
+    private static ImageStorage createStorage() {
+        if (Boolean.getBoolean(LOCAL_STORAGE)) {
+            return new LocalImageStorage(PlatformProvider.getPlatformService().getStorage().getPrivateFile(LOCAL_STORAGE_DIR));
+        }
+        return FireBaseStorage.INSTANCE;
+    }
 
-            Image cachedImage = cache.get(url);
-            if (cachedImage == null) {
-                LOGGER.debug("image not found in cache: {}", url);
+    /**
+     * @return the storage of the images, which also keeps other uploaded files, e.g. the recorded tracks
+     */
+    public static ImageStorage getStorage() {
+        return STORAGE;
+    }
 
-                Image storedImage = loadLocalImage(url);
-                if (storedImage == null) {
-                    LOGGER.debug("image not found on disk: {}", url);
+    public static ImageCacheStats getCacheStats() {
+        return IMAGE_CACHE.getStats();
+    }
 
-                } else {
-                    cache.put(url, storedImage);
-                    LOGGER.debug("image found on disk, and cached: {}", url);
-                    return storedImage;
-                }
-            }
-            return cachedImage;
-        }
+    private static GluonObservableObject<Image> executeAsync(StorableImage image, Consumer<StorableImage> action) {
+        GluonObservableObject<Image> obsImage = new GluonObservableObject<>();
 
-        public void remove(String url) {
-            if (isNullOrEmpty(url)) {
-                return;
-            }
-            cache.remove(url);
-
-            File storedFile = new File(imageStore, url);
-            if (storedFile.isFile()) {
-                boolean deleted = storedFile.delete();
-                if (deleted) {
-                    LOGGER.debug("image removed from disk and cache: {}", url);
-                } else {
-                    LOGGER.debug("failed to delete file: {}", url);
+        try {
+            Scheduler.submit(Lane.WRITE, () ->
+            {
+                try {
+                    action.accept(image);
+                    setInitialized(obsImage, image.get(), true);
+                } catch (RuntimeException ex) {
+                    obsImage.setException(ex);
                 }
-            } else {
-                LOGGER.info("failed to delete file: {} (file does not exist, or is not a file)", url);
-            }
-        }
+            });
 
-        private void storeImageLocal(StorableImage storableImage, File target) throws IOException {
-            try (FileOutputStream outputStream = new FileOutputStream(target)) {
-                outputStream.write(storableImage.getContent());
-            }
+        } catch (RejectedExecutionException ex) {
+            obsImage.setException(ex);
         }
+        return obsImage;
+    }
 
-        private Image loadLocalImage(String url) {
-            File file = new File(imageStore, url);
-            return file.exists() ? new Image(file.toURI().toString()) : null;
-        }
+    // public static void shutdownExecutor() {
+    // if (executor != null) {
+    // executor.shutdown();
+    // LOGGER.debug("shutting down executor");
+    // }
+    // }
+
+    private static class LoadRequest {
 
+        private Future<?> future;
     }
+
 }
@@ -48,6 +48,10 @@ public enum ImageType {
         return format;
     }
 
+    public static boolean isImage(String url) {
+        return url.endsWith(".png") || url.endsWith(".jpg") || url.endsWith(".jpeg");
+    }
+
     public static ImageType fromUrl(String url) {
         if (url.endsWith(".png")) {
             return PNG;
@@ -0,0 +1,116 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo.image;
+
+import java.io.IOException;
+
+import com.jns.orienteering.platform.ImageEncoder;
+import com.jns.orienteering.platform.PlatformProvider;
+
+/**
+ * Prepares images for the upload: the image is re-encoded as jpeg with a max dimension and quality, which also strips its
+ * metadata, and a small thumbnail is created, which is stored beside the image (see {@link #thumbnailUrl(String)}).
+ */
+public class ImageUploadPipeline {
+
+    public static final int     DEFAULT_MAX_DIMENSION       = 1280;
+    public static final float   DEFAULT_QUALITY             = 0.8f;
+    public static final int     DEFAULT_THUMBNAIL_DIMENSION = 256;
+    public static final float   DEFAULT_THUMBNAIL_QUALITY   = 0.7f;
+
+    private static final String THUMBNAIL_SUFFIX            = "_thumb";
+
+    private final ImageEncoder  encoder;
+
+    private int                 maxDimension                = DEFAULT_MAX_DIMENSION;
+    private float               quality                     = DEFAULT_QUALITY;
+    private int                 thumbnailDimension          = DEFAULT_THUMBNAIL_DIMENSION;
+    private float               thumbnailQuality            = DEFAULT_THUMBNAIL_QUALITY;
+
+    public ImageUploadPipeline() {
+        this(PlatformProvider.getPlatformService().getImageEncoder());
+    }
+
+    public ImageUploadPipeline(ImageEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    public byte[] compress(byte[] content) throws IOException {
+        return encoder.encodeJpeg(content, maxDimension, quality);
+    }
+
+    public byte[] createThumbnail(byte[] content) throws IOException {
+        return encoder.encodeJpeg(content, thumbnailDimension, thumbnailQuality);
+    }
+
+    /**
+     * @return the url of the thumbnail of the image with <code>url</code>, e.g. <code>tasks/id_thumb.jpg</code> for
+     *         <code>tasks/id.jpg</code>
+     */
+    public static String thumbnailUrl(String url) {
+        int extensionIdx = url.lastIndexOf('.');
+        if (extensionIdx <= url.lastIndexOf('/')) {
+            return url + THUMBNAIL_SUFFIX;
+        }
+        return url.substring(0, extensionIdx) + THUMBNAIL_SUFFIX + url.substring(extensionIdx);
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public void setMaxDimension(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    public void setQuality(float quality) {
+        this.quality = quality;
+    }
+
+    public int getThumbnailDimension() {
+        return thumbnailDimension;
+    }
+
+    public void setThumbnailDimension(int thumbnailDimension) {
+        this.thumbnailDimension = thumbnailDimension;
+    }
+
+    public float getThumbnailQuality() {
+        return thumbnailQuality;
+    }
+
+    public void setThumbnailQuality(float thumbnailQuality) {
+        this.thumbnailQuality = thumbnailQuality;
+    }
+
+}
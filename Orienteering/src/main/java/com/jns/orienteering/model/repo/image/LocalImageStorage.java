@@ -0,0 +1,144 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo.image;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the images in a local directory instead of the cloud, e.g. to run the app offline. Transfers go through the same
+ * chunked, resumable code paths as {@link FireBaseStorage}.
+ */
+public class LocalImageStorage implements ImageStorage {
+
+    private static final Logger LOGGER     = LoggerFactory.getLogger(LocalImageStorage.class);
+
+    static final int            CHUNK_SIZE = 256 * 1024;
+
+    private final File          baseDir;
+
+    public LocalImageStorage(File baseDir) {
+        this.baseDir = baseDir;
+    }
+
+    @Override
+    public void create(byte[] content, String url) {
+        File target = new File(baseDir, url);
+        target.getParentFile().mkdirs();
+
+        try (FileOutputStream outputStream = new FileOutputStream(target)) {
+            outputStream.write(content);
+
+        } catch (IOException e) {
+            LOGGER.error("Failed to store image: {}", url, e);
+            throw new IllegalStateException("Failed to store image: " + url, e);
+        }
+    }
+
+    @Override
+    public boolean delete(String url) {
+        return new File(baseDir, url).delete();
+    }
+
+    @Override
+    public byte[] retrieve(String url) {
+        File source = new File(baseDir, url);
+        if (!source.isFile()) {
+            return new byte[0];
+        }
+
+        byte[] content = new byte[(int) source.length()];
+        try (FileInputStream inputStream = new FileInputStream(source)) {
+            int offset = 0;
+            int read;
+            while (offset < content.length && (read = inputStream.read(content, offset, content.length - offset)) >= 0) {
+                offset += read;
+            }
+            return content;
+
+        } catch (IOException e) {
+            LOGGER.error("Failed to read image: {}", url, e);
+            return new byte[0];
+        }
+    }
+
+    @Override
+    public void upload(File source, String url) throws IOException {
+        File target = new File(baseDir, url);
+        target.getParentFile().mkdirs();
+
+        copy(source, target);
+    }
+
+    @Override
+    public boolean download(String url, File target) throws IOException {
+        File source = new File(baseDir, url);
+        if (!source.isFile()) {
+            return false;
+        }
+        target.getParentFile().mkdirs();
+
+        copy(source, target);
+        return true;
+    }
+
+    /**
+     * Copies <code>source</code> chunk by chunk to <code>target.part</code>, starting at the size of an existing part of the
+     * same version of <code>source</code>, and renames the part to <code>target</code>, when it's complete
+     */
+    private static void copy(File source, File target) throws IOException {
+        PartFile partFile = new PartFile(target);
+
+        try (FileChannel input = new FileInputStream(source).getChannel();
+                FileChannel output = partFile.open(version(source), source.length())) {
+            long size = input.size();
+
+            while (output.size() < size) {
+                long position = output.size();
+                input.transferTo(position, Math.min(CHUNK_SIZE, size - position), output);
+            }
+            output.force(true);
+        }
+        partFile.complete();
+    }
+
+    /**
+     * A local file has no generation, so a change of its modification time or length counts as a new version
+     */
+    static String version(File source) {
+        return source.lastModified() + ":" + source.length();
+    }
+
+}
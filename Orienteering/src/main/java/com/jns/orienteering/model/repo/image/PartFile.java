@@ -0,0 +1,117 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo.image;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The incomplete part <code>target.part</code> of a transfer. The version of the source, e.g. the generation of a blob,
+ * is kept in <code>target.part.version</code>; a part of another version is discarded, so a resumed transfer never
+ * mixes the content of two versions.
+ */
+class PartFile {
+
+    static final String PART_SUFFIX    = ".part";
+    static final String VERSION_SUFFIX = ".version";
+
+    private final File  target;
+    private final File  partFile;
+    private final File  versionFile;
+
+    PartFile(File target) {
+        this.target = target;
+        partFile = new File(target.getPath() + PART_SUFFIX);
+        versionFile = new File(partFile.getPath() + VERSION_SUFFIX);
+    }
+
+    /**
+     * Opens the part for appending. A part of another <code>version</code>, or one which is larger than <code>size</code>,
+     * is discarded.
+     */
+    FileChannel open(String version, long size) throws IOException {
+        if (!version.equals(readVersion())) {
+            // the old part goes first: a crash in between must not leave the new version beside the old content
+            if (partFile.exists() && !partFile.delete()) {
+                throw new IOException("Failed to delete: " + partFile);
+            }
+            try (FileOutputStream outputStream = new FileOutputStream(versionFile)) {
+                outputStream.write(version.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        FileChannel output = new FileOutputStream(partFile, true).getChannel();
+        if (output.size() > size) {
+            output.truncate(0);
+        }
+        return output;
+    }
+
+    /**
+     * Renames the complete part to the target
+     */
+    void complete() throws IOException {
+        if (!partFile.renameTo(target) && !(target.delete() && partFile.renameTo(target))) {
+            throw new IOException("Failed to rename: " + partFile + " to: " + target);
+        }
+        versionFile.delete();
+    }
+
+    File getFile() {
+        return partFile;
+    }
+
+    /**
+     * Deletes the part and its version
+     */
+    void delete() {
+        partFile.delete();
+        versionFile.delete();
+    }
+
+    private String readVersion() throws IOException {
+        if (!versionFile.isFile()) {
+            return null;
+        }
+        byte[] content = new byte[(int) versionFile.length()];
+        try (FileInputStream inputStream = new FileInputStream(versionFile)) {
+            int offset = 0;
+            int read;
+            while (offset < content.length && (read = inputStream.read(content, offset, content.length - offset)) >= 0) {
+                offset += read;
+            }
+            return new String(content, 0, offset, StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -56,18 +56,26 @@
 package com.jns.orienteering.model.repo.image;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.channels.FileChannel;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javafx.scene.image.Image;
 
 public class StorableImage {
 
-    private Image           image;
-    private FileInputStream inputStream;
-    private byte[]          content;
-    private String          targetUrl;
+    private static final Logger LOGGER = LoggerFactory.getLogger(StorableImage.class);
+
+    private Image               image;
+    private FileInputStream     inputStream;
+    private byte[]              content;
+    private File                file;
+    private String              targetUrl;
 
     private StorableImage() {
     }
@@ -80,9 +88,20 @@ public class StorableImage {
         this(image, null);
     }
 
+    /**
+     * The image is decoded on the first call of {@link #get()}
+     */
     public StorableImage(byte[] content, String targetUrl) {
-        this(new Image(new ByteArrayInputStream(content)), targetUrl);
         this.content = content;
+        this.targetUrl = targetUrl;
+    }
+
+    /**
+     * The image is decoded from <code>file</code> on the first call of {@link #get()}
+     */
+    public StorableImage(File file, String targetUrl) {
+        this.file = file;
+        this.targetUrl = targetUrl;
     }
 
     public StorableImage(FileInputStream inputStream, Image image, String targetUrl) {
@@ -96,13 +115,50 @@ public class StorableImage {
         this.targetUrl = targetUrl;
     }
 
-    public Image get() {
+    public synchronized Image get() {
+        if (image == null && content != null && content.length > 0) {
+            image = new Image(new ByteArrayInputStream(content));
+        } else if (image == null && file != null) {
+            image = new Image(file.toURI().toString());
+        }
         return image;
     }
 
-    public byte[] getContent() {
+    public synchronized boolean isDecoded() {
+        return image != null;
+    }
+
+    /**
+     * Decodes the image, downsampled to fit into <code>width</code> x <code>height</code>
+     *
+     * @param width
+     *            the requested width, or 0 for the original size
+     * @param height
+     *            the requested height, or 0 for the original size
+     */
+    public Image decode(double width, double height) {
+        if (width <= 0 && height <= 0) {
+            return get();
+        }
+        if (content == null && file != null) {
+            return new Image(file.toURI().toString(), width, height, true, true);
+        }
+        byte[] encoded = getContent();
+        if (encoded == null || encoded.length == 0) {
+            return get();
+        }
+        return new Image(new ByteArrayInputStream(encoded), width, height, true, true);
+    }
+
+    public synchronized byte[] getContent() {
         if (content == null && inputStream != null) {
             content = getContent(inputStream);
+        } else if (content == null && file != null) {
+            try {
+                content = getContent(new FileInputStream(file));
+            } catch (FileNotFoundException e) {
+                LOGGER.error("Failed to read image: {}", file, e);
+            }
         }
         return content;
     }
@@ -119,13 +175,13 @@ public class StorableImage {
             return _content;
 
         } catch (IOException e) {
-            e.printStackTrace();
+            LOGGER.error("Failed to read image: {}", targetUrl, e);
         } finally {
             if (inputStream != null) {
                 try {
                     inputStream.close();
                 } catch (IOException e) {
-                    e.printStackTrace();
+                    LOGGER.error("Failed to close image stream: {}", targetUrl, e);
                 }
             }
         }
@@ -29,40 +29,85 @@
 package com.jns.orienteering.model.repo.readerwriter;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.gluonhq.connect.GluonObservableList;
-import com.gluonhq.connect.converter.InputStreamInputConverter;
 import com.gluonhq.connect.provider.ListDataReader;
 import com.gluonhq.connect.provider.RestClient;
+import com.jns.orienteering.model.common.Lane;
+import com.jns.orienteering.model.common.Scheduler;
+import com.jns.orienteering.model.repo.RequestMetrics;
+import com.jns.orienteering.model.repo.RequestMetrics.Trace;
 
+/**
+ * Reads the keys of a lookup from the source url and resolves every key to an object of the target url.
+ * <p>
+ * Up to <code>concurrency</code> target objects are fetched in parallel, each with its own {@link RestClient}. The objects are
+ * returned in the order of the keys. Keys which could not be resolved are skipped, collected by {@link #getFailures()} and
+ * passed to the failure handler at the end of the iteration, so the caller can report the incomplete result.
+ */
 public abstract class AbstractRestObjectsReader<T, E> implements ListDataReader<E>, Iterator<E> {
 
-    private static final Logger            LOGGER      = LoggerFactory.getLogger(AbstractRestObjectsReader.class);
+    private static final Logger                LOGGER              = LoggerFactory.getLogger(AbstractRestObjectsReader.class);
+
+    protected static final String              JSON_SUFFIX         = ".json";
 
-    protected static final String          JSON_SUFFIX = ".json";
+    public static final int                    DEFAULT_CONCURRENCY = 4;
 
-    protected RestClient                   client;
-    private RestClient                     targetClient;
-    protected Class<T>                     sourceClass;
-    protected Class<E>                     targetClass;
-    protected String                       targetUrl;
+    protected RestClient                       client;
+    private Supplier<RestClient>               targetClientFactory;
+    protected Class<T>                         sourceClass;
+    protected Class<E>                         targetClass;
+    protected String                           targetUrl;
+    private String                             fallbackUrl;
+    private Consumer<E>                        targetReadHandler;
+    private String                             sourceEndpoint;
 
-    protected InputStreamInputConverter<E> converter;
-    protected Iterator<String>             keysIterator;
+    protected Iterator<String>                 keysIterator;
 
-    public AbstractRestObjectsReader(RestClient sourceClient, RestClient targetClient, Class<T> sourceClass, String sourceUrl, Class<E> targetClass,
+    private int                                concurrency         = DEFAULT_CONCURRENCY;
+    private Lane                               lane                = Lane.LIST;
+    private final Deque<PendingFetch>          pendingFetches      = new ArrayDeque<>();
+    private E                                  nextResult;
+    private final Map<String, IOException>     failures            = new LinkedHashMap<>();
+    private Consumer<Map<String, IOException>> failureHandler;
+
+    /**
+     * @param clientFactory
+     *            creates the client for the source and a new client for every target object
+     */
+    public AbstractRestObjectsReader(Supplier<RestClient> clientFactory, Class<T> sourceClass, String sourceUrl, Class<E> targetClass,
                                      String targetUrl) {
-        this(sourceClient, sourceClass, sourceUrl, targetClass, targetUrl);
-        this.targetClient = targetClient;
+        this(clientFactory.get(), clientFactory, sourceClass, sourceUrl, targetClass, targetUrl);
     }
 
-    public AbstractRestObjectsReader(RestClient client, Class<T> sourceClass, String sourceUrl, Class<E> targetClass, String targetUrl) {
-        this.client = client;
+    /**
+     * @param sourceClient
+     *            the client for the source, e.g. with query parameters
+     * @param targetClientFactory
+     *            creates a new client for every target object
+     */
+    public AbstractRestObjectsReader(RestClient sourceClient, Supplier<RestClient> targetClientFactory, Class<T> sourceClass, String sourceUrl,
+                                     Class<E> targetClass, String targetUrl) {
+        this.client = sourceClient;
+        this.targetClientFactory = targetClientFactory;
         this.sourceClass = sourceClass;
         this.targetClass = targetClass;
 
@@ -71,13 +116,75 @@ public abstract class AbstractRestObjectsReader<T, E> implements ListDataReader<
         } else {
             client.path(sourceUrl + JSON_SUFFIX);
         }
-        if (!targetUrl.endsWith("/")) {
-            this.targetUrl = targetUrl + "/";
-        } else {
-            this.targetUrl = targetUrl;
+        sourceEndpoint = RequestMetrics.endpointOf(sourceUrl);
+        this.targetUrl = toDirectoryUrl(targetUrl);
+    }
+
+    /**
+     * For readers, which know their keys in advance and don't read them from a source url
+     *
+     * @param targetClientFactory
+     *            creates a new client for every target object
+     */
+    protected AbstractRestObjectsReader(Supplier<RestClient> targetClientFactory, Class<E> targetClass, String targetUrl) {
+        this.targetClientFactory = targetClientFactory;
+        this.targetClass = targetClass;
+        this.targetUrl = toDirectoryUrl(targetUrl);
+    }
+
+    private static String toDirectoryUrl(String url) {
+        return url.endsWith("/") ? url : url + "/";
+    }
+
+    /**
+     * Sets the url, from which a key is resolved, if no object exists for it at the target url, e.g. the full entities for keys
+     * without a summary
+     */
+    public void setFallbackUrl(String fallbackUrl) {
+        this.fallbackUrl = fallbackUrl == null ? null : toDirectoryUrl(fallbackUrl);
+    }
+
+    /**
+     * Sets a handler, which is called for every object read from the target url, but not for objects read from the fallback url
+     */
+    public void setTargetReadHandler(Consumer<E> targetReadHandler) {
+        this.targetReadHandler = targetReadHandler;
+    }
+
+    /**
+     * Sets the max number of target objects, which are fetched in parallel. A value of 1 fetches the objects sequentially on the
+     * calling thread.
+     */
+    public void setConcurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency must be at least 1");
         }
+        this.concurrency = concurrency;
+    }
 
-        converter = new JsonInputConverterExtended<>(targetClass);
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Sets the lane of the {@link Scheduler}, which fetches the target objects in parallel
+     */
+    public void setLane(Lane lane) {
+        this.lane = lane;
+    }
+
+    /**
+     * Sets a handler, which is called once on the reading thread at the end of the iteration, if keys could not be resolved
+     */
+    public void setFailureHandler(Consumer<Map<String, IOException>> failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * @return the keys, which could not be resolved to a target object, mapped to the cause
+     */
+    public Map<String, IOException> getFailures() {
+        return Collections.unmodifiableMap(failures);
     }
 
     @Override
@@ -87,7 +194,21 @@ public abstract class AbstractRestObjectsReader<T, E> implements ListDataReader<
 
     @Override
     public Iterator<E> iterator() throws IOException {
-        initKeysIterator(client);
+        if (sourceEndpoint == null) {
+            initKeysIterator(client);
+            return this;
+        }
+
+        Trace trace = RequestMetrics.begin(sourceEndpoint);
+        try {
+            initKeysIterator(client);
+
+        } catch (IOException | RuntimeException ex) {
+            trace.fail();
+            throw ex;
+        } finally {
+            trace.end();
+        }
         return this;
     }
 
@@ -95,28 +216,132 @@ public abstract class AbstractRestObjectsReader<T, E> implements ListDataReader<
 
     @Override
     public boolean hasNext() {
-        return keysIterator.hasNext();
+        while (nextResult == null) {
+            fillPendingFetches();
+
+            PendingFetch fetch = pendingFetches.poll();
+            if (fetch == null) {
+                onIterationEnd();
+                return false;
+            }
+            nextResult = fetch.await();
+        }
+        return true;
     }
 
     @Override
     public E next() {
-        String url = targetUrl + keysIterator.next() + JSON_SUFFIX;
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        E result = nextResult;
+        nextResult = null;
+        return result;
+    }
 
-        InputStream inputStream;
-        try {
-            if (targetClient == null) {
-                client.path(url);
-                inputStream = client.createRestDataSource().getInputStream();
-            } else {
-                targetClient.path(url);
-                inputStream = targetClient.createRestDataSource().getInputStream();
+    private void onIterationEnd() {
+        if (!failures.isEmpty() && failureHandler != null) {
+            Consumer<Map<String, IOException>> handler = failureHandler;
+            failureHandler = null;
+            handler.accept(getFailures());
+        }
+    }
+
+    private void fillPendingFetches() {
+        while (pendingFetches.size() < concurrency && keysIterator.hasNext()) {
+            String key = keysIterator.next();
+
+            Future<E> future = null;
+            if (concurrency > 1) {
+                try {
+                    future = Scheduler.submit(lane, () -> fetch(key));
+
+                } catch (RejectedExecutionException ex) {
+                    // the lane is full, the reader doesn't run on the FX thread, so the key is fetched on the calling thread
+                }
+            }
+            if (future == null) {
+                FutureTask<E> task = new FutureTask<>(() -> fetch(key));
+                task.run();
+                future = task;
+            }
+            pendingFetches.add(new PendingFetch(key, future));
+        }
+    }
+
+    private E fetch(String key) throws IOException {
+        E result = fetch(targetUrl, key);
+        if (result != null) {
+            if (targetReadHandler != null) {
+                targetReadHandler.accept(result);
             }
-            converter.setInputStream(inputStream);
+            return result;
+        }
+        if (fallbackUrl != null) {
+            result = fetch(fallbackUrl, key);
+        }
+        if (result == null) {
+            throw new IOException("No object found: '" + targetUrl + key + JSON_SUFFIX + "'");
+        }
+        return result;
+    }
+
+    private E fetch(String baseUrl, String key) throws IOException {
+        RestClient targetClient = targetClientFactory.get();
+        targetClient.path(baseUrl + key + JSON_SUFFIX);
 
-        } catch (IOException e) {
-            LOGGER.error("Failed to retrieve: '{}'", url, e);
+        Trace trace = RequestMetrics.begin(RequestMetrics.endpointOf(baseUrl));
+        try {
+            JsonInputConverterExtended<E> converter = new JsonInputConverterExtended<>(targetClass);
+            converter.setInputStream(targetClient.createRestDataSource().getInputStream());
+            return converter.read();
+
+        } catch (IOException | RuntimeException ex) {
+            trace.fail();
+            throw ex;
+        } finally {
+            trace.end();
+        }
+    }
+
+    private void cancelPendingFetches() {
+        for (PendingFetch fetch : pendingFetches) {
+            fetch.future.cancel(true);
+        }
+        pendingFetches.clear();
+    }
+
+    private class PendingFetch {
+
+        private final String    key;
+        private final Future<E> future;
+
+        private PendingFetch(String key, Future<E> future) {
+            this.key = key;
+            this.future = future;
+        }
+
+        private E await() {
+            try {
+                return future.get();
+
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                IOException failure = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                LOGGER.error("Failed to retrieve: '{}'", targetUrl + key, failure);
+                failures.put(key, failure);
+
+            } catch (CancellationException ex) {
+                LOGGER.error("Fetch cancelled: '{}'", targetUrl + key);
+                failures.put(key, new InterruptedIOException("Cancelled retrieving: '" + targetUrl + key + "'"));
+
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                cancelPendingFetches();
+                failures.put(key, new InterruptedIOException("Interrupted while retrieving: '" + targetUrl + key + "'"));
+            }
+            return null;
         }
-        return converter.read();
     }
 
 }
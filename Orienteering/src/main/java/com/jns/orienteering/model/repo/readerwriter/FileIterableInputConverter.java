@@ -31,11 +31,12 @@ package com.jns.orienteering.model.repo.readerwriter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonObject;
-import javax.json.JsonReader;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParsingException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,23 +45,28 @@ import com.gluonhq.connect.GluonObservableList;
 import com.gluonhq.connect.provider.ListDataReader;
 import com.gluonhq.connect.source.FileDataSource;
 
+/**
+ * Reads the elements of the json array <code>listIdentifier</code> of a local list file.
+ * <p>
+ * The file is streamed: only the element, that is currently converted, is held in memory.
+ */
 public class FileIterableInputConverter<E> implements ListDataReader<E>, Iterator<E> {
 
-    private static final Logger      LOGGER = LoggerFactory.getLogger(FileIterableInputConverter.class);
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileIterableInputConverter.class);
 
-    private FileDataSource           dataSource;
-    private String                   listIdentifier;
+    private FileDataSource      dataSource;
+    private String              listIdentifier;
 
-    private JsonConverterExtended<E> converter;
+    private JsonCodec<E>        codec;
 
-    private JsonArray                jsonArray;
-    private int                      index;
+    private JsonParser          parser;
+    private E                   next;
 
     public FileIterableInputConverter(FileDataSource dataSource, Class<E> targetClass, String listIdentifier) {
         this.dataSource = dataSource;
         this.listIdentifier = listIdentifier;
 
-        converter = new JsonConverterExtended<>(targetClass);
+        codec = JsonCodec.forClass(targetClass);
     }
 
     @Override
@@ -70,29 +76,98 @@ public class FileIterableInputConverter<E> implements ListDataReader<E>, Iterato
 
     @Override
     public Iterator<E> iterator() throws IOException {
-        if (dataSource.getFile().exists()) {
-            try (JsonReader reader = Json.createReader(dataSource.getInputStream())) {
+        next = null;
 
-                JsonObject jsonObject = reader.readObject();
-                jsonArray = jsonObject.getJsonArray(listIdentifier);
+        if (dataSource.getFile().exists()) {
+            try {
+                parser = Json.createParser(dataSource.getInputStream());
+                if (!moveToList()) {
+                    closeParser();
+                }
 
             } catch (FileNotFoundException e) {
                 LOGGER.error("File not found: {}", dataSource.getFile());
+
+            } catch (JsonParsingException ex) {
+                LOGGER.error("Failed to parse: {}", dataSource.getFile(), ex);
+                closeParser();
             }
         }
         return this;
     }
 
+    /**
+     * Moves the parser to the start of the array <code>listIdentifier</code>
+     *
+     * @return false, if the array doesn't exist
+     */
+    private boolean moveToList() {
+        if (!parser.hasNext() || parser.next() != Event.START_OBJECT) {
+            return false;
+        }
+        while (parser.hasNext()) {
+            Event event = parser.next();
+            if (event == Event.END_OBJECT) {
+                return false;
+            }
+
+            String key = parser.getString();
+            event = parser.next();
+            if (event == Event.START_ARRAY && listIdentifier.equals(key)) {
+                return true;
+            }
+            JsonStreams.skipValue(parser, event);
+        }
+        return false;
+    }
+
     @Override
     public boolean hasNext() {
-        return jsonArray != null && index < jsonArray.size();
+        if (next == null && parser != null) {
+            next = readNext();
+        }
+        return next != null;
     }
 
     @Override
     public E next() {
-        JsonObject jsonObject = jsonArray.getJsonObject(index++);
-        return converter.readFromJson(jsonObject);
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        E result = next;
+        next = null;
+        return result;
+    }
 
+    private E readNext() {
+        try {
+            while (parser.hasNext()) {
+                Event event = parser.next();
+                if (event == Event.END_ARRAY) {
+                    break;
+                }
+
+                if (event == Event.START_OBJECT) {
+                    E result = codec.read(JsonStreams.readObject(parser));
+                    if (result != null) {
+                        return result;
+                    }
+                } else {
+                    JsonStreams.skipValue(parser, event);
+                }
+            }
+        } catch (JsonParsingException ex) {
+            LOGGER.error("Failed to parse: {}", dataSource.getFile(), ex);
+        }
+        closeParser();
+        return null;
+    }
+
+    private void closeParser() {
+        if (parser != null) {
+            parser.close();
+            parser = null;
+        }
     }
 
 }
@@ -0,0 +1,585 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo.readerwriter;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gluonhq.impl.connect.converter.ClassInspector;
+
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.FloatProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.LongProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+/**
+ * Converts objects of a class from and into JSON Objects.
+ * <p>
+ * The properties of a class are inspected once, when the codec is created: getters, setters, the type of every property and
+ * the codecs of nested objects and list elements are resolved up front and the codec is cached per class. Reading and writing
+ * an object then only dispatches on the precomputed {@link TypeTag} of each property.
+ * <p>
+ * The property naming and conversion rules are the same as in {@link JsonConverterExtended}.
+ *
+ * @param <T>
+ *            the type of the object to convert from and into a JSON Object
+ */
+public final class JsonCodec<T> {
+
+    private static final Logger                      LOGGER          = LoggerFactory.getLogger(JsonCodec.class);
+
+    private static final JsonBuilderFactory          BUILDER_FACTORY = Json.createBuilderFactory(null);
+
+    private static final Map<Class<?>, JsonCodec<?>> CODECS          = new ConcurrentHashMap<>();
+
+    private final Class<T>                           targetClass;
+    private final Constructor<T>                     constructor;
+    private final Property[]                         readProperties;
+    private final Property[]                         writeProperties;
+
+    private JsonCodec(Class<T> targetClass) {
+        this.targetClass = targetClass;
+        constructor = defaultConstructor(targetClass);
+
+        ClassInspector<T> inspector = ClassInspector.resolve(targetClass);
+        readProperties = createProperties(inspector.getSetters(), true);
+        writeProperties = createProperties(inspector.getGetters(), false);
+    }
+
+    /**
+     * @return the cached codec for <code>targetClass</code>
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> JsonCodec<T> forClass(Class<T> targetClass) {
+        JsonCodec<T> codec = (JsonCodec<T>) CODECS.get(targetClass);
+        if (codec == null) {
+            codec = new JsonCodec<>(targetClass);
+            JsonCodec<T> existing = (JsonCodec<T>) CODECS.putIfAbsent(targetClass, codec);
+            if (existing != null) {
+                codec = existing;
+            }
+        }
+        return codec;
+    }
+
+    private static <T> Constructor<T> defaultConstructor(Class<T> targetClass) {
+        try {
+            return targetClass.getConstructor();
+        } catch (NoSuchMethodException | SecurityException ex) {
+            return null;
+        }
+    }
+
+    private static Property[] createProperties(Map<String, Method> methods, boolean setters) {
+        if (methods == null) {
+            return new Property[0];
+        }
+        List<Property> properties = new ArrayList<>(methods.size());
+        for (Map.Entry<String, Method> entry : methods.entrySet()) {
+            Method method = entry.getValue();
+            if (setters) {
+                properties.add(new Property(entry.getKey(), method, method.getParameterTypes()[0], method.getGenericParameterTypes()[0]));
+            } else {
+                properties.add(new Property(entry.getKey(), method, method.getReturnType(), method.getGenericReturnType()));
+            }
+        }
+        return properties.toArray(new Property[properties.size()]);
+    }
+
+    public Class<T> getTargetClass() {
+        return targetClass;
+    }
+
+    /**
+     * Creates a new instance of the target class and sets all properties, which are contained in <code>json</code>.
+     * A property, whose value can't be converted, is logged and skipped.
+     *
+     * @return the new instance or <code>null</code>, if no instance could be created
+     */
+    public T read(JsonObject json) {
+        if (constructor == null) {
+            LOGGER.warn("No public default constructor for: {}", targetClass);
+            return null;
+        }
+
+        T target;
+        try {
+            target = constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException ex) {
+            LOGGER.warn("Failed to create object of type {}", targetClass, ex);
+            return null;
+        }
+
+        for (Property property : readProperties) {
+            JsonValue jsonValue = json.get(property.name);
+            if (jsonValue == null) {
+                continue;
+            }
+            Object value;
+            try {
+                value = property.read(jsonValue);
+            } catch (RuntimeException ex) {
+                // e.g. an unknown enum constant or a value of another type, the property is skipped like a missing one
+                LOGGER.warn("Failed to convert property {} of {} from {}", property.name, targetClass, jsonValue, ex);
+                continue;
+            }
+            try {
+                property.method.invoke(target, value);
+            } catch (IllegalArgumentException | IllegalAccessException | InvocationTargetException ex) {
+                LOGGER.warn("Failed to call setter {} with value {}", property.method, property.name, ex);
+            }
+        }
+        return target;
+    }
+
+    public JsonObject write(T source) {
+        JsonObjectBuilder builder = BUILDER_FACTORY.createObjectBuilder();
+
+        for (Property property : writeProperties) {
+            try {
+                property.write(builder, property.method.invoke(source));
+            } catch (IllegalAccessException | InvocationTargetException ex) {
+                LOGGER.warn("Failed to call getter {} on object {}", property.method, source, ex);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Type of a property, resolved once per property
+     */
+    enum TypeTag {
+        BOOLEAN,
+        BYTE,
+        SHORT,
+        INT,
+        LONG,
+        FLOAT,
+        DOUBLE,
+        STRING,
+        ENUM,
+        LIST,
+        MAP,
+        BOOLEAN_PROPERTY,
+        DOUBLE_PROPERTY,
+        FLOAT_PROPERTY,
+        INTEGER_PROPERTY,
+        LONG_PROPERTY,
+        STRING_PROPERTY,
+        ARRAY,
+        OBJECT;
+
+        private static final Map<Class<?>, TypeTag> TAGS = new HashMap<>();
+
+        static {
+            TAGS.put(boolean.class, BOOLEAN);
+            TAGS.put(Boolean.class, BOOLEAN);
+            TAGS.put(byte.class, BYTE);
+            TAGS.put(Byte.class, BYTE);
+            TAGS.put(short.class, SHORT);
+            TAGS.put(Short.class, SHORT);
+            TAGS.put(int.class, INT);
+            TAGS.put(Integer.class, INT);
+            TAGS.put(long.class, LONG);
+            TAGS.put(Long.class, LONG);
+            TAGS.put(float.class, FLOAT);
+            TAGS.put(Float.class, FLOAT);
+            TAGS.put(double.class, DOUBLE);
+            TAGS.put(Double.class, DOUBLE);
+            TAGS.put(String.class, STRING);
+            TAGS.put(List.class, LIST);
+            TAGS.put(ObservableList.class, LIST);
+            TAGS.put(Map.class, MAP);
+            TAGS.put(BooleanProperty.class, BOOLEAN_PROPERTY);
+            TAGS.put(DoubleProperty.class, DOUBLE_PROPERTY);
+            TAGS.put(FloatProperty.class, FLOAT_PROPERTY);
+            TAGS.put(IntegerProperty.class, INTEGER_PROPERTY);
+            TAGS.put(LongProperty.class, LONG_PROPERTY);
+            TAGS.put(StringProperty.class, STRING_PROPERTY);
+        }
+
+        static TypeTag of(Class<?> type) {
+            TypeTag tag = TAGS.get(type);
+            if (tag != null) {
+                return tag;
+            }
+            if (type.isEnum()) {
+                return ENUM;
+            }
+            if (type.isArray()) {
+                return ARRAY;
+            }
+            return OBJECT;
+        }
+    }
+
+    private static final class Property {
+
+        private final String          name;
+        private final Method          method;
+        private final Class<?>        type;
+        private final TypeTag         tag;
+
+        /** element type of lists, value type of maps */
+        private final Class<?>        elementType;
+        private final TypeTag         elementTag;
+        private final boolean         observableList;
+
+        private volatile JsonCodec<?> nestedCodec;
+        private volatile JsonCodec<?> elementCodec;
+
+        private Property(String name, Method method, Class<?> type, Type genericType) {
+            this.name = name;
+            this.method = method;
+            this.type = type;
+            tag = TypeTag.of(type);
+            observableList = tag == TypeTag.LIST && type.isAssignableFrom(ObservableList.class);
+
+            if (tag == TypeTag.LIST) {
+                elementType = typeArgument(genericType, 0);
+            } else if (tag == TypeTag.MAP) {
+                elementType = typeArgument(genericType, 1);
+            } else {
+                elementType = Object.class;
+            }
+            elementTag = TypeTag.of(elementType);
+        }
+
+        private static Class<?> typeArgument(Type genericType, int index) {
+            if (genericType instanceof ParameterizedType) {
+                Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[index];
+                if (argument instanceof Class) {
+                    return (Class<?>) argument;
+                }
+            }
+            return Object.class;
+        }
+
+        @SuppressWarnings("unchecked")
+        private JsonCodec<Object> nestedCodec() {
+            JsonCodec<?> codec = nestedCodec;
+            if (codec == null) {
+                codec = forClass(type);
+                nestedCodec = codec;
+            }
+            return (JsonCodec<Object>) codec;
+        }
+
+        @SuppressWarnings("unchecked")
+        private JsonCodec<Object> elementCodec() {
+            JsonCodec<?> codec = elementCodec;
+            if (codec == null) {
+                codec = forClass(elementType);
+                elementCodec = codec;
+            }
+            return (JsonCodec<Object>) codec;
+        }
+
+        private Object read(JsonValue jsonValue) {
+            switch (jsonValue.getValueType()) {
+                case NULL:
+                    return null;
+                case FALSE:
+                    return Boolean.FALSE;
+                case TRUE:
+                    return Boolean.TRUE;
+                case STRING:
+                    String string = ((JsonString) jsonValue).getString();
+                    if (tag == TypeTag.ENUM) {
+                        return Enum.valueOf(type.asSubclass(Enum.class), string);
+                    }
+                    return string;
+                case NUMBER:
+                    return readNumber((JsonNumber) jsonValue);
+                case ARRAY:
+                    return readList((JsonArray) jsonValue);
+                case OBJECT:
+                    if (tag == TypeTag.MAP) {
+                        return readMap((JsonObject) jsonValue);
+                    }
+                    return nestedCodec().read((JsonObject) jsonValue);
+                default:
+                    return null;
+            }
+        }
+
+        private Object readNumber(JsonNumber number) {
+            switch (tag) {
+                case BYTE:
+                case SHORT:
+                case INT:
+                    return number.intValue();
+                case LONG:
+                    return number.longValue();
+                case DOUBLE:
+                    return number.doubleValue();
+                case FLOAT:
+                    return (float) number.doubleValue();
+                case STRING:
+                case STRING_PROPERTY:
+                    return number.toString();
+                default:
+                    return null;
+            }
+        }
+
+        private List<Object> readList(JsonArray array) {
+            List<Object> values = observableList ? FXCollections.observableArrayList() : new ArrayList<>(array.size());
+
+            for (JsonValue arrayValue : array) {
+                switch (arrayValue.getValueType()) {
+                    case NULL:
+                        values.add(null);
+                        break;
+                    case FALSE:
+                        values.add(Boolean.FALSE);
+                        break;
+                    case TRUE:
+                        values.add(Boolean.TRUE);
+                        break;
+                    case STRING:
+                        values.add(((JsonString) arrayValue).getString());
+                        break;
+                    case NUMBER:
+                        JsonNumber number = (JsonNumber) arrayValue;
+                        values.add(number.isIntegral() ? (Object) number.longValue() : (Object) number.doubleValue());
+                        break;
+                    case ARRAY:
+                        LOGGER.warn("Arrays within arrays not yet supported.");
+                        break;
+                    case OBJECT:
+                        values.add(elementCodec().read((JsonObject) arrayValue));
+                        break;
+                }
+            }
+            return values;
+        }
+
+        private Map<String, Object> readMap(JsonObject jsonMap) {
+            Map<String, Object> map = new HashMap<>();
+            for (Map.Entry<String, JsonValue> entry : jsonMap.entrySet()) {
+                map.put(entry.getKey(), readMapValue(entry.getValue()));
+            }
+            return map;
+        }
+
+        private Object readMapValue(JsonValue value) {
+            switch (value.getValueType()) {
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case STRING:
+                    return elementTag == TypeTag.STRING || elementTag == TypeTag.OBJECT ? ((JsonString) value).getString() : null;
+                case NUMBER:
+                    JsonNumber number = (JsonNumber) value;
+                    switch (elementTag) {
+                        case INT:
+                            return number.intValue();
+                        case LONG:
+                            return number.longValue();
+                        case DOUBLE:
+                            return number.doubleValue();
+                        case FLOAT:
+                            return (float) number.doubleValue();
+                        default:
+                            return null;
+                    }
+                default:
+                    return null;
+            }
+        }
+
+        private void write(JsonObjectBuilder builder, Object value) {
+            switch (tag) {
+                case BOOLEAN:
+                    if (value != null) {
+                        builder.add(name, (Boolean) value);
+                    }
+                    break;
+                case BYTE:
+                case SHORT:
+                case INT:
+                case LONG:
+                    if (value != null) {
+                        builder.add(name, ((Number) value).longValue());
+                    }
+                    break;
+                case FLOAT:
+                case DOUBLE:
+                    if (value != null) {
+                        builder.add(name, ((Number) value).doubleValue());
+                    }
+                    break;
+                case STRING:
+                    addString(builder, (String) value);
+                    break;
+                case ENUM:
+                    addString(builder, value == null ? null : ((Enum<?>) value).name());
+                    break;
+                case LIST:
+                    if (value == null) {
+                        builder.addNull(name);
+                    } else {
+                        builder.add(name, writeList((List<?>) value));
+                    }
+                    break;
+                case MAP:
+                    if (value == null) {
+                        builder.addNull(name);
+                    } else {
+                        builder.add(name, writeMap((Map<?, ?>) value));
+                    }
+                    break;
+                case BOOLEAN_PROPERTY:
+                    if (value != null) {
+                        builder.add(name, ((BooleanProperty) value).get());
+                    }
+                    break;
+                case DOUBLE_PROPERTY:
+                    if (value != null) {
+                        builder.add(name, ((DoubleProperty) value).get());
+                    }
+                    break;
+                case FLOAT_PROPERTY:
+                    if (value != null) {
+                        builder.add(name, ((FloatProperty) value).get());
+                    }
+                    break;
+                case INTEGER_PROPERTY:
+                    if (value != null) {
+                        builder.add(name, ((IntegerProperty) value).get());
+                    }
+                    break;
+                case LONG_PROPERTY:
+                    if (value != null) {
+                        builder.add(name, ((LongProperty) value).get());
+                    }
+                    break;
+                case STRING_PROPERTY:
+                    if (value != null) {
+                        addString(builder, ((StringProperty) value).get());
+                    }
+                    break;
+                default:
+                    if (value == null) {
+                        builder.addNull(name);
+                    } else {
+                        builder.add(name, nestedCodec().write(value));
+                    }
+            }
+        }
+
+        private void addString(JsonObjectBuilder builder, String value) {
+            if (value == null) {
+                builder.addNull(name);
+            } else {
+                builder.add(name, value);
+            }
+        }
+
+        private JsonArrayBuilder writeList(List<?> list) {
+            JsonArrayBuilder arrayBuilder = BUILDER_FACTORY.createArrayBuilder();
+
+            for (Object item : list) {
+                if (item == null) {
+                    arrayBuilder.addNull();
+                    continue;
+                }
+                switch (elementTag) {
+                    case BOOLEAN:
+                        arrayBuilder.add((Boolean) item);
+                        break;
+                    case BYTE:
+                    case SHORT:
+                    case INT:
+                    case LONG:
+                        arrayBuilder.add(((Number) item).longValue());
+                        break;
+                    case FLOAT:
+                    case DOUBLE:
+                        arrayBuilder.add(((Number) item).doubleValue());
+                        break;
+                    case STRING:
+                        arrayBuilder.add((String) item);
+                        break;
+                    default:
+                        arrayBuilder.add(elementCodec().write(item));
+                }
+            }
+            return arrayBuilder;
+        }
+
+        private JsonObjectBuilder writeMap(Map<?, ?> map) {
+            JsonObjectBuilder mapBuilder = BUILDER_FACTORY.createObjectBuilder();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeMapEntry(mapBuilder, String.valueOf(entry.getKey()), entry.getValue());
+            }
+            return mapBuilder;
+        }
+    }
+
+    static void writeMapEntry(JsonObjectBuilder builder, String key, Object value) {
+        if (value instanceof Boolean) {
+            builder.add(key, (Boolean) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            builder.add(key, ((Number) value).doubleValue());
+        } else if (value instanceof Integer || value instanceof Long) {
+            builder.add(key, ((Number) value).longValue());
+        } else if (value instanceof String) {
+            builder.add(key, (String) value);
+        }
+    }
+
+}
@@ -28,53 +28,21 @@
  */
 package com.jns.orienteering.model.repo.readerwriter;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.ParameterizedType;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
-import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonArrayBuilder;
-import javax.json.JsonBuilderFactory;
-import javax.json.JsonNumber;
 import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
-import javax.json.JsonString;
-import javax.json.JsonValue;
-import javax.json.JsonValue.ValueType;
-
-import com.gluonhq.impl.connect.converter.ClassInspector;
-
-import javafx.beans.property.BooleanProperty;
-import javafx.beans.property.DoubleProperty;
-import javafx.beans.property.FloatProperty;
-import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.LongProperty;
-import javafx.beans.property.StringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 
 /**
  * A utility class to convert Java objects from JSON Objects and from JSON Objects into Java objects.
+ * <p>
+ * The conversion is delegated to the {@link JsonCodec} of the target class, which is created once per class and shared by all
+ * converters.
  *
  * @param <T>
  *            the type of the object to convert from and into a JSON Object
  */
 public class JsonConverterExtended<T> {
 
-    private static final Logger             LOGGER         = Logger.getLogger(JsonConverterExtended.class.getName());
-
-    private static final JsonBuilderFactory builderFactory = Json.createBuilderFactory(null);
-
-    private final Class<T>                  targetClass;
-    private final ClassInspector<T>         inspector;
+    private final JsonCodec<T> codec;
 
     /**
      * Construct a JsonConverter to convert between JSON and objects of the specified <code>targetClass</code>.
@@ -83,8 +51,7 @@ public class JsonConverterExtended<T> {
      *            The target class defining the objects being converted from and into JSON Objects.
      */
     public JsonConverterExtended(Class<T> targetClass) {
-        this.targetClass = targetClass;
-        this.inspector = ClassInspector.resolve(targetClass);
+        codec = JsonCodec.forClass(targetClass);
     }
 
     /**
@@ -93,7 +60,7 @@ public class JsonConverterExtended<T> {
      * @return The target class.
      */
     public Class<T> getTargetClass() {
-        return targetClass;
+        return codec.getTargetClass();
     }
 
     /**
@@ -119,175 +86,7 @@ public class JsonConverterExtended<T> {
      * @return The Java object that is converted from the provided JSON Object.
      */
     public T readFromJson(JsonObject json) {
-        T t = null;
-
-        try {
-            t = targetClass.newInstance();
-
-            Map<String, Method> settersMappedByPropertyName = this.inspector.getSetters();
-            if (settersMappedByPropertyName != null) {
-                for (String property : settersMappedByPropertyName.keySet()) {
-                    if (!json.containsKey(property)) {
-                        LOGGER.log(Level.INFO, "Property " + property + " not defined on json object for class " + targetClass + ".");
-                        continue;
-                    }
-
-                    if (json.containsKey(property)) {
-                        Method setter = settersMappedByPropertyName.get(property);
-                        Class<?> parameterType = setter.getParameterTypes()[0];
-                        Object[] args = new Object[1];
-                        JsonValue jsonValue = json.get(property);
-                        ValueType valueType = jsonValue.getValueType();
-
-                        switch (valueType) {
-                            case NULL:
-                                args[0] = null;
-                                break;
-                            case FALSE:
-                                args[0] = Boolean.FALSE;
-                                break;
-                            case TRUE:
-                                args[0] = Boolean.TRUE;
-                                break;
-                            case STRING:
-                                JsonString stringProperty = (JsonString) jsonValue;
-                                if (parameterType.isEnum()) {
-                                    args[0] = Enum.valueOf(parameterType.asSubclass(Enum.class), stringProperty.getString());
-                                } else {
-                                    args[0] = stringProperty.getString();
-                                }
-                                break;
-                            case NUMBER:
-                                JsonNumber numberProperty = (JsonNumber) jsonValue;
-                                Class setterParameterType = setter.getParameterTypes()[0];
-                                if (!setterParameterType.isArray()) {
-                                    String setterParameterTypeName = setterParameterType.getName();
-                                    switch (setterParameterTypeName) {
-                                        case "byte":
-                                        case "java.lang.Byte":
-                                        case "int":
-                                        case "java.lang.Integer":
-                                        case "short":
-                                        case "java.lang.Short":
-                                            args[0] = numberProperty.intValue();
-                                            break;
-                                        case "long":
-                                        case "java.lang.Long":
-                                            args[0] = numberProperty.longValue();
-                                            break;
-                                        case "double":
-                                        case "java.lang.Double":
-                                            args[0] = numberProperty.doubleValue();
-                                            break;
-                                        case "float":
-                                        case "java.lang.Float":
-                                            args[0] = (float) numberProperty.doubleValue();
-                                            break;
-                                        case "java.lang.String":
-                                        case "javafx.beans.property.StringProperty":
-                                            args[0] = numberProperty.toString();
-                                            break;
-                                    }
-                                }
-                                break;
-                            case ARRAY:
-                                JsonArray arrayProperty = (JsonArray) jsonValue;
-                                List<Object> values;
-                                if (parameterType.isAssignableFrom(ObservableList.class)) {
-                                    values = FXCollections.observableArrayList();
-                                } else {
-                                    values = new ArrayList<>();
-                                }
-                                for (JsonValue arrayValue : arrayProperty) {
-                                    switch (arrayValue.getValueType()) {
-                                        case NULL:
-                                            values.add(null);
-                                            break;
-                                        case FALSE:
-                                            values.add(Boolean.FALSE);
-                                            break;
-                                        case TRUE:
-                                            values.add(Boolean.TRUE);
-                                            break;
-                                        case STRING:
-                                            JsonString stringArrayValue = (JsonString) arrayValue;
-                                            values.add(stringArrayValue.getString());
-                                            break;
-                                        case NUMBER:
-                                            JsonNumber numberArrayValue = (JsonNumber) arrayValue;
-                                            if (numberArrayValue.isIntegral()) {
-                                                values.add(numberArrayValue.longValue());
-                                            } else {
-                                                values.add(numberArrayValue.doubleValue());
-                                            }
-                                            break;
-                                        case ARRAY:
-                                            // TODO: implement nested arrays in arrays
-                                            LOGGER.log(Level.WARNING, "Arrays within arrays not yet supported.");
-                                            break;
-                                        case OBJECT:
-                                            ParameterizedType listType = (ParameterizedType) setter.getGenericParameterTypes()[0];
-                                            Class<?> listClass = (Class<?>) listType.getActualTypeArguments()[0];
-                                            JsonConverterExtended<?> jsonConverter = new JsonConverterExtended<>(listClass);
-                                            values.add(jsonConverter.readFromJson((JsonObject) arrayValue));
-                                            break;
-                                    }
-                                }
-                                args[0] = values;
-                                break;
-                            case OBJECT:
-                                if (!Map.class.equals(parameterType)) {
-                                    JsonConverterExtended<?> jsonConverter = new JsonConverterExtended<>(parameterType);
-                                    args[0] = jsonConverter.readFromJson((JsonObject) jsonValue);
-                                    break;
-                                } else {
-                                    Map<String, Object> map = new HashMap<>();
-                                    JsonObject jsonMap = json.getJsonObject(property);
-
-                                    Method method = inspector.getGetters().get(property);
-                                    ParameterizedType type = (ParameterizedType) method.getGenericReturnType();
-                                    Class<?> valueClass = (Class<?>) type.getActualTypeArguments()[1];
-
-                                    Set<String> keys = jsonMap.keySet();
-                                    for (String key : keys) {
-                                        map.put(key, readObject(jsonMap, key, valueClass));
-                                    }
-                                    args[0] = map;
-                                    break;
-                                }
-                        }
-
-                        try {
-                            setter.invoke(t, args);
-                        } catch (IllegalArgumentException | InvocationTargetException ex) {
-                            LOGGER.log(Level.WARNING, "Failed to call setter " + setter + " with value " + property, ex);
-                        }
-                    }
-                }
-            }
-        } catch (Exception ex) {
-            LOGGER.log(Level.WARNING, "Failed to create object of type " + targetClass + " from the following json object " + json, ex);
-        }
-
-        return t;
-    }
-
-    public Object readObject(JsonObject json, String key, Class<?> fieldType) {
-        Object obj = null;
-        if (boolean.class.equals(fieldType) || Boolean.class.equals(fieldType)) {
-            obj = json.getBoolean(key);
-        } else if (double.class.equals(fieldType) || Double.class.equals(fieldType)) {
-            obj = json.getJsonNumber(key).doubleValue();
-        } else if (float.class.equals(fieldType) || Float.class.equals(fieldType)) {
-            obj = new Double(json.getJsonNumber(key).doubleValue()).floatValue();
-        } else if (int.class.equals(fieldType) || Integer.class.equals(fieldType)) {
-            obj = json.getInt(key);
-        } else if (long.class.equals(fieldType) || Long.class.equals(fieldType)) {
-            obj = json.getJsonNumber(key).longValue();
-        } else if (String.class.equals(fieldType)) {
-            obj = json.getString(key);
-        }
-        return obj;
+        return codec.read(json);
     }
 
     /**
@@ -318,160 +117,10 @@ public class JsonConverterExtended<T> {
      * @return The JSON Object that was converted from the provided Java object.
      */
     public JsonObject writeToJson(T t) {
-        JsonObjectBuilder jsonObjectBuilder = builderFactory.createObjectBuilder();
-        Map<String, Method> getters = inspector.getGetters();
-        if (getters != null) {
-            for (String property : getters.keySet()) {
-                Method getter = getters.get(property);
-
-                try {
-                    writeProperty(jsonObjectBuilder, property, getter, t);
-                } catch (IllegalAccessException | InvocationTargetException ex) {
-                    LOGGER.log(Level.WARNING, "Failed to call getter " + getter + " on object " + t, ex);
-                }
-            }
-        }
-        return jsonObjectBuilder.build();
-    }
-
-    private void writeProperty(JsonObjectBuilder jsonObjectBuilder, String property, Method method, T target)
-                                                                                                              throws IllegalAccessException,
-                                                                                                              InvocationTargetException {
-        Object value = method.invoke(target);
-
-        if (boolean.class.equals(method.getReturnType())) {
-            jsonObjectBuilder.add(property, (boolean) value);
-        } else if (byte.class.equals(method.getReturnType())) {
-            jsonObjectBuilder.add(property, (byte) value);
-        } else if (double.class.equals(method.getReturnType())) {
-            jsonObjectBuilder.add(property, (double) value);
-        } else if (float.class.equals(method.getReturnType())) {
-            jsonObjectBuilder.add(property, (float) value);
-        } else if (int.class.equals(method.getReturnType())) {
-            jsonObjectBuilder.add(property, (int) value);
-        } else if (long.class.equals(method.getReturnType())) {
-            jsonObjectBuilder.add(property, (long) value);
-        } else if (short.class.equals(method.getReturnType())) {
-            jsonObjectBuilder.add(property, (short) value);
-        } else if (String.class.equals(method.getReturnType())) {
-            if (value == null) {
-                jsonObjectBuilder.addNull(property);
-            } else {
-                jsonObjectBuilder.add(property, (String) value);
-            }
-        } else if (List.class.equals(method.getReturnType()) || ObservableList.class.equals(method.getReturnType())) {
-            List list = (List) value;
-            if (list != null) {
-                ParameterizedType listType = (ParameterizedType) method.getGenericReturnType();
-                Class<?> listClass = (Class<?>) listType.getActualTypeArguments()[0];
-
-                JsonArrayBuilder jsonArrayBuilder = builderFactory.createArrayBuilder();
-                for (Object item : list) {
-                    writeProperty(jsonArrayBuilder, listClass, item);
-                }
-
-                jsonObjectBuilder.add(property, jsonArrayBuilder);
-
-            } else {
-                jsonObjectBuilder.addNull(property);
-            }
-        } else if (Map.class.equals(method.getReturnType())) {
-            JsonObjectBuilder nestedObjectBuilder = builderFactory.createObjectBuilder();
-
-            Map<String, Object> map = (Map<String, Object>) value;
-
-            for (String key : map.keySet()) {
-                writeMapEntry(nestedObjectBuilder, key, map.get(key));
-            }
-            jsonObjectBuilder.add(property, nestedObjectBuilder);
-
-        } else if (BooleanProperty.class.equals(method.getReturnType())) {
-            BooleanProperty booleanProperty = (BooleanProperty) value;
-            if (booleanProperty != null) {
-                jsonObjectBuilder.add(property, booleanProperty.get());
-            }
-        } else if (DoubleProperty.class.equals(method.getReturnType())) {
-            DoubleProperty doubleProperty = (DoubleProperty) value;
-            if (doubleProperty != null) {
-                jsonObjectBuilder.add(property, doubleProperty.get());
-            }
-        } else if (FloatProperty.class.equals(method.getReturnType())) {
-            FloatProperty floatProperty = (FloatProperty) value;
-            if (floatProperty != null) {
-                jsonObjectBuilder.add(property, floatProperty.get());
-            }
-        } else if (IntegerProperty.class.equals(method.getReturnType())) {
-            IntegerProperty integerProperty = (IntegerProperty) value;
-            if (integerProperty != null) {
-                jsonObjectBuilder.add(property, integerProperty.get());
-            }
-        } else if (LongProperty.class.equals(method.getReturnType())) {
-            LongProperty longProperty = (LongProperty) value;
-            if (longProperty != null) {
-                jsonObjectBuilder.add(property, longProperty.get());
-            }
-        } else if (StringProperty.class.equals(method.getReturnType())) {
-            StringProperty stringProperty = (StringProperty) value;
-            if (stringProperty != null) {
-                String string = stringProperty.get();
-                if (string != null) {
-                    jsonObjectBuilder.add(property, string);
-                } else {
-                    jsonObjectBuilder.addNull(property);
-                }
-            }
-        } else if (method.getReturnType().isEnum()) {
-            if (value == null) {
-                jsonObjectBuilder.addNull(property);
-            } else {
-                jsonObjectBuilder.add(property, ((Enum) value).name());
-            }
-        } else {
-            if (value != null) {
-                JsonConverterExtended converter = new JsonConverterExtended(method.getReturnType());
-                jsonObjectBuilder.add(property, converter.writeToJson(value));
-            } else {
-                jsonObjectBuilder.addNull(property);
-            }
-        }
+        return codec.write(t);
     }
 
     public static void writeMapEntry(JsonObjectBuilder jsonObjectBuilder, String key, Object value) {
-        if (value instanceof Boolean) {
-            jsonObjectBuilder.add(key, (Boolean) value);
-        } else if (value instanceof Double) {
-            jsonObjectBuilder.add(key, (Double) value);
-        } else if (value instanceof Float) {
-            jsonObjectBuilder.add(key, (Float) value);
-        } else if (value instanceof Integer) {
-            jsonObjectBuilder.add(key, (Integer) value);
-        } else if (value instanceof Long) {
-            jsonObjectBuilder.add(key, (Long) value);
-        } else if (value instanceof String) {
-            jsonObjectBuilder.add(key, (String) value);
-        }
-    }
-
-    private void writeProperty(JsonArrayBuilder jsonArrayBuilder, Class<?> type, Object value) {
-        if (Boolean.class.equals(type)) {
-            jsonArrayBuilder.add((Boolean) value);
-        } else if (Byte.class.equals(type)) {
-            jsonArrayBuilder.add((Byte) value);
-        } else if (Double.class.equals(type)) {
-            jsonArrayBuilder.add((Double) value);
-        } else if (Float.class.equals(type)) {
-            jsonArrayBuilder.add((Float) value);
-        } else if (Integer.class.equals(type)) {
-            jsonArrayBuilder.add((Integer) value);
-        } else if (Long.class.equals(type)) {
-            jsonArrayBuilder.add((Long) value);
-        } else if (Short.class.equals(type)) {
-            jsonArrayBuilder.add((Short) value);
-        } else if (String.class.equals(type)) {
-            jsonArrayBuilder.add((String) value);
-        } else {
-            JsonConverterExtended converter = new JsonConverterExtended(type);
-            jsonArrayBuilder.add(converter.writeToJson(value));
-        }
+        JsonCodec.writeMapEntry(jsonObjectBuilder, key, value);
     }
 }
@@ -30,6 +30,7 @@ package com.jns.orienteering.model.repo.readerwriter;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
@@ -41,11 +42,12 @@ import javax.json.JsonReaderFactory;
 
 import com.gluonhq.connect.converter.InputStreamInputConverter;
 import com.gluonhq.connect.converter.JsonConverter;
+import com.jns.orienteering.model.repo.RequestMetrics;
 
 public class JsonInputConverterExtended<T> extends InputStreamInputConverter<T> {
 
     private static final JsonReaderFactory readerFactory = Json.createReaderFactory(null);
-    private final JsonConverterExtended<T> converter;
+    private final JsonCodec<T>             codec;
 
     /**
      * Construct a new instance of a JsonInputConverter that is able to convert the data read from the InputStream into
@@ -55,7 +57,7 @@ public class JsonInputConverterExtended<T> extends InputStreamInputConverter<T>
      *            The class defining the objects being converted from JSON.
      */
     public JsonInputConverterExtended(Class<T> targetClass) {
-        this.converter = new JsonConverterExtended<>(targetClass);
+        this.codec = JsonCodec.forClass(targetClass);
     }
 
     /**
@@ -88,10 +90,10 @@ public class JsonInputConverterExtended<T> extends InputStreamInputConverter<T>
             sourceReader = new StringReader(string);
             JsonObject jsonObject = readerFactory.createReader(sourceReader).readObject();
 
-            if (JsonObject.class.isAssignableFrom(converter.getTargetClass())) {
+            if (JsonObject.class.isAssignableFrom(codec.getTargetClass())) {
                 return (T) jsonObject;
             } else {
-                return converter.readFromJson(jsonObject);
+                return codec.read(jsonObject);
             }
 
         } catch (UnsupportedEncodingException e) {
@@ -101,4 +103,12 @@ public class JsonInputConverterExtended<T> extends InputStreamInputConverter<T>
         }
         return null;
     }
+
+    /**
+     * @return the input stream, which counts the bytes read for the current request trace
+     */
+    @Override
+    public InputStream getInputStream() {
+        return RequestMetrics.countIn(super.getInputStream());
+    }
 }
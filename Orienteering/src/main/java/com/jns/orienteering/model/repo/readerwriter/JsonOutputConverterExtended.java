@@ -61,7 +61,9 @@ import javax.json.JsonWriterFactory;
 
 import com.gluonhq.connect.converter.OutputConverter;
 import com.gluonhq.connect.converter.OutputStreamOutputConverter;
+import com.jns.orienteering.model.repo.RequestMetrics;
 
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -78,7 +80,7 @@ public class JsonOutputConverterExtended<T> extends OutputStreamOutputConverter<
 
     private static final JsonWriterFactory writerFactory = Json.createWriterFactory(null);
 
-    private final JsonConverterExtended<T> converter;
+    private final JsonCodec<T> codec;
 
     /**
      * Construct a new instance of a JsonOutputConverter that is able to convert objects of the specified
@@ -87,7 +89,7 @@ public class JsonOutputConverterExtended<T> extends OutputStreamOutputConverter<
      * @param targetClass The class defining the objects being converted into JSON.
      */
     public JsonOutputConverterExtended(Class<T> targetClass) {
-        converter = new JsonConverterExtended<>(targetClass);
+        codec = JsonCodec.forClass(targetClass);
     }
 
     /**
@@ -102,10 +104,10 @@ public class JsonOutputConverterExtended<T> extends OutputStreamOutputConverter<
     public void write(T t) {
         try (JsonWriter writer = writerFactory.createWriter(getOutputStream())) {
             JsonObject jsonObject;
-            if (JsonObject.class.isAssignableFrom(converter.getTargetClass())) {
+            if (JsonObject.class.isAssignableFrom(codec.getTargetClass())) {
                 jsonObject = (JsonObject) t;
             } else {
-                jsonObject = converter.writeToJson(t);
+                jsonObject = codec.write(t);
             }
 
             if (LOG.isLoggable(Level.FINE)) {
@@ -119,5 +121,13 @@ public class JsonOutputConverterExtended<T> extends OutputStreamOutputConverter<
             writer.writeObject(jsonObject);
         }
     }
+
+    /**
+     * @return the output stream, which counts the bytes written for the current request trace
+     */
+    @Override
+    public OutputStream getOutputStream() {
+        return RequestMetrics.countOut(super.getOutputStream());
+    }
 }
 
@@ -0,0 +1,162 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo.readerwriter;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParsingException;
+
+/**
+ * Helpers to read single values from a {@link JsonParser}, so that a large payload can be converted one entity at a time,
+ * without building the tree of the whole payload.
+ */
+final class JsonStreams {
+
+    private static final JsonBuilderFactory BUILDER_FACTORY = Json.createBuilderFactory(null);
+
+    private JsonStreams() {
+    }
+
+    /**
+     * Reads the object, whose {@link Event#START_OBJECT} has just been returned by the parser, up to and including its
+     * {@link Event#END_OBJECT}.
+     */
+    static JsonObject readObject(JsonParser parser) {
+        JsonObjectBuilder builder = BUILDER_FACTORY.createObjectBuilder();
+
+        while (parser.hasNext()) {
+            Event event = parser.next();
+            if (event == Event.END_OBJECT) {
+                return builder.build();
+            }
+            String key = parser.getString();
+            event = parser.next();
+
+            switch (event) {
+                case START_OBJECT:
+                    builder.add(key, readObject(parser));
+                    break;
+                case START_ARRAY:
+                    builder.add(key, readArray(parser));
+                    break;
+                case VALUE_STRING:
+                    builder.add(key, parser.getString());
+                    break;
+                case VALUE_NUMBER:
+                    if (parser.isIntegralNumber()) {
+                        builder.add(key, parser.getLong());
+                    } else {
+                        builder.add(key, parser.getBigDecimal());
+                    }
+                    break;
+                case VALUE_TRUE:
+                    builder.add(key, true);
+                    break;
+                case VALUE_FALSE:
+                    builder.add(key, false);
+                    break;
+                case VALUE_NULL:
+                    builder.addNull(key);
+                    break;
+                default:
+                    throw new JsonParsingException("Unexpected event: " + event, parser.getLocation());
+            }
+        }
+        throw new JsonParsingException("Unexpected end of object", parser.getLocation());
+    }
+
+    /**
+     * Reads the array, whose {@link Event#START_ARRAY} has just been returned by the parser, up to and including its
+     * {@link Event#END_ARRAY}.
+     */
+    static JsonArray readArray(JsonParser parser) {
+        JsonArrayBuilder builder = BUILDER_FACTORY.createArrayBuilder();
+
+        while (parser.hasNext()) {
+            Event event = parser.next();
+            switch (event) {
+                case END_ARRAY:
+                    return builder.build();
+                case START_OBJECT:
+                    builder.add(readObject(parser));
+                    break;
+                case START_ARRAY:
+                    builder.add(readArray(parser));
+                    break;
+                case VALUE_STRING:
+                    builder.add(parser.getString());
+                    break;
+                case VALUE_NUMBER:
+                    if (parser.isIntegralNumber()) {
+                        builder.add(parser.getLong());
+                    } else {
+                        builder.add(parser.getBigDecimal());
+                    }
+                    break;
+                case VALUE_TRUE:
+                    builder.add(true);
+                    break;
+                case VALUE_FALSE:
+                    builder.add(false);
+                    break;
+                case VALUE_NULL:
+                    builder.addNull();
+                    break;
+                default:
+                    throw new JsonParsingException("Unexpected event: " + event, parser.getLocation());
+            }
+        }
+        throw new JsonParsingException("Unexpected end of array", parser.getLocation());
+    }
+
+    /**
+     * Skips the value, whose first <code>event</code> has just been returned by the parser.
+     */
+    static void skipValue(JsonParser parser, Event event) {
+        if (event != Event.START_OBJECT && event != Event.START_ARRAY) {
+            return;
+        }
+        int depth = 1;
+        while (depth > 0 && parser.hasNext()) {
+            Event next = parser.next();
+            if (next == Event.START_OBJECT || next == Event.START_ARRAY) {
+                depth++;
+            } else if (next == Event.END_OBJECT || next == Event.END_ARRAY) {
+                depth--;
+            }
+        }
+    }
+
+}
@@ -28,57 +28,116 @@
  */
 package com.jns.orienteering.model.repo.readerwriter;
 
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
-import javax.json.JsonObject;
-import javax.json.JsonReader;
-import javax.json.JsonValue;
+import javax.json.Json;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
 import javax.json.stream.JsonParsingException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.gluonhq.connect.converter.InputStreamIterableInputConverter;
-import com.gluonhq.impl.connect.converter.JsonUtil;
+import com.jns.orienteering.model.repo.RequestMetrics;
 
+/**
+ * Converts every child object of the top level json object into an object of the target class.
+ * <p>
+ * The payload is streamed: only the child, that is currently converted, is held in memory. Children which are no json
+ * objects are skipped.
+ */
 public class JsonTreeConverter<T> extends InputStreamIterableInputConverter<T> implements Iterator<T> {
 
-    private static final Logger      LOGGER = LoggerFactory.getLogger(JsonTreeConverter.class);
+    private static final Logger LOGGER = LoggerFactory.getLogger(JsonTreeConverter.class);
+
+    private Class<T>            targetClass;
+    private JsonCodec<T>        codec;
 
-    private Class<T>                 targetClass;
-    private JsonObject               tree;
-    private Iterator<String>         iterator;
-    private JsonConverterExtended<T> converter;
+    private JsonParser          parser;
+    private T                   next;
 
     public JsonTreeConverter(Class<T> targetClass) {
         this.targetClass = targetClass;
-        this.converter = new JsonConverterExtended<>(targetClass);
+        this.codec = JsonCodec.forClass(targetClass);
     }
 
+    /**
+     * @return the input stream, which counts the bytes read for the current request trace
+     */
     @Override
-    public Iterator<T> iterator() {
-        try (JsonReader reader = JsonUtil.createJsonReader(getInputStream())) {
-            tree = reader.readObject();
+    public InputStream getInputStream() {
+        return RequestMetrics.countIn(super.getInputStream());
+    }
 
+    @Override
+    public Iterator<T> iterator() {
+        next = null;
+        parser = Json.createParser(getInputStream());
+        try {
+            if (!parser.hasNext() || parser.next() != Event.START_OBJECT) {
+                closeParser();
+                return Collections.emptyIterator();
+            }
         } catch (JsonParsingException ex) {
             LOGGER.error("Failed  to parse json for class: {}", targetClass, ex);
+            closeParser();
             return Collections.emptyIterator();
         }
-        LOGGER.debug("payload: {}", tree);
-        iterator = tree.keySet().iterator();
         return this;
     }
 
     @Override
     public boolean hasNext() {
-        return iterator.hasNext();
+        if (next == null && parser != null) {
+            next = readNext();
+        }
+        return next != null;
     }
 
     @Override
     public T next() {
-        JsonValue json = tree.get(iterator.next());
-        return converter.readFromJson((JsonObject) json);
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T result = next;
+        next = null;
+        return result;
+    }
+
+    private T readNext() {
+        try {
+            while (parser.hasNext()) {
+                Event event = parser.next();
+                if (event == Event.END_OBJECT) {
+                    break;
+                }
+
+                event = parser.next();
+                if (event == Event.START_OBJECT) {
+                    T result = codec.read(JsonStreams.readObject(parser));
+                    if (result != null) {
+                        return result;
+                    }
+                } else {
+                    JsonStreams.skipValue(parser, event);
+                }
+            }
+        } catch (JsonParsingException ex) {
+            LOGGER.error("Failed  to parse json for class: {}", targetClass, ex);
+        }
+        closeParser();
+        return null;
+    }
+
+    private void closeParser() {
+        if (parser != null) {
+            parser.close();
+            parser = null;
+        }
     }
 
 }
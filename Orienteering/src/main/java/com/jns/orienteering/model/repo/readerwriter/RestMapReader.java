@@ -31,6 +31,7 @@ package com.jns.orienteering.model.repo.readerwriter;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import com.gluonhq.connect.provider.ObjectDataReader;
 import com.gluonhq.connect.provider.RestClient;
@@ -40,8 +41,8 @@ public class RestMapReader<T extends MultiValueLookup<?>, E> extends AbstractRes
 
     private Map<String, ?> map;
 
-    public RestMapReader(RestClient client, Class<T> sourceClass, String sourceUrl, Class<E> targetClass, String targetUrl) {
-        super(client, sourceClass, sourceUrl, targetClass, targetUrl);
+    public RestMapReader(Supplier<RestClient> clientFactory, Class<T> sourceClass, String sourceUrl, Class<E> targetClass, String targetUrl) {
+        super(clientFactory, sourceClass, sourceUrl, targetClass, targetUrl);
     }
 
     @Override
@@ -29,27 +29,28 @@
 package com.jns.orienteering.model.repo.readerwriter;
 
 import java.io.IOException;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import com.gluonhq.connect.provider.RestClient;
 import com.jns.orienteering.model.persisted.Lookup;
 
 public class RestObjectsReader<T extends Lookup, E> extends AbstractRestObjectsReader<T, E> {
 
-    public RestObjectsReader(RestClient client, Class<T> sourceClass, String sourceUrl, Class<E> targetClass, String targetUrl) {
-        super(client, sourceClass, sourceUrl, targetClass, targetUrl);
+    public RestObjectsReader(Supplier<RestClient> clientFactory, Class<T> sourceClass, String sourceUrl, Class<E> targetClass, String targetUrl) {
+        super(clientFactory, sourceClass, sourceUrl, targetClass, targetUrl);
     }
 
-    public RestObjectsReader(RestClient clientSource, RestClient clientTarget, Class<T> sourceClass, String sourceUrl, Class<E> targetClass,
-                             String targetUrl) {
-        super(clientSource, clientTarget, sourceClass, sourceUrl, targetClass, targetUrl);
+    public RestObjectsReader(RestClient clientSource, Supplier<RestClient> targetClientFactory, Class<T> sourceClass, String sourceUrl,
+                             Class<E> targetClass, String targetUrl) {
+        super(clientSource, targetClientFactory, sourceClass, sourceUrl, targetClass, targetUrl);
     }
 
     @Override
     protected void initKeysIterator(RestClient client) throws IOException {
-        Set<String> keys = new HashSet<>();
+        Set<String> keys = new LinkedHashSet<>();
 
         Iterator<T> it = client.createListDataReader(new JsonTreeConverter<>(sourceClass)).iterator();
         while (it.hasNext()) {
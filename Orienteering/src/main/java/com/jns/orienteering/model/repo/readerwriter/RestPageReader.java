@@ -0,0 +1,132 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo.readerwriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import javax.json.Json;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+
+import com.gluonhq.connect.provider.RestClient;
+import com.jns.orienteering.model.repo.RequestMetrics;
+
+/**
+ * Reads one page of the keys of a lookup and resolves them to the objects of the target url.
+ * <p>
+ * The keys are read ordered by key, starting after <code>cursor</code>, with <code>orderBy="$key"</code>,
+ * <code>startAt</code> and <code>limitToFirst</code>. As <code>startAt</code> is inclusive, one more key than the page
+ * size is requested for every page but the first and the cursor is dropped. Firebase doesn't keep the order in the
+ * response, so the keys are sorted again.
+ */
+public class RestPageReader<E> extends AbstractRestObjectsReader<Void, E> {
+
+    private final String       cursor;
+    private final int          pageSize;
+
+    private final List<String> keys = new ArrayList<>();
+    private boolean            lastPage;
+
+    /**
+     * @param cursor
+     *            the last key of the previous page or null for the first page
+     */
+    public RestPageReader(Supplier<RestClient> clientFactory, String sourceUrl, Class<E> targetClass, String targetUrl, String cursor,
+                          int pageSize) {
+        super(clientFactory, Void.class, sourceUrl, targetClass, targetUrl);
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be at least 1");
+        }
+        this.cursor = cursor;
+        this.pageSize = pageSize;
+
+        client.queryParam("orderBy", quote("$key"));
+        if (cursor == null) {
+            client.queryParam("limitToFirst", Integer.toString(pageSize));
+        } else {
+            client.queryParam("startAt", quote(cursor));
+            client.queryParam("limitToFirst", Integer.toString(pageSize + 1));
+        }
+    }
+
+    @Override
+    protected void initKeysIterator(RestClient client) throws IOException {
+        if (keysIterator != null) {
+            return;
+        }
+
+        Set<String> sortedKeys = new TreeSet<>();
+        try (InputStream input = RequestMetrics.countIn(client.createRestDataSource().getInputStream());
+                JsonParser parser = Json.createParser(input)) {
+            // a missing lookup is returned as null
+            if (parser.hasNext() && parser.next() == Event.START_OBJECT) {
+                while (parser.hasNext()) {
+                    Event event = parser.next();
+                    if (event == Event.END_OBJECT) {
+                        break;
+                    }
+                    sortedKeys.add(parser.getString());
+                    JsonStreams.skipValue(parser, parser.next());
+                }
+            }
+        }
+        if (cursor != null) {
+            sortedKeys.remove(cursor);
+        }
+
+        keys.addAll(sortedKeys);
+        lastPage = keys.size() < pageSize;
+        keysIterator = keys.iterator();
+    }
+
+    /**
+     * @return the last key of this page, which is the cursor of the next page, or the cursor of this page, if it was empty
+     */
+    public String getLastKey() {
+        return keys.isEmpty() ? cursor : keys.get(keys.size() - 1);
+    }
+
+    /**
+     * @return true, if there are no keys after this page
+     */
+    public boolean isLastPage() {
+        return lastPage;
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+}
@@ -31,17 +31,18 @@ package com.jns.orienteering.model.repo.synchronizer;
 import static com.jns.orienteering.control.Dialogs.showError;
 import static com.jns.orienteering.locale.Localization.localize;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.gluonhq.connect.GluonObservableList;
-import com.jns.orienteering.model.common.GluonObservables;
+import com.jns.orienteering.model.common.Lane;
 import com.jns.orienteering.model.dynamic.MissionCache;
 import com.jns.orienteering.model.persisted.ActiveTaskList;
 import com.jns.orienteering.model.persisted.ChangeLogEntry;
@@ -49,6 +50,7 @@ import com.jns.orienteering.model.persisted.Mission;
 import com.jns.orienteering.model.persisted.RepoAction;
 import com.jns.orienteering.model.persisted.Task;
 import com.jns.orienteering.model.repo.AsyncResultReceiver;
+import com.jns.orienteering.model.repo.ListDelta;
 import com.jns.orienteering.model.repo.LocalRepo;
 import com.jns.orienteering.model.repo.MissionFBRepo;
 import com.jns.orienteering.model.repo.RepoService;
@@ -59,12 +61,10 @@ import javafx.collections.ObservableList;
 
 public class ActiveTasksSynchronizer extends BaseSynchronizer<Task, ActiveTaskList> {
 
-    private static final Logger                              LOGGER               = LoggerFactory.getLogger(ActiveTasksSynchronizer.class);
+    private static final Logger LOGGER               = LoggerFactory.getLogger(ActiveTasksSynchronizer.class);
 
-    public static final String                               NAME                 = "active_tasks_synchronizer";
-    private static final String                              TASK_LIST_IDENTIFIER = "tasks";
-
-    private static final GluonObservableList<ChangeLogEntry> NO_LOG               = null;
+    public static final String  NAME                 = "active_tasks_synchronizer";
+    private static final String TASK_LIST_IDENTIFIER = "tasks";
 
     public ActiveTasksSynchronizer(TaskFBRepo cloudRepo, LocalRepo<Task, ActiveTaskList> localRepo) {
         super(cloudRepo, localRepo, ActiveTaskList::new, TASK_LIST_IDENTIFIER);
@@ -97,7 +97,7 @@ public class ActiveTasksSynchronizer extends BaseSynchronizer<Task, ActiveTaskLi
                 localRepo.deleteAsync();
                 setSucceeded();
             } else {
-                syncLocalData(NO_LOG);
+                readChangeLogAndSyncLocalData();
             }
         }
     }
@@ -119,82 +119,82 @@ public class ActiveTasksSynchronizer extends BaseSynchronizer<Task, ActiveTaskLi
                            .start();
     }
 
+    /**
+     * Joins the ranged change log since the last sync against the local tasks and retrieves the stale tasks in one parallel
+     * batch
+     */
     @Override
     protected void syncLocalData(ObservableList<ChangeLogEntry> log) {
         GluonObservableList<Task> obsLocalTasks = localRepo.retrieveListAsync(TASK_LIST_IDENTIFIER);
         AsyncResultReceiver.create(obsLocalTasks)
-                           .onSuccess(this::startSyncResultReceiver)
+                           .onSuccess(localTasks -> syncLocalTasks(localTasks, log))
                            .onException(this::setFailed)
                            .start();
     }
 
-    private void startSyncResultReceiver(GluonObservableList<Task> localTasks) {
-        AsyncResultReceiver.create(getObsSyncResult(localTasks))
-                           .onSuccess(syncResult ->
-                           {
-                               if (!syncResult.isEmpty()) {
-                                   MissionCache.INSTANCE.setActiveMissionTasks(syncResult, getSyncMetaData().getActiveMission().getId());
-                                   localRepo.createOrUpdateListAsync(new ActiveTaskList(syncResult, getSyncMetaData().getCurrentTimeStamp()));
-                               }
-                               setSucceeded();
-                           })
-                           .onException(this::setFailed)
-                           .start();
-    }
-
-    // todo: use executor
-    private GluonObservableList<Task> getObsSyncResult(GluonObservableList<Task> localTasks) {
-        GluonObservableList<Task> obsTasksResult = new GluonObservableList<>();
-        boolean localDataNeedsUpdate = false;
-
+    private void syncLocalTasks(List<Task> localTasks, List<ChangeLogEntry> log) {
         Map<String, Task> localTasksMap = MapUtils.createMap(LinkedHashMap::new, localTasks, Task::getId, task -> task);
+        ListDelta<Task> delta = new ListDelta<>();
+        Set<String> staleTaskIds = new LinkedHashSet<>();
+
+        for (ChangeLogEntry logEntry : log) {
+            String taskId = logEntry.getTargetId();
+            Task localTask = localTasksMap.get(taskId);
+            if (localTask == null) {
+                continue;
+            }
+
+            if (logEntry.getAction() == RepoAction.DELETE) {
+                localTasksMap.remove(taskId);
+                staleTaskIds.remove(taskId);
+                delta.delete(taskId);
 
-        for (Task localTask : localTasks) {
-            try {
-                String taskId = localTask.getId();
-                ChangeLogEntry logEntry = retrieveChangeLogEntry(TASK_LIST_IDENTIFIER, taskId);
-
-                if (logEntry == null) {
-                    continue;
-                }
-
-                if (logEntry.getAction() == RepoAction.DELETE) {
-                    localTasksMap.remove(taskId);
-                    localDataNeedsUpdate = true;
-
-                } else {
-                    if (localTask.getTimeStamp() < logEntry.getTimeStamp()) {
-                        Task cloudTask = cloudRepo.retrieveObject(taskId);
-                        localTasksMap.put(taskId, cloudTask);
-                        localDataNeedsUpdate = true;
-
-                        LOGGER.debug("task added/updated: {}, lastSynced: {}", cloudTask.getTaskName(), cloudTask
-                                                                                                                 .getTimeStamp());
-                    }
-                }
-
-            } catch (IOException ex) {
-                setFailed();
-                showError(localize("changeLog.error.readLog"));
-                GluonObservables.setException(obsTasksResult, ex);
-                LOGGER.error("Failed to read changeLog for active tasks", ex);
-                break;
+            } else if (localTask.getTimeStamp() < logEntry.getTimeStamp()) {
+                staleTaskIds.add(taskId);
             }
         }
 
-        if (localDataNeedsUpdate) {
-            List<Task> updatedTasks = new ArrayList<>(localTasksMap.values());
+        if (staleTaskIds.isEmpty()) {
+            if (!delta.isEmpty()) {
+                updateLocalTasks(localTasksMap, delta);
+            }
+            setSucceeded();
+            return;
+        }
 
-            MissionCache.INSTANCE.setActiveMissionTasks(updatedTasks, getSyncMetaData().getActiveMission().getId());
-            localRepo.createOrUpdateListAsync(new ActiveTaskList(updatedTasks, getSyncMetaData().getCurrentTimeStamp()));
+        GluonObservableList<Task> obsCloudTasks = cloudRepo.retrieveObjectsAsync(staleTaskIds, Lane.SYNC);
+        AsyncResultReceiver.create(obsCloudTasks)
+                           .onSuccess(cloudTasks ->
+                           {
+                               for (Task cloudTask : cloudTasks) {
+                                   localTasksMap.put(cloudTask.getId(), cloudTask);
+                                   staleTaskIds.remove(cloudTask.getId());
+                                   delta.upsert(cloudTask);
 
-            GluonObservables.setInitialized(obsTasksResult, updatedTasks, true);
+                                   LOGGER.debug("task added/updated: {}, lastSynced: {}", cloudTask.getTaskName(), cloudTask.getTimeStamp());
+                               }
 
-        } else {
-            GluonObservables.setInitialized(obsTasksResult, true);
-        }
+                               if (!staleTaskIds.isEmpty()) {
+                                   LOGGER.error("Failed to retrieve active tasks: {}", staleTaskIds);
+                                   showError(localize("changeLog.error.readLog"));
+                                   setFailed();
+                                   return;
+                               }
+                               updateLocalTasks(localTasksMap, delta);
+                               setSucceeded();
+                           })
+                           .onException(ex ->
+                           {
+                               LOGGER.error("Failed to retrieve active tasks: {}", staleTaskIds, ex);
+                               showError(localize("changeLog.error.readLog"));
+                               setFailed();
+                           })
+                           .start();
+    }
 
-        return obsTasksResult;
+    private void updateLocalTasks(Map<String, Task> localTasksMap, ListDelta<Task> delta) {
+        MissionCache.INSTANCE.setActiveMissionTasks(new ArrayList<>(localTasksMap.values()), getSyncMetaData().getActiveMission().getId());
+        localRepo.updateListAsync(delta);
     }
 
 }
@@ -33,7 +33,7 @@ import java.io.IOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.gluonhq.connect.GluonObservableList;
+import com.gluonhq.connect.GluonObservableObject;
 import com.jns.orienteering.model.dynamic.CityCache;
 import com.jns.orienteering.model.persisted.ChangeLogEntry;
 import com.jns.orienteering.model.persisted.City;
@@ -41,6 +41,8 @@ import com.jns.orienteering.model.persisted.LocalCityList;
 import com.jns.orienteering.model.persisted.RepoAction;
 import com.jns.orienteering.model.repo.AsyncResultReceiver;
 import com.jns.orienteering.model.repo.CityFBRepo;
+import com.jns.orienteering.model.repo.LazyList;
+import com.jns.orienteering.model.repo.ListDelta;
 import com.jns.orienteering.model.repo.LocalRepo;
 
 import javafx.collections.ObservableList;
@@ -90,12 +92,12 @@ public class CitySynchronizer extends BaseSynchronizer<City, LocalCityList> {
 
     @Override
     protected void syncLocalData(ObservableList<ChangeLogEntry> log) {
-        GluonObservableList<City> obsLocalData = localRepo.retrieveListAsync(listIdentifier);
+        GluonObservableObject<LazyList<City>> obsLocalData = localRepo.retrieveListLazyAsync();
         AsyncResultReceiver.create(obsLocalData)
                            .onSuccess(resultLocal ->
                            {
-                               cityCache.createMapping(resultLocal, getSyncMetaData().getUserId());
-                               boolean localDataNeedsUpdate = false;
+                               cityCache.createMapping(resultLocal.get(), getSyncMetaData().getUserId());
+                               ListDelta<City> delta = new ListDelta<>();
 
                                for (ChangeLogEntry logEntry : log) {
                                    LOGGER.debug("logEntry {}: {}", listIdentifier, logEntry);
@@ -103,7 +105,9 @@ public class CitySynchronizer extends BaseSynchronizer<City, LocalCityList> {
                                    String cityId = logEntry.getTargetId();
 
                                    if (logEntry.getAction() == RepoAction.DELETE) {
-                                       localDataNeedsUpdate = cityCache.remove(cityId) != null;
+                                       if (cityCache.remove(cityId) != null) {
+                                           delta.delete(cityId);
+                                       }
 
                                    } else {
                                        if (!cityCache.contains(cityId) || cityCache.get(cityId)
@@ -111,7 +115,7 @@ public class CitySynchronizer extends BaseSynchronizer<City, LocalCityList> {
                                            try {
                                                City cityFromCloud = cloudRepo.retrieveObject(cityId);
                                                cityCache.put(cityFromCloud);
-                                               localDataNeedsUpdate = true;
+                                               delta.upsert(cityFromCloud);
 
                                                LOGGER.debug("city locally added/udpated  {}: {}", listIdentifier, cityFromCloud);
 
@@ -122,8 +126,8 @@ public class CitySynchronizer extends BaseSynchronizer<City, LocalCityList> {
                                    }
                                }
 
-                               if (localDataNeedsUpdate) {
-                                   localRepo.createOrUpdateListAsync(new LocalCityList(cityCache.getPublicCities()));
+                               if (!delta.isEmpty()) {
+                                   localRepo.updateListAsync(delta);
                                }
                                setSucceeded();
                            })
@@ -40,6 +40,7 @@ import com.gluonhq.charm.down.plugins.SettingsService;
 import com.gluonhq.connect.ConnectState;
 import com.jns.orienteering.model.common.CountProperty;
 import com.jns.orienteering.model.repo.ChangeLogRepo;
+import com.jns.orienteering.model.repo.OfflineWriteQueue;
 
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.ReadOnlyObjectProperty;
@@ -101,6 +102,8 @@ public class RepoSynchronizer {
     }
 
     public void syncNow(SyncMetaData syncMetaData) {
+        OfflineWriteQueue.getInstance().replayNow();
+
         this.syncMetaData = syncMetaData;
         syncMetaData.setLastSynced(getLastSyncedTimeStamp());
         syncMetaData.checkIfCompleteRefreshIsNeeded();
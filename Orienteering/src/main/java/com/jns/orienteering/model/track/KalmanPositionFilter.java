@@ -0,0 +1,152 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.track;
+
+/**
+ * Smoothes the fixes with a constant velocity Kalman filter.
+ * <p>
+ * The fixes are projected to meters around the first fix (see {@link LocalProjection}). Both axes are filtered independently,
+ * each with the state position and velocity and its 2x2 covariance. The measurement noise is the squared accuracy of the fix,
+ * the process noise models random accelerations with the variance <code>accelerationVariance</code>. After a gap of more than
+ * <code>MAX_GAP_MILLIS</code> the filter starts over.
+ */
+public class KalmanPositionFilter implements PositionFilter {
+
+    public static final double    DEFAULT_ACCELERATION_VARIANCE = 0.25;
+
+    private static final float    DEFAULT_ACCURACY              = 10;
+    private static final float    MIN_ACCURACY                  = 1;
+    private static final double   INITIAL_VELOCITY_VARIANCE     = 4;
+    private static final long     MAX_GAP_MILLIS                = 30_000;
+    private static final double   MAX_ORIGIN_DISTANCE           = 5_000;
+
+    private final double          accelerationVariance;
+    private final LocalProjection projection                    = new LocalProjection();
+    private final Axis            xAxis                         = new Axis();
+    private final Axis            yAxis                         = new Axis();
+
+    private boolean               initialized;
+    private long                  lastTime;
+
+    public KalmanPositionFilter() {
+        this(DEFAULT_ACCELERATION_VARIANCE);
+    }
+
+    /**
+     * @param accelerationVariance
+     *            the variance of the acceleration in (m/s&sup2;)&sup2;, higher values follow changes of direction faster, lower
+     *            values smooth more
+     */
+    public KalmanPositionFilter(double accelerationVariance) {
+        this.accelerationVariance = accelerationVariance;
+    }
+
+    @Override
+    public boolean filter(Fix fix) {
+        float accuracy = fix.getAccuracy() == 0 ? DEFAULT_ACCURACY : Math.max(fix.getAccuracy(), MIN_ACCURACY);
+        double measurementVariance = (double) accuracy * accuracy;
+
+        long duration = fix.getTime() - lastTime;
+        if (!initialized || duration > MAX_GAP_MILLIS) {
+            projection.setOrigin(fix.getLatitude(), fix.getLongitude());
+            xAxis.init(measurementVariance);
+            yAxis.init(measurementVariance);
+            initialized = true;
+            lastTime = fix.getTime();
+            return true;
+        }
+
+        if (duration > 0) {
+            double seconds = duration / 1000d;
+            xAxis.predict(seconds, accelerationVariance);
+            yAxis.predict(seconds, accelerationVariance);
+            lastTime = fix.getTime();
+        }
+        xAxis.update(projection.toX(fix.getLongitude()), measurementVariance);
+        yAxis.update(projection.toY(fix.getLatitude()), measurementVariance);
+
+        double latitude = projection.toLatitude(yAxis.position);
+        double longitude = projection.toLongitude(xAxis.position);
+        fix.setCoordinates(latitude, longitude);
+
+        if (Math.abs(xAxis.position) > MAX_ORIGIN_DISTANCE || Math.abs(yAxis.position) > MAX_ORIGIN_DISTANCE) {
+            projection.setOrigin(latitude, longitude);
+            xAxis.position = 0;
+            yAxis.position = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        initialized = false;
+    }
+
+    private static class Axis {
+
+        private double position;
+        private double velocity;
+
+        private double positionVariance;
+        private double covariance;
+        private double velocityVariance;
+
+        private void init(double measurementVariance) {
+            position = 0;
+            velocity = 0;
+            positionVariance = measurementVariance;
+            covariance = 0;
+            velocityVariance = INITIAL_VELOCITY_VARIANCE;
+        }
+
+        private void predict(double dt, double accelerationVariance) {
+            position += velocity * dt;
+
+            double dt2 = dt * dt;
+            positionVariance += 2 * dt * covariance + dt2 * velocityVariance + accelerationVariance * dt2 * dt / 3;
+            covariance += dt * velocityVariance + accelerationVariance * dt2 / 2;
+            velocityVariance += accelerationVariance * dt;
+        }
+
+        private void update(double measurement, double measurementVariance) {
+            double innovationVariance = positionVariance + measurementVariance;
+            double positionGain = positionVariance / innovationVariance;
+            double velocityGain = covariance / innovationVariance;
+            double innovation = measurement - position;
+
+            position += positionGain * innovation;
+            velocity += velocityGain * innovation;
+
+            velocityVariance -= velocityGain * covariance;
+            positionVariance -= positionGain * positionVariance;
+            covariance -= positionGain * covariance;
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.track;
+
+import com.jns.orienteering.util.GeoMath;
+
+/**
+ * Rejects fixes, which are less accurate than <code>maxAccuracy</code> or which would require a speed above
+ * <code>maxSpeed</code> from the last accepted fix. The distance is reduced by the accuracy of the fix, so jitter of a
+ * precise fix is never rejected.
+ * <p>
+ * After <code>MAX_CONSECUTIVE_REJECTS</code> rejected fixes the next fix is accepted, so a wrong first fix doesn't block all
+ * following ones.
+ */
+public class SpeedOutlierFilter implements PositionFilter {
+
+    public static final double DEFAULT_MAX_SPEED       = 12;
+    public static final float  DEFAULT_MAX_ACCURACY    = 50;
+
+    private static final int   MAX_CONSECUTIVE_REJECTS = 5;
+
+    private final double       maxSpeed;
+    private final float        maxAccuracy;
+
+    private boolean            hasLastFix;
+    private long               lastTime;
+    private double             lastLatitude;
+    private double             lastLongitude;
+    private int                consecutiveRejects;
+
+    public SpeedOutlierFilter() {
+        this(DEFAULT_MAX_SPEED, DEFAULT_MAX_ACCURACY);
+    }
+
+    /**
+     * @param maxSpeed
+     *            in meters per second
+     * @param maxAccuracy
+     *            in meters, fixes with an unknown accuracy are not rejected because of their accuracy
+     */
+    public SpeedOutlierFilter(double maxSpeed, float maxAccuracy) {
+        this.maxSpeed = maxSpeed;
+        this.maxAccuracy = maxAccuracy;
+    }
+
+    @Override
+    public boolean filter(Fix fix) {
+        if (fix.getAccuracy() > maxAccuracy) {
+            return false;
+        }
+        if (hasLastFix && consecutiveRejects < MAX_CONSECUTIVE_REJECTS) {
+            long duration = fix.getTime() - lastTime;
+            if (duration <= 0) {
+                consecutiveRejects++;
+                return false;
+            }
+            double distance = GeoMath.fastDistance(lastLatitude, lastLongitude, fix.getLatitude(), fix.getLongitude()) - fix.getAccuracy();
+            if (distance > maxSpeed * duration / 1000) {
+                consecutiveRejects++;
+                return false;
+            }
+        }
+        hasLastFix = true;
+        lastTime = fix.getTime();
+        lastLatitude = fix.getLatitude();
+        lastLongitude = fix.getLongitude();
+        consecutiveRejects = 0;
+        return true;
+    }
+
+    @Override
+    public void reset() {
+        hasLastFix = false;
+        consecutiveRejects = 0;
+    }
+
+}
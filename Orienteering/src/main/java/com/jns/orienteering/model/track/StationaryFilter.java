@@ -0,0 +1,95 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.track;
+
+import com.jns.orienteering.util.GeoMath;
+
+/**
+ * Detects, that the device doesn't move, and pins the fixes to an anchor meanwhile, so GPS jitter doesn't add distance.
+ * <p>
+ * A fix within the radius around the anchor gets the coordinates of the anchor. The first fix outside the radius becomes the
+ * new anchor, so the distance moved is still counted, just in steps of at least the radius. The radius is
+ * <code>minRadius</code> or <code>accuracyFactor</code> times the accuracy of the fix, whatever is larger.
+ */
+public class StationaryFilter implements PositionFilter {
+
+    public static final double DEFAULT_MIN_RADIUS      = 5;
+    public static final double DEFAULT_ACCURACY_FACTOR = 1;
+
+    private final double       minRadius;
+    private final double       accuracyFactor;
+
+    private boolean            hasAnchor;
+    private double             anchorLatitude;
+    private double             anchorLongitude;
+    private boolean            stationary;
+
+    public StationaryFilter() {
+        this(DEFAULT_MIN_RADIUS, DEFAULT_ACCURACY_FACTOR);
+    }
+
+    /**
+     * @param minRadius
+     *            in meters
+     */
+    public StationaryFilter(double minRadius, double accuracyFactor) {
+        this.minRadius = minRadius;
+        this.accuracyFactor = accuracyFactor;
+    }
+
+    @Override
+    public boolean filter(Fix fix) {
+        double radius = Math.max(minRadius, accuracyFactor * fix.getAccuracy());
+
+        if (hasAnchor && GeoMath.fastDistance(anchorLatitude, anchorLongitude, fix.getLatitude(), fix.getLongitude()) < radius) {
+            fix.setCoordinates(anchorLatitude, anchorLongitude);
+            stationary = true;
+        } else {
+            hasAnchor = true;
+            anchorLatitude = fix.getLatitude();
+            anchorLongitude = fix.getLongitude();
+            stationary = false;
+        }
+        return true;
+    }
+
+    /**
+     * @return true, if the last fix was pinned to the anchor
+     */
+    public boolean isStationary() {
+        return stationary;
+    }
+
+    @Override
+    public void reset() {
+        hasAnchor = false;
+        stationary = false;
+    }
+
+}
@@ -0,0 +1,310 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.track;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A GPS track, which stores its samples (time, latitude, longitude, accuracy) without an object per sample.
+ * <p>
+ * Coordinates are stored as fixed point values in 1e-7 degrees, the accuracy in decimeters. Every value is stored as the
+ * zig-zag varint encoded delta to the previous sample in byte chunks. The first sample of a chunk is stored absolute, so
+ * every chunk can be decoded on its own. A sample at 1 Hz walking speed takes about 7 bytes.
+ * <p>
+ * Chunks are sealed, when they are full or by {@link #seal()}. Sealed chunks never change, so they can be appended to a
+ * file, while the track is still recorded (see {@link #write(OutputStream, Chunk)} and {@link #read(InputStream)}).
+ * <p>
+ * A track is not thread safe. Sealed {@link Chunk}s may be passed to other threads.
+ */
+public class Track {
+
+    private static final int    CHUNK_CAPACITY   = 4096;
+
+    private static final int    MAX_SAMPLE_BYTES = 10 + 5 + 5 + 5;
+    private static final double COORDINATE_SCALE = 1e7;
+    private static final float  ACCURACY_SCALE   = 10f;
+
+    private final List<Chunk>   sealedChunks     = new ArrayList<>();
+
+    private byte[]              buffer           = new byte[CHUNK_CAPACITY];
+    private int                 bufferLength;
+    private int                 bufferSamples;
+
+    private int                 sampleCount;
+    private long                lastTime;
+    private int                 lastLatitude;
+    private int                 lastLongitude;
+    private int                 lastAccuracy;
+
+    public void append(long timeMillis, double latitude, double longitude, float accuracy) {
+        if (bufferLength + MAX_SAMPLE_BYTES > buffer.length) {
+            seal();
+        }
+        int latitudeE7 = (int) Math.round(latitude * COORDINATE_SCALE);
+        int longitudeE7 = (int) Math.round(longitude * COORDINATE_SCALE);
+        int accuracyDm = Math.round(accuracy * ACCURACY_SCALE);
+
+        if (bufferSamples == 0) {
+            writeVarLong(timeMillis);
+            writeVarInt(latitudeE7);
+            writeVarInt(longitudeE7);
+            writeVarInt(accuracyDm);
+        } else {
+            writeVarLong(timeMillis - lastTime);
+            writeVarInt(latitudeE7 - lastLatitude);
+            writeVarInt(longitudeE7 - lastLongitude);
+            writeVarInt(accuracyDm - lastAccuracy);
+        }
+        lastTime = timeMillis;
+        lastLatitude = latitudeE7;
+        lastLongitude = longitudeE7;
+        lastAccuracy = accuracyDm;
+
+        bufferSamples++;
+        sampleCount++;
+    }
+
+    /**
+     * Seals the current chunk, if it contains samples. The next sample starts a new chunk.
+     *
+     * @return the sealed chunk or null, if the current chunk was empty
+     */
+    public Chunk seal() {
+        if (bufferSamples == 0) {
+            return null;
+        }
+        Chunk chunk = new Chunk(Arrays.copyOf(buffer, bufferLength), bufferSamples);
+        sealedChunks.add(chunk);
+        bufferLength = 0;
+        bufferSamples = 0;
+        return chunk;
+    }
+
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return the number of bytes used by the samples
+     */
+    public int getSizeInBytes() {
+        int size = bufferLength;
+        for (Chunk chunk : sealedChunks) {
+            size += chunk.data.length;
+        }
+        return size;
+    }
+
+    /**
+     * @return a reader positioned before the first sample
+     */
+    public Reader reader() {
+        return new Reader();
+    }
+
+    private void writeVarInt(int value) {
+        writeVarLong(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[bufferLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[bufferLength++] = (byte) value;
+    }
+
+    /**
+     * Writes a sealed chunk as a record of byte length, sample count and data
+     */
+    public static void write(OutputStream output, Chunk chunk) throws IOException {
+        DataOutputStream dataOutput = new DataOutputStream(output);
+        dataOutput.writeInt(chunk.data.length);
+        dataOutput.writeInt(chunk.samples);
+        dataOutput.write(chunk.data);
+        dataOutput.flush();
+    }
+
+    /**
+     * Reads the chunks written by {@link #write(OutputStream, Chunk)}. An incomplete last record, e.g. after the app was
+     * killed while writing, is skipped.
+     */
+    public static Track read(InputStream input) throws IOException {
+        Track track = new Track();
+        DataInputStream dataInput = new DataInputStream(input);
+        while (true) {
+            byte[] data;
+            int samples;
+            try {
+                data = new byte[dataInput.readInt()];
+                samples = dataInput.readInt();
+                dataInput.readFully(data);
+
+            } catch (EOFException ex) {
+                return track;
+            }
+            track.sealedChunks.add(new Chunk(data, samples));
+            track.sampleCount += samples;
+        }
+    }
+
+    /**
+     * A sealed, immutable part of a track
+     */
+    public static final class Chunk {
+
+        private final byte[] data;
+        private final int    samples;
+
+        private Chunk(byte[] data, int samples) {
+            this.data = data;
+            this.samples = samples;
+        }
+
+        public int getSamples() {
+            return samples;
+        }
+    }
+
+    /**
+     * Iterates the samples of a track without creating objects. The values of the current sample are returned by the
+     * getters after {@link #next()} returned true.
+     */
+    public final class Reader {
+
+        private int    chunkIdx;
+        private byte[] data;
+        private int    dataLength;
+        private int    position;
+        private int    chunkSamplesRead;
+        private int    chunkSamples;
+
+        private long   time;
+        private int    latitude;
+        private int    longitude;
+        private int    accuracy;
+
+        private Reader() {
+            loadChunk();
+        }
+
+        private void loadChunk() {
+            if (chunkIdx < sealedChunks.size()) {
+                Chunk chunk = sealedChunks.get(chunkIdx);
+                data = chunk.data;
+                dataLength = chunk.data.length;
+                chunkSamples = chunk.samples;
+            } else {
+                data = buffer;
+                dataLength = bufferLength;
+                chunkSamples = bufferSamples;
+            }
+            position = 0;
+            chunkSamplesRead = 0;
+        }
+
+        public boolean next() {
+            while (chunkSamplesRead == chunkSamples) {
+                if (chunkIdx >= sealedChunks.size()) {
+                    return false;
+                }
+                chunkIdx++;
+                loadChunk();
+            }
+            if (chunkSamplesRead == 0) {
+                time = readVarLong();
+                latitude = readVarInt();
+                longitude = readVarInt();
+                accuracy = readVarInt();
+            } else {
+                time += readVarLong();
+                latitude += readVarInt();
+                longitude += readVarInt();
+                accuracy += readVarInt();
+            }
+            chunkSamplesRead++;
+            return true;
+        }
+
+        /**
+         * Skips up to <code>count</code> samples
+         *
+         * @return the number of skipped samples
+         */
+        public int skip(int count) {
+            int skipped = 0;
+            while (skipped < count && next()) {
+                skipped++;
+            }
+            return skipped;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public double getLatitude() {
+            return latitude / COORDINATE_SCALE;
+        }
+
+        public double getLongitude() {
+            return longitude / COORDINATE_SCALE;
+        }
+
+        public float getAccuracy() {
+            return accuracy / ACCURACY_SCALE;
+        }
+
+        private int readVarInt() {
+            int value = (int) readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+
+}
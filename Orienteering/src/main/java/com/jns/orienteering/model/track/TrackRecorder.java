@@ -0,0 +1,260 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.track;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.gluonhq.charm.down.plugins.Position;
+import com.jns.orienteering.model.common.Lane;
+import com.jns.orienteering.model.common.Scheduler;
+import com.jns.orienteering.model.repo.image.ImageHandler;
+import com.jns.orienteering.model.track.Track.Chunk;
+import com.jns.orienteering.platform.PlatformProvider;
+
+/**
+ * Records the positions of an active mission into a {@link Track} and appends the track incrementally to a file in the
+ * private storage.
+ * <p>
+ * Every <code>FLUSH_INTERVAL</code> samples the current chunk is sealed and written on the {@link Lane#WRITE} lane, so at most
+ * the samples of the last interval are lost, if the app is killed during a run. {@link #record(Position, float)} is expected to
+ * be called from a single thread, e.g. the FX application thread.
+ * <p>
+ * The track is recorded to <code>tracks/&lt;id&gt;.trk.rec</code> and renamed to <code>tracks/&lt;id&gt;.trk</code> by
+ * {@link #close()}, when the stat of the run is saved. A recording of a run, which was killed, is closed into its track file
+ * on the next start by {@link #recoverUnsavedTracksAsync()}, unless it is older than <code>MAX_RECORDING_AGE</code>. The stats reference the track by its id, so it is uploaded with
+ * {@link #upload(String)} to the storage and downloaded by {@link #readTrack(String)} on other devices.
+ */
+public class TrackRecorder {
+
+    private static final Logger LOGGER           = LoggerFactory.getLogger(TrackRecorder.class);
+
+    private static final String TRACKS_DIR        = "tracks";
+    private static final String FILE_SUFFIX       = ".trk";
+    private static final String RECORDING_SUFFIX  = ".rec";
+
+    private static final int    FLUSH_INTERVAL    = 60;
+    /** recordings of killed runs, which weren't written for this time, are deleted instead of recovered */
+    private static final long   MAX_RECORDING_AGE = TimeUnit.DAYS.toMillis(7);
+
+    private final String        trackId;
+    private final File          file;
+    private final File          recordingFile;
+    private final Track         track             = new Track();
+
+    private final Queue<Chunk>  pendingChunks     = new ConcurrentLinkedQueue<>();
+    private final Object        fileLock          = new Object();
+    private int                 unflushedSamples;
+
+    public TrackRecorder(String trackId, File file) {
+        this.trackId = trackId;
+        this.file = file;
+        recordingFile = new File(file.getPath() + RECORDING_SUFFIX);
+    }
+
+    /**
+     * Creates a recorder, which writes to the track file of <code>trackId</code> in the private storage
+     */
+    public static TrackRecorder create(String trackId) {
+        return new TrackRecorder(trackId, getTrackFile(trackId));
+    }
+
+    private static File getTrackFile(String trackId) {
+        return PlatformProvider.getPlatformService().getStorage().getPrivateFile(TRACKS_DIR + File.separator + trackId + FILE_SUFFIX);
+    }
+
+    private static String getTrackUrl(String trackId) {
+        return TRACKS_DIR + "/" + trackId + FILE_SUFFIX;
+    }
+
+    /**
+     * Reads the track of <code>trackId</code> from the private storage. A track, which was recorded on another device, is
+     * downloaded first.
+     *
+     * @return the track or null, if there is no track file
+     */
+    public static Track readTrack(String trackId) throws IOException {
+        File trackFile = getTrackFile(trackId);
+        if (!trackFile.isFile() && !ImageHandler.getStorage().download(getTrackUrl(trackId), trackFile)) {
+            return null;
+        }
+        try (BufferedInputStream input = new BufferedInputStream(new FileInputStream(trackFile))) {
+            return Track.read(input);
+
+        } catch (IOException ex) {
+            LOGGER.error("Failed to read track: '{}'", trackFile, ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Uploads the saved track of <code>trackId</code> to the storage
+     */
+    public static void upload(String trackId) throws IOException {
+        File trackFile = getTrackFile(trackId);
+        if (!trackFile.isFile()) {
+            LOGGER.warn("No saved track: '{}'", trackFile);
+            return;
+        }
+        ImageHandler.getStorage().upload(trackFile, getTrackUrl(trackId));
+    }
+
+    /**
+     * Closes the recordings of runs, which were killed before their stat was saved, into their track files, so they can still
+     * be read with {@link #readTrack(String)}. Only recordings, which weren't written for <code>MAX_RECORDING_AGE</code>, are
+     * deleted. Recordings, which are started after this call, are kept as they are.
+     */
+    public static void recoverUnsavedTracksAsync() {
+        long startTime = System.currentTimeMillis();
+        Scheduler.execute(Lane.WRITE, () ->
+        {
+            File[] recordings = PlatformProvider.getPlatformService().getStorage().getPrivateFile(TRACKS_DIR)
+                                                .listFiles((dir, name) -> name.endsWith(FILE_SUFFIX + RECORDING_SUFFIX));
+            if (recordings == null) {
+                return;
+            }
+            for (File recording : recordings) {
+                long lastModified = recording.lastModified();
+                if (lastModified >= startTime) {
+                    continue;
+                }
+                if (startTime - lastModified > MAX_RECORDING_AGE) {
+                    if (!recording.delete()) {
+                        LOGGER.error("Failed to delete expired track: '{}'", recording);
+                    }
+                    continue;
+                }
+                String path = recording.getPath();
+                File trackFile = new File(path.substring(0, path.length() - RECORDING_SUFFIX.length()));
+                if (trackFile.exists() || !recording.renameTo(trackFile)) {
+                    LOGGER.error("Failed to recover track: '{}'", recording);
+                } else {
+                    LOGGER.info("Recovered track: '{}'", trackFile);
+                }
+            }
+        });
+    }
+
+    public String getTrackId() {
+        return trackId;
+    }
+
+    public Track getTrack() {
+        return track;
+    }
+
+    public int getSampleCount() {
+        return track.getSampleCount();
+    }
+
+    public void record(Position position, float accuracy) {
+        record(System.currentTimeMillis(), position.getLatitude(), position.getLongitude(), accuracy);
+    }
+
+    public void record(long timeMillis, double latitude, double longitude, float accuracy) {
+        track.append(timeMillis, latitude, longitude, accuracy);
+
+        if (++unflushedSamples >= FLUSH_INTERVAL) {
+            flush();
+        }
+    }
+
+    /**
+     * Seals the current chunk and appends all sealed chunks to the file in the background
+     */
+    public void flush() {
+        Chunk chunk = track.seal();
+        unflushedSamples = 0;
+        if (chunk != null) {
+            pendingChunks.add(chunk);
+            Scheduler.execute(Lane.WRITE, this::writePendingChunks);
+        }
+    }
+
+    /**
+     * Writes the remaining samples and saves the track, i.e. renames the recording to the track file. The recorder must not
+     * be used afterwards.
+     */
+    public void close() {
+        Chunk chunk = track.seal();
+        if (chunk != null) {
+            pendingChunks.add(chunk);
+        }
+        synchronized (fileLock) {
+            writePendingChunks();
+            if (recordingFile.exists() && !recordingFile.renameTo(file)) {
+                LOGGER.error("Failed to save track: '{}'", recordingFile);
+            }
+        }
+    }
+
+    /**
+     * Discards the track and deletes its recording
+     */
+    public void delete() {
+        pendingChunks.clear();
+        Scheduler.execute(Lane.WRITE, () ->
+        {
+            synchronized (fileLock) {
+                if (recordingFile.exists() && !recordingFile.delete()) {
+                    LOGGER.error("Failed to delete track: '{}'", recordingFile);
+                }
+            }
+        });
+    }
+
+    private void writePendingChunks() {
+        synchronized (fileLock) {
+            if (pendingChunks.isEmpty()) {
+                return;
+            }
+            try (OutputStream output = new FileOutputStream(recordingFile, true)) {
+                Chunk chunk;
+                while ((chunk = pendingChunks.peek()) != null) {
+                    Track.write(output, chunk);
+                    pendingChunks.poll();
+                }
+
+            } catch (IOException ex) {
+                LOGGER.error("Failed to write track: '{}'", recordingFile, ex);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.platform;
+
+import com.gluonhq.charm.down.plugins.Position;
+import com.jns.orienteering.model.track.Fix;
+import com.jns.orienteering.model.track.PositionFilter;
+
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.value.ChangeListener;
+
+/**
+ * Passes the positions of another position service through a {@link PositionFilter}. Rejected positions are dropped, a new
+ * position is only published, if the filtered coordinates changed. Apart from the published {@link Position} no objects are
+ * created per fix.
+ */
+public class FilteredPositionService implements PositionServiceExtended {
+
+    private final PositionServiceExtended          delegate;
+    private final PositionFilter                   filter;
+
+    private final Fix                              fix              = new Fix();
+    private final ObjectProperty<Position>         positionProperty = new SimpleObjectProperty<>();
+
+    private final ChangeListener<? super Position> positionListener = (ov, p, p1) ->
+    {
+        if (p1 != null) {
+            onPosition(p1);
+        }
+    };
+
+    public FilteredPositionService(PositionServiceExtended delegate, PositionFilter filter) {
+        this.delegate = delegate;
+        this.filter = filter;
+
+        ReadOnlyObjectProperty<Position> source = delegate.positionProperty();
+        source.addListener(positionListener);
+        if (source.get() != null) {
+            onPosition(source.get());
+        }
+    }
+
+    private void onPosition(Position position) {
+        fix.set(delegate.getTime(), position.getLatitude(), position.getLongitude(), delegate.getAccuracy());
+        if (!filter.filter(fix)) {
+            return;
+        }
+
+        Position current = positionProperty.get();
+        if (current == null || current.getLatitude() != fix.getLatitude() || current.getLongitude() != fix.getLongitude()) {
+            positionProperty.set(new Position(fix.getLatitude(), fix.getLongitude()));
+        }
+    }
+
+    @Override
+    public ReadOnlyObjectProperty<Position> positionProperty() {
+        return positionProperty;
+    }
+
+    @Override
+    public Position getPosition() {
+        return positionProperty.get();
+    }
+
+    @Override
+    public float getDistance(Position start, Position end) {
+        return delegate.getDistance(start, end);
+    }
+
+    @Override
+    public boolean isInRadius(Position currentPosition, Position targetPosition, double radius) {
+        return delegate.isInRadius(currentPosition, targetPosition, radius);
+    }
+
+    @Override
+    public float getAccuracy() {
+        return delegate.getAccuracy();
+    }
+
+    @Override
+    public long getTime() {
+        return delegate.getTime();
+    }
+
+    /**
+     * Resets the filter, so the fixes before the activation don't affect the following ones, and activates the delegate
+     */
+    @Override
+    public void activate() {
+        filter.reset();
+        delegate.activate();
+    }
+
+    @Override
+    public void deactivate() {
+        delegate.deactivate();
+    }
+
+}
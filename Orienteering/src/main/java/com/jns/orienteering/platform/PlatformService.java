@@ -44,6 +44,8 @@ public interface PlatformService {
 
     InfoService getInfoService();
 
+    ImageEncoder getImageEncoder();
+
     NodePositionAdjuster getNodePositionAdjuster(Parent parent, ObservableValue<Node> focusOwner);
 
     void removeNodePositionAdjuster();
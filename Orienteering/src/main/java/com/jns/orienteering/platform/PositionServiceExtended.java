@@ -37,4 +37,14 @@ public interface PositionServiceExtended extends PositionService, ActivatableDea
     float getDistance(Position start, Position end);
 
     boolean isInRadius(Position currentPosition, Position targetPosition, double radius);
+
+    /**
+     * @return the accuracy of the current position in meters or 0, if it is unknown
+     */
+    float getAccuracy();
+
+    /**
+     * @return the time of the current position in milliseconds since the epoch
+     */
+    long getTime();
 }
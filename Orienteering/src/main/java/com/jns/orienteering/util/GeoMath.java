@@ -0,0 +1,232 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.util;
+
+/**
+ * Distances, bearings and bounding boxes on the earth. All coordinates are in degrees, all distances in meters.
+ * <p>
+ * The methods don't create objects: results, which consist of several values, are written to arrays passed by the caller.
+ * {@link #distance(double, double, double, double)} (haversine on a sphere) is accurate to about 0.5%, which is enough
+ * for the app. {@link #vincentyDistance(double, double, double, double)} is accurate to millimeters on the WGS-84 ellipsoid,
+ * but several times slower. {@link #fastDistance(double, double, double, double)} is meant for fixes a few hundred meters
+ * apart.
+ */
+public final class GeoMath {
+
+    /** mean radius of the earth in meters */
+    public static final double  EARTH_RADIUS            = 6371008.8;
+
+    /** indices of the values of a bounding box */
+    public static final int     MIN_LATITUDE            = 0;
+    public static final int     MIN_LONGITUDE           = 1;
+    public static final int     MAX_LATITUDE            = 2;
+    public static final int     MAX_LONGITUDE           = 3;
+    public static final int     BOUNDING_BOX_SIZE       = 4;
+
+    private static final double WGS84_A                 = 6378137.0;
+    private static final double WGS84_F                 = 1 / 298.257223563;
+    private static final double WGS84_B                 = WGS84_A * (1 - WGS84_F);
+
+    private static final int    VINCENTY_MAX_ITERATIONS = 200;
+    private static final double VINCENTY_TOLERANCE      = 1e-12;
+
+    private GeoMath() {
+    }
+
+    /**
+     * @return the great circle distance with the haversine formula
+     */
+    public static double distance(double latitude, double longitude, double latitude1, double longitude1) {
+        double lat = Math.toRadians(latitude);
+        double lat1 = Math.toRadians(latitude1);
+        double sinDeltaLat = Math.sin((lat1 - lat) / 2);
+        double sinDeltaLon = Math.sin(Math.toRadians(longitude1 - longitude) / 2);
+
+        double a = sinDeltaLat * sinDeltaLat + Math.cos(lat) * Math.cos(lat1) * sinDeltaLon * sinDeltaLon;
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * @return the distance with the equirectangular approximation, which needs a single cosine
+     */
+    public static double fastDistance(double latitude, double longitude, double latitude1, double longitude1) {
+        double x = Math.toRadians(longitude1 - longitude) * Math.cos(Math.toRadians((latitude + latitude1) / 2));
+        double y = Math.toRadians(latitude1 - latitude);
+        return Math.sqrt(x * x + y * y) * EARTH_RADIUS;
+    }
+
+    /**
+     * @return the distance on the WGS-84 ellipsoid with the inverse formula of Vincenty. For nearly antipodal points, where
+     *         the formula doesn't converge, the haversine distance is returned.
+     */
+    public static double vincentyDistance(double latitude, double longitude, double latitude1, double longitude1) {
+        double deltaLon = Math.toRadians(longitude1 - longitude);
+        double u1 = Math.atan((1 - WGS84_F) * Math.tan(Math.toRadians(latitude)));
+        double u2 = Math.atan((1 - WGS84_F) * Math.tan(Math.toRadians(latitude1)));
+        double sinU1 = Math.sin(u1);
+        double cosU1 = Math.cos(u1);
+        double sinU2 = Math.sin(u2);
+        double cosU2 = Math.cos(u2);
+
+        double lambda = deltaLon;
+        double sinSigma;
+        double cosSigma;
+        double sigma;
+        double cosSqAlpha;
+        double cos2SigmaM;
+
+        for (int iteration = 0; iteration < VINCENTY_MAX_ITERATIONS; iteration++) {
+            double sinLambda = Math.sin(lambda);
+            double cosLambda = Math.cos(lambda);
+            double x = cosU2 * sinLambda;
+            double y = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+            sinSigma = Math.sqrt(x * x + y * y);
+            if (sinSigma == 0) {
+                return 0;
+            }
+            cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+            sigma = Math.atan2(sinSigma, cosSigma);
+
+            double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+            cosSqAlpha = 1 - sinAlpha * sinAlpha;
+            // on the equator cosSqAlpha is 0
+            cos2SigmaM = cosSqAlpha == 0 ? 0 : cosSigma - 2 * sinU1 * sinU2 / cosSqAlpha;
+
+            double c = WGS84_F / 16 * cosSqAlpha * (4 + WGS84_F * (4 - 3 * cosSqAlpha));
+            double previousLambda = lambda;
+            lambda = deltaLon + (1 - c) * WGS84_F * sinAlpha
+                    * (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+
+            if (Math.abs(lambda - previousLambda) < VINCENTY_TOLERANCE) {
+                double uSq = cosSqAlpha * (WGS84_A * WGS84_A - WGS84_B * WGS84_B) / (WGS84_B * WGS84_B);
+                double a = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+                double b = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+                double deltaSigma = b * sinSigma * (cos2SigmaM + b / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+                        - b / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+                return WGS84_B * a * (sigma - deltaSigma);
+            }
+        }
+        return distance(latitude, longitude, latitude1, longitude1);
+    }
+
+    /**
+     * @return the initial bearing from the first to the second point in degrees in the range [0, 360), 0 is north
+     */
+    public static double bearing(double latitude, double longitude, double latitude1, double longitude1) {
+        double lat = Math.toRadians(latitude);
+        double lat1 = Math.toRadians(latitude1);
+        double deltaLon = Math.toRadians(longitude1 - longitude);
+
+        double y = Math.sin(deltaLon) * Math.cos(lat1);
+        double x = Math.cos(lat) * Math.sin(lat1) - Math.sin(lat) * Math.cos(lat1) * Math.cos(deltaLon);
+        double bearing = Math.toDegrees(Math.atan2(y, x));
+        return bearing < 0 ? bearing + 360 : bearing;
+    }
+
+    public static boolean isInRadius(double latitude, double longitude, double targetLatitude, double targetLongitude, double radius) {
+        return distance(latitude, longitude, targetLatitude, targetLongitude) <= radius;
+    }
+
+    /**
+     * Writes the bounding box of the circle with <code>radius</code> around the point to <code>box</code>, indexed by
+     * {@link #MIN_LATITUDE}, {@link #MIN_LONGITUDE}, {@link #MAX_LATITUDE} and {@link #MAX_LONGITUDE}. Near the poles the
+     * box spans all longitudes. A box crossing the antimeridian has a min longitude below -180 or a max longitude above 180.
+     */
+    public static void boundingBox(double latitude, double longitude, double radius, double[] box) {
+        double deltaLat = Math.toDegrees(radius / EARTH_RADIUS);
+        double minLat = latitude - deltaLat;
+        double maxLat = latitude + deltaLat;
+
+        double deltaLon;
+        if (minLat <= -90 || maxLat >= 90) {
+            minLat = Math.max(minLat, -90);
+            maxLat = Math.min(maxLat, 90);
+            deltaLon = 180;
+        } else {
+            deltaLon = Math.toDegrees(Math.asin(Math.min(1, Math.sin(radius / EARTH_RADIUS) / Math.cos(Math.toRadians(latitude)))));
+        }
+        box[MIN_LATITUDE] = minLat;
+        box[MIN_LONGITUDE] = deltaLon == 180 ? -180 : longitude - deltaLon;
+        box[MAX_LATITUDE] = maxLat;
+        box[MAX_LONGITUDE] = deltaLon == 180 ? 180 : longitude + deltaLon;
+    }
+
+    /**
+     * Writes the bounding box of the first <code>count</code> points to <code>box</code> (see
+     * {@link #boundingBox(double, double, double, double[])})
+     */
+    public static void boundingBox(double[] latitudes, double[] longitudes, int count, double[] box) {
+        if (count == 0) {
+            throw new IllegalArgumentException("count must be at least 1");
+        }
+        double minLat = latitudes[0];
+        double maxLat = latitudes[0];
+        double minLon = longitudes[0];
+        double maxLon = longitudes[0];
+        for (int idx = 1; idx < count; idx++) {
+            minLat = Math.min(minLat, latitudes[idx]);
+            maxLat = Math.max(maxLat, latitudes[idx]);
+            minLon = Math.min(minLon, longitudes[idx]);
+            maxLon = Math.max(maxLon, longitudes[idx]);
+        }
+        box[MIN_LATITUDE] = minLat;
+        box[MIN_LONGITUDE] = minLon;
+        box[MAX_LATITUDE] = maxLat;
+        box[MAX_LONGITUDE] = maxLon;
+    }
+
+    /**
+     * Writes the distances from the point to the first <code>count</code> points to <code>distances</code>
+     */
+    public static void distances(double latitude, double longitude, double[] latitudes, double[] longitudes, int count,
+                                 double[] distances) {
+        double lat = Math.toRadians(latitude);
+        double cosLat = Math.cos(lat);
+        for (int idx = 0; idx < count; idx++) {
+            double lat1 = Math.toRadians(latitudes[idx]);
+            double sinDeltaLat = Math.sin((lat1 - lat) / 2);
+            double sinDeltaLon = Math.sin(Math.toRadians(longitudes[idx] - longitude) / 2);
+
+            double a = sinDeltaLat * sinDeltaLat + cosLat * Math.cos(lat1) * sinDeltaLon * sinDeltaLon;
+            distances[idx] = 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+        }
+    }
+
+    /**
+     * @return the length of the path through the first <code>count</code> points
+     */
+    public static double pathLength(double[] latitudes, double[] longitudes, int count) {
+        double length = 0;
+        for (int idx = 1; idx < count; idx++) {
+            length += distance(latitudes[idx - 1], longitudes[idx - 1], latitudes[idx], longitudes[idx]);
+        }
+        return length;
+    }
+
+}
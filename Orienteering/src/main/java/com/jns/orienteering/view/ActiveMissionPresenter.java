@@ -28,6 +28,7 @@
  */
 package com.jns.orienteering.view;
 
+import static com.jns.orienteering.util.DateTimeFormatters.createTimeStamp;
 import static com.jns.orienteering.util.Validations.isNullOrEmpty;
 
 import java.time.LocalTime;
@@ -53,8 +54,13 @@ import com.jns.orienteering.model.persisted.MissionStat;
 import com.jns.orienteering.model.persisted.Task;
 import com.jns.orienteering.model.persisted.TaskStat;
 import com.jns.orienteering.model.persisted.TrackData;
+import com.jns.orienteering.model.repo.AsyncResultReceiver;
 import com.jns.orienteering.model.repo.MissionStatFBRepo;
+import com.jns.orienteering.model.track.PositionFilterChain;
+import com.jns.orienteering.model.track.TrackRecorder;
+import com.jns.orienteering.platform.FilteredPositionService;
 import com.jns.orienteering.platform.PositionServiceExtended;
+import com.jns.orienteering.util.GeoMath;
 
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.value.ChangeListener;
@@ -160,7 +166,7 @@ public class ActiveMissionPresenter extends BasePresenter {
     }
 
     private void initMaps() {
-        positionService = platformService().getPositionService();
+        positionService = new FilteredPositionService(platformService().getPositionService(), PositionFilterChain.createDefault());
         position = positionService.positionProperty();
 
         mapCompactHelper = new MapHelper(mapCompact, position.get());
@@ -281,8 +287,8 @@ public class ActiveMissionPresenter extends BasePresenter {
             updateCurrentPosition(p1);
 
             if (!statsCollector.isMissionFinished()) {
-                float distance = positionService.getDistance(p, p1);
-                statsCollector.addDistance(distance);
+                statsCollector.addDistance(p, p1);
+                statsCollector.recordPosition(p1);
 
                 checkInTargetRadius(p1);
             }
@@ -300,7 +306,9 @@ public class ActiveMissionPresenter extends BasePresenter {
     }
 
     private void checkInTargetRadius(Position position) {
-        boolean inTargetRadius = positionService.isInRadius(position, activeTask.getPosition(), TARGET_RADIUS);
+        Position target = activeTask.getPosition();
+        boolean inTargetRadius = GeoMath.isInRadius(position.getLatitude(), position.getLongitude(), target.getLatitude(),
+                                                    target.getLongitude(), TARGET_RADIUS);
         if (inTargetRadius) {
             advanceTask(COMPLETED);
             notifyTaskCompleted();
@@ -361,6 +369,7 @@ public class ActiveMissionPresenter extends BasePresenter {
 
     private void onStopMission() {
         if (!statsCollector.missionStat.isCompleted()) {
+            statsCollector.discardTrack();
             clearView();
             return;
         }
@@ -368,7 +377,12 @@ public class ActiveMissionPresenter extends BasePresenter {
         DialogAnswer cancelOkAnswer = Dialogs.cancelOkAnswer(localize("view.activeMission.question.saveStat"), localize("button.cancel"), localize(
                                                                                                                                                    "button.save"));
         if (cancelOkAnswer.isYesOrOk()) {
-            missionStatCloudRepo.createOrUpdate(statsCollector.missionStat);
+            statsCollector.closeTrack();
+            AsyncResultReceiver.create(missionStatCloudRepo.createOrUpdateAsync(statsCollector.missionStat))
+                               .exceptionMessage(localize("view.activeMission.error.saveStat"))
+                               .start();
+        } else {
+            statsCollector.discardTrack();
         }
         clearView();
     }
@@ -391,23 +405,49 @@ public class ActiveMissionPresenter extends BasePresenter {
 
     private class StatsCollector {
 
-        private MissionStat missionStat;
-        private TrackData   trackData;
-        private int         start;
+        private MissionStat   missionStat;
+        private TrackData     trackData;
+        private int           start;
+
+        private TrackRecorder trackRecorder;
+        private int           trackStart;
 
         private void start() {
             start = LocalTime.now().toSecondOfDay();
             missionStat = new MissionStat(mission, service.getUserId(), start);
             trackData = new TrackData();
+
+            trackRecorder = TrackRecorder.create(mission.getId() + "_" + createTimeStamp());
+            trackStart = 0;
+            missionStat.setTrackId(trackRecorder.getTrackId());
+        }
+
+        private void addDistance(Position start, Position end) {
+            double distance = GeoMath.distance(start.getLatitude(), start.getLongitude(), end.getLatitude(), end.getLongitude());
+            trackData.addDistance((float) distance);
         }
 
-        private void addDistance(float distance) {
-            trackData.addDistance(distance);
+        private void recordPosition(Position position) {
+            trackRecorder.record(positionService.getTime(), position.getLatitude(), position.getLongitude(),
+                                 positionService.getAccuracy());
+        }
+
+        private void closeTrack() {
+            trackRecorder.close();
+        }
+
+        private void discardTrack() {
+            trackRecorder.delete();
         }
 
         private void updateTaskStat() {
             int end = LocalTime.now().toSecondOfDay();
 
+            int trackEnd = trackRecorder.getSampleCount();
+            trackData.setTrack(trackRecorder.getTrackId(), trackStart, trackEnd - trackStart);
+            missionStat.setTrackLength(trackEnd);
+            trackStart = trackEnd;
+
             TaskStat taskStat = new TaskStat(activeTask, trackData);
             taskStat.setStart(start);
             taskStat.setEnd(end);
@@ -423,6 +463,7 @@ public class ActiveMissionPresenter extends BasePresenter {
 
         private void setMissionFinished() {
             missionStat.setFinished(true);
+            trackRecorder.flush();
         }
     }
 
@@ -77,6 +77,7 @@ import com.jns.orienteering.model.persisted.City;
 import com.jns.orienteering.model.persisted.LocalCityList;
 import com.jns.orienteering.model.repo.AsyncResultReceiver;
 import com.jns.orienteering.model.repo.CityFBRepo;
+import com.jns.orienteering.model.repo.ListDelta;
 import com.jns.orienteering.model.repo.LocalRepo;
 
 import javafx.application.Platform;
@@ -199,7 +200,7 @@ public class CitiesPresenter extends BasePresenter {
                                .defaultProgressLayer()
                                .onSuccess(e ->
                                {
-                                   localRepo.createOrUpdateListAsync(new LocalCityList(CityCache.INSTANCE.getPublicCities()));
+                                   localRepo.updateListAsync(new ListDelta<City>().delete(city.getId()));
                                    localCityCache.remove(city);
                                })
                                .start();
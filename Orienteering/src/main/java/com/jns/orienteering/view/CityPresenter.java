@@ -44,6 +44,7 @@ import com.jns.orienteering.model.persisted.City;
 import com.jns.orienteering.model.persisted.LocalCityList;
 import com.jns.orienteering.model.repo.AsyncResultReceiver;
 import com.jns.orienteering.model.repo.CityFBRepo;
+import com.jns.orienteering.model.repo.ListDelta;
 import com.jns.orienteering.model.repo.LocalRepo;
 import com.jns.orienteering.util.SpecialCharReplacer;
 import com.jns.orienteering.util.Validations;
@@ -162,7 +163,7 @@ public class CityPresenter extends BasePresenter {
                                }
                                cityCache.put(result.get());
 
-                               localRepo.createOrUpdateListAsync(new LocalCityList(cityCache.getPublicCities()));
+                               localRepo.updateListAsync(new ListDelta<City>().upsert(result.get()));
                            })
                            .setInitializedOnSuccess(obsSuccessful)
                            .propagateException(obsSuccessful)
@@ -206,7 +207,7 @@ public class CityPresenter extends BasePresenter {
                            .onSuccess(result ->
                            {
                                cityCache.remove(city);
-                               localRepo.createOrUpdateListAsync(new LocalCityList(cityCache.getPublicCities()));
+                               localRepo.updateListAsync(new ListDelta<City>().delete(city.getId()));
                                showPreviousView();
                            })
                            .start();
@@ -41,6 +41,7 @@ import com.jns.orienteering.control.Icon;
 import com.jns.orienteering.control.ScrollListener;
 import com.jns.orienteering.model.persisted.Task;
 import com.jns.orienteering.platform.PositionHelper;
+import com.jns.orienteering.util.GeoMath;
 
 import javafx.css.PseudoClass;
 import javafx.scene.Node;
@@ -51,6 +52,18 @@ public class MapHelper {
     private static final PseudoClass PSEUDO_CLASS_MARKER_ACTIVE    = PseudoClass.getPseudoClass("active");
     private static final PseudoClass PSEUDO_CLASS_MARKER_COMPLETED = PseudoClass.getPseudoClass("completed");
 
+    private static final double      DEFAULT_ZOOM                  = 14;
+    private static final double      MIN_FIT_ZOOM                  = 3;
+    /** meters per pixel of the tiles at zoom level 0 on the equator */
+    private static final double      METERS_PER_PIXEL              = 2 * Math.PI * 6378137 / 256;
+    /** fraction of the map, which is covered by the markers after fitting */
+    private static final double      FIT_FILL_RATIO                = 0.8;
+    private static final double      FALLBACK_MAP_SIZE             = 300;
+
+    private final double[]           boundingBox                   = new double[GeoMath.BOUNDING_BOX_SIZE];
+    private double[]                 latitudes                     = new double[0];
+    private double[]                 longitudes                    = new double[0];
+
     private MapView                  map;
     private LocationLayer            locationLayer                 = new LocationLayer();
     private LocationLayer            currentLocationLayer          = new LocationLayer();
@@ -102,7 +115,48 @@ public class MapHelper {
             points.add(task.getMapPoint());
         }
         locationLayer.setPoints(points);
-        centerMap(tasks.get(0).getPosition());
+        fitMap(tasks);
+    }
+
+    /**
+     * Centers the map on the bounding box of the tasks and zooms in as far as all of them stay visible
+     */
+    private void fitMap(List<Task> tasks) {
+        int count = tasks.size();
+        if (latitudes.length < count) {
+            latitudes = new double[count];
+            longitudes = new double[count];
+        }
+        for (int idx = 0; idx < count; idx++) {
+            Position position = tasks.get(idx).getPosition();
+            latitudes[idx] = position.getLatitude();
+            longitudes[idx] = position.getLongitude();
+        }
+        GeoMath.boundingBox(latitudes, longitudes, count, boundingBox);
+
+        double minLat = boundingBox[GeoMath.MIN_LATITUDE];
+        double maxLat = boundingBox[GeoMath.MAX_LATITUDE];
+        double minLon = boundingBox[GeoMath.MIN_LONGITUDE];
+        double maxLon = boundingBox[GeoMath.MAX_LONGITUDE];
+        double centerLat = (minLat + maxLat) / 2;
+        double centerLon = (minLon + maxLon) / 2;
+
+        double width = GeoMath.distance(centerLat, minLon, centerLat, maxLon);
+        double height = GeoMath.distance(minLat, centerLon, maxLat, centerLon);
+        double metersPerPixel = METERS_PER_PIXEL * Math.cos(Math.toRadians(centerLat));
+        double zoom = Math.min(zoomToFit(width, map.getWidth(), metersPerPixel), zoomToFit(height, map.getHeight(), metersPerPixel));
+
+        map.setCenter(centerLat + .00001, centerLon + .00001);
+        map.setCenter(centerLat, centerLon);
+        map.setZoom(Math.max(MIN_FIT_ZOOM, Math.min(DEFAULT_ZOOM, Math.floor(zoom))));
+    }
+
+    private static double zoomToFit(double extent, double mapSize, double metersPerPixel) {
+        if (extent == 0) {
+            return DEFAULT_ZOOM;
+        }
+        double pixels = (mapSize > 0 ? mapSize : FALLBACK_MAP_SIZE) * FIT_FILL_RATIO;
+        return Math.log(metersPerPixel * pixels / extent) / Math.log(2);
     }
 
     public void removeMarker(Task task) {
@@ -126,7 +180,7 @@ public class MapHelper {
         }
         map.setCenter(position.getLatitude() + .00001, position.getLongitude() + .00001);
         map.setCenter(position.getLatitude(), position.getLongitude());
-        map.setZoom(14);
+        map.setZoom(DEFAULT_ZOOM);
     }
 
     public void updateCurrentLocation(Position position) {
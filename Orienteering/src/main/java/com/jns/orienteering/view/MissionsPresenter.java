@@ -124,8 +124,15 @@ public class MissionsPresenter extends ListViewPresenter<Mission> {
 
     private void onSelectMission(Mission mission) {
         if (mission != null) {
-            service.setSelectedMission(mission);
-            showView(ViewRegistry.MISSION);
+            AsyncResultReceiver.create(cloudRepo.resolveAsync(mission))
+                               .defaultProgressLayer()
+                               .onSuccess(result ->
+                               {
+                                   service.setSelectedMission(result.get());
+                                   showView(ViewRegistry.MISSION);
+                               })
+                               .exceptionMessage(localize("view.missions.error.loadMission"))
+                               .start();
         }
     }
 
@@ -135,8 +142,15 @@ public class MissionsPresenter extends ListViewPresenter<Mission> {
             return;
         }
 
-        service.setActiveMission(mission);
-        showView(ViewRegistry.HOME);
+        AsyncResultReceiver.create(cloudRepo.resolveAsync(mission))
+                           .defaultProgressLayer()
+                           .onSuccess(result ->
+                           {
+                               service.setActiveMission(result.get());
+                               showView(ViewRegistry.HOME);
+                           })
+                           .exceptionMessage(localize("view.missions.error.loadMission"))
+                           .start();
     }
 
     private void onDeleteMission(Mission mission) {
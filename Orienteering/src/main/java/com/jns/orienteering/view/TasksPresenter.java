@@ -34,18 +34,23 @@ import static com.jns.orienteering.control.Dialogs.showInfo;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.gluonhq.charm.down.plugins.Position;
 import com.gluonhq.charm.glisten.layout.MobileLayoutPane;
 import com.gluonhq.charm.glisten.layout.layer.FloatingActionButton;
 import com.gluonhq.connect.GluonObservableList;
 import com.gluonhq.connect.GluonObservableObject;
 import com.jns.orienteering.control.Icon;
+import com.jns.orienteering.control.StateButton;
 import com.jns.orienteering.control.cell.TaskCellSmall;
+import com.jns.orienteering.model.common.SpatialIndex;
 import com.jns.orienteering.model.dynamic.MissionCache;
 import com.jns.orienteering.model.dynamic.ModelCache;
 import com.jns.orienteering.model.dynamic.TaskCache;
+import com.jns.orienteering.model.persisted.AccessType;
 import com.jns.orienteering.model.persisted.Task;
 import com.jns.orienteering.model.repo.AsyncResultReceiver;
 import com.jns.orienteering.model.repo.TaskFBRepo;
+import com.jns.orienteering.platform.PositionHelper;
 
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -54,13 +59,18 @@ import javafx.scene.control.Button;
 
 public class TasksPresenter extends ListViewPresenter<Task> {
 
+    /** number of tasks, which are shown nearest first instead of all tasks, if the near me mode is on */
+    private static final int  NEAR_ME_COUNT = 20;
+
     @FXML
-    private MobileLayoutPane innerView;
+    private MobileLayoutPane  innerView;
+
+    private StateButton<Void> tglNearMe     = Icon.Buttons.nearMe();
 
-    private TaskFBRepo       cloudRepo;
-    private TaskCache        taskCache;
+    private TaskFBRepo        cloudRepo;
+    private TaskCache         taskCache;
 
-    private List<Task>       missionTasks;
+    private List<Task>        missionTasks;
 
     @Override
     protected void initialize() {
@@ -71,6 +81,7 @@ public class TasksPresenter extends ListViewPresenter<Task> {
 
         lview.setComparator(Task::compareTo);
         lview.setOnSelection(this::onSelectTask);
+        tglNearMe.setOnAction(this::populateListView);
 
         initActionBar();
 
@@ -101,9 +112,9 @@ public class TasksPresenter extends ListViewPresenter<Task> {
     @Override
     protected void initAppBar() {
         if (isMissionEditorModus()) {
-            setAppBar(createBackButton(), getTitle(), btnRefresh, tglAccessType);
+            setAppBar(createBackButton(), getTitle(), btnRefresh, tglNearMe, tglAccessType);
         } else {
-            setAppBar(createGoHomeButton(), getTitle(), btnRefresh, tglAccessType, choiceCity);
+            setAppBar(createGoHomeButton(), getTitle(), btnRefresh, tglNearMe, tglAccessType, choiceCity);
         }
     }
 
@@ -144,15 +155,42 @@ public class TasksPresenter extends ListViewPresenter<Task> {
             return;
         }
 
+        if (tglNearMe.isSelected()) {
+            AsyncResultReceiver.create(taskCache.getTaskIndexAsync(cityId, service.getUserId()))
+                               .defaultProgressLayer()
+                               .onSuccess(result -> showTasksNearMe(result.get()))
+                               .start();
+            return;
+        }
+
         GluonObservableList<Task> obsTasks =
                 isPrivateAccess() ? taskCache.getPrivateItems(cityId, service.getUserId()) : taskCache.getPublicItems(cityId);
 
         AsyncResultReceiver.create(obsTasks)
                            .defaultProgressLayer()
-                           .onSuccess(lview::setSortableItems)
+                           .onSuccess(this::showTasks)
                            .start();
     }
 
+    private void showTasks(GluonObservableList<Task> tasks) {
+        lview.setComparator(Task::compareTo);
+        lview.setSortableItems(tasks);
+    }
+
+    private void showTasksNearMe(SpatialIndex<Task> taskIndex) {
+        Position position = platformService().getPositionService().getPosition();
+        if (position == null) {
+            position = PositionHelper.retrieveStartPosition();
+        }
+        AccessType accessType = tglAccessType.getSelectState().get();
+        List<Task> tasks = taskIndex.nearest(position.getLatitude(), position.getLongitude(), NEAR_ME_COUNT,
+                                             task -> task.getAccessType() == accessType);
+
+        // keeps the order by distance
+        lview.setComparator(null);
+        lview.setSortableItems(FXCollections.observableArrayList(tasks));
+    }
+
     private void updateCellFactory() {
         if (isMissionEditorModus()) {
             lview.setCellFactory(
@@ -174,8 +212,15 @@ public class TasksPresenter extends ListViewPresenter<Task> {
 
     private void onSelectTask(Task task) {
         if (task != null) {
-            service.setSelectedTask(task);
-            showView(ViewRegistry.TASK);
+            AsyncResultReceiver.create(cloudRepo.resolveAsync(task))
+                               .defaultProgressLayer()
+                               .onSuccess(result ->
+                               {
+                                   service.setSelectedTask(result.get());
+                                   showView(ViewRegistry.TASK);
+                               })
+                               .exceptionMessage(localize("view.tasks.error.loadTask"))
+                               .start();
         }
     }
 
@@ -0,0 +1,201 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jns.orienteering.model.persisted.Locatable;
+import com.jns.orienteering.util.GeoMath;
+
+/**
+ * Compares the queries of the {@link SpatialIndex} with a brute force search over 5000 random points around a city
+ */
+public class SpatialIndexTest {
+
+    private static final int    POINT_COUNT = 5000;
+    private static final int    QUERY_COUNT = 300;
+    private static final double LATITUDE    = 50;
+    private static final double LONGITUDE   = 8.6;
+
+    private Random              random;
+    private List<Point>         points;
+    private SpatialIndex<Point> index;
+
+    @Before
+    public void setUp() {
+        random = new Random(42);
+        points = new ArrayList<>();
+        index = new SpatialIndex<>();
+
+        for (int idx = 0; idx < POINT_COUNT; idx++) {
+            add(new Point(idx, LATITUDE + random.nextGaussian() * 0.05, LONGITUDE + random.nextGaussian() * 0.08));
+        }
+        // far away from all other points, so a query has to leave the cells around the city
+        add(new Point(POINT_COUNT, -33.9, 151.2));
+    }
+
+    private void add(Point point) {
+        points.add(point);
+        index.add(point);
+    }
+
+    @Test
+    public void nearestMatchesBruteForce() {
+        for (int query = 0; query < QUERY_COUNT; query++) {
+            double[] location = queryLocation(query);
+            int count = 1 + random.nextInt(20);
+
+            assertThat(index.nearest(location[0], location[1], count)).as("query %d", query)
+                                                                      .containsExactlyElementsOf(nearest(location, count, null));
+        }
+    }
+
+    @Test
+    public void nearestWithFilterMatchesBruteForce() {
+        Predicate<Point> filter = point -> point.id % 3 == 0;
+
+        for (int query = 0; query < QUERY_COUNT; query++) {
+            double[] location = queryLocation(query);
+            int count = 1 + random.nextInt(20);
+
+            assertThat(index.nearest(location[0], location[1], count, filter)).as("query %d", query)
+                                                                              .containsExactlyElementsOf(nearest(location, count, filter));
+        }
+    }
+
+    @Test
+    public void withinRadiusMatchesBruteForce() {
+        for (int query = 0; query < QUERY_COUNT; query++) {
+            double[] location = queryLocation(query);
+            double radius = 50 + random.nextDouble() * 2000;
+
+            assertThat(index.withinRadius(location[0], location[1], radius)).as("query %d", query)
+                                                                            .containsExactlyElementsOf(withinRadius(location, radius));
+        }
+    }
+
+    @Test
+    public void removedPointsAreNotFound() {
+        for (Point point : new ArrayList<>(points.subList(0, POINT_COUNT / 2))) {
+            assertThat(index.remove(point)).isTrue();
+            points.remove(point);
+        }
+        assertThat(index.size()).isEqualTo(points.size());
+
+        for (int query = 0; query < QUERY_COUNT; query++) {
+            double[] location = queryLocation(query);
+
+            assertThat(index.nearest(location[0], location[1], 10)).as("query %d", query)
+                                                                   .containsExactlyElementsOf(nearest(location, 10, null));
+            assertThat(index.withinRadius(location[0], location[1], 500)).as("query %d", query)
+                                                                         .containsExactlyElementsOf(withinRadius(location, 500));
+        }
+    }
+
+    /**
+     * @return a random location around the city, every 50th query a location far away from all points
+     */
+    private double[] queryLocation(int query) {
+        if (query % 50 == 0) {
+            return new double[] { -30, 140 };
+        }
+        return new double[] { LATITUDE + random.nextGaussian() * 0.1, LONGITUDE + random.nextGaussian() * 0.1 };
+    }
+
+    private List<Point> nearest(double[] location, int count, Predicate<Point> filter) {
+        List<Point> result = new ArrayList<>();
+        for (Point point : sortedByDistance(location)) {
+            if (result.size() == count) {
+                break;
+            }
+            if (filter == null || filter.test(point)) {
+                result.add(point);
+            }
+        }
+        return result;
+    }
+
+    private List<Point> withinRadius(double[] location, double radius) {
+        List<Point> result = new ArrayList<>();
+        for (Point point : sortedByDistance(location)) {
+            if (distance(location, point) <= radius) {
+                result.add(point);
+            }
+        }
+        return result;
+    }
+
+    private List<Point> sortedByDistance(double[] location) {
+        List<Point> sorted = new ArrayList<>(points);
+        sorted.sort(Comparator.comparingDouble(point -> distance(location, point)));
+        return sorted;
+    }
+
+    private static double distance(double[] location, Point point) {
+        return GeoMath.distance(location[0], location[1], point.latitude, point.longitude);
+    }
+
+    private static class Point implements Locatable {
+
+        private final int    id;
+        private final double latitude;
+        private final double longitude;
+
+        private Point(int id, double latitude, double longitude) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        @Override
+        public double getLatitude() {
+            return latitude;
+        }
+
+        @Override
+        public double getLongitude() {
+            return longitude;
+        }
+
+        @Override
+        public String toString() {
+            return "Point [id=" + id + "]";
+        }
+    }
+
+}
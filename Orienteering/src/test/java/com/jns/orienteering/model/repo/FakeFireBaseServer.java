@@ -0,0 +1,742 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonReader;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.JsonValue.ValueType;
+import javax.json.JsonWriter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stand-in for the firebase realtime database REST api, which serves the requests of the repos without the
+ * live backend.
+ * <p>
+ * Supported are the parts of the api, the app uses: <code>.json</code> paths, GET, PUT, POST (push), PATCH (multi-location
+ * update) and DELETE, the <code>x-http-method-override</code> parameter for PATCH and DELETE, <code>shallow</code> and
+ * the queries <code>orderBy</code> (<code>"$key"</code>, <code>"$value"</code> or a child path), <code>startAt</code>,
+ * <code>endAt</code>, <code>limitToFirst</code> and <code>limitToLast</code>. Values are ordered like firebase does:
+ * null, false, true, numbers, strings, objects. Arrays are stored as objects with index keys.
+ * <p>
+ * Each request can be delayed by a random latency and fail with a configurable rate. Stopping the server makes the
+ * clients fail with a connection failure, as if the device was offline.
+ * <p>
+ * {@link #start()} directs the {@link RestClientFactory} to the server, {@link #stop()} restores the previous host.
+ * Started with {@link #main(String[])}, the server can serve the desktop app, which is started with the system
+ * property <code>-Dorienteering.firebaseHost=http://localhost:port</code>.
+ */
+public class FakeFireBaseServer {
+
+    private static final Logger       LOGGER          = LoggerFactory.getLogger(FakeFireBaseServer.class);
+
+    private static final String       JSON_SUFFIX     = ".json";
+    private static final String       ENCODING        = "UTF-8";
+    private static final String       METHOD_OVERRIDE = "x-http-method-override";
+    private static final String       ORDER_BY_KEY    = "$key";
+    private static final String       ORDER_BY_VALUE  = "$value";
+    private static final int          DEFAULT_THREADS = 16;
+
+    private final int                 port;
+    private final String              credentials;
+    private final Map<String, Object> root            = new TreeMap<>();
+    private final ReadWriteLock       lock            = new ReentrantReadWriteLock();
+
+    private final AtomicLong          requestCount    = new AtomicLong();
+    private final AtomicLong          failureCount    = new AtomicLong();
+    private final AtomicInteger       failNext        = new AtomicInteger();
+
+    private volatile long             minLatencyMillis;
+    private volatile long             maxLatencyMillis;
+    private volatile double           failureRate;
+    private volatile int              failureStatus   = 503;
+
+    private HttpServer                server;
+    private ExecutorService           executor;
+    private String                    previousHost;
+    private String                    previousCredentials;
+
+    /**
+     * Creates a server on a free port, which accepts every request
+     */
+    public FakeFireBaseServer() {
+        this(0, null);
+    }
+
+    /**
+     * @param port
+     *            the port to listen on or 0 for a free port
+     * @param credentials
+     *            the expected value of the auth parameter or null to accept every request
+     */
+    public FakeFireBaseServer(int port, String credentials) {
+        this.port = port;
+        this.credentials = credentials;
+    }
+
+    /**
+     * Starts a server, which serves the desktop app.
+     * <p>
+     * Arguments: <code>[port [latencyMillis [failureRate]]]</code>
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        FakeFireBaseServer server = new FakeFireBaseServer(port, null);
+        if (args.length > 1) {
+            long latency = Long.parseLong(args[1]);
+            server.setLatency(latency, latency);
+        }
+        if (args.length > 2) {
+            server.setFailureRate(Double.parseDouble(args[2]));
+        }
+        server.start();
+        LOGGER.info("serving: {}", server.getHost());
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        executor = Executors.newFixedThreadPool(DEFAULT_THREADS, runnable ->
+        {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName("FakeFireBaseServerThread");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+
+        previousHost = RestClientFactory.getHost();
+        previousCredentials = RestClientFactory.getCredentials();
+        RestClientFactory.setHost(getHost(), credentials);
+    }
+
+    /**
+     * Stops the server, the stored data is kept for the next start
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+
+        RestClientFactory.setHost(previousHost, previousCredentials);
+    }
+
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+
+    public synchronized String getHost() {
+        if (server == null) {
+            throw new IllegalStateException("server is not running");
+        }
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Delays every response by a random time between <code>minMillis</code> and <code>maxMillis</code>
+     */
+    public void setLatency(long minMillis, long maxMillis) {
+        if (minMillis < 0 || maxMillis < minMillis) {
+            throw new IllegalArgumentException("invalid latency: " + minMillis + " - " + maxMillis);
+        }
+        minLatencyMillis = minMillis;
+        maxLatencyMillis = maxMillis;
+    }
+
+    /**
+     * @param rate
+     *            the share of requests between 0 and 1, which fail with the {@link #setFailureStatus(int) failure status}
+     */
+    public void setFailureRate(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("invalid failure rate: " + rate);
+        }
+        failureRate = rate;
+    }
+
+    public void setFailureStatus(int status) {
+        failureStatus = status;
+    }
+
+    /**
+     * Lets the next <code>count</code> requests fail with the {@link #setFailureStatus(int) failure status}
+     */
+    public void failNext(int count) {
+        failNext.set(count);
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    public void resetCounts() {
+        requestCount.set(0);
+        failureCount.set(0);
+    }
+
+    /**
+     * Writes <code>value</code> to <code>path</code> without a request, e.g. to seed a test data set
+     */
+    public void put(String path, JsonValue value) {
+        lock.writeLock().lock();
+        try {
+            set(segments(path), value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the value at <code>path</code> or {@link JsonValue#NULL}
+     */
+    public JsonValue get(String path) {
+        lock.readLock().lock();
+        try {
+            return toJson(find(segments(path)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        try {
+            delay();
+
+            Map<String, String> params = queryParameters(exchange.getRequestURI().getRawQuery());
+            if (shouldFail()) {
+                failureCount.incrementAndGet();
+                respond(exchange, failureStatus, error("Service Unavailable"));
+                return;
+            }
+            if (credentials != null && !credentials.equals(params.get("auth"))) {
+                respond(exchange, 401, error("Permission denied"));
+                return;
+            }
+
+            String uriPath = exchange.getRequestURI().getPath();
+            if (!uriPath.endsWith(JSON_SUFFIX)) {
+                respond(exchange, 400, error("Path must end with .json"));
+                return;
+            }
+            List<String> segments = segments(uriPath.substring(0, uriPath.length() - JSON_SUFFIX.length()));
+
+            String method = exchange.getRequestMethod();
+            if ("POST".equals(method) && params.containsKey(METHOD_OVERRIDE)) {
+                method = params.get(METHOD_OVERRIDE).toUpperCase();
+            }
+
+            switch (method) {
+                case "GET":
+                    respond(exchange, 200, read(segments, params));
+                    break;
+                case "PUT":
+                    respond(exchange, 200, write(segments, readBody(exchange)));
+                    break;
+                case "POST":
+                    respond(exchange, 200, push(segments, readBody(exchange)));
+                    break;
+                case "PATCH":
+                    respond(exchange, 200, patch(segments, readBody(exchange)));
+                    break;
+                case "DELETE":
+                    respond(exchange, 200, write(segments, JsonValue.NULL));
+                    break;
+                default:
+                    respond(exchange, 405, error("Method not allowed: " + method));
+            }
+
+        } catch (BadRequestException ex) {
+            respond(exchange, 400, error(ex.getMessage()));
+
+        } catch (RuntimeException ex) {
+            LOGGER.error("Failed to handle: {}", exchange.getRequestURI(), ex);
+            respond(exchange, 500, error(ex.toString()));
+
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void delay() {
+        long min = minLatencyMillis;
+        long max = maxLatencyMillis;
+        if (max == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(min == max ? min : ThreadLocalRandom.current().nextLong(min, max + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean shouldFail() {
+        int remaining = failNext.get();
+        while (remaining > 0) {
+            if (failNext.compareAndSet(remaining, remaining - 1)) {
+                return true;
+            }
+            remaining = failNext.get();
+        }
+        return failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate;
+    }
+
+    private JsonValue read(List<String> segments, Map<String, String> params) {
+        boolean shallow = "true".equals(params.get("shallow"));
+        String orderBy = params.containsKey("orderBy") ? unquote(params.get("orderBy")) : null;
+
+        if (orderBy == null && (params.containsKey("startAt") || params.containsKey("endAt") || params.containsKey("limitToFirst") ||
+                params.containsKey("limitToLast"))) {
+            throw new BadRequestException("orderBy must be defined when other query parameters are defined");
+        }
+        if (shallow && orderBy != null) {
+            throw new BadRequestException("shallow can not be used with any of the filtering parameters");
+        }
+
+        lock.readLock().lock();
+        try {
+            Object node = find(segments);
+            if (!(node instanceof Map)) {
+                return toJson(node);
+            }
+            @SuppressWarnings("unchecked")
+            Map<String, Object> children = (Map<String, Object>) node;
+
+            if (shallow) {
+                JsonObjectBuilder builder = Json.createObjectBuilder();
+                for (Map.Entry<String, Object> child : children.entrySet()) {
+                    if (child.getValue() instanceof Map) {
+                        builder.add(child.getKey(), true);
+                    } else {
+                        builder.add(child.getKey(), (JsonValue) child.getValue());
+                    }
+                }
+                return builder.build();
+            }
+            if (orderBy != null) {
+                return query(children, orderBy, params);
+            }
+            return toJson(node);
+
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private JsonValue query(Map<String, Object> children, String orderBy, Map<String, String> params) {
+        List<Map.Entry<String, Object>> entries = new ArrayList<>(children.entrySet());
+        Comparator<Map.Entry<String, Object>> byKey = (e1, e2) -> e1.getKey().compareTo(e2.getKey());
+        if (!ORDER_BY_KEY.equals(orderBy)) {
+            Collections.sort(entries, Comparator.<Map.Entry<String, Object>, Object> comparing(e -> orderValue(e, orderBy), FakeFireBaseServer::compare)
+                                                .thenComparing(byKey));
+        }
+
+        Object startAt = params.containsKey("startAt") ? parseValue(params.get("startAt")) : null;
+        Object endAt = params.containsKey("endAt") ? parseValue(params.get("endAt")) : null;
+
+        List<Map.Entry<String, Object>> result = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Object> entry : entries) {
+            Object value = orderValue(entry, orderBy);
+            if (startAt != null && compare(value, startAt) < 0) {
+                continue;
+            }
+            if (endAt != null && compare(value, endAt) > 0) {
+                continue;
+            }
+            result.add(entry);
+        }
+
+        if (params.containsKey("limitToFirst")) {
+            int limit = parseLimit(params.get("limitToFirst"));
+            result = result.subList(0, Math.min(limit, result.size()));
+        } else if (params.containsKey("limitToLast")) {
+            int limit = parseLimit(params.get("limitToLast"));
+            result = result.subList(Math.max(0, result.size() - limit), result.size());
+        }
+
+        JsonObjectBuilder builder = Json.createObjectBuilder();
+        for (Map.Entry<String, Object> entry : result) {
+            builder.add(entry.getKey(), toJson(entry.getValue()));
+        }
+        return builder.build();
+    }
+
+    private static Object orderValue(Map.Entry<String, Object> entry, String orderBy) {
+        if (ORDER_BY_KEY.equals(orderBy)) {
+            return Json.createArrayBuilder().add(entry.getKey()).build().get(0);
+        }
+        if (ORDER_BY_VALUE.equals(orderBy)) {
+            return entry.getValue();
+        }
+        Object node = entry.getValue();
+        for (String segment : segments(orderBy)) {
+            if (!(node instanceof Map)) {
+                return null;
+            }
+            node = ((Map<?, ?>) node).get(segment);
+        }
+        return node;
+    }
+
+    /**
+     * Orders values like firebase: null, false, true, numbers, strings, objects
+     */
+    private static int compare(Object value, Object other) {
+        int rank = Integer.compare(rank(value), rank(other));
+        if (rank != 0) {
+            return rank;
+        }
+        if (value instanceof JsonNumber) {
+            return ((JsonNumber) value).bigDecimalValue().compareTo(((JsonNumber) other).bigDecimalValue());
+        }
+        if (value instanceof JsonString) {
+            return ((JsonString) value).getString().compareTo(((JsonString) other).getString());
+        }
+        return 0;
+    }
+
+    private static int rank(Object value) {
+        if (value == null || value == JsonValue.NULL) {
+            return 0;
+        }
+        if (value instanceof Map) {
+            return 5;
+        }
+        switch (((JsonValue) value).getValueType()) {
+            case FALSE:
+                return 1;
+            case TRUE:
+                return 2;
+            case NUMBER:
+                return 3;
+            case STRING:
+                return 4;
+            default:
+                return 5;
+        }
+    }
+
+    private static int parseLimit(String value) {
+        try {
+            int limit = Integer.parseInt(value);
+            if (limit < 1) {
+                throw new BadRequestException("limit must be positive: " + value);
+            }
+            return limit;
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("limit must be a number: " + value);
+        }
+    }
+
+    private JsonValue write(List<String> segments, JsonValue value) {
+        lock.writeLock().lock();
+        try {
+            set(segments, value);
+            return value;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private JsonValue push(List<String> segments, JsonValue value) {
+        String name = PushIdCreator.pushId();
+        List<String> childSegments = new ArrayList<>(segments);
+        childSegments.add(name);
+        write(childSegments, value);
+        return Json.createObjectBuilder().add("name", name).build();
+    }
+
+    /**
+     * Writes every child of <code>updates</code>, the keys may be paths relative to <code>segments</code>. The update is
+     * applied atomically.
+     */
+    private JsonValue patch(List<String> segments, JsonValue updates) {
+        if (updates.getValueType() != ValueType.OBJECT) {
+            throw new BadRequestException("Invalid data; couldn't parse JSON object");
+        }
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, JsonValue> update : ((JsonObject) updates).entrySet()) {
+                List<String> updateSegments = new ArrayList<>(segments);
+                updateSegments.addAll(segments(update.getKey()));
+                set(updateSegments, update.getValue());
+            }
+            return updates;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Object find(List<String> segments) {
+        Object node = root;
+        for (String segment : segments) {
+            if (!(node instanceof Map)) {
+                return null;
+            }
+            node = ((Map<?, ?>) node).get(segment);
+        }
+        return node;
+    }
+
+    /**
+     * Sets <code>value</code> at <code>segments</code>, a null or empty value removes the node and all of its parents,
+     * which become empty
+     */
+    @SuppressWarnings("unchecked")
+    private void set(List<String> segments, JsonValue value) {
+        Object node = toNode(value);
+        if (segments.isEmpty()) {
+            root.clear();
+            if (node instanceof Map) {
+                root.putAll((Map<String, Object>) node);
+            }
+            return;
+        }
+
+        List<Map<String, Object>> parents = new ArrayList<>(segments.size());
+        Map<String, Object> parent = root;
+        for (int i = 0; i < segments.size() - 1; i++) {
+            parents.add(parent);
+            Object child = parent.get(segments.get(i));
+            if (!(child instanceof Map)) {
+                if (node == null) {
+                    return;
+                }
+                child = new TreeMap<String, Object>();
+                parent.put(segments.get(i), child);
+            }
+            parent = (Map<String, Object>) child;
+        }
+
+        String key = segments.get(segments.size() - 1);
+        if (node != null) {
+            parent.put(key, node);
+            return;
+        }
+        parent.remove(key);
+        for (int i = parents.size() - 1; i >= 0 && parent.isEmpty(); i--) {
+            parents.get(i).remove(segments.get(i));
+            parent = parents.get(i);
+        }
+    }
+
+    /**
+     * @return a map for objects and arrays, null for null and empty objects, otherwise the value
+     */
+    private static Object toNode(JsonValue value) {
+        if (value == null) {
+            return null;
+        }
+        switch (value.getValueType()) {
+            case NULL:
+                return null;
+            case OBJECT:
+                return toNode(((JsonObject) value).entrySet());
+            case ARRAY:
+                Map<String, JsonValue> elements = new HashMap<>();
+                JsonArray array = (JsonArray) value;
+                for (int i = 0; i < array.size(); i++) {
+                    elements.put(Integer.toString(i), array.get(i));
+                }
+                return toNode(elements.entrySet());
+            default:
+                return value;
+        }
+    }
+
+    private static Object toNode(Iterable<Map.Entry<String, JsonValue>> children) {
+        Map<String, Object> map = new TreeMap<>();
+        for (Map.Entry<String, JsonValue> child : children) {
+            Object node = toNode(child.getValue());
+            if (node != null) {
+                map.put(child.getKey(), node);
+            }
+        }
+        return map.isEmpty() ? null : map;
+    }
+
+    private static JsonValue toJson(Object node) {
+        if (node == null) {
+            return JsonValue.NULL;
+        }
+        if (node instanceof Map) {
+            JsonObjectBuilder builder = Json.createObjectBuilder();
+            for (Map.Entry<?, ?> child : ((Map<?, ?>) node).entrySet()) {
+                builder.add((String) child.getKey(), toJson(child.getValue()));
+            }
+            return builder.build();
+        }
+        return (JsonValue) node;
+    }
+
+    private static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static Map<String, String> queryParameters(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String param : rawQuery.split("&")) {
+            int separator = param.indexOf('=');
+            String key = separator < 0 ? param : param.substring(0, separator);
+            String value = separator < 0 ? "" : param.substring(separator + 1);
+            params.put(URLDecoder.decode(key, ENCODING), URLDecoder.decode(value, ENCODING));
+        }
+        return params;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+        throw new BadRequestException("orderBy must be a valid JSON encoded path: " + value);
+    }
+
+    /**
+     * Parses a query value like firebase: a json string, number, boolean or null
+     */
+    private static JsonValue parseValue(String value) {
+        try (JsonReader reader = Json.createReader(new StringReader("[" + value + "]"))) {
+            JsonArray array = reader.readArray();
+            if (array.size() != 1) {
+                throw new BadRequestException("Invalid query value: " + value);
+            }
+            return array.get(0);
+        } catch (JsonException ex) {
+            throw new BadRequestException("Invalid query value: " + value);
+        }
+    }
+
+    private static JsonValue readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream input = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return parseValue(body.toString(ENCODING).trim());
+    }
+
+    private static JsonValue error(String message) {
+        return Json.createObjectBuilder().add("error", message).build();
+    }
+
+    private static void respond(HttpExchange exchange, int status, JsonValue body) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        try (JsonWriter writer = Json.createWriter(stringWriter)) {
+            writer.write(Json.createArrayBuilder().add(body).build());
+        }
+        // javax.json writes structures only, the value is unwrapped from the array
+        String json = stringWriter.toString();
+        byte[] bytes = json.substring(1, json.length() - 1).getBytes(ENCODING);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static class BadRequestException extends RuntimeException {
+
+        private BadRequestException(String message) {
+            super(message);
+        }
+    }
+
+}
@@ -0,0 +1,245 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.jns.orienteering.model.persisted.AccessType;
+import com.jns.orienteering.model.persisted.Task;
+import com.jns.orienteering.model.repo.readerwriter.JsonCodec;
+
+/**
+ * Runs parallel readers and writers on one {@link FireBaseRepo} against the {@link FakeFireBaseServer} and checks,
+ * that every request gets its own result, e.g. that no request reads the stream of another one, and that the throughput
+ * scales with the number of threads, i.e. that the requests don't serialize on shared state of the repo.
+ */
+public class FireBaseRepoConcurrencyTest {
+
+    private static final Logger LOGGER              = LoggerFactory.getLogger(FireBaseRepoConcurrencyTest.class);
+
+    private static final String TASKS               = "tasks";
+    private static final int    CITIES              = 8;
+    private static final int    TASKS_EACH          = 25;
+    private static final int    THREADS             = 8;
+    private static final int    ITERATIONS          = 150;
+
+    private static final int[]  SCALING_THREADS     = { 1, 2, 4, 8 };
+    private static final long   SCALING_LATENCY     = 10;
+    private static final int    SCALING_REQUESTS    = 40;
+    /** min speedup of 8 threads over 1 thread; with the injected latency a linear scaling would give 8 */
+    private static final double MIN_SCALING_SPEEDUP = 4;
+
+    private FakeFireBaseServer  server;
+    private FireBaseRepo<Task>  repo;
+    private List<Task>          tasks;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new FakeFireBaseServer();
+        tasks = new ArrayList<>();
+
+        JsonCodec<Task> codec = JsonCodec.forClass(Task.class);
+        for (int city = 0; city < CITIES; city++) {
+            for (int idx = 0; idx < TASKS_EACH; idx++) {
+                Task task = createTask("city" + city, "task" + city + "_" + idx);
+                server.put(UrlBuilder.buildPath(TASKS, task.getCityId(), task.getId()), codec.write(task));
+                tasks.add(task);
+            }
+        }
+        server.setLatency(0, 2);
+        server.start();
+
+        repo = new FireBaseRepo<>(Task.class, TASKS);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void parallelReadersAndWritersGetTheirOwnResults() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                results.add(executor.submit(worker(thread)));
+            }
+            for (Future<Integer> result : results) {
+                assertThat(result.get()).isEqualTo(ITERATIONS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads tasks with 1, 2, 4 and 8 threads against a server with a fixed latency and logs the ops/s of every thread count.
+     * The latency dominates the time of a request, so the throughput grows with the number of threads, unless the requests
+     * are serialized.
+     */
+    @Test
+    public void throughputScalesWithThreadCount() throws Exception {
+        server.setLatency(SCALING_LATENCY, SCALING_LATENCY);
+        // warm up the connections, codecs and the JIT
+        runReaders(SCALING_THREADS[SCALING_THREADS.length - 1]);
+
+        double[] opsPerSec = new double[SCALING_THREADS.length];
+        for (int i = 0; i < SCALING_THREADS.length; i++) {
+            opsPerSec[i] = runReaders(SCALING_THREADS[i]);
+            LOGGER.info("threads: {}, ops/s: {}", SCALING_THREADS[i], String.format("%.1f", opsPerSec[i]));
+        }
+
+        for (int i = 1; i < opsPerSec.length; i++) {
+            assertThat(opsPerSec[i]).isGreaterThan(opsPerSec[i - 1]);
+        }
+        assertThat(opsPerSec[opsPerSec.length - 1] / opsPerSec[0]).isGreaterThan(MIN_SCALING_SPEEDUP);
+    }
+
+    /**
+     * @return the ops/s of <code>threads</code> threads, which read <code>SCALING_REQUESTS</code> tasks each
+     */
+    private double runReaders(int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> readers = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                readers.add(() ->
+                {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int request = 0; request < SCALING_REQUESTS; request++) {
+                        readTask(tasks.get(random.nextInt(tasks.size())));
+                    }
+                    return null;
+                });
+            }
+
+            long start = System.nanoTime();
+            for (Future<Void> result : executor.invokeAll(readers)) {
+                result.get();
+            }
+            long nanos = System.nanoTime() - start;
+            return threads * SCALING_REQUESTS * 1e9 / nanos;
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Each worker only writes the tasks with <code>idx % THREADS == thread</code>, so it knows the description, which it
+     * has to read back
+     */
+    private Callable<Integer> worker(int thread) {
+        return () ->
+        {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int completed = 0;
+            for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                switch (random.nextInt(3)) {
+                    case 0:
+                        writeAndReadBack(ownTask(thread, random), thread + "_" + iteration);
+                        break;
+                    case 1:
+                        readTask(tasks.get(random.nextInt(tasks.size())));
+                        break;
+                    default:
+                        readList("city" + random.nextInt(CITIES));
+                }
+                completed++;
+            }
+            return completed;
+        };
+    }
+
+    private Task ownTask(int thread, ThreadLocalRandom random) {
+        int idx = thread + THREADS * random.nextInt(tasks.size() / THREADS);
+        return tasks.get(idx);
+    }
+
+    private void writeAndReadBack(Task task, String description) throws IOException {
+        Task copy = createTask(task.getCityId(), task.getId());
+        copy.setDescription(description);
+        repo.createOrUpdate(copy, task.getCityId(), task.getId());
+
+        Task result = repo.retrieveObject(task.getCityId(), task.getId());
+        assertThat(result.getId()).isEqualTo(task.getId());
+        assertThat(result.getDescription()).isEqualTo(description);
+    }
+
+    private void readTask(Task task) throws IOException {
+        Task result = repo.retrieveObject(task.getCityId(), task.getId());
+        assertThat(result.getId()).isEqualTo(task.getId());
+        assertThat(result.getCityId()).isEqualTo(task.getCityId());
+        assertThat(result.getTaskName()).isEqualTo(task.getTaskName());
+    }
+
+    private void readList(String cityId) throws IOException {
+        int count = 0;
+        Iterator<Task> it = repo.listReader(RestRequest.get(repo.buildUrlFromRelativePath(cityId))).iterator();
+        while (it.hasNext()) {
+            Task task = it.next();
+            assertThat(task.getCityId()).isEqualTo(cityId);
+            assertThat(task.getId()).startsWith("task" + cityId.substring("city".length()) + "_");
+            count++;
+        }
+        assertThat(count).isEqualTo(TASKS_EACH);
+    }
+
+    private static Task createTask(String cityId, String id) {
+        Task task = new Task();
+        task.setId(id);
+        task.setCityId(cityId);
+        task.setOwnerId("owner");
+        task.setTaskName("name_" + id);
+        task.setDescription("description");
+        task.setLatitude(50);
+        task.setLongitude(8);
+        task.setPoints(10);
+        task.setAccessType(AccessType.PUBLIC);
+        return task;
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.jns.orienteering.model.persisted.City;
+
+public class LocalListJournalTest {
+
+    @Rule
+    public TemporaryFolder         folder = new TemporaryFolder();
+
+    private File                   journalFile;
+    private LocalListJournal<City> journal;
+
+    @Before
+    public void setUp() throws IOException {
+        File file = new File(folder.getRoot(), "cities.json");
+        journalFile = new File(folder.getRoot(), "cities.json.log");
+        journal = new LocalListJournal<>(file, City.class, "cities");
+    }
+
+    @Test
+    public void readReplaysJournalOnSnapshot() throws IOException {
+        journal.replace(Arrays.asList(city("a"), city("b")));
+        journal.append(new ListDelta<City>().delete("a").upsert(city("c")));
+
+        assertThat(ids(journal.read())).containsExactly("b", "c");
+    }
+
+    @Test
+    public void journalOfPreviousSnapshotIsIgnored() throws IOException {
+        journal.replace(Arrays.asList(city("a"), city("b")));
+        journal.append(new ListDelta<City>().delete("a").upsert(city("c")));
+        byte[] previousJournal = Files.readAllBytes(journalFile.toPath());
+
+        journal.replace(Arrays.asList(city("x")));
+        // a crash between writing the snapshot and deleting the journal
+        Files.write(journalFile.toPath(), previousJournal);
+
+        assertThat(ids(journal.read())).containsExactly("x");
+
+        journal.append(new ListDelta<City>().upsert(city("y")));
+        assertThat(ids(journal.read())).containsExactly("x", "y");
+    }
+
+    @Test
+    public void everyGenerationIsWrittenToItsOwnSnapshot() throws IOException {
+        journal.replace(Arrays.asList(city("a"), city("b")));
+        List<City> previous = journal.read();
+
+        journal.replace(Arrays.asList(city("x")));
+
+        assertThat(ids(journal.read())).containsExactly("x");
+        // the mapping of the previous snapshot still reads, its file is deleted, where the platform allows it
+        assertThat(ids(previous)).containsExactly("a", "b");
+        assertThat(folder.getRoot().list((dir, name) -> name.endsWith(".bin"))).contains("cities.json.2.bin");
+    }
+
+    private static City city(String id) {
+        City city = new City("name_" + id, "owner");
+        city.setId(id);
+        return city;
+    }
+
+    private static List<String> ids(List<City> cities) {
+        List<String> ids = new ArrayList<>();
+        for (City city : cities) {
+            ids.add(city.getId());
+        }
+        return ids;
+    }
+
+}
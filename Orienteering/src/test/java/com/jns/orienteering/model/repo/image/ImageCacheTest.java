@@ -0,0 +1,123 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ImageCacheTest {
+
+    private static final int    IMAGE_SIZE     = 200;
+    private static final long   MAX_DISK_BYTES = 100L * IMAGE_SIZE;
+
+    @Rule
+    public TemporaryFolder      folder         = new TemporaryFolder();
+
+    private File                imageStore;
+
+    @Before
+    public void setUp() throws IOException {
+        imageStore = folder.newFolder("images");
+    }
+
+    @Test
+    public void indexIsAppendedAndCompacted() throws IOException {
+        ImageCache cache = newCache();
+        for (int i = 0; i < 10 * ImageCache.MIN_COMPACT_LINES; i++) {
+            download(cache, url(i), IMAGE_SIZE);
+        }
+
+        // every add evicts an image, the outdated lines are dropped by the compaction
+        assertThat(indexLines()).isLessThanOrEqualTo(2 * ImageCache.MIN_COMPACT_LINES + 2);
+
+        ImageCache reloaded = newCache();
+        assertThat(reloaded.getStats().getDiskCount()).isEqualTo(100);
+        assertThat(reloaded.getCachedFile(url(10 * ImageCache.MIN_COMPACT_LINES - 1))).isNotNull();
+        assertThat(reloaded.getCachedFile(url(0))).isNull();
+    }
+
+    @Test
+    public void partOfAbortedDownloadIsCounted() throws IOException {
+        ImageCache cache = newCache();
+        for (int i = 0; i < 100; i++) {
+            download(cache, url(i), IMAGE_SIZE);
+        }
+        abortDownload(cache, "tasks/aborted.jpg", IMAGE_SIZE);
+
+        assertThat(cache.getStats().getDiskCount()).isEqualTo(99);
+        assertThat(cache.getStats().getDiskBytes()).isEqualTo(MAX_DISK_BYTES);
+        assertThat(newCache().getStats().getDiskBytes()).isEqualTo(MAX_DISK_BYTES);
+    }
+
+    @Test
+    public void partOfStaleDownloadIsExpired() throws IOException {
+        ImageCache cache = newCache();
+        File part = abortDownload(cache, "tasks/stale.jpg", IMAGE_SIZE);
+        part.setLastModified(System.currentTimeMillis() - ImageCache.MAX_PART_AGE - 1000);
+
+        assertThat(newCache().getStats().getDiskBytes()).isZero();
+        assertThat(part).doesNotExist();
+    }
+
+    private ImageCache newCache() {
+        return new ImageCache(imageStore, ImageCache.DEFAULT_MAX_MEMORY_BYTES, MAX_DISK_BYTES);
+    }
+
+    private static void download(ImageCache cache, String url, int size) throws IOException {
+        File target = cache.beginDownload(url);
+        target.getParentFile().mkdirs();
+        Files.write(target.toPath(), new byte[size]);
+        cache.addFile(url);
+    }
+
+    private static File abortDownload(ImageCache cache, String url, int size) throws IOException {
+        File part = new PartFile(cache.beginDownload(url)).getFile();
+        part.getParentFile().mkdirs();
+        Files.write(part.toPath(), new byte[size]);
+        cache.abortDownload(url);
+        return part;
+    }
+
+    private int indexLines() throws IOException {
+        return Files.readAllLines(new File(imageStore, ".index").toPath()).size();
+    }
+
+    private static String url(int i) {
+        return "tasks/" + i + ".jpg";
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.model.repo.image;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LocalImageStorageTest {
+
+    private static final String URL    = "tasks/image.jpg";
+    private static final int    SIZE   = 3 * LocalImageStorage.CHUNK_SIZE + 1000;
+
+    @Rule
+    public TemporaryFolder      folder = new TemporaryFolder();
+
+    private LocalImageStorage   storage;
+    private File                source;
+    private File                target;
+
+    @Before
+    public void setUp() throws IOException {
+        File baseDir = folder.newFolder("storage");
+        storage = new LocalImageStorage(baseDir);
+        source = new File(baseDir, URL);
+        target = new File(folder.getRoot(), "cache/image.jpg");
+
+        source.getParentFile().mkdirs();
+        Files.write(source.toPath(), content(1));
+    }
+
+    @Test
+    public void partOfSameSourceIsResumed() throws IOException {
+        byte[] interrupted = new byte[LocalImageStorage.CHUNK_SIZE];
+        writePart(LocalImageStorage.version(source), interrupted);
+
+        assertThat(storage.download(URL, target)).isTrue();
+
+        // the part isn't read again, so the marker bytes of the interrupted transfer are kept
+        byte[] expected = content(1);
+        System.arraycopy(interrupted, 0, expected, 0, interrupted.length);
+        assertThat(Files.readAllBytes(target.toPath())).isEqualTo(expected);
+        assertThat(new File(target.getPath() + PartFile.PART_SUFFIX)).doesNotExist();
+    }
+
+    @Test
+    public void partOfChangedSourceIsRestarted() throws IOException {
+        writePart(LocalImageStorage.version(source), Arrays.copyOf(content(1), LocalImageStorage.CHUNK_SIZE));
+
+        Files.write(source.toPath(), content(2));
+        source.setLastModified(source.lastModified() + 2000);
+
+        assertThat(storage.download(URL, target)).isTrue();
+        assertThat(Files.readAllBytes(target.toPath())).isEqualTo(content(2));
+    }
+
+    @Test
+    public void downloadOfMissingUrlReturnsFalse() throws IOException {
+        assertThat(storage.download("tasks/missing.jpg", target)).isFalse();
+        assertThat(target).doesNotExist();
+    }
+
+    private void writePart(String version, byte[] content) throws IOException {
+        target.getParentFile().mkdirs();
+        try (FileChannel output = new PartFile(target).open(version, SIZE)) {
+            output.write(ByteBuffer.wrap(content));
+        }
+    }
+
+    private static byte[] content(long seed) {
+        byte[] content = new byte[SIZE];
+        new Random(seed).nextBytes(content);
+        return content;
+    }
+
+}
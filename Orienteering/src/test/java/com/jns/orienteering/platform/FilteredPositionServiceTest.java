@@ -0,0 +1,111 @@
+/*
+ *
+ *  Copyright 2016 - 2017, Jens Stroh
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ *  ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ *  WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ *  DISCLAIMED. IN NO EVENT SHALL JENS STROH BE LIABLE FOR ANY
+ *  DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ *  (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ *  LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ *  ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ *  (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ *  SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.jns.orienteering.platform;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.gluonhq.charm.down.plugins.Position;
+import com.jns.orienteering.model.track.PositionFilterChain;
+import com.jns.orienteering.model.track.Track;
+
+/**
+ * Replays a recorded run through the {@link FilteredPositionService} and accumulates the distance of the published
+ * positions like the active mission.
+ * <p>
+ * The fixture <code>synthetic_run.trk</code> is the synthetic run of <code>PositionReplay</code> with seed 42: 5 minutes
+ * standing still, 15 minutes walking at 1.4 m/s and 5 minutes standing still again, at 1 Hz with gaussian GPS noise of 4 m
+ * and occasional jumps of 300 m.
+ */
+public class FilteredPositionServiceTest {
+
+    private static final String FIXTURE       = "/com/jns/orienteering/model/track/synthetic_run.trk";
+    private static final double TRUE_DISTANCE = 900 * 1.4;
+    private static final double TOLERANCE     = 0.15;
+
+    private Track               track;
+    private double              rawDistance;
+    private double              filteredDistance;
+
+    @Before
+    public void setUp() throws IOException {
+        try (InputStream input = new BufferedInputStream(getClass().getResourceAsStream(FIXTURE))) {
+            track = Track.read(input);
+        }
+    }
+
+    @Test
+    public void filteredDistanceIsCloseToTrueDistance() {
+        ReplayPositionService replay = new ReplayPositionService(track, 0, 0, 0);
+        FilteredPositionService positionService = new FilteredPositionService(replay, PositionFilterChain.createDefault());
+
+        replay.positionProperty().addListener((ov, p, p1) ->
+        {
+            if (p != null) {
+                rawDistance += replay.getDistance(p, p1);
+            }
+        });
+        positionService.positionProperty().addListener((ov, p, p1) ->
+        {
+            if (p != null) {
+                filteredDistance += positionService.getDistance(p, p1);
+            }
+        });
+        positionService.activate();
+        replay.advanceTo(Long.MAX_VALUE);
+
+        assertThat(replay.getPublishedFixes()).isEqualTo(track.getSampleCount());
+        assertThat(rawDistance).as("raw distance").isGreaterThan(2 * TRUE_DISTANCE);
+        assertThat(filteredDistance).as("filtered distance").isCloseTo(TRUE_DISTANCE, within(TRUE_DISTANCE * TOLERANCE));
+    }
+
+    @Test
+    public void positionIsNotPublishedWhileStandingStill() {
+        ReplayPositionService replay = new ReplayPositionService(track, 0, 0, 0);
+        FilteredPositionService positionService = new FilteredPositionService(replay, PositionFilterChain.createDefault());
+        positionService.activate();
+
+        // the first minute of the run, standing still
+        replay.advanceTo(10_000);
+        Position position = positionService.getPosition();
+        replay.advanceTo(60_000);
+
+        assertThat(positionService.getPosition()).isNotNull();
+        assertThat(positionService.getDistance(position, positionService.getPosition())).as("drift while standing still")
+                                                                                        .isLessThan(10f);
+    }
+
+}